@@ -36,6 +36,7 @@ public class BytecodeUtil {
                 Double min,
                 Double max,
                 Map<String, String> properties) {
+              // micrometer has already aggregated these per step, so they are not aggregated again
               delegate.trackMetric(
                   null,
                   name,
@@ -48,7 +49,8 @@ public class BytecodeUtil {
                   properties,
                   Collections.emptyMap(),
                   null,
-                  null);
+                  null,
+                  false);
             }
           });
     }
@@ -100,7 +102,8 @@ public class BytecodeUtil {
           properties,
           tags,
           connectionString,
-          instrumentationKey);
+          instrumentationKey,
+          true);
     }
   }
 
@@ -367,7 +370,8 @@ public class BytecodeUtil {
         Map<String, String> properties,
         Map<String, String> tags,
         @Nullable String connectionString,
-        @Nullable String instrumentationKey);
+        @Nullable String instrumentationKey,
+        boolean aggregate);
 
     void trackDependency(
         @Nullable Date timestamp,
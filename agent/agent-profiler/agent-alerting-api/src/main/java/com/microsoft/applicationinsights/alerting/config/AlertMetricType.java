@@ -8,5 +8,6 @@ public enum AlertMetricType {
   MEMORY,
   PERIODIC,
   MANUAL,
-  REQUEST
+  REQUEST,
+  THREAD_CPU
 }
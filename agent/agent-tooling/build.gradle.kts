@@ -1,5 +1,6 @@
 plugins {
   id("ai.java-conventions")
+  id("ai.jmh-conventions")
   id("ai.sdk-version-file")
 }
 
@@ -88,6 +89,12 @@ dependencies {
   testImplementation("org.mockito:mockito-core")
   testImplementation("uk.org.webcompere:system-stubs-jupiter:2.0.2")
   testImplementation("io.github.hakky54:logcaptor")
+
+  jmhImplementation(project(":agent:agent-bootstrap"))
+  jmhImplementation("io.opentelemetry:opentelemetry-sdk")
+  jmhImplementation("io.opentelemetry:opentelemetry-sdk-logs")
+  jmhImplementation("io.opentelemetry:opentelemetry-sdk-metrics")
+  jmhImplementation("io.opentelemetry.instrumentation:opentelemetry-instrumentation-api-semconv")
 }
 
 configurations {
@@ -0,0 +1,122 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.sampling;
+
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.MatchType;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.SamplingOverride;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.SamplingOverrideAttribute;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.sdk.trace.samplers.Sampler;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures {@link SamplingOverrides#getOverride(Attributes)} with a realistic number of overrides
+ * (health checks, static assets and per-route percentages).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SamplingOverridesBenchmark {
+
+  private static final int ROUTES = 30;
+
+  private final SamplingOverrides samplingOverrides = new SamplingOverrides(createOverrides());
+
+  private final Attributes firstRoute = request("GET", "/api/route0", "/api/route0");
+  private final Attributes lastRoute =
+      request("POST", "/api/route" + (ROUTES - 1), "/api/route" + (ROUTES - 1));
+  private final Attributes staticAsset = request("GET", "/static/js/app.js", null);
+  private final Attributes noMatch = request("GET", "/api/other", "/api/other");
+
+  @Benchmark
+  public Sampler firstRoute() {
+    return samplingOverrides.getOverride(firstRoute);
+  }
+
+  @Benchmark
+  public Sampler lastRoute() {
+    return samplingOverrides.getOverride(lastRoute);
+  }
+
+  @Benchmark
+  public Sampler staticAsset() {
+    return samplingOverrides.getOverride(staticAsset);
+  }
+
+  @Benchmark
+  public Sampler noMatch() {
+    return samplingOverrides.getOverride(noMatch);
+  }
+
+  private static List<SamplingOverride> createOverrides() {
+    List<SamplingOverride> overrides = new ArrayList<>();
+    overrides.add(override(0, attribute(SemanticAttributes.HTTP_TARGET.getKey(), "/health")));
+    overrides.add(override(0, regexp(SemanticAttributes.HTTP_TARGET.getKey(), "/static/.*")));
+    overrides.add(override(0, regexp(SemanticAttributes.HTTP_TARGET.getKey(), ".*\\.(png|ico)")));
+    for (int i = 0; i < ROUTES; i++) {
+      overrides.add(
+          override(
+              i % 100,
+              attribute(SemanticAttributes.HTTP_METHOD.getKey(), i % 2 == 0 ? "GET" : "POST"),
+              attribute(SemanticAttributes.HTTP_ROUTE.getKey(), "/api/route" + i)));
+    }
+    return overrides;
+  }
+
+  private static Attributes request(String method, String target, @Nullable String route) {
+    if (route == null) {
+      return Attributes.of(
+          SemanticAttributes.HTTP_METHOD, method, SemanticAttributes.HTTP_TARGET, target);
+    }
+    return Attributes.of(
+        SemanticAttributes.HTTP_METHOD,
+        method,
+        SemanticAttributes.HTTP_TARGET,
+        target,
+        SemanticAttributes.HTTP_ROUTE,
+        route);
+  }
+
+  private static SamplingOverride override(
+      double percentage, SamplingOverrideAttribute... attributes) {
+    SamplingOverride override = new SamplingOverride();
+    override.attributes = Arrays.asList(attributes);
+    override.percentage = percentage;
+    return override;
+  }
+
+  private static SamplingOverrideAttribute attribute(String key, String value) {
+    return newAttribute(key, value, MatchType.STRICT);
+  }
+
+  private static SamplingOverrideAttribute regexp(String key, String value) {
+    return newAttribute(key, value, MatchType.REGEXP);
+  }
+
+  private static SamplingOverrideAttribute newAttribute(
+      String key, String value, MatchType matchType) {
+    SamplingOverrideAttribute attribute = new SamplingOverrideAttribute();
+    attribute.key = key;
+    attribute.value = value;
+    attribute.matchType = matchType;
+    return attribute;
+  }
+}
@@ -0,0 +1,76 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.telemetry;
+
+import com.azure.core.http.HttpHeaders;
+import com.azure.core.http.HttpPipeline;
+import com.azure.core.http.HttpPipelineBuilder;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.http.HttpResponse;
+import com.azure.monitor.opentelemetry.exporter.implementation.logging.DiagnosticTelemetryPipelineListener;
+import com.azure.monitor.opentelemetry.exporter.implementation.pipeline.TelemetryItemExporter;
+import com.azure.monitor.opentelemetry.exporter.implementation.pipeline.TelemetryPipeline;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// http pipeline that accepts everything without doing any network i/o, so that benchmarks measure
+// the agent-side cost of mapping, queueing, batching and encoding
+final class NoopHttpPipeline {
+
+  static TelemetryItemExporter createTelemetryItemExporter() {
+    HttpPipeline httpPipeline =
+        new HttpPipelineBuilder()
+            .httpClient(request -> Mono.just(new SuccessResponse(request)))
+            .build();
+    return new TelemetryItemExporter(
+        new TelemetryPipeline(httpPipeline),
+        new DiagnosticTelemetryPipelineListener("Sending telemetry to the benchmark", false));
+  }
+
+  private static class SuccessResponse extends HttpResponse {
+
+    private SuccessResponse(HttpRequest request) {
+      super(request);
+    }
+
+    @Override
+    public int getStatusCode() {
+      return 200;
+    }
+
+    @Override
+    public String getHeaderValue(String name) {
+      return null;
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+      return new HttpHeaders();
+    }
+
+    @Override
+    public Flux<ByteBuffer> getBody() {
+      return Flux.empty();
+    }
+
+    @Override
+    public Mono<byte[]> getBodyAsByteArray() {
+      return Mono.just(new byte[0]);
+    }
+
+    @Override
+    public Mono<String> getBodyAsString() {
+      return Mono.just("");
+    }
+
+    @Override
+    public Mono<String> getBodyAsString(Charset charset) {
+      return Mono.just("");
+    }
+  }
+
+  private NoopHttpPipeline() {}
+}
@@ -0,0 +1,207 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.telemetry;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.SpanDataMapper;
+import com.microsoft.applicationinsights.agent.internal.exporter.AgentSpanExporter;
+import com.microsoft.applicationinsights.agent.internal.statsbeat.StatsbeatModule;
+import io.opentelemetry.api.trace.SpanKind;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SdkTracerProvider;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
+import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares the default two-stage span pipeline ({@link BatchSpanProcessor} -> {@link
+ * AgentSpanExporter} -> {@link BatchItemProcessor} -> exporter) against {@link
+ * SingleStageBatchProcessor}.
+ *
+ * <p>Each operation ends a burst of spans on the application threads and then waits for the
+ * pipeline to fully drain, so the throughput score covers the whole pipeline (not just the enqueue
+ * on the application thread), and the sample time score shows the end-to-end latency of a burst.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpanPipelineBenchmark {
+
+  private static final int SPANS_PER_BURST = 512;
+
+  private static final String CONNECTION_STRING =
+      "InstrumentationKey=00000000-0000-0000-0000-0FEEDDADBEEF;IngestionEndpoint=http://localhost";
+
+  @Param({"twoStage", "singleStage"})
+  public String pipeline;
+
+  private SdkTracerProvider tracerProvider;
+  private Tracer tracer;
+  private PipelineFlusher flusher;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    TelemetryClient telemetryClient = getOrCreateActiveTelemetryClient();
+
+    SpanDataMapper mapper =
+        new SpanDataMapper(true, telemetryClient::populateDefaults, (event, name) -> false);
+
+    SpanProcessor spanProcessor;
+    if (pipeline.equals("twoStage")) {
+      BatchItemProcessor batchItemProcessor =
+          BatchItemProcessor.builder(NoopHttpPipeline.createTelemetryItemExporter())
+              .setMaxQueueSize(2048)
+              .setMaxExportBatchSize(512)
+              .setMaxPendingExports(100)
+              .build("general");
+      BatchSpanProcessor batchSpanProcessor =
+          BatchSpanProcessor.builder(
+                  new AgentSpanExporter(mapper, null, batchItemProcessor::trackAsync))
+              .setScheduleDelay(Duration.ofMillis(100))
+              .build();
+      spanProcessor = batchSpanProcessor;
+      flusher =
+          () -> {
+            batchSpanProcessor.forceFlush().join(10, TimeUnit.SECONDS);
+            return batchItemProcessor.forceFlush();
+          };
+    } else {
+      long exportDelayNanos =
+          TimeUnit.MILLISECONDS.toNanos(BatchItemProcessorBuilder.DEFAULT_SCHEDULE_DELAY_MILLIS);
+      SingleStageBatchProcessor<ReadableSpan> processor =
+          new SingleStageBatchProcessor<>(
+              NoopHttpPipeline.createTelemetryItemExporter(),
+              sink -> mapper(new AgentSpanExporter(mapper, null, sink)),
+              TimeUnit.MILLISECONDS.toNanos(100),
+              exportDelayNanos,
+              2048,
+              512,
+              100,
+              "general");
+      spanProcessor = new SimpleSingleStageSpanProcessor(processor);
+      flusher = processor::forceFlush;
+    }
+
+    tracerProvider = SdkTracerProvider.builder().addSpanProcessor(spanProcessor).build();
+    tracer = tracerProvider.get("benchmark");
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    tracerProvider.shutdown().join(10, TimeUnit.SECONDS);
+  }
+
+  @Benchmark
+  @Threads(4)
+  @OperationsPerInvocation(SPANS_PER_BURST)
+  public void endSpansAndDrain() {
+    for (int i = 0; i < SPANS_PER_BURST; i++) {
+      tracer
+          .spanBuilder("GET /api/items")
+          .setSpanKind(SpanKind.CLIENT)
+          .setAttribute(SemanticAttributes.HTTP_METHOD, "GET")
+          .setAttribute(SemanticAttributes.HTTP_URL, "https://example.com/api/items?id=" + i)
+          .setAttribute(SemanticAttributes.HTTP_STATUS_CODE, 200L)
+          .startSpan()
+          .end();
+    }
+    flusher.flush().join(10, TimeUnit.SECONDS);
+  }
+
+  private static Consumer<List<ReadableSpan>> mapper(AgentSpanExporter exporter) {
+    return spans -> {
+      List<SpanData> spanData = new ArrayList<>(spans.size());
+      for (ReadableSpan span : spans) {
+        spanData.add(span.toSpanData());
+      }
+      exporter.export(spanData);
+    };
+  }
+
+  private static synchronized TelemetryClient getOrCreateActiveTelemetryClient() {
+    try {
+      return TelemetryClient.getActive();
+    } catch (IllegalStateException e) {
+      TelemetryClient telemetryClient =
+          TelemetryClient.builder()
+              .setCustomDimensions(new HashMap<>())
+              .setMetricFilters(new ArrayList<>())
+              .setStatsbeatModule(new StatsbeatModule())
+              .setConnectionStrings(CONNECTION_STRING, null, null)
+              .build();
+      TelemetryClient.setActive(telemetryClient);
+      return telemetryClient;
+    }
+  }
+
+  private interface PipelineFlusher {
+    CompletableResultCode flush();
+  }
+
+  // same as SingleStageSpanProcessor in the init package, minus the TelemetryClient wiring
+  private static class SimpleSingleStageSpanProcessor implements SpanProcessor {
+
+    private final SingleStageBatchProcessor<ReadableSpan> processor;
+
+    private SimpleSingleStageSpanProcessor(SingleStageBatchProcessor<ReadableSpan> processor) {
+      this.processor = processor;
+    }
+
+    @Override
+    public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+    @Override
+    public boolean isStartRequired() {
+      return false;
+    }
+
+    @Override
+    public void onEnd(ReadableSpan span) {
+      processor.trackAsync(span);
+    }
+
+    @Override
+    public boolean isEndRequired() {
+      return true;
+    }
+
+    @Override
+    public CompletableResultCode forceFlush() {
+      return processor.forceFlush();
+    }
+
+    @Override
+    public CompletableResultCode shutdown() {
+      return processor.shutdown();
+    }
+  }
+}
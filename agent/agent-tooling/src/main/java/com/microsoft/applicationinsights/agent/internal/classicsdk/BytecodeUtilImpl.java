@@ -57,6 +57,9 @@ public class BytecodeUtilImpl implements BytecodeUtilDelegate {
   public static volatile RuntimeConfigurator runtimeConfigurator;
   public static volatile boolean connectionStringConfiguredAtRuntime;
 
+  // when not null, trackMetric() calls are aggregated instead of being sent individually
+  @Nullable public static volatile TrackMetricAggregator trackMetricAggregator;
+
   @Override
   public void setConnectionString(String connectionString) {
     if (!connectionStringConfiguredAtRuntime) {
@@ -125,11 +128,32 @@ public class BytecodeUtilImpl implements BytecodeUtilDelegate {
       Map<String, String> properties,
       Map<String, String> tags,
       @Nullable String connectionString,
-      @Nullable String instrumentationKey) {
+      @Nullable String instrumentationKey,
+      boolean aggregate) {
 
     if (Strings.isNullOrEmpty(name)) {
       return;
     }
+    TrackMetricAggregator aggregator = trackMetricAggregator;
+    // metrics with an explicit timestamp are not aggregated, since that timestamp would be lost
+    if (aggregate && aggregator != null && timestamp == null) {
+      aggregator.record(
+          new TrackMetricAggregator.SeriesKey(
+              name,
+              namespace,
+              properties,
+              tags,
+              getConnectionString(connectionString, instrumentationKey)),
+          value,
+          count,
+          min,
+          max,
+          stdDev);
+      if (featureStatsbeat != null) {
+        featureStatsbeat.track2xBridgeUsage();
+      }
+      return;
+    }
     MetricTelemetryBuilder telemetryBuilder =
         TelemetryClient.getActive().newMetricTelemetryBuilder();
 
@@ -455,6 +479,11 @@ public class BytecodeUtilImpl implements BytecodeUtilDelegate {
 
   @Override
   public void flush() {
+    TrackMetricAggregator aggregator = trackMetricAggregator;
+    if (aggregator != null) {
+      // the aggregated metrics are then sent by the telemetry client flush below
+      aggregator.flush();
+    }
     // this is not null because sdk instrumentation is not added until TelemetryClient.setActive()
     // is called
     TelemetryClient.getActive().forceFlush().join(10, SECONDS);
@@ -553,14 +582,21 @@ public class BytecodeUtilImpl implements BytecodeUtilDelegate {
       AbstractTelemetryBuilder telemetryBuilder,
       @Nullable String connectionString,
       @Nullable String instrumentationKey) {
-    if (connectionString == null && instrumentationKey != null) {
-      connectionString = "InstrumentationKey=" + instrumentationKey;
-    }
+    connectionString = getConnectionString(connectionString, instrumentationKey);
     if (connectionString != null) {
       telemetryBuilder.setConnectionString(connectionString);
     }
   }
 
+  @Nullable
+  private static String getConnectionString(
+      @Nullable String connectionString, @Nullable String instrumentationKey) {
+    if (connectionString == null && instrumentationKey != null) {
+      return "InstrumentationKey=" + instrumentationKey;
+    }
+    return connectionString;
+  }
+
   private static boolean sample(String operationId, double samplingPercentage) {
     if (samplingPercentage == 100) {
       // just an optimization
@@ -0,0 +1,332 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.classicsdk;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.MetricPointBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.MetricTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.ContextTagKeys;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.FormattedTime;
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.ThreadPoolUtils;
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates the metrics tracked via the 2.x SDK {@code TelemetryClient.trackMetric()} per series
+ * (name, namespace, custom dimensions, context tags and connection string), and sends a single
+ * pre-aggregated metric per series per interval, instead of one metric per call.
+ *
+ * <p>The number of series is capped. Values for new series beyond the cap are folded into an
+ * overflow series per metric name, whose only custom dimension is {@code _OTHER_}.
+ */
+public final class TrackMetricAggregator {
+
+  private static final Logger logger = LoggerFactory.getLogger(TrackMetricAggregator.class);
+
+  static final String OVERFLOW_PROPERTY = "_OTHER_";
+
+  private static final long POSITIVE_INFINITY_BITS =
+      Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+  private static final long NEGATIVE_INFINITY_BITS =
+      Double.doubleToRawLongBits(Double.NEGATIVE_INFINITY);
+
+  private final int maxSeries;
+  private final Supplier<MetricTelemetryBuilder> telemetryBuilderSupplier;
+  private final Consumer<TelemetryItem> telemetryItemConsumer;
+
+  private final Map<SeriesKey, Accumulator> series = new ConcurrentHashMap<>();
+  private final AtomicBoolean alreadyLoggedOverflow = new AtomicBoolean();
+
+  // null in tests, which flush explicitly
+  @Nullable private volatile ScheduledExecutorService scheduledExecutor;
+
+  public static TrackMetricAggregator start(long intervalSeconds, int maxSeries) {
+    TrackMetricAggregator aggregator =
+        new TrackMetricAggregator(
+            maxSeries,
+            () -> TelemetryClient.getActive().newMetricTelemetryBuilder(),
+            telemetryItem -> TelemetryClient.getActive().trackAsync(telemetryItem));
+    ScheduledExecutorService scheduledExecutor =
+        Executors.newSingleThreadScheduledExecutor(
+            ThreadPoolUtils.createDaemonThreadFactory(TrackMetricAggregator.class));
+    scheduledExecutor.scheduleWithFixedDelay(
+        aggregator::flush, intervalSeconds, intervalSeconds, SECONDS);
+    aggregator.scheduledExecutor = scheduledExecutor;
+    return aggregator;
+  }
+
+  TrackMetricAggregator(
+      int maxSeries,
+      Supplier<MetricTelemetryBuilder> telemetryBuilderSupplier,
+      Consumer<TelemetryItem> telemetryItemConsumer) {
+    this.maxSeries = maxSeries;
+    this.telemetryBuilderSupplier = telemetryBuilderSupplier;
+    this.telemetryItemConsumer = telemetryItemConsumer;
+  }
+
+  // same as in the 2.x SDK, value is the sum of the values when count is not null
+  void record(
+      SeriesKey key,
+      double value,
+      @Nullable Integer count,
+      @Nullable Double min,
+      @Nullable Double max,
+      @Nullable Double stdDev) {
+    Accumulator accumulator = getAccumulator(key);
+    if (accumulator == null) {
+      return;
+    }
+    if (count == null) {
+      accumulator.record(value);
+    } else if (count > 0) {
+      accumulator.record(value, count, min, max, stdDev);
+    }
+  }
+
+  @Nullable
+  private Accumulator getAccumulator(SeriesKey key) {
+    Accumulator accumulator = series.get(key);
+    if (accumulator != null) {
+      return accumulator;
+    }
+    if (series.size() < maxSeries) {
+      // the key may refer to maps that are reused by the caller
+      return series.computeIfAbsent(key.copy(), k -> new Accumulator());
+    }
+    if (!alreadyLoggedOverflow.getAndSet(true)) {
+      logger.warn(
+          "Number of trackMetric() series exceeded the limit of {}, additional series will be"
+              + " reported under the {} dimension",
+          maxSeries,
+          OVERFLOW_PROPERTY);
+    }
+    SeriesKey overflowKey = key.toOverflow();
+    accumulator = series.get(overflowKey);
+    if (accumulator != null) {
+      return accumulator;
+    }
+    // overflow series (one per metric name) are bounded separately, so that memory stays bounded
+    // even when metric names have unbounded cardinality
+    if (series.size() < 2 * maxSeries) {
+      return series.computeIfAbsent(overflowKey, k -> new Accumulator());
+    }
+    return null;
+  }
+
+  /** Stops the periodic flush, e.g. on shutdown, after which only {@link #flush()} sends. */
+  public void shutdown() {
+    ScheduledExecutorService scheduledExecutor = this.scheduledExecutor;
+    if (scheduledExecutor != null) {
+      scheduledExecutor.shutdown();
+    }
+  }
+
+  /** Sends the series that have been recorded since the previous flush. */
+  public void flush() {
+    try {
+      for (Map.Entry<SeriesKey, Accumulator> entry : series.entrySet()) {
+        SeriesKey key = entry.getKey();
+        Accumulator accumulator = entry.getValue();
+        long count = accumulator.count.sumThenReset();
+        if (count == 0) {
+          // nothing recorded for a whole interval, so free up the series
+          // (a value recorded concurrently with the removal can be lost)
+          series.remove(key, accumulator);
+          continue;
+        }
+        telemetryItemConsumer.accept(createTelemetryItem(key, accumulator, count));
+      }
+    } catch (Throwable t) {
+      logger.error("Error occurred while sending aggregated trackMetric() metrics", t);
+    }
+  }
+
+  private TelemetryItem createTelemetryItem(SeriesKey key, Accumulator accumulator, long count) {
+    // concurrent updates can end up partly in this interval and partly in the next
+    double sum = accumulator.sum.sumThenReset();
+    double sumOfSquares = accumulator.sumOfSquares.sumThenReset();
+    double min = Double.longBitsToDouble(accumulator.minBits.getAndSet(POSITIVE_INFINITY_BITS));
+    double max = Double.longBitsToDouble(accumulator.maxBits.getAndSet(NEGATIVE_INFINITY_BITS));
+    double mean = sum / count;
+
+    MetricPointBuilder point = new MetricPointBuilder();
+    point.setName(key.name);
+    point.setNamespace(key.namespace);
+    point.setValue(sum);
+    point.setCount((int) Math.min(count, Integer.MAX_VALUE));
+    point.setMin(Math.min(min, mean));
+    point.setMax(Math.max(max, mean));
+    point.setStdDev(Math.sqrt(Math.max(sumOfSquares / count - mean * mean, 0)));
+
+    MetricTelemetryBuilder telemetryBuilder = telemetryBuilderSupplier.get();
+    telemetryBuilder.setMetricPoint(point);
+    for (Map.Entry<String, String> entry : key.properties.entrySet()) {
+      telemetryBuilder.addProperty(entry.getKey(), entry.getValue());
+    }
+    for (Map.Entry<String, String> entry : key.tags.entrySet()) {
+      telemetryBuilder.addTag(entry.getKey(), entry.getValue());
+    }
+    if (key.connectionString != null) {
+      telemetryBuilder.setConnectionString(key.connectionString);
+    }
+    telemetryBuilder.setTime(FormattedTime.offSetDateTimeFromNow());
+    return telemetryBuilder.build();
+  }
+
+  static final class SeriesKey {
+
+    private final String name;
+    @Nullable private final String namespace;
+    private final Map<String, String> properties;
+    private final Map<String, String> tags;
+    @Nullable private final String connectionString;
+    private final int hashCode;
+
+    SeriesKey(
+        String name,
+        @Nullable String namespace,
+        Map<String, String> properties,
+        Map<String, String> tags,
+        @Nullable String connectionString) {
+      this.name = name;
+      this.namespace = namespace;
+      this.properties = properties;
+      this.tags = withStableTagsOnly(tags);
+      this.connectionString = connectionString;
+      hashCode = Objects.hash(name, namespace, this.properties, this.tags, connectionString);
+    }
+
+    private SeriesKey copy() {
+      return new SeriesKey(
+          name, namespace, new HashMap<>(properties), new HashMap<>(tags), connectionString);
+    }
+
+    private SeriesKey toOverflow() {
+      return new SeriesKey(
+          name,
+          namespace,
+          Collections.singletonMap(OVERFLOW_PROPERTY, "true"),
+          Collections.emptyMap(),
+          connectionString);
+    }
+
+    // other tags (e.g. operation, user, session and location tags) can differ per call, which would
+    // make the number of series unbounded, and they don't make sense on an aggregated metric
+    private static Map<String, String> withStableTagsOnly(Map<String, String> tags) {
+      boolean hasOtherTags = false;
+      for (String tag : tags.keySet()) {
+        if (!isStableTag(tag)) {
+          hasOtherTags = true;
+          break;
+        }
+      }
+      if (!hasOtherTags) {
+        return tags;
+      }
+      Map<String, String> filtered = new HashMap<>();
+      for (Map.Entry<String, String> entry : tags.entrySet()) {
+        if (isStableTag(entry.getKey())) {
+          filtered.put(entry.getKey(), entry.getValue());
+        }
+      }
+      return filtered;
+    }
+
+    private static boolean isStableTag(String tag) {
+      return tag.equals(ContextTagKeys.AI_CLOUD_ROLE.toString())
+          || tag.equals(ContextTagKeys.AI_CLOUD_ROLE_INSTANCE.toString())
+          || tag.equals(ContextTagKeys.AI_APPLICATION_VER.toString())
+          || tag.equals(ContextTagKeys.AI_DEVICE_TYPE.toString());
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof SeriesKey)) {
+        return false;
+      }
+      SeriesKey other = (SeriesKey) obj;
+      return hashCode == other.hashCode
+          && name.equals(other.name)
+          && Objects.equals(namespace, other.namespace)
+          && properties.equals(other.properties)
+          && tags.equals(other.tags)
+          && Objects.equals(connectionString, other.connectionString);
+    }
+
+    @Override
+    public int hashCode() {
+      return hashCode;
+    }
+  }
+
+  // the adders are striped internally, so concurrent recording doesn't contend on a single cell
+  private static final class Accumulator {
+
+    private final LongAdder count = new LongAdder();
+    private final DoubleAdder sum = new DoubleAdder();
+    private final DoubleAdder sumOfSquares = new DoubleAdder();
+    // min and max are only written when they change, which is rare after the first few values
+    private final AtomicLong minBits = new AtomicLong(POSITIVE_INFINITY_BITS);
+    private final AtomicLong maxBits = new AtomicLong(NEGATIVE_INFINITY_BITS);
+
+    private void record(double value) {
+      count.increment();
+      sum.add(value);
+      sumOfSquares.add(value * value);
+      updateMin(value);
+      updateMax(value);
+    }
+
+    private void record(
+        double sum,
+        int count,
+        @Nullable Double min,
+        @Nullable Double max,
+        @Nullable Double stdDev) {
+      double mean = sum / count;
+      double variance = stdDev == null ? 0 : stdDev * stdDev;
+      this.count.add(count);
+      this.sum.add(sum);
+      this.sumOfSquares.add(count * (variance + mean * mean));
+      updateMin(min == null ? mean : min);
+      updateMax(max == null ? mean : max);
+    }
+
+    private void updateMin(double value) {
+      long current = minBits.get();
+      while (value < Double.longBitsToDouble(current)
+          && !minBits.compareAndSet(current, Double.doubleToRawLongBits(value))) {
+        current = minBits.get();
+      }
+    }
+
+    private void updateMax(double value) {
+      long current = maxBits.get();
+      while (value > Double.longBitsToDouble(current)
+          && !maxBits.compareAndSet(current, Double.doubleToRawLongBits(value))) {
+        current = maxBits.get();
+      }
+    }
+  }
+}
@@ -0,0 +1,124 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.common;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.CacheStats;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Wraps a {@link Pattern} with a bounded cache of match results, since the inputs (span names,
+ * routes, urls, logger names) are typically highly repetitive.
+ *
+ * <p>Reads are lock-free. Each pattern has its own cache, which is cleared once it is full, and
+ * caching is turned off for a pattern once its hit rate shows that the inputs have too high a
+ * cardinality to benefit.
+ */
+public final class CachingPattern {
+
+  private static final Logger logger = LoggerFactory.getLogger(CachingPattern.class);
+
+  // the hit rate is only evaluated after this many lookups
+  private static final int MIN_LOOKUPS = 1000;
+  private static final double MIN_HIT_RATE = 0.5;
+
+  private static final LongAdder totalHits = new LongAdder();
+  private static final LongAdder totalMisses = new LongAdder();
+
+  // configured via preview.regexResultCacheSize, and read when the pattern is created
+  // (0 disables caching)
+  public static volatile int maxCacheSize = 256;
+
+  private final Pattern pattern;
+  private final boolean find;
+  private final int maxSize;
+
+  // null once caching has been turned off
+  @Nullable private volatile Map<String, Boolean> cache;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /** Returns a {@link CachingPattern} that tests using {@link Matcher#matches()}. */
+  public static CachingPattern forMatches(String regex) {
+    return new CachingPattern(Pattern.compile(regex), false);
+  }
+
+  /** Returns a {@link CachingPattern} that tests using {@link Matcher#find()}. */
+  public static CachingPattern forFind(String regex) {
+    return new CachingPattern(Pattern.compile(regex), true);
+  }
+
+  private CachingPattern(Pattern pattern, boolean find) {
+    this.pattern = pattern;
+    this.find = find;
+    maxSize = maxCacheSize;
+    cache = maxSize > 0 ? new ConcurrentHashMap<>() : null;
+  }
+
+  public Pattern getPattern() {
+    return pattern;
+  }
+
+  public boolean test(String input) {
+    Map<String, Boolean> cache = this.cache;
+    if (cache == null) {
+      return evaluate(input);
+    }
+    Boolean cached = cache.get(input);
+    if (cached != null) {
+      hits.increment();
+      totalHits.increment();
+      return cached;
+    }
+    misses.increment();
+    totalMisses.increment();
+    boolean result = evaluate(input);
+    if (cache.size() >= maxSize) {
+      if (isHitRateTooLow()) {
+        this.cache = null;
+        logger.debug(
+            "turning off the regex result cache for {} (hit rate {})", pattern, getHitRate());
+        return result;
+      }
+      // simplest eviction that keeps reads lock-free
+      cache.clear();
+    }
+    cache.put(input, result);
+    return result;
+  }
+
+  public double getHitRate() {
+    return hitRate(hits.sum(), misses.sum());
+  }
+
+  /**
+   * Returns the overall hits and misses across all patterns, which are reported as statsbeat to
+   * confirm that caching is helping.
+   */
+  public static CacheStats getTotalStats() {
+    return CacheStats.of(totalHits::sum, totalMisses::sum);
+  }
+
+  private boolean evaluate(String input) {
+    return find ? pattern.matcher(input).find() : pattern.matcher(input).matches();
+  }
+
+  private boolean isHitRateTooLow() {
+    long hitCount = hits.sum();
+    long missCount = misses.sum();
+    return hitCount + missCount >= MIN_LOOKUPS && hitRate(hitCount, missCount) < MIN_HIT_RATE;
+  }
+
+  private static double hitRate(long hits, long misses) {
+    long lookups = hits + misses;
+    return lookups == 0 ? 0 : hits / (double) lookups;
+  }
+}
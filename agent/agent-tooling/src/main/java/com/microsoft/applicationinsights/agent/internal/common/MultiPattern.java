@@ -0,0 +1,358 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.common;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import javax.annotation.Nullable;
+
+/**
+ * A set of regular expressions (tested using {@link java.util.regex.Matcher#find()}) that can be
+ * matched against an input without running every regex.
+ *
+ * <p>A literal string which every match of a regex has to contain is extracted from each regex
+ * (where possible), and all of these literals are searched for in a single scan of the input (using
+ * Aho-Corasick). Only the regexes whose literal was found (and the regexes that don't have a
+ * literal) are then actually run, so that a large set of e.g. route patterns costs roughly the same
+ * as a single pattern.
+ */
+public final class MultiPattern {
+
+  // escapes that match a single (non-literal) character, or a boundary
+  private static final String NON_LITERAL_ESCAPES = "dDsSwWbBAGzZhHvVRXtnrfae";
+
+  private final List<CachingPattern> patterns;
+  // the regexes that can't be skipped based on the literal scan
+  private final BitSet alwaysCandidates;
+  @Nullable private final LiteralScanner scanner;
+
+  public static MultiPattern forFind(List<String> regexes) {
+    return new MultiPattern(regexes);
+  }
+
+  private MultiPattern(List<String> regexes) {
+    patterns = new ArrayList<>(regexes.size());
+    alwaysCandidates = new BitSet(regexes.size());
+    List<String> literals = new ArrayList<>(regexes.size());
+    boolean hasLiterals = false;
+    for (int i = 0; i < regexes.size(); i++) {
+      String regex = regexes.get(i);
+      patterns.add(CachingPattern.forFind(regex));
+      String literal = getRequiredLiteral(regex);
+      if (literal == null) {
+        alwaysCandidates.set(i);
+      } else {
+        hasLiterals = true;
+      }
+      literals.add(literal);
+    }
+    scanner = hasLiterals ? new LiteralScanner(literals) : null;
+  }
+
+  public boolean isEmpty() {
+    return patterns.isEmpty();
+  }
+
+  public int size() {
+    return patterns.size();
+  }
+
+  public Pattern getPattern(int index) {
+    return patterns.get(index).getPattern();
+  }
+
+  /** Returns whether any of the regexes is found in the input. */
+  public boolean findAny(String input) {
+    BitSet candidates = getCandidates(input);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      if (patterns.get(i).test(input)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the indexes of the regexes that may be found in the input (all other regexes are
+   * guaranteed not to be found), based on a single scan of the input.
+   */
+  public BitSet getCandidates(String input) {
+    BitSet candidates = (BitSet) alwaysCandidates.clone();
+    if (scanner != null) {
+      scanner.scan(input, candidates);
+    }
+    return candidates;
+  }
+
+  /**
+   * Returns the longest literal string that every match of the regex has to contain, or null if
+   * there isn't one (or if the regex is too complex to tell).
+   *
+   * <p>This only needs to be conservative: returning null is always safe.
+   */
+  @Nullable
+  static String getRequiredLiteral(String regex) {
+    String longest = "";
+    StringBuilder run = new StringBuilder();
+    // whether the last character in the run can be made optional by a following quantifier
+    boolean lastIsLiteral = false;
+    int i = 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      switch (c) {
+        case '\\':
+          if (i + 1 == regex.length()) {
+            return null;
+          }
+          char next = regex.charAt(i + 1);
+          if (Character.isLetterOrDigit(next)) {
+            // back references, quoting (\Q), hex and unicode escapes, etc are not handled
+            if (NON_LITERAL_ESCAPES.indexOf(next) == -1) {
+              return null;
+            }
+            longest = longer(longest, run);
+            lastIsLiteral = false;
+          } else {
+            run.append(next);
+            lastIsLiteral = true;
+          }
+          i += 2;
+          break;
+        case '|':
+          // alternation at the top level
+          return null;
+        case '[':
+          i = skipCharacterClass(regex, i);
+          if (i == -1) {
+            return null;
+          }
+          longest = longer(longest, run);
+          lastIsLiteral = false;
+          break;
+        case '(':
+          if (i + 2 < regex.length()
+              && regex.charAt(i + 1) == '?'
+              && (Character.isLetter(regex.charAt(i + 2)) || regex.charAt(i + 2) == '-')) {
+            // inline flags, e.g. (?i), can change how the rest of the regex matches
+            return null;
+          }
+          // the group may be optional, or contain alternation
+          i = skipGroup(regex, i);
+          if (i == -1) {
+            return null;
+          }
+          longest = longer(longest, run);
+          lastIsLiteral = false;
+          break;
+        case '?':
+        case '*':
+        case '{':
+          // the preceding character may not appear at all
+          if (lastIsLiteral) {
+            run.setLength(run.length() - 1);
+          }
+          longest = longer(longest, run);
+          lastIsLiteral = false;
+          if (c == '{') {
+            i = regex.indexOf('}', i);
+            if (i == -1) {
+              return null;
+            }
+          }
+          i++;
+          break;
+        case '+':
+          // the preceding character appears at least once, but may repeat
+          longest = longer(longest, run);
+          lastIsLiteral = false;
+          i++;
+          break;
+        case '.':
+        case '^':
+        case '$':
+        case ')':
+        case ']':
+        case '}':
+          longest = longer(longest, run);
+          lastIsLiteral = false;
+          i++;
+          break;
+        default:
+          run.append(c);
+          lastIsLiteral = true;
+          i++;
+      }
+    }
+    longest = longer(longest, run);
+    return longest.isEmpty() ? null : longest;
+  }
+
+  // returns the longer of the two, and resets the run
+  private static String longer(String longest, StringBuilder run) {
+    String result = run.length() > longest.length() ? run.toString() : longest;
+    run.setLength(0);
+    return result;
+  }
+
+  // returns the index after the closing ']', or -1 if there isn't one
+  private static int skipCharacterClass(String regex, int start) {
+    int i = start + 1;
+    if (i < regex.length() && regex.charAt(i) == '^') {
+      i++;
+    }
+    if (i < regex.length() && regex.charAt(i) == ']') {
+      // a leading ']' is a literal
+      i++;
+    }
+    int depth = 1;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i += 2;
+        continue;
+      }
+      if (c == '[') {
+        depth++;
+      } else if (c == ']' && --depth == 0) {
+        return i + 1;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  // returns the index after the closing ')', or -1 if there isn't one
+  private static int skipGroup(String regex, int start) {
+    int depth = 1;
+    int i = start + 1;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i += 2;
+        continue;
+      }
+      if (c == '[') {
+        i = skipCharacterClass(regex, i);
+        if (i == -1) {
+          return -1;
+        }
+        continue;
+      }
+      if (c == '(') {
+        depth++;
+      } else if (c == ')' && --depth == 0) {
+        return i + 1;
+      }
+      i++;
+    }
+    return -1;
+  }
+
+  // Aho-Corasick automaton over the required literals
+  private static final class LiteralScanner {
+
+    // children of each node, as sorted characters and the corresponding nodes
+    private final char[][] childChars;
+    private final int[][] childNodes;
+    private final int[] fail;
+    // indexes of the regexes whose literal ends at each node (including via fail links)
+    private final int[][] outputs;
+
+    private LiteralScanner(List<String> literals) {
+      List<TreeMap<Character, Integer>> children = new ArrayList<>();
+      List<List<Integer>> nodeOutputs = new ArrayList<>();
+      children.add(new TreeMap<>());
+      nodeOutputs.add(new ArrayList<>());
+      for (int i = 0; i < literals.size(); i++) {
+        String literal = literals.get(i);
+        if (literal == null) {
+          continue;
+        }
+        int node = 0;
+        for (int j = 0; j < literal.length(); j++) {
+          Integer child = children.get(node).get(literal.charAt(j));
+          if (child == null) {
+            child = children.size();
+            children.add(new TreeMap<>());
+            nodeOutputs.add(new ArrayList<>());
+            children.get(node).put(literal.charAt(j), child);
+          }
+          node = child;
+        }
+        nodeOutputs.get(node).add(i);
+      }
+
+      int size = children.size();
+      childChars = new char[size][];
+      childNodes = new int[size][];
+      for (int node = 0; node < size; node++) {
+        TreeMap<Character, Integer> map = children.get(node);
+        childChars[node] = new char[map.size()];
+        childNodes[node] = new int[map.size()];
+        int k = 0;
+        for (Map.Entry<Character, Integer> entry : map.entrySet()) {
+          childChars[node][k] = entry.getKey();
+          childNodes[node][k] = entry.getValue();
+          k++;
+        }
+      }
+
+      // breadth first, so that the fail node (which is shallower) is always computed first
+      // (the fail node of the root's children is the root)
+      fail = new int[size];
+      Queue<Integer> queue = new ArrayDeque<>();
+      for (int child : childNodes[0]) {
+        queue.add(child);
+      }
+      while (!queue.isEmpty()) {
+        int node = queue.remove();
+        nodeOutputs.get(node).addAll(nodeOutputs.get(fail[node]));
+        for (int k = 0; k < childChars[node].length; k++) {
+          int child = childNodes[node][k];
+          fail[child] = next(fail[node], childChars[node][k]);
+          queue.add(child);
+        }
+      }
+
+      outputs = new int[size][];
+      for (int node = 0; node < size; node++) {
+        List<Integer> list = nodeOutputs.get(node);
+        outputs[node] = new int[list.size()];
+        for (int k = 0; k < list.size(); k++) {
+          outputs[node][k] = list.get(k);
+        }
+      }
+    }
+
+    private void scan(String input, BitSet found) {
+      int node = 0;
+      for (int i = 0; i < input.length(); i++) {
+        node = next(node, input.charAt(i));
+        for (int index : outputs[node]) {
+          found.set(index);
+        }
+      }
+    }
+
+    private int next(int node, char c) {
+      while (true) {
+        int k = Arrays.binarySearch(childChars[node], c);
+        if (k >= 0) {
+          return childNodes[node][k];
+        }
+        if (node == 0) {
+          return 0;
+        }
+        node = fail[node];
+      }
+    }
+  }
+}
@@ -355,9 +355,45 @@ public class Configuration {
     // telemetry (they are much smaller so a larger queue size is ok)
     public int metricsExportQueueCapacity = 65536;
 
+    // when enabled, spans and logs are mapped, batched and sent from a single worker thread,
+    // instead of being queued in BatchSpanProcessor/BatchLogRecordProcessor and then queued again
+    // (after mapping) in the general export queue
+    public boolean singleStageExportPipeline;
+
+    // maximum number of cached results per regex (for telemetry processors and sampling
+    // overrides), caching is turned off automatically for regexes whose inputs have too high a
+    // cardinality to benefit from it (0 disables caching)
+    public int regexResultCacheSize = 256;
+
+    // maximum number of cached results of the attribute processor "hash" action, since the hashed
+    // values (e.g. user ids) are typically highly repetitive (0 disables caching)
+    // note that the cache keeps the values before hashing (e.g. user ids, emails) in the heap, so
+    // set this to 0 if the raw values must not be retained (e.g. in heap dumps)
+    public int hashActionCacheSize = 1000;
+
+    // when set, the attribute processor "hash" action uses HMAC-SHA256 with this key instead of
+    // plain SHA-256, so that hashed values can't be recovered by hashing guessed values
+    @Nullable public String hashActionHmacKey;
+
     // disk persistence has a default capacity of 50MB
     public int diskPersistenceMaxSizeMb = 50;
 
+    public TrackMetricAggregation trackMetricAggregation = new TrackMetricAggregation();
+
+    // maximum number of distinct series (dimension values) exported per metric, additional series
+    // are reported under a single "_OTHER_" series per metric (0 means no limit)
+    public int maxMetricSeriesPerMetric;
+
+    public ExponentialHistograms exponentialHistograms = new ExponentialHistograms();
+
+    public PerformanceCounters performanceCounters = new PerformanceCounters();
+
+    public JfrMetrics jfrMetrics = new JfrMetrics();
+
+    public LockContention lockContention = new LockContention();
+
+    public HotThreads hotThreads = new HotThreads();
+
     // unfortunately the Java SDK behavior has always been to report the "% Processor Time" number
     // as "normalized" (divided by # of CPU cores), even though it should be non-normalized
     // we cannot change this existing behavior as it would break existing customers' alerts, but at
@@ -391,6 +427,14 @@ public class Configuration {
         processorConfig.validate();
       }
       authentication.validate();
+      gcEvents.validate();
+      liveMetrics.validate();
+      exponentialHistograms.validate();
+      trackMetricAggregation.validate();
+      performanceCounters.validate();
+      jfrMetrics.validate();
+      lockContention.validate();
+      hotThreads.validate();
 
       for (String additionalPropagator : additionalPropagators) {
         if (!VALID_ADDITIONAL_PROPAGATORS.contains(additionalPropagator)) {
@@ -585,8 +629,297 @@ public class Configuration {
     public boolean enabled;
   }
 
+  public static class TrackMetricAggregation {
+    // when enabled, metrics tracked via the 2.x SDK trackMetric() are aggregated per series and
+    // sent once per interval, instead of being sent individually (micrometer metrics are already
+    // aggregated per step, and are not aggregated again)
+    public boolean enabled;
+    public int intervalSeconds = 60;
+    // additional series beyond this are reported under a single overflow series per metric name
+    public int maxSeries = 1000;
+
+    public void validate() {
+      if (intervalSeconds <= 0) {
+        throw new FriendlyException(
+            "The \"trackMetricAggregation\" configuration contains an invalid"
+                + " \"intervalSeconds\": "
+                + intervalSeconds,
+            "Please provide an \"intervalSeconds\" greater than 0.");
+      }
+      if (maxSeries <= 0) {
+        throw new FriendlyException(
+            "The \"trackMetricAggregation\" configuration contains an invalid \"maxSeries\": "
+                + maxSeries,
+            "Please provide a \"maxSeries\" greater than 0.");
+      }
+    }
+  }
+
+  public static class ExponentialHistograms {
+    // when enabled, histogram instruments are aggregated as base-2 exponential histograms instead
+    // of explicit bucket histograms, which are cheaper to record and more accurate for latencies
+    // (the count, sum, min and max that are sent don't change)
+    public boolean enabled;
+    // percentiles (e.g. 95 or 99.9) that are estimated from each exponential histogram and sent as
+    // separate metrics named "<name>_p<percentile>"
+    public List<Double> percentiles = new ArrayList<>();
+
+    public void validate() {
+      for (Double percentile : percentiles) {
+        if (percentile == null || percentile <= 0 || percentile > 100) {
+          throw new FriendlyException(
+              "The \"exponentialHistograms\" configuration contains an invalid percentile: "
+                  + percentile,
+              "Please provide percentiles greater than 0 and less than or equal to 100.");
+        }
+      }
+    }
+  }
+
+  public static class PerformanceCounters {
+    // collection interval per performance counter class, keyed by the simple class name (e.g.
+    // "DeadLockDetectorPerformanceCounter"), overriding "metricIntervalSeconds"
+    public Map<String, Integer> intervalSeconds = new HashMap<>();
+    // performance counters are collected in parallel on this many threads
+    public int collectionThreads = 2;
+    // a collection which takes longer than this is interrupted, and the performance counter is
+    // skipped until that collection returns
+    public int collectionTimeoutSeconds = 30;
+    // when enabled, the time taken by each collection of each performance counter (and each
+    // skipped collection) is sent as a metric, with the performance counter as a dimension
+    public boolean collectionMetrics;
+    // when enabled (on Linux), the cpu throttling and the memory limit of the cgroup (e.g. the
+    // container) that the process runs in are sent as metrics
+    public boolean cgroupMetrics;
+
+    public void validate() {
+      for (Map.Entry<String, Integer> entry : intervalSeconds.entrySet()) {
+        if (entry.getValue() == null || entry.getValue() < 1) {
+          throw new FriendlyException(
+              "The \"performanceCounters\" configuration contains an invalid interval for "
+                  + entry.getKey()
+                  + ": "
+                  + entry.getValue(),
+              "Please provide intervals of at least 1 second.");
+        }
+      }
+      if (collectionThreads < 1) {
+        throw new FriendlyException(
+            "The \"performanceCounters\" configuration contains an invalid \"collectionThreads\": "
+                + collectionThreads,
+            "Please provide at least 1 thread.");
+      }
+      if (collectionTimeoutSeconds < 1) {
+        throw new FriendlyException(
+            "The \"performanceCounters\" configuration contains an invalid"
+                + " \"collectionTimeoutSeconds\": "
+                + collectionTimeoutSeconds,
+            "Please provide a timeout of at least 1 second.");
+      }
+    }
+  }
+
+  public static class JfrMetrics {
+    // when enabled (and running on Java 14 or later), allocation rate, safepoint time, lock
+    // contention time and gc pause metrics are collected from a JFR recording stream
+    public boolean enabled;
+    // monitor enters and lock parks shorter than this are not recorded (and not counted as lock
+    // contention time), which keeps the overhead low
+    public int lockContentionThresholdMillis = 10;
+
+    public void validate() {
+      if (lockContentionThresholdMillis < 0) {
+        throw new FriendlyException(
+            "The \"jfrMetrics\" configuration contains an invalid"
+                + " \"lockContentionThresholdMillis\": "
+                + lockContentionThresholdMillis,
+            "Please provide a \"lockContentionThresholdMillis\" of at least 0.");
+      }
+    }
+  }
+
+  public static class LockContention {
+    // when enabled, the most contended locks (by lock class and stack) are reported every metric
+    // interval, as "Contended Lock Time" metrics and as a trace telemetry
+    public boolean enabled;
+    // (java 14 and later) lock contention shorter than this is not recorded
+    public int thresholdMillis = 10;
+    // the number of most contended locks that are reported per interval
+    public int topN = 5;
+
+    public void validate() {
+      if (thresholdMillis < 0) {
+        throw new FriendlyException(
+            "The \"lockContention\" configuration contains an invalid \"thresholdMillis\": "
+                + thresholdMillis,
+            "Please provide a \"thresholdMillis\" of at least 0.");
+      }
+      if (topN < 1) {
+        throw new FriendlyException(
+            "The \"lockContention\" configuration contains an invalid \"topN\": " + topN,
+            "Please provide a \"topN\" of at least 1.");
+      }
+    }
+  }
+
+  public static class HotThreads {
+    // when enabled, the threads which used the most cpu time are reported every metric interval,
+    // as "Thread CPU Percentage" metrics and as a trace telemetry with the top frames of the stack
+    // of each thread
+    public boolean enabled;
+    // the number of threads which used the most cpu time that are reported per interval
+    public int topN = 5;
+    public HotThreadProfileTrigger profileTrigger = new HotThreadProfileTrigger();
+
+    public void validate() {
+      if (topN < 1) {
+        throw new FriendlyException(
+            "The \"hotThreads\" configuration contains an invalid \"topN\": " + topN,
+            "Please provide a \"topN\" of at least 1.");
+      }
+      if (profileTrigger.enabled && !enabled) {
+        throw new FriendlyException(
+            "The \"hotThreads\" configuration has \"profileTrigger\" enabled, but is not enabled"
+                + " itself.",
+            "Please enable \"hotThreads\" in order to use its \"profileTrigger\".");
+      }
+      profileTrigger.validate();
+    }
+  }
+
+  public static class HotThreadProfileTrigger {
+    // when enabled (and the profiler is enabled), a profile is triggered when the hottest thread
+    // used more than "thresholdPercent" of a core in every collection over the window
+    public boolean enabled;
+    public int thresholdPercent = 90;
+    public int windowSeconds = 300;
+    // the minimum number of collections in the window before a profile can be triggered, which
+    // should match the window and the collection interval (see "metricIntervalSeconds")
+    public int minimumSamples = 5;
+    public int profileDurationSeconds = 30;
+    public int cooldownSeconds = 600;
+
+    public void validate() {
+      if (thresholdPercent <= 0) {
+        throw new FriendlyException(
+            "The \"hotThreads\" \"profileTrigger\" configuration contains an invalid"
+                + " \"thresholdPercent\": "
+                + thresholdPercent,
+            "Please provide a \"thresholdPercent\" greater than 0.");
+      }
+      if (windowSeconds <= 0) {
+        throw new FriendlyException(
+            "The \"hotThreads\" \"profileTrigger\" configuration contains an invalid"
+                + " \"windowSeconds\": "
+                + windowSeconds,
+            "Please provide a \"windowSeconds\" greater than 0.");
+      }
+      if (minimumSamples <= 0) {
+        throw new FriendlyException(
+            "The \"hotThreads\" \"profileTrigger\" configuration contains an invalid"
+                + " \"minimumSamples\": "
+                + minimumSamples,
+            "Please provide a \"minimumSamples\" greater than 0.");
+      }
+      if (profileDurationSeconds <= 0) {
+        throw new FriendlyException(
+            "The \"hotThreads\" \"profileTrigger\" configuration contains an invalid"
+                + " \"profileDurationSeconds\": "
+                + profileDurationSeconds,
+            "Please provide a \"profileDurationSeconds\" greater than 0.");
+      }
+      if (cooldownSeconds < 0) {
+        throw new FriendlyException(
+            "The \"hotThreads\" \"profileTrigger\" configuration contains an invalid"
+                + " \"cooldownSeconds\": "
+                + cooldownSeconds,
+            "Please provide a \"cooldownSeconds\" of at least 0.");
+      }
+    }
+  }
+
   public static class LiveMetrics {
     public boolean enabled = true;
+    // when false, Live Metrics only reports the counters, and doesn't build sample telemetry
+    // documents for every request, dependency and exception
+    public boolean sampleTelemetry = true;
+    // when not empty, only the sample telemetry documents that match all of the filters of at least
+    // one of these groups are built and sent
+    public List<LiveMetricsDocumentFilterGroup> documentFilters = new ArrayList<>();
+
+    public void validate() {
+      for (LiveMetricsDocumentFilterGroup documentFilterGroup : documentFilters) {
+        documentFilterGroup.validate();
+      }
+    }
+  }
+
+  public static class LiveMetricsDocumentFilterGroup {
+    public LiveMetricsTelemetryType telemetryType;
+    public List<LiveMetricsDocumentFilter> filters = new ArrayList<>();
+
+    public void validate() {
+      if (telemetryType == null) {
+        throw new FriendlyException(
+            "A live metrics document filter group is missing a \"telemetryType\".",
+            "Please provide a \"telemetryType\" for the live metrics document filter group.");
+      }
+      for (LiveMetricsDocumentFilter filter : filters) {
+        filter.validate();
+      }
+    }
+  }
+
+  public static class LiveMetricsDocumentFilter {
+    public String fieldName;
+    public LiveMetricsFilterPredicate predicate;
+    public String comparand;
+
+    public void validate() {
+      if (fieldName == null) {
+        throw new FriendlyException(
+            "A live metrics document filter is missing a \"fieldName\".",
+            "Please provide a \"fieldName\" for the live metrics document filter.");
+      }
+      if (predicate == null) {
+        throw new FriendlyException(
+            "A live metrics document filter is missing a \"predicate\".",
+            "Please provide a \"predicate\" for the live metrics document filter.");
+      }
+      if (comparand == null) {
+        throw new FriendlyException(
+            "A live metrics document filter is missing a \"comparand\".",
+            "Please provide a \"comparand\" for the live metrics document filter.");
+      }
+    }
+  }
+
+  public enum LiveMetricsTelemetryType {
+    @JsonProperty("request")
+    REQUEST,
+    @JsonProperty("dependency")
+    DEPENDENCY,
+    @JsonProperty("exception")
+    EXCEPTION
+  }
+
+  public enum LiveMetricsFilterPredicate {
+    @JsonProperty("equal")
+    EQUAL,
+    @JsonProperty("not-equal")
+    NOT_EQUAL,
+    @JsonProperty("less-than")
+    LESS_THAN,
+    @JsonProperty("greater-than")
+    GREATER_THAN,
+    @JsonProperty("less-than-or-equal")
+    LESS_THAN_OR_EQUAL,
+    @JsonProperty("greater-than-or-equal")
+    GREATER_THAN_OR_EQUAL,
+    @JsonProperty("contains")
+    CONTAINS,
+    @JsonProperty("does-not-contain")
+    DOES_NOT_CONTAIN
   }
 
   public static class SelfDiagnostics {
@@ -1410,6 +1743,18 @@ public class Configuration {
 
   public static class GcEventConfiguration {
     public GcReportingLevel reportingLevel;
+    // with the "SUMMARY" reporting level, a "GcEvent" is still sent for each collection whose pause
+    // is at least this long (concurrent cycles, e.g. "ZGC Cycles", are not pauses)
+    public int pauseThresholdMillis = 100;
+
+    public void validate() {
+      if (pauseThresholdMillis < 0) {
+        throw new FriendlyException(
+            "The \"gcEvents\" configuration contains an invalid \"pauseThresholdMillis\": "
+                + pauseThresholdMillis,
+            "Please provide a \"pauseThresholdMillis\" of at least 0.");
+      }
+    }
   }
 
   public static class AadAuthentication {
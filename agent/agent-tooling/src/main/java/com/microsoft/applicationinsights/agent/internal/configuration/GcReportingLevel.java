@@ -6,5 +6,7 @@ package com.microsoft.applicationinsights.agent.internal.configuration;
 public enum GcReportingLevel {
   NONE,
   TENURED_ONLY,
-  ALL
+  ALL,
+  // summaries per interval and per collector, plus the collections with long pauses
+  SUMMARY
 }
@@ -51,6 +51,24 @@ public class AgentLogExporter implements LogRecordExporter {
       LogDataMapper mapper,
       @Nullable QuickPulse quickPulse,
       BatchItemProcessor batchItemProcessor) {
+    this(
+        severityThreshold,
+        logSamplingOverrides,
+        exceptionSamplingOverrides,
+        mapper,
+        quickPulse,
+        batchItemProcessor::trackAsync);
+  }
+
+  // the telemetryItemSink receives the mapped telemetry items (after live metrics and telemetry
+  // observers have seen them)
+  public AgentLogExporter(
+      int severityThreshold,
+      List<SamplingOverride> logSamplingOverrides,
+      List<SamplingOverride> exceptionSamplingOverrides,
+      LogDataMapper mapper,
+      @Nullable QuickPulse quickPulse,
+      Consumer<TelemetryItem> telemetryItemSink) {
     this.severityThreshold = severityThreshold;
     this.logSamplingOverrides = new SamplingOverrides(logSamplingOverrides);
     this.exceptionSamplingOverrides = new SamplingOverrides(exceptionSamplingOverrides);
@@ -63,7 +81,7 @@ public class AgentLogExporter implements LogRecordExporter {
           TelemetryObservers.INSTANCE
               .getObservers()
               .forEach(consumer -> consumer.accept(telemetryItem));
-          batchItemProcessor.trackAsync(telemetryItem);
+          telemetryItemSink.accept(telemetryItem);
         };
   }
 
@@ -14,6 +14,7 @@ import com.microsoft.applicationinsights.agent.internal.telemetry.MetricFilter;
 import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
 import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryObservers;
 import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.metrics.Aggregation;
 import io.opentelemetry.sdk.metrics.InstrumentType;
 import io.opentelemetry.sdk.metrics.data.AggregationTemporality;
 import io.opentelemetry.sdk.metrics.data.MetricData;
@@ -35,13 +36,16 @@ public class AgentMetricExporter implements MetricExporter {
   private final List<MetricFilter> metricFilters;
   private final MetricDataMapper mapper;
   private final Consumer<TelemetryItem> telemetryItemConsumer;
+  private final boolean exponentialHistograms;
 
   public AgentMetricExporter(
       List<MetricFilter> metricFilters,
       MetricDataMapper mapper,
-      BatchItemProcessor batchItemProcessor) {
+      BatchItemProcessor batchItemProcessor,
+      boolean exponentialHistograms) {
     this.metricFilters = metricFilters;
     this.mapper = mapper;
+    this.exponentialHistograms = exponentialHistograms;
     this.telemetryItemConsumer =
         telemetryItem -> {
           TelemetryObservers.INSTANCE
@@ -89,4 +93,14 @@ public class AgentMetricExporter implements MetricExporter {
     return AggregationTemporalitySelector.deltaPreferred()
         .getAggregationTemporality(instrumentType);
   }
+
+  // this applies to all histogram instruments (including the ones behind the pre-aggregated
+  // standard metrics), except the ones with a view that sets an explicit aggregation
+  @Override
+  public Aggregation getDefaultAggregation(InstrumentType instrumentType) {
+    if (exponentialHistograms && instrumentType == InstrumentType.HISTOGRAM) {
+      return Aggregation.base2ExponentialBucketHistogram();
+    }
+    return Aggregation.defaultAggregation();
+  }
 }
@@ -30,23 +30,25 @@ public final class AgentSpanExporter implements SpanExporter {
       new OperationLogger(SpanDataMapper.class, "Exporting span");
 
   private final SpanDataMapper mapper;
-  private final Consumer<TelemetryItem> telemetryItemConsumer;
+  @Nullable private final QuickPulse quickPulse;
+  private final Consumer<TelemetryItem> telemetryItemSink;
 
   public AgentSpanExporter(
       SpanDataMapper mapper,
       @Nullable QuickPulse quickPulse,
       BatchItemProcessor batchItemProcessor) {
+    this(mapper, quickPulse, batchItemProcessor::trackAsync);
+  }
+
+  // the telemetryItemSink receives the mapped telemetry items (after live metrics and telemetry
+  // observers have seen them)
+  public AgentSpanExporter(
+      SpanDataMapper mapper,
+      @Nullable QuickPulse quickPulse,
+      Consumer<TelemetryItem> telemetryItemSink) {
     this.mapper = mapper;
-    telemetryItemConsumer =
-        telemetryItem -> {
-          if (quickPulse != null) {
-            quickPulse.add(telemetryItem);
-          }
-          TelemetryObservers.INSTANCE
-              .getObservers()
-              .forEach(consumer -> consumer.accept(telemetryItem));
-          batchItemProcessor.trackAsync(telemetryItem);
-        };
+    this.quickPulse = quickPulse;
+    this.telemetryItemSink = telemetryItemSink;
   }
 
   @Override
@@ -59,7 +61,10 @@ public final class AgentSpanExporter implements SpanExporter {
     for (SpanData span : spans) {
       logger.debug("exporting span: {}", span);
       try {
-        mapper.map(span, telemetryItemConsumer);
+        // the raw duration is passed to live metrics so that it doesn't need to parse the
+        // formatted duration
+        long durationNanos = span.getEndEpochNanos() - span.getStartEpochNanos();
+        mapper.map(span, telemetryItem -> exportTelemetryItem(telemetryItem, durationNanos));
         exportingSpanLogger.recordSuccess();
       } catch (Throwable t) {
         exportingSpanLogger.recordFailure(t.getMessage(), t, EXPORTER_MAPPING_ERROR);
@@ -69,6 +74,14 @@ public final class AgentSpanExporter implements SpanExporter {
     return CompletableResultCode.ofSuccess();
   }
 
+  private void exportTelemetryItem(TelemetryItem telemetryItem, long durationNanos) {
+    if (quickPulse != null) {
+      quickPulse.add(telemetryItem, durationNanos);
+    }
+    TelemetryObservers.INSTANCE.getObservers().forEach(consumer -> consumer.accept(telemetryItem));
+    telemetryItemSink.accept(telemetryItem);
+  }
+
   @Override
   public CompletableResultCode flush() {
     return CompletableResultCode.ofSuccess();
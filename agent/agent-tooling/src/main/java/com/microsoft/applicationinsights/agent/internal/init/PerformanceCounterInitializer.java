@@ -11,15 +11,20 @@ import com.microsoft.applicationinsights.agent.internal.configuration.Configurat
 import com.microsoft.applicationinsights.agent.internal.perfcounter.DeadLockDetectorPerformanceCounter;
 import com.microsoft.applicationinsights.agent.internal.perfcounter.FreeMemoryPerformanceCounter;
 import com.microsoft.applicationinsights.agent.internal.perfcounter.GcPerformanceCounter;
+import com.microsoft.applicationinsights.agent.internal.perfcounter.HotThreadsPerformanceCounter;
+import com.microsoft.applicationinsights.agent.internal.perfcounter.JfrPerformanceCounter;
 import com.microsoft.applicationinsights.agent.internal.perfcounter.JmxAttributeData;
 import com.microsoft.applicationinsights.agent.internal.perfcounter.JmxMetricPerformanceCounter;
 import com.microsoft.applicationinsights.agent.internal.perfcounter.JvmHeapMemoryUsedPerformanceCounter;
+import com.microsoft.applicationinsights.agent.internal.perfcounter.LinuxPerformanceCounter;
+import com.microsoft.applicationinsights.agent.internal.perfcounter.LockContentionPerformanceCounter;
 import com.microsoft.applicationinsights.agent.internal.perfcounter.OshiPerformanceCounter;
 import com.microsoft.applicationinsights.agent.internal.perfcounter.PerformanceCounterContainer;
 import com.microsoft.applicationinsights.agent.internal.perfcounter.ProcessCpuPerformanceCounter;
 import com.microsoft.applicationinsights.agent.internal.perfcounter.ProcessMemoryPerformanceCounter;
 import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -37,6 +42,18 @@ public class PerformanceCounterInitializer {
 
     PerformanceCounterContainer.INSTANCE.setCollectionFrequencyInSec(
         configuration.metricIntervalSeconds);
+    Configuration.PerformanceCounters performanceCounters =
+        configuration.preview.performanceCounters;
+    for (Map.Entry<String, Integer> entry : performanceCounters.intervalSeconds.entrySet()) {
+      PerformanceCounterContainer.INSTANCE.setCollectionFrequencyInSec(
+          entry.getKey(), entry.getValue());
+    }
+    PerformanceCounterContainer.INSTANCE.setCollectionThreads(
+        performanceCounters.collectionThreads);
+    PerformanceCounterContainer.INSTANCE.setCollectionTimeoutInSec(
+        performanceCounters.collectionTimeoutSeconds);
+    PerformanceCounterContainer.INSTANCE.setReportCollectionMetrics(
+        performanceCounters.collectionMetrics);
 
     if (logger.isDebugEnabled()) {
       PerformanceCounterContainer.INSTANCE.setLogAvailableJmxMetrics();
@@ -52,7 +69,13 @@ public class PerformanceCounterInitializer {
 
     if (!isAgentRunningInSandboxEnvWindows()) {
       // system cpu and process disk i/o
-      PerformanceCounterContainer.INSTANCE.register(new OshiPerformanceCounter());
+      LinuxPerformanceCounter linuxPerformanceCounter =
+          LinuxPerformanceCounter.create(performanceCounters.cgroupMetrics);
+      if (linuxPerformanceCounter != null) {
+        PerformanceCounterContainer.INSTANCE.register(linuxPerformanceCounter);
+      } else {
+        PerformanceCounterContainer.INSTANCE.register(new OshiPerformanceCounter());
+      }
     }
 
     ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
@@ -61,6 +84,33 @@ public class PerformanceCounterInitializer {
     }
     PerformanceCounterContainer.INSTANCE.register(new JvmHeapMemoryUsedPerformanceCounter());
     PerformanceCounterContainer.INSTANCE.register(new GcPerformanceCounter());
+
+    if (configuration.preview.jfrMetrics.enabled) {
+      JfrPerformanceCounter jfrPerformanceCounter =
+          JfrPerformanceCounter.start(
+              Duration.ofMillis(configuration.preview.jfrMetrics.lockContentionThresholdMillis));
+      if (jfrPerformanceCounter != null) {
+        PerformanceCounterContainer.INSTANCE.register(jfrPerformanceCounter);
+      }
+    }
+
+    Configuration.LockContention lockContention = configuration.preview.lockContention;
+    if (lockContention.enabled) {
+      LockContentionPerformanceCounter lockContentionPerformanceCounter =
+          LockContentionPerformanceCounter.create(
+              Duration.ofMillis(lockContention.thresholdMillis), lockContention.topN);
+      if (lockContentionPerformanceCounter != null) {
+        PerformanceCounterContainer.INSTANCE.register(lockContentionPerformanceCounter);
+      }
+    }
+
+    if (configuration.preview.hotThreads.enabled) {
+      HotThreadsPerformanceCounter hotThreadsPerformanceCounter =
+          HotThreadsPerformanceCounter.create(configuration.preview.hotThreads.topN);
+      if (hotThreadsPerformanceCounter != null) {
+        PerformanceCounterContainer.INSTANCE.register(hotThreadsPerformanceCounter);
+      }
+    }
   }
 
   private static boolean isAgentRunningInSandboxEnvWindows() {
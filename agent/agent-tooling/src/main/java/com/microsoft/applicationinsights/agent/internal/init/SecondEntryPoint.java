@@ -7,20 +7,27 @@ import static java.util.concurrent.TimeUnit.MINUTES;
 
 import com.azure.core.util.logging.ClientLogger;
 import com.azure.monitor.opentelemetry.exporter.implementation.LogDataMapper;
+import com.azure.monitor.opentelemetry.exporter.implementation.MetricCardinalityLimiter;
 import com.azure.monitor.opentelemetry.exporter.implementation.MetricDataMapper;
 import com.azure.monitor.opentelemetry.exporter.implementation.SpanDataMapper;
 import com.azure.monitor.opentelemetry.exporter.implementation.configuration.ConnectionString;
 import com.azure.monitor.opentelemetry.exporter.implementation.heartbeat.HeartbeatExporter;
 import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.DocumentFilterGroup;
 import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.QuickPulse;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.Strings;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.TempDirs;
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.UrlParser;
 import com.google.auto.service.AutoService;
 import com.microsoft.applicationinsights.agent.bootstrap.AzureFunctions;
 import com.microsoft.applicationinsights.agent.bootstrap.preagg.AiContextCustomizerHolder;
 import com.microsoft.applicationinsights.agent.internal.classicsdk.BytecodeUtilImpl;
+import com.microsoft.applicationinsights.agent.internal.classicsdk.TrackMetricAggregator;
+import com.microsoft.applicationinsights.agent.internal.common.CachingPattern;
 import com.microsoft.applicationinsights.agent.internal.common.FriendlyException;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.LiveMetricsDocumentFilter;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.LiveMetricsDocumentFilterGroup;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorConfig;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.SamplingTelemetryType;
 import com.microsoft.applicationinsights.agent.internal.configuration.ConfigurationBuilder;
@@ -30,15 +37,14 @@ import com.microsoft.applicationinsights.agent.internal.exporter.AgentMetricExpo
 import com.microsoft.applicationinsights.agent.internal.exporter.AgentSpanExporter;
 import com.microsoft.applicationinsights.agent.internal.httpclient.LazyHttpClient;
 import com.microsoft.applicationinsights.agent.internal.legacyheaders.AiLegacyHeaderSpanProcessor;
-import com.microsoft.applicationinsights.agent.internal.processors.ExporterWithLogProcessor;
-import com.microsoft.applicationinsights.agent.internal.processors.ExporterWithSpanProcessor;
-import com.microsoft.applicationinsights.agent.internal.processors.LogExporterWithAttributeProcessor;
+import com.microsoft.applicationinsights.agent.internal.processors.AttributeHasher;
+import com.microsoft.applicationinsights.agent.internal.processors.LogExporterWithProcessors;
 import com.microsoft.applicationinsights.agent.internal.processors.MySpanData;
-import com.microsoft.applicationinsights.agent.internal.processors.SpanExporterWithAttributeProcessor;
+import com.microsoft.applicationinsights.agent.internal.processors.SpanExporterWithProcessors;
 import com.microsoft.applicationinsights.agent.internal.profiler.ProfilingInitializer;
 import com.microsoft.applicationinsights.agent.internal.profiler.triggers.AlertTriggerSpanProcessor;
+import com.microsoft.applicationinsights.agent.internal.statsbeat.NonessentialStatsbeat;
 import com.microsoft.applicationinsights.agent.internal.statsbeat.StatsbeatModule;
-import com.microsoft.applicationinsights.agent.internal.telemetry.BatchItemProcessor;
 import com.microsoft.applicationinsights.agent.internal.telemetry.MetricFilter;
 import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
 import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryObservers;
@@ -49,6 +55,7 @@ import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizer;
 import io.opentelemetry.sdk.autoconfigure.spi.AutoConfigurationCustomizerProvider;
 import io.opentelemetry.sdk.autoconfigure.spi.ConfigProperties;
 import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.LogRecordProcessor;
 import io.opentelemetry.sdk.logs.SdkLoggerProviderBuilder;
 import io.opentelemetry.sdk.logs.export.BatchLogRecordProcessor;
 import io.opentelemetry.sdk.logs.export.LogRecordExporter;
@@ -58,6 +65,7 @@ import io.opentelemetry.sdk.metrics.export.PeriodicMetricReader;
 import io.opentelemetry.sdk.metrics.export.PeriodicMetricReaderBuilder;
 import io.opentelemetry.sdk.metrics.internal.view.AiViewRegistry;
 import io.opentelemetry.sdk.trace.SdkTracerProviderBuilder;
+import io.opentelemetry.sdk.trace.SpanProcessor;
 import io.opentelemetry.sdk.trace.data.SpanData;
 import io.opentelemetry.sdk.trace.export.BatchSpanProcessor;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
@@ -66,7 +74,6 @@ import java.io.File;
 import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
@@ -81,8 +88,8 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
 
   @Nullable public static AgentLogExporter agentLogExporter;
 
-  @Nullable private static BatchLogRecordProcessor batchLogProcessor;
-  @Nullable private static BatchSpanProcessor batchSpanProcessor;
+  @Nullable private static LogRecordProcessor batchLogProcessor;
+  @Nullable private static SpanProcessor batchSpanProcessor;
   @Nullable private static MetricReader metricReader;
 
   @Override
@@ -110,6 +117,10 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
       LazyHttpClient.proxyPassword = configuration.proxy.password;
     }
 
+    CachingPattern.maxCacheSize = configuration.preview.regexResultCacheSize;
+    AttributeHasher.configure(
+        configuration.preview.hashActionCacheSize, configuration.preview.hashActionHmacKey);
+
     List<MetricFilter> metricFilters =
         configuration.preview.processors.stream()
             .filter(processor -> processor.type == Configuration.ProcessorType.METRIC_FILTER)
@@ -117,6 +128,7 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
             .collect(Collectors.toList());
 
     StatsbeatModule statsbeatModule = new StatsbeatModule();
+    registerCaches(statsbeatModule.getNonessentialStatsbeat());
     TelemetryClient telemetryClient =
         TelemetryClient.builder()
             .setCustomDimensions(configuration.customDimensions)
@@ -163,6 +175,13 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
     BytecodeUtilImpl.runtimeConfigurator = runtimeConfigurator;
     BytecodeUtilImpl.connectionStringConfiguredAtRuntime =
         configuration.connectionStringConfiguredAtRuntime;
+    Configuration.TrackMetricAggregation trackMetricAggregation =
+        configuration.preview.trackMetricAggregation;
+    if (trackMetricAggregation.enabled) {
+      BytecodeUtilImpl.trackMetricAggregator =
+          TrackMetricAggregator.start(
+              trackMetricAggregation.intervalSeconds, trackMetricAggregation.maxSeries);
+    }
 
     if (configuration.preview.profiler.enabled) {
       try {
@@ -191,19 +210,30 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
 
     QuickPulse quickPulse;
     if (configuration.preview.liveMetrics.enabled) {
-      quickPulse =
-          QuickPulse.create(
-              LazyHttpClient.newHttpPipeLineWithDefaultRedirect(
-                  configuration.preview.authentication),
-              () -> {
-                ConnectionString connectionString = telemetryClient.getConnectionString();
-                return connectionString == null ? null : connectionString.getLiveEndpoint();
-              },
-              telemetryClient::getInstrumentationKey,
-              telemetryClient.getRoleName(),
-              telemetryClient.getRoleInstance(),
-              configuration.preview.useNormalizedValueForNonNormalizedCpuPercentage,
-              FirstEntryPoint.getAgentVersion());
+      try {
+        quickPulse =
+            QuickPulse.create(
+                LazyHttpClient.newHttpPipeLineWithDefaultRedirect(
+                    configuration.preview.authentication),
+                () -> {
+                  ConnectionString connectionString = telemetryClient.getConnectionString();
+                  return connectionString == null ? null : connectionString.getLiveEndpoint();
+                },
+                telemetryClient::getInstrumentationKey,
+                telemetryClient.getRoleName(),
+                telemetryClient.getRoleInstance(),
+                configuration.preview.useNormalizedValueForNonNormalizedCpuPercentage,
+                configuration.preview.liveMetrics.sampleTelemetry,
+                getDocumentFilterGroups(configuration.preview.liveMetrics),
+                FirstEntryPoint.getAgentVersion(),
+                statsbeatModule.getNonessentialStatsbeat());
+      } catch (IllegalArgumentException e) {
+        // thrown when a document filter can't be compiled
+        throw new FriendlyException(
+            "The live metrics \"documentFilters\" configuration is not valid: " + e.getMessage(),
+            "Please correct the live metrics \"documentFilters\" configuration.",
+            e);
+      }
     } else {
       quickPulse = null;
     }
@@ -237,7 +267,8 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
                 configureLogging(builder, telemetryClient, quickPulse, otelConfig, configuration))
         .addMeterProviderCustomizer(
             (builder, otelConfig) ->
-                configureMetrics(metricFilters, builder, telemetryClient, configuration));
+                configureMetrics(
+                    metricFilters, builder, telemetryClient, statsbeatModule, configuration));
 
     AiContextCustomizerHolder.setInstance(
         new AiContextCustomizer<>(
@@ -245,10 +276,50 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
             configuration.preview.roleNameOverrides));
 
     Runtime.getRuntime()
-        .addShutdownHook(new Thread(() -> flushAll(telemetryClient).join(10, TimeUnit.SECONDS)));
+        .addShutdownHook(
+            new Thread(
+                () -> {
+                  TrackMetricAggregator aggregator = BytecodeUtilImpl.trackMetricAggregator;
+                  if (aggregator != null) {
+                    aggregator.shutdown();
+                  }
+                  flushAll(telemetryClient).join(10, TimeUnit.SECONDS);
+                }));
+  }
+
+  private static List<DocumentFilterGroup> getDocumentFilterGroups(
+      Configuration.LiveMetrics liveMetrics) {
+    List<DocumentFilterGroup> documentFilterGroups = new ArrayList<>();
+    for (LiveMetricsDocumentFilterGroup group : liveMetrics.documentFilters) {
+      List<DocumentFilterGroup.Filter> filters = new ArrayList<>();
+      for (LiveMetricsDocumentFilter filter : group.filters) {
+        filters.add(
+            new DocumentFilterGroup.Filter(
+                filter.fieldName,
+                DocumentFilterGroup.Predicate.valueOf(filter.predicate.name()),
+                filter.comparand));
+      }
+      documentFilterGroups.add(
+          new DocumentFilterGroup(
+              DocumentFilterGroup.TelemetryType.valueOf(group.telemetryType.name()), filters));
+    }
+    return documentFilterGroups;
+  }
+
+  private static void registerCaches(NonessentialStatsbeat nonessentialStatsbeat) {
+    nonessentialStatsbeat.registerCache("UrlTarget", UrlParser.getTargetCacheStats());
+    nonessentialStatsbeat.registerCache("UrlPath", UrlParser.getPathCacheStats());
+    nonessentialStatsbeat.registerCache("HostAndPort", SpanDataMapper.getHostAndPortCacheStats());
+    nonessentialStatsbeat.registerCache("RegexResult", CachingPattern.getTotalStats());
+    nonessentialStatsbeat.registerCache("AttributeHash", AttributeHasher.getStats());
   }
 
   private static CompletableResultCode flushAll(TelemetryClient telemetryClient) {
+    TrackMetricAggregator trackMetricAggregator = BytecodeUtilImpl.trackMetricAggregator;
+    if (trackMetricAggregator != null) {
+      // before the telemetry client flush, which then sends the aggregated metrics
+      trackMetricAggregator.flush();
+    }
     List<CompletableResultCode> results = new ArrayList<>();
     if (batchSpanProcessor != null) {
       results.add(batchSpanProcessor.forceFlush());
@@ -316,10 +387,29 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
     }
 
     String tracesExporter = otelConfig.getString("otel.traces.exporter");
-    if ("none".equals(tracesExporter)) { // "none" is the default set in AiConfigCustomizer
+    if ("none".equals(tracesExporter) // "none" is the default set in AiConfigCustomizer
+        && configuration.preview.singleStageExportPipeline) {
+      batchSpanProcessor =
+          SingleStageSpanProcessor.create(
+              telemetryClient,
+              getBatchProcessorDelay(),
+              telemetryItemSink ->
+                  wrapSpanExporter(
+                      createSpanExporter(
+                          telemetryClient,
+                          quickPulse,
+                          configuration.preview.captureHttpServer4xxAsError,
+                          telemetryItemSink),
+                      configuration));
+
+      tracerProvider.addSpanProcessor(batchSpanProcessor);
+    } else if ("none".equals(tracesExporter)) {
       SpanExporter spanExporter =
           createSpanExporter(
-              telemetryClient, quickPulse, configuration.preview.captureHttpServer4xxAsError);
+              telemetryClient,
+              quickPulse,
+              configuration.preview.captureHttpServer4xxAsError,
+              telemetryClient.getGeneralBatchItemProcessor()::trackAsync);
 
       spanExporter = wrapSpanExporter(spanExporter, configuration);
 
@@ -338,7 +428,8 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
   private static SpanExporter createSpanExporter(
       TelemetryClient telemetryClient,
       @Nullable QuickPulse quickPulse,
-      boolean captureHttpServer4xxAsError) {
+      boolean captureHttpServer4xxAsError,
+      Consumer<TelemetryItem> telemetryItemSink) {
 
     SpanDataMapper mapper =
         new SpanDataMapper(
@@ -361,10 +452,8 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
               return false;
             });
 
-    BatchItemProcessor batchItemProcessor = telemetryClient.getGeneralBatchItemProcessor();
-
     return new StatsbeatSpanExporter(
-        new AgentSpanExporter(mapper, quickPulse, batchItemProcessor),
+        new AgentSpanExporter(mapper, quickPulse, telemetryItemSink),
         telemetryClient.getStatsbeatModule());
   }
 
@@ -375,21 +464,8 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
     // NOTE if changing the span processor to something async, flush it in the shutdown hook before
     // flushing TelemetryClient
     if (!processorConfigs.isEmpty()) {
-      // Reversing the order of processors before passing it Span processor
-      Collections.reverse(processorConfigs);
-      for (ProcessorConfig processorConfig : processorConfigs) {
-        switch (processorConfig.type) {
-          case ATTRIBUTE:
-            spanExporter = new SpanExporterWithAttributeProcessor(processorConfig, spanExporter);
-            break;
-          case SPAN:
-            spanExporter = new ExporterWithSpanProcessor(processorConfig, spanExporter);
-            break;
-          default:
-            throw new IllegalStateException(
-                "Not an expected ProcessorType: " + processorConfig.type);
-        }
-      }
+      // all processors are applied in a single pass (in the configured order)
+      spanExporter = new SpanExporterWithProcessors(processorConfigs, spanExporter);
 
       // this is temporary until semantic attributes stabilize and we make breaking change
       // then can use java.util.functions.Predicate<Attributes>
@@ -437,8 +513,26 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
     builder.addLogRecordProcessor(new InheritedRoleNameLogProcessor());
 
     String logsExporter = otelConfig.getString("otel.logs.exporter");
-    if ("none".equals(logsExporter)) { // "none" is the default set in AiConfigCustomizer
-      LogRecordExporter logExporter = createLogExporter(telemetryClient, quickPulse, configuration);
+    if ("none".equals(logsExporter) // "none" is the default set in AiConfigCustomizer
+        && configuration.preview.singleStageExportPipeline) {
+      batchLogProcessor =
+          SingleStageLogProcessor.create(
+              telemetryClient,
+              getBatchProcessorDelay(),
+              telemetryItemSink ->
+                  wrapLogExporter(
+                      createLogExporter(
+                          telemetryClient, quickPulse, configuration, telemetryItemSink),
+                      configuration));
+
+      builder.addLogRecordProcessor(batchLogProcessor);
+    } else if ("none".equals(logsExporter)) {
+      LogRecordExporter logExporter =
+          createLogExporter(
+              telemetryClient,
+              quickPulse,
+              configuration,
+              telemetryClient.getGeneralBatchItemProcessor()::trackAsync);
 
       logExporter = wrapLogExporter(logExporter, configuration);
 
@@ -457,7 +551,8 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
   private static LogRecordExporter createLogExporter(
       TelemetryClient telemetryClient,
       @Nullable QuickPulse quickPulse,
-      Configuration configuration) {
+      Configuration configuration,
+      Consumer<TelemetryItem> telemetryItemSink) {
 
     LogDataMapper mapper =
         new LogDataMapper(
@@ -481,7 +576,7 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
             exceptionSamplingOverrides,
             mapper,
             quickPulse,
-            telemetryClient.getGeneralBatchItemProcessor());
+            telemetryItemSink);
 
     return agentLogExporter;
   }
@@ -491,21 +586,8 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
 
     List<ProcessorConfig> processorConfigs = getLogProcessorConfigs(configuration);
     if (!processorConfigs.isEmpty()) {
-      // Reversing the order of processors before passing it Log processor
-      Collections.reverse(processorConfigs);
-      for (ProcessorConfig processorConfig : processorConfigs) {
-        switch (processorConfig.type) {
-          case ATTRIBUTE:
-            logExporter = new LogExporterWithAttributeProcessor(processorConfig, logExporter);
-            break;
-          case LOG:
-            logExporter = new ExporterWithLogProcessor(processorConfig, logExporter);
-            break;
-          default:
-            throw new IllegalStateException(
-                "Not an expected ProcessorType: " + processorConfig.type);
-        }
-      }
+      // all processors are applied in a single pass (in the configured order)
+      logExporter = new LogExporterWithProcessors(processorConfigs, logExporter);
     }
     return logExporter;
   }
@@ -535,15 +617,26 @@ public class SecondEntryPoint implements AutoConfigurationCustomizerProvider {
       List<MetricFilter> metricFilters,
       SdkMeterProviderBuilder builder,
       TelemetryClient telemetryClient,
+      StatsbeatModule statsbeatModule,
       Configuration configuration) {
 
+    int maxMetricSeriesPerMetric = configuration.preview.maxMetricSeriesPerMetric;
     MetricDataMapper mapper =
         new MetricDataMapper(
-            telemetryClient::populateDefaults, configuration.preview.captureHttpServer4xxAsError);
+            telemetryClient::populateDefaults,
+            configuration.preview.captureHttpServer4xxAsError,
+            maxMetricSeriesPerMetric > 0
+                ? new MetricCardinalityLimiter(
+                    maxMetricSeriesPerMetric, statsbeatModule.getNonessentialStatsbeat())
+                : MetricCardinalityLimiter.unlimited(),
+            configuration.preview.exponentialHistograms.percentiles);
     PeriodicMetricReaderBuilder readerBuilder =
         PeriodicMetricReader.builder(
             new AgentMetricExporter(
-                metricFilters, mapper, telemetryClient.getMetricsBatchItemProcessor()));
+                metricFilters,
+                mapper,
+                telemetryClient.getMetricsBatchItemProcessor(),
+                configuration.preview.exponentialHistograms.enabled));
     int intervalMillis =
         Integer.getInteger(
             "applicationinsights.testing.metric-reader-interval-millis",
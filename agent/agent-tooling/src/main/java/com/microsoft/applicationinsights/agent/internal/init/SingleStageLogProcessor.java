@@ -0,0 +1,64 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.init;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import com.microsoft.applicationinsights.agent.internal.telemetry.SingleStageBatchProcessor;
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.LogRecordProcessor;
+import io.opentelemetry.sdk.logs.ReadWriteLogRecord;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import java.time.Duration;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// used in place of BatchLogRecordProcessor (in front of the general BatchItemProcessor) so that
+// logs are only queued once, see SingleStageBatchProcessor
+public final class SingleStageLogProcessor implements LogRecordProcessor {
+
+  private final SingleStageBatchProcessor<LogRecordData> processor;
+
+  /**
+   * Creates a new {@link SingleStageLogProcessor}.
+   *
+   * @param logExporterFactory is passed the consumer that mapped telemetry items must be sent to,
+   *     and returns the (wrapped) log exporter that maps logs to telemetry items.
+   */
+  public static SingleStageLogProcessor create(
+      TelemetryClient telemetryClient,
+      Duration mapDelay,
+      Function<Consumer<TelemetryItem>, LogRecordExporter> logExporterFactory) {
+
+    return new SingleStageLogProcessor(
+        telemetryClient.newSingleStageBatchProcessor(
+            mapDelay,
+            telemetryItemSink -> {
+              LogRecordExporter logExporter = logExporterFactory.apply(telemetryItemSink);
+              return logExporter::export;
+            }));
+  }
+
+  private SingleStageLogProcessor(SingleStageBatchProcessor<LogRecordData> processor) {
+    this.processor = processor;
+  }
+
+  @Override
+  public void onEmit(Context context, ReadWriteLogRecord logRecord) {
+    // log records are mutable, so need to snapshot on the calling thread
+    processor.trackAsync(logRecord.toLogRecordData());
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return processor.shutdown();
+  }
+
+  @Override
+  public CompletableResultCode forceFlush() {
+    return processor.forceFlush();
+  }
+}
@@ -0,0 +1,89 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.init;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import com.microsoft.applicationinsights.agent.internal.telemetry.SingleStageBatchProcessor;
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import io.opentelemetry.context.Context;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.ReadWriteSpan;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+// used in place of BatchSpanProcessor (in front of the general BatchItemProcessor) so that spans
+// are only queued once, see SingleStageBatchProcessor
+public final class SingleStageSpanProcessor implements SpanProcessor {
+
+  private final SingleStageBatchProcessor<ReadableSpan> processor;
+
+  /**
+   * Creates a new {@link SingleStageSpanProcessor}.
+   *
+   * @param spanExporterFactory is passed the consumer that mapped telemetry items must be sent to,
+   *     and returns the (wrapped) span exporter that maps spans to telemetry items.
+   */
+  public static SingleStageSpanProcessor create(
+      TelemetryClient telemetryClient,
+      Duration mapDelay,
+      Function<Consumer<TelemetryItem>, SpanExporter> spanExporterFactory) {
+
+    return new SingleStageSpanProcessor(
+        telemetryClient.newSingleStageBatchProcessor(
+            mapDelay,
+            telemetryItemSink -> {
+              SpanExporter spanExporter = spanExporterFactory.apply(telemetryItemSink);
+              return spans -> spanExporter.export(toSpanData(spans));
+            }));
+  }
+
+  private SingleStageSpanProcessor(SingleStageBatchProcessor<ReadableSpan> processor) {
+    this.processor = processor;
+  }
+
+  @Override
+  public void onStart(Context parentContext, ReadWriteSpan span) {}
+
+  @Override
+  public boolean isStartRequired() {
+    return false;
+  }
+
+  @Override
+  public void onEnd(ReadableSpan span) {
+    if (span.getSpanContext().isSampled()) {
+      processor.trackAsync(span);
+    }
+  }
+
+  @Override
+  public boolean isEndRequired() {
+    return true;
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return processor.shutdown();
+  }
+
+  @Override
+  public CompletableResultCode forceFlush() {
+    return processor.forceFlush();
+  }
+
+  private static List<SpanData> toSpanData(List<ReadableSpan> spans) {
+    List<SpanData> spanData = new ArrayList<>(spans.size());
+    for (ReadableSpan span : spans) {
+      spanData.add(span.toSpanData());
+    }
+    return spanData;
+  }
+}
@@ -0,0 +1,185 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static com.microsoft.applicationinsights.agent.internal.perfcounter.MetricNames.HOTTEST_THREAD_CPU_PERCENTAGE;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.MessageTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.MetricTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.FormattedTime;
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports the threads which used the most CPU time per interval (e.g. to identify a runaway
+ * thread), as metrics and as a trace telemetry with the top frames of the stack of each thread.
+ *
+ * <p>The CPU time of all of the threads is read from the ThreadMXBean, and the CPU usage of each
+ * thread is its CPU time since the previous collection, as a percentage of one core. The CPU usage
+ * of the hottest thread is also sent as {@link MetricNames#HOTTEST_THREAD_CPU_PERCENTAGE}, which
+ * can trigger a profile.
+ */
+public final class HotThreadsPerformanceCounter implements PerformanceCounter {
+
+  private static final Logger logger = LoggerFactory.getLogger(HotThreadsPerformanceCounter.class);
+
+  private static final String METRIC_NAME = "Thread CPU Percentage";
+  private static final String THREAD_NAME_PROPERTY = "ThreadName";
+  private static final String LOCATION_PROPERTY = "Location";
+
+  private static final int MAX_FRAMES = 5;
+
+  private final ThreadMXBean threadBean;
+  private final int topN;
+
+  private final ThreadDeltas cpuTimeDeltas = new ThreadDeltas();
+  private long[] cpuTimes = new long[0];
+  private long[] cpuTimeDiffs = new long[0];
+
+  // indexes into the current sample, ordered by cpu time descending
+  private final int[] topIndexes;
+
+  private long prevCollectionTimeNanos = System.nanoTime();
+
+  /**
+   * Returns the performance counter, or null if thread CPU time measurement is not supported.
+   *
+   * @param topN the number of threads which used the most CPU time that are reported per interval
+   */
+  @Nullable
+  public static HotThreadsPerformanceCounter create(int topN) {
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (!threadBean.isThreadCpuTimeSupported()) {
+      logger.warn("Hot threads can't be reported, since thread CPU time is not supported");
+      return null;
+    }
+    if (!threadBean.isThreadCpuTimeEnabled()) {
+      threadBean.setThreadCpuTimeEnabled(true);
+    }
+    return new HotThreadsPerformanceCounter(threadBean, topN);
+  }
+
+  private HotThreadsPerformanceCounter(ThreadMXBean threadBean, int topN) {
+    this.threadBean = threadBean;
+    this.topN = topN;
+    topIndexes = new int[topN];
+  }
+
+  @Override
+  public void report(TelemetryClient telemetryClient) {
+    long[] threadIds = threadBean.getAllThreadIds();
+    Arrays.sort(threadIds);
+    int count = threadIds.length;
+    if (cpuTimes.length < count) {
+      cpuTimes = new long[count];
+      cpuTimeDiffs = new long[count];
+    }
+    for (int i = 0; i < count; i++) {
+      // -1 when the thread has ended
+      cpuTimes[i] = threadBean.getThreadCpuTime(threadIds[i]);
+    }
+    cpuTimeDeltas.update(threadIds, cpuTimes, count, cpuTimeDiffs);
+
+    long currCollectionTimeNanos = System.nanoTime();
+    long elapsedNanos = currCollectionTimeNanos - prevCollectionTimeNanos;
+    prevCollectionTimeNanos = currCollectionTimeNanos;
+
+    int topCount = selectTop(cpuTimeDiffs, count, topIndexes);
+    if (topCount == 0 || elapsedNanos <= 0) {
+      // e.g. the first collection, which only records the cpu time of each thread
+      return;
+    }
+
+    long[] topThreadIds = new long[topCount];
+    for (int i = 0; i < topCount; i++) {
+      topThreadIds[i] = threadIds[topIndexes[i]];
+    }
+    ThreadInfo[] threadInfos = threadBean.getThreadInfo(topThreadIds, MAX_FRAMES);
+
+    telemetryClient.trackAsync(
+        telemetryClient.newMetricTelemetry(
+            HOTTEST_THREAD_CPU_PERCENTAGE,
+            getPercentage(cpuTimeDiffs[topIndexes[0]], elapsedNanos)));
+
+    StringBuilder sb =
+        new StringBuilder("Threads with the most CPU time over the last ")
+            .append(elapsedNanos / 1000000000)
+            .append(" seconds:");
+    for (int i = 0; i < topCount; i++) {
+      ThreadInfo threadInfo = threadInfos[i];
+      if (threadInfo == null) {
+        // the thread has ended since
+        continue;
+      }
+      double percentage = getPercentage(cpuTimeDiffs[topIndexes[i]], elapsedNanos);
+      StackTraceElement[] stackTrace = threadInfo.getStackTrace();
+
+      MetricTelemetryBuilder metricBuilder =
+          telemetryClient.newMetricTelemetryBuilder(METRIC_NAME, percentage);
+      metricBuilder.addProperty(THREAD_NAME_PROPERTY, threadInfo.getThreadName());
+      if (stackTrace.length > 0) {
+        metricBuilder.addProperty(LOCATION_PROPERTY, getLocation(stackTrace[0]));
+      }
+      telemetryClient.trackAsync(metricBuilder.build());
+
+      sb.append("\n  ")
+          .append(threadInfo.getThreadName())
+          .append(" Id=")
+          .append(threadInfo.getThreadId())
+          .append(": ")
+          .append(String.format(Locale.ROOT, "%.1f", percentage))
+          .append("% CPU, ")
+          .append(threadInfo.getThreadState());
+      for (StackTraceElement element : stackTrace) {
+        sb.append("\n    at ").append(getLocation(element));
+      }
+    }
+
+    MessageTelemetryBuilder messageBuilder = telemetryClient.newMessageTelemetryBuilder();
+    messageBuilder.setMessage(sb.toString());
+    messageBuilder.setTime(FormattedTime.offSetDateTimeFromNow());
+    telemetryClient.trackAsync(messageBuilder.build());
+  }
+
+  /**
+   * Selects the indexes of the largest positive values, in descending order of the values.
+   *
+   * @return the number of indexes selected, which is at most the length of {@code topIndexes}
+   */
+  // visible for testing
+  static int selectTop(long[] values, int count, int[] topIndexes) {
+    int topCount = 0;
+    for (int i = 0; i < count; i++) {
+      long value = values[i];
+      if (value <= 0
+          || (topCount == topIndexes.length && value <= values[topIndexes[topCount - 1]])) {
+        continue;
+      }
+      // insertion sort, which is fine since the number of selected indexes is small
+      int j = topCount == topIndexes.length ? topCount - 1 : topCount++;
+      while (j > 0 && values[topIndexes[j - 1]] < value) {
+        topIndexes[j] = topIndexes[j - 1];
+        j--;
+      }
+      topIndexes[j] = i;
+    }
+    return topCount;
+  }
+
+  private static double getPercentage(long cpuTimeNanos, long elapsedNanos) {
+    return 100.0 * cpuTimeNanos / elapsedNanos;
+  }
+
+  private static String getLocation(StackTraceElement element) {
+    String location = element.getClassName() + "." + element.getMethodName();
+    return element.getLineNumber() > 0 ? location + ":" + element.getLineNumber() : location;
+  }
+}
@@ -0,0 +1,249 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Aggregates low-overhead JFR events (JDK 14+) into per-interval metrics which can't be derived
+ * from the MXBeans: allocation rate, time spent in safepoints, and time spent blocked on contended
+ * locks, along with the GC pauses and the heap used after GC.
+ *
+ * <p>The events are consumed from a JFR recording stream on a thread owned by JFR, and are only
+ * added to counters there, the metrics are sent when the performance counter is collected.
+ */
+public final class JfrPerformanceCounter implements PerformanceCounter {
+
+  private static final Logger logger = LoggerFactory.getLogger(JfrPerformanceCounter.class);
+
+  private static final String ALLOCATION_RATE = "JVM Allocation Rate";
+  private static final String SAFEPOINT_TIME = "JVM Safepoint Time";
+  private static final String LOCK_CONTENTION_TIME = "JVM Lock Contention Time";
+  private static final String GC_PAUSE_TIME = "JVM GC Pause Time";
+  private static final String GC_MAX_PAUSE = "JVM GC Max Pause";
+  private static final String HEAP_USED_AFTER_GC = "JVM Heap Used After GC";
+
+  private static final String OBJECT_ALLOCATION_SAMPLE = "jdk.ObjectAllocationSample";
+  private static final String SAFEPOINT_BEGIN = "jdk.SafepointBegin";
+  private static final String SAFEPOINT_END = "jdk.SafepointEnd";
+  static final String JAVA_MONITOR_ENTER = "jdk.JavaMonitorEnter";
+  static final String THREAD_PARK = "jdk.ThreadPark";
+  private static final String GARBAGE_COLLECTION = "jdk.GarbageCollection";
+  private static final String GC_HEAP_SUMMARY = "jdk.GCHeapSummary";
+
+  // parking on other blockers (e.g. the condition of an idle thread pool) is waiting, not
+  // contention
+  static final String LOCK_CLASS_PREFIX = "java.util.concurrent.locks.Reentrant";
+
+  private static final long NANOS_IN_MILLI = 1000000;
+
+  // JFR merges the event settings of all recordings in the JVM (the lowest threshold wins), so
+  // shorter events are still delivered when e.g. the lock contention counter or the application's
+  // own recording uses a lower threshold
+  private final long lockContentionThresholdNanos;
+
+  // these are written by the JFR thread, and read and reset when collected
+  private final LongAdder allocatedBytes = new LongAdder();
+  private final LongAdder safepointNanos = new LongAdder();
+  private final LongAdder lockContentionNanos = new LongAdder();
+  private final LongAdder gcPauseNanos = new LongAdder();
+  private final AtomicLong gcMaxPauseNanos = new AtomicLong(-1);
+  private final AtomicLong heapUsedAfterGc = new AtomicLong(-1);
+
+  // only accessed by the JFR thread (safepoints are not nested)
+  private long safepointId = -1;
+  @Nullable private Instant safepointStartTime;
+
+  private long prevCollectionTimeNanos;
+
+  /**
+   * Starts the JFR recording stream, and returns the performance counter that reports from it, or
+   * null if JFR streaming is not available (e.g. on Java 8-13).
+   *
+   * @param lockContentionThreshold monitor enters and parks that are shorter than this are not
+   *     recorded, which keeps the overhead low
+   */
+  @Nullable
+  public static JfrPerformanceCounter start(Duration lockContentionThreshold) {
+    if (!JfrRecordingStream.isAvailable()) {
+      logger.info("JFR metrics require Java 14 or later");
+      return null;
+    }
+    JfrRecordingStream recordingStream;
+    try {
+      recordingStream = JfrRecordingStream.create();
+    } catch (ReflectiveOperationException | RuntimeException e) {
+      logger.warn("Could not create JFR recording stream: {}", e.toString());
+      logger.debug(e.getMessage(), e);
+      return null;
+    }
+    JfrPerformanceCounter performanceCounter = new JfrPerformanceCounter(lockContentionThreshold);
+    try {
+      performanceCounter.subscribe(recordingStream, lockContentionThreshold);
+      recordingStream.startAsync();
+    } catch (RuntimeException e) {
+      logger.warn("Could not start JFR recording stream: {}", e.toString());
+      logger.debug(e.getMessage(), e);
+      recordingStream.close();
+      return null;
+    }
+    return performanceCounter;
+  }
+
+  // visible for testing
+  JfrPerformanceCounter(Duration lockContentionThreshold) {
+    lockContentionThresholdNanos = lockContentionThreshold.toNanos();
+    prevCollectionTimeNanos = System.nanoTime();
+  }
+
+  // the handlers only extract the values from the events, so that the handling can be tested
+  // without JFR
+  private void subscribe(JfrRecordingStream recordingStream, Duration lockContentionThreshold) {
+    // the allocations are sampled (and throttled by JFR), each sample is weighted by the bytes
+    // allocated since the previous sample (this event only exists since JDK 16)
+    recordingStream.enable(OBJECT_ALLOCATION_SAMPLE, null, null, false);
+    recordingStream.onEvent(
+        OBJECT_ALLOCATION_SAMPLE,
+        event -> allocatedBytes.add(recordingStream.getLong(event, "weight")));
+
+    recordingStream.enable(SAFEPOINT_BEGIN, null, null, false);
+    recordingStream.enable(SAFEPOINT_END, null, null, false);
+    recordingStream.onEvent(
+        SAFEPOINT_BEGIN,
+        event ->
+            recordSafepointBegin(
+                recordingStream.getLong(event, "safepointId"),
+                recordingStream.getStartTime(event)));
+    recordingStream.onEvent(
+        SAFEPOINT_END,
+        event ->
+            recordSafepointEnd(
+                recordingStream.getLong(event, "safepointId"), recordingStream.getEndTime(event)));
+
+    recordingStream.enable(JAVA_MONITOR_ENTER, lockContentionThreshold, null, false);
+    recordingStream.onEvent(
+        JAVA_MONITOR_ENTER,
+        event -> recordMonitorEnter(recordingStream.getDurationNanos(event)));
+    recordingStream.enable(THREAD_PARK, lockContentionThreshold, null, false);
+    recordingStream.onEvent(
+        THREAD_PARK,
+        event ->
+            recordThreadPark(
+                recordingStream.getClassName(event, "parkedClass"),
+                recordingStream.getDurationNanos(event)));
+
+    recordingStream.enable(GARBAGE_COLLECTION, null, null, false);
+    recordingStream.onEvent(
+        GARBAGE_COLLECTION,
+        event ->
+            recordGarbageCollection(
+                recordingStream.getDurationNanos(event, "sumOfPauses"),
+                recordingStream.getDurationNanos(event, "longestPause")));
+    recordingStream.enable(GC_HEAP_SUMMARY, null, null, false);
+    recordingStream.onEvent(
+        GC_HEAP_SUMMARY,
+        event ->
+            recordGcHeapSummary(
+                recordingStream.getString(event, "when"),
+                recordingStream.getLong(event, "heapUsed")));
+  }
+
+  // the safepoint begins at the start of jdk.SafepointBegin (whose duration is only the time
+  // taken to bring the threads to the safepoint), and ends at the end of jdk.SafepointEnd
+  void recordSafepointBegin(long safepointId, Instant startTime) {
+    this.safepointId = safepointId;
+    safepointStartTime = startTime;
+  }
+
+  void recordSafepointEnd(long safepointId, Instant endTime) {
+    Instant startTime = safepointStartTime;
+    if (startTime != null && safepointId == this.safepointId) {
+      safepointNanos.add(Duration.between(startTime, endTime).toNanos());
+    }
+    safepointStartTime = null;
+  }
+
+  void recordMonitorEnter(long durationNanos) {
+    if (durationNanos >= lockContentionThresholdNanos) {
+      lockContentionNanos.add(durationNanos);
+    }
+  }
+
+  void recordThreadPark(@Nullable String parkedClass, long durationNanos) {
+    if (durationNanos >= lockContentionThresholdNanos
+        && parkedClass != null
+        && parkedClass.startsWith(LOCK_CLASS_PREFIX)) {
+      lockContentionNanos.add(durationNanos);
+    }
+  }
+
+  void recordGarbageCollection(long sumOfPausesNanos, long longestPauseNanos) {
+    gcPauseNanos.add(sumOfPausesNanos);
+    gcMaxPauseNanos.accumulateAndGet(longestPauseNanos, Math::max);
+  }
+
+  // jdk.GCHeapSummary is emitted both before and after each GC
+  void recordGcHeapSummary(@Nullable String when, long heapUsed) {
+    if ("After GC".equals(when)) {
+      heapUsedAfterGc.set(heapUsed);
+    }
+  }
+
+  // used by tests only
+  long getSafepointNanos() {
+    return safepointNanos.sum();
+  }
+
+  // used by tests only
+  long getLockContentionNanos() {
+    return lockContentionNanos.sum();
+  }
+
+  // used by tests only
+  long getHeapUsedAfterGc() {
+    return heapUsedAfterGc.get();
+  }
+
+  @Override
+  public void report(TelemetryClient telemetryClient) {
+    long currCollectionTimeNanos = System.nanoTime();
+    double elapsedSeconds = (currCollectionTimeNanos - prevCollectionTimeNanos) / 1e9;
+    prevCollectionTimeNanos = currCollectionTimeNanos;
+
+    // a zero allocation rate is not sent, since the allocation samples don't exist before JDK 16
+    // (the times below are per-interval totals, whose zeros are needed for correct averages)
+    long allocated = allocatedBytes.sumThenReset();
+    if (allocated != 0) {
+      send(telemetryClient, allocated / elapsedSeconds, ALLOCATION_RATE);
+    }
+    send(telemetryClient, toMillis(safepointNanos.sumThenReset()), SAFEPOINT_TIME);
+    send(telemetryClient, toMillis(lockContentionNanos.sumThenReset()), LOCK_CONTENTION_TIME);
+    send(telemetryClient, toMillis(gcPauseNanos.sumThenReset()), GC_PAUSE_TIME);
+
+    // these are only sent for the intervals in which a GC occurred
+    long maxPauseNanos = gcMaxPauseNanos.getAndSet(-1);
+    if (maxPauseNanos != -1) {
+      send(telemetryClient, toMillis(maxPauseNanos), GC_MAX_PAUSE);
+    }
+    long heapUsed = heapUsedAfterGc.getAndSet(-1);
+    if (heapUsed != -1) {
+      send(telemetryClient, heapUsed, HEAP_USED_AFTER_GC);
+    }
+  }
+
+  private static double toMillis(long nanos) {
+    return (double) nanos / NANOS_IN_MILLI;
+  }
+
+  private static void send(TelemetryClient telemetryClient, double value, String metricName) {
+    telemetryClient.trackAsync(telemetryClient.newMetricTelemetry(metricName, value));
+  }
+}
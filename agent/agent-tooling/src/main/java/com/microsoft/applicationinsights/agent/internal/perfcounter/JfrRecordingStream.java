@@ -0,0 +1,268 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.ThreadPoolUtils;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.function.Consumer;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A {@code jdk.jfr.consumer.RecordingStream} (JDK 14+), which is accessed reflectively since the
+ * agent runs on Java 8.
+ *
+ * <p>The events passed to the handlers are {@code jdk.jfr.consumer.RecordedEvent}s, whose fields
+ * are read using the accessors of this class. The methods are looked up once, so reading a field
+ * costs a reflective call, but no lookup.
+ */
+final class JfrRecordingStream {
+
+  private static final Logger logger = LoggerFactory.getLogger(JfrRecordingStream.class);
+
+  private static final String RECORDING_STREAM = "jdk.jfr.consumer.RecordingStream";
+
+  private final Object recordingStream;
+
+  private final Method enable;
+  private final Method onEvent;
+  private final Method start;
+  private final Method close;
+
+  private final Method withThreshold;
+  private final Method withPeriod;
+  private final Method withStackTrace;
+  private final Method withoutStackTrace;
+
+  private final Method getLong;
+  private final Method getString;
+  private final Method getFieldDuration;
+  private final Method getFieldClass;
+  private final Method getClassName;
+  private final Method getDuration;
+  private final Method getStartTime;
+  private final Method getEndTime;
+  private final Method getStackTrace;
+  private final Method getFrames;
+  private final Method getMethod;
+  private final Method getLineNumber;
+  private final Method getType;
+  private final Method getMethodName;
+
+  static boolean isAvailable() {
+    try {
+      Class.forName(RECORDING_STREAM);
+      return true;
+    } catch (ClassNotFoundException | LinkageError e) {
+      return false;
+    }
+  }
+
+  /**
+   * Creates a recording stream, which doesn't record anything until events are enabled and it is
+   * started.
+   *
+   * @throws ReflectiveOperationException if the recording stream is not available (e.g. on Java
+   *     8-13), or if it could not be created (e.g. when JFR is disabled)
+   */
+  static JfrRecordingStream create() throws ReflectiveOperationException {
+    return new JfrRecordingStream();
+  }
+
+  private JfrRecordingStream() throws ReflectiveOperationException {
+    Class<?> recordingStreamClass = Class.forName(RECORDING_STREAM);
+    Class<?> eventSettingsClass = Class.forName("jdk.jfr.EventSettings");
+    Class<?> recordedObjectClass = Class.forName("jdk.jfr.consumer.RecordedObject");
+    Class<?> recordedEventClass = Class.forName("jdk.jfr.consumer.RecordedEvent");
+    Class<?> recordedClassClass = Class.forName("jdk.jfr.consumer.RecordedClass");
+
+    enable = recordingStreamClass.getMethod("enable", String.class);
+    onEvent = recordingStreamClass.getMethod("onEvent", String.class, Consumer.class);
+    start = recordingStreamClass.getMethod("start");
+    close = recordingStreamClass.getMethod("close");
+
+    withThreshold = eventSettingsClass.getMethod("withThreshold", Duration.class);
+    withPeriod = eventSettingsClass.getMethod("withPeriod", Duration.class);
+    withStackTrace = eventSettingsClass.getMethod("withStackTrace");
+    withoutStackTrace = eventSettingsClass.getMethod("withoutStackTrace");
+
+    getLong = recordedObjectClass.getMethod("getLong", String.class);
+    getString = recordedObjectClass.getMethod("getString", String.class);
+    getFieldDuration = recordedObjectClass.getMethod("getDuration", String.class);
+    getFieldClass = recordedObjectClass.getMethod("getClass", String.class);
+    getClassName = recordedClassClass.getMethod("getName");
+    getDuration = recordedEventClass.getMethod("getDuration");
+    getStartTime = recordedEventClass.getMethod("getStartTime");
+    getEndTime = recordedEventClass.getMethod("getEndTime");
+    getStackTrace = recordedEventClass.getMethod("getStackTrace");
+    getFrames = Class.forName("jdk.jfr.consumer.RecordedStackTrace").getMethod("getFrames");
+    Class<?> recordedFrameClass = Class.forName("jdk.jfr.consumer.RecordedFrame");
+    getMethod = recordedFrameClass.getMethod("getMethod");
+    getLineNumber = recordedFrameClass.getMethod("getLineNumber");
+    Class<?> recordedMethodClass = Class.forName("jdk.jfr.consumer.RecordedMethod");
+    getType = recordedMethodClass.getMethod("getType");
+    getMethodName = recordedMethodClass.getMethod("getName");
+
+    // e.g. InvocationTargetException when JFR is disabled via -XX:-FlightRecorder
+    recordingStream = recordingStreamClass.getConstructor().newInstance();
+
+    // the events are only aggregated, so they don't need to be kept around after being consumed
+    recordingStreamClass
+        .getMethod("setMaxAge", Duration.class)
+        .invoke(recordingStream, Duration.ofMinutes(1));
+    // the same RecordedEvent instance is passed for each event, which avoids an allocation per
+    // event (the handlers must not retain the events)
+    recordingStreamClass.getMethod("setReuse", boolean.class).invoke(recordingStream, true);
+  }
+
+  /**
+   * Enables the event.
+   *
+   * @param threshold only events that last at least this long are recorded (for duration events)
+   * @param period how often the event is emitted (for periodic events)
+   * @param stackTrace whether the stack trace is recorded (which adds to the overhead)
+   */
+  void enable(
+      String eventName,
+      @Nullable Duration threshold,
+      @Nullable Duration period,
+      boolean stackTrace) {
+    Object eventSettings = invoke(enable, recordingStream, eventName);
+    invoke(stackTrace ? withStackTrace : withoutStackTrace, eventSettings);
+    if (threshold != null) {
+      invoke(withThreshold, eventSettings, threshold);
+    }
+    if (period != null) {
+      invoke(withPeriod, eventSettings, period);
+    }
+  }
+
+  void onEvent(String eventName, Consumer<Object> handler) {
+    Consumer<Object> action =
+        event -> {
+          try {
+            handler.accept(event);
+          } catch (RuntimeException e) {
+            // don't let a failure to read one event end the recording stream
+            logger.debug(e.getMessage(), e);
+          }
+        };
+    invoke(onEvent, recordingStream, eventName, action);
+  }
+
+  /** Starts the recording, the handlers are then called on a daemon thread. */
+  void startAsync() {
+    // not using RecordingStream.startAsync(), since the thread which it creates to consume the
+    // events is not a daemon thread, and would prevent the JVM from exiting
+    Thread thread =
+        ThreadPoolUtils.createDaemonThreadFactory(JfrRecordingStream.class)
+            .newThread(
+                () -> {
+                  try {
+                    invoke(start, recordingStream);
+                  } catch (RuntimeException e) {
+                    logger.warn("JFR recording stream failed: {}", e.toString());
+                    logger.debug(e.getMessage(), e);
+                  }
+                });
+    thread.start();
+  }
+
+  void close() {
+    invoke(close, recordingStream);
+  }
+
+  long getLong(Object event, String field) {
+    return (Long) invoke(getLong, event, field);
+  }
+
+  @Nullable
+  String getString(Object event, String field) {
+    return (String) invoke(getString, event, field);
+  }
+
+  long getDurationNanos(Object event) {
+    return ((Duration) invoke(getDuration, event)).toNanos();
+  }
+
+  long getDurationNanos(Object event, String field) {
+    return ((Duration) invoke(getFieldDuration, event, field)).toNanos();
+  }
+
+  @Nullable
+  String getClassName(Object event, String field) {
+    Object recordedClass = invoke(getFieldClass, event, field);
+    return recordedClass == null ? null : (String) invoke(getClassName, recordedClass);
+  }
+
+  Instant getStartTime(Object event) {
+    return (Instant) invoke(getStartTime, event);
+  }
+
+  Instant getEndTime(Object event) {
+    return (Instant) invoke(getEndTime, event);
+  }
+
+  /**
+   * Appends the top frames of the stack trace of the event, one frame per line, skipping the
+   * frames of the classes with the given prefixes before the first frame that is appended.
+   */
+  void appendStackTrace(
+      Object event, int maxFrames, List<String> skippedClassPrefixes, StringBuilder sb) {
+    Object stackTrace = invoke(getStackTrace, event);
+    if (stackTrace == null) {
+      return;
+    }
+    int appended = 0;
+    for (Object frame : (List<?>) invoke(getFrames, stackTrace)) {
+      Object method = invoke(getMethod, frame);
+      String className = (String) invoke(getClassName, invoke(getType, method));
+      if (appended == 0 && startsWithAny(className, skippedClassPrefixes)) {
+        continue;
+      }
+      if (appended > 0) {
+        sb.append('\n');
+      }
+      sb.append(className).append('.').append((String) invoke(getMethodName, method));
+      int lineNumber = (Integer) invoke(getLineNumber, frame);
+      if (lineNumber > 0) {
+        sb.append(':').append(lineNumber);
+      }
+      if (++appended == maxFrames) {
+        return;
+      }
+    }
+  }
+
+  private static boolean startsWithAny(String className, List<String> prefixes) {
+    for (String prefix : prefixes) {
+      if (className.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static Object invoke(Method method, Object target, Object... args) {
+    try {
+      return method.invoke(target, args);
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException(e);
+    } catch (InvocationTargetException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw new IllegalStateException(cause);
+    }
+  }
+}
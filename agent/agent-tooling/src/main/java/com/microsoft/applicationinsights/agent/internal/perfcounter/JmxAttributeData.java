@@ -3,6 +3,9 @@
 
 package com.microsoft.applicationinsights.agent.internal.perfcounter;
 
+import java.util.List;
+import javax.annotation.Nullable;
+
 /**
  * Represents JMX data of an Attribute The display name The name of the attribute The type of the
  * attribute.
@@ -11,8 +14,20 @@ public final class JmxAttributeData {
   public final String metricName;
   public final String attribute;
 
+  // the attribute name followed by the composite data keys, split once on first use
+  @Nullable private volatile List<String> path;
+
   public JmxAttributeData(String metricName, String attribute) {
     this.attribute = attribute;
     this.metricName = metricName;
   }
+
+  List<String> getPath() {
+    List<String> result = path;
+    if (result == null) {
+      result = JmxDataFetcher.splitByDot(attribute);
+      path = result;
+    }
+    return result;
+  }
 }
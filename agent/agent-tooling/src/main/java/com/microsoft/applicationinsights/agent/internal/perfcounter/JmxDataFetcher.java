@@ -9,9 +9,12 @@ import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
+import javax.management.Attribute;
 import javax.management.AttributeNotFoundException;
 import javax.management.InstanceNotFoundException;
 import javax.management.MBeanException;
@@ -42,57 +45,114 @@ public class JmxDataFetcher {
     Map<String, Collection<Object>> result = new HashMap<>();
 
     MBeanServer server = ManagementFactory.getPlatformMBeanServer();
-    Set<ObjectName> objects = server.queryNames(new ObjectName(objectName), null);
+    ObjectNameCache objectNameCache = ObjectNameCacheHolder.INSTANCE;
+    Set<ObjectName> objects = objectNameCache.getObjectNames(objectName);
     if (objects.isEmpty()) {
-      String errorMsg = String.format("Cannot find object name '%s'", objectName);
-      throw new IllegalArgumentException(errorMsg);
+      throw cannotFindObjectName(objectName);
     }
 
-    for (JmxAttributeData attribute : attributes) {
+    List<List<Object>> resultPerAttribute = new ArrayList<>(attributes.size());
+    for (int i = 0; i < attributes.size(); i++) {
+      resultPerAttribute.add(new ArrayList<>());
+    }
+    String[] attributeNames = getAttributeNames(attributes);
+
+    boolean found = false;
+    for (ObjectName object : objects) {
+      Map<String, Object> values;
       try {
-        List<Object> resultForAttribute = fetch(server, objects, attribute.attribute);
-        result.put(attribute.metricName, resultForAttribute);
-      } catch (Exception e) {
-        try (MDC.MDCCloseable ignored = CUSTOM_JMX_METRIC_ERROR.makeActive()) {
-          logger.warn(
-              "Failed to fetch JMX object '{}' with attribute '{}': ",
-              objectName,
-              attribute.attribute);
+        values = getAttributes(server, object, attributeNames);
+      } catch (InstanceNotFoundException e) {
+        // unregistered in the meantime
+        objectNameCache.remove(objectName, object);
+        continue;
+      }
+      found = true;
+      int i = 0;
+      for (JmxAttributeData attribute : attributes) {
+        try {
+          Object value = getValue(server, object, attribute, values);
+          if (value != null) {
+            resultPerAttribute.get(i).add(value);
+          }
+        } catch (Exception e) {
+          try (MDC.MDCCloseable ignored = CUSTOM_JMX_METRIC_ERROR.makeActive()) {
+            logger.warn(
+                "Failed to fetch JMX object '{}' with attribute '{}': ",
+                objectName,
+                attribute.attribute);
+          }
+          throw e;
         }
-        throw e;
+        i++;
       }
     }
 
+    if (!found) {
+      throw cannotFindObjectName(objectName);
+    }
+
+    int index = 0;
+    for (JmxAttributeData attribute : attributes) {
+      result.put(attribute.metricName, resultPerAttribute.get(index++));
+    }
     return result;
   }
 
-  private static List<Object> fetch(
-      MBeanServer server, Set<ObjectName> objects, String attributeName)
-      throws AttributeNotFoundException, MBeanException, ReflectionException,
-          InstanceNotFoundException {
-    ArrayList<Object> result = new ArrayList<>();
+  private static IllegalArgumentException cannotFindObjectName(String objectName) {
+    String errorMsg = String.format("Cannot find object name '%s'", objectName);
+    return new IllegalArgumentException(errorMsg);
+  }
+
+  // the distinct top-level attribute names, so that all of them can be fetched in a single call
+  private static String[] getAttributeNames(Collection<JmxAttributeData> attributes) {
+    Set<String> attributeNames = new LinkedHashSet<>();
+    for (JmxAttributeData attribute : attributes) {
+      attributeNames.add(attribute.getPath().get(0));
+    }
+    return attributeNames.toArray(new String[0]);
+  }
 
-    List<String> inners = splitByDot(attributeName);
+  private static Map<String, Object> getAttributes(
+      MBeanServer server, ObjectName object, String[] attributeNames)
+      throws InstanceNotFoundException, ReflectionException {
+    Map<String, Object> values = new HashMap<>();
+    for (Attribute attribute : server.getAttributes(object, attributeNames).asList()) {
+      values.put(attribute.getName(), attribute.getValue());
+    }
+    return values;
+  }
 
-    for (ObjectName object : objects) {
-      Object value = server.getAttribute(object, inners.get(0));
-      if (inners.size() > 1) {
-        if (value != null) {
-          // TODO (trask) will support more nesting after moving to upstream otel jmx component
-          value = ((CompositeData) value).get(inners.get(1));
-        }
-      }
-      if (value != null) {
-        result.add(value);
+  @Nullable
+  private static Object getValue(
+      MBeanServer server, ObjectName object, JmxAttributeData attribute, Map<String, Object> values)
+      throws AttributeNotFoundException, MBeanException, ReflectionException,
+          InstanceNotFoundException {
+    List<String> path = attribute.getPath();
+    String attributeName = path.get(0);
+    Object value = values.get(attributeName);
+    if (value == null && !values.containsKey(attributeName)) {
+      // getAttributes() silently leaves out the attributes that can't be read, while
+      // getAttribute() throws the reason
+      value = server.getAttribute(object, attributeName);
+    }
+    for (int i = 1; i < path.size() && value != null; i++) {
+      if (!(value instanceof CompositeData)) {
+        throw new IllegalArgumentException(
+            "JMX attribute '"
+                + attribute.attribute
+                + "' is not composite data at '"
+                + path.get(i - 1)
+                + "'");
       }
+      value = ((CompositeData) value).get(path.get(i));
     }
-
-    return result;
+    return value;
   }
 
   // This code is copied in from upstream otel java instrumentation repository
   // until we move to upstream version
-  private static List<String> splitByDot(String rawName) {
+  static List<String> splitByDot(String rawName) {
     List<String> components = new ArrayList<>();
     try {
       StringBuilder currentSegment = new StringBuilder();
@@ -139,5 +199,12 @@ public class JmxDataFetcher {
     segments.add(newSegment);
   }
 
+  // initialized on the first fetch, so that loading this class doesn't initialize the platform
+  // MBean server any earlier than before
+  private static class ObjectNameCacheHolder {
+    private static final ObjectNameCache INSTANCE =
+        ObjectNameCache.create(ManagementFactory.getPlatformMBeanServer());
+  }
+
   private JmxDataFetcher() {}
 }
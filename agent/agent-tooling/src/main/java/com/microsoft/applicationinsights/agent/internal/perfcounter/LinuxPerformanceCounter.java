@@ -0,0 +1,251 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Supplies the same system cpu and process disk i/o as {@link OshiPerformanceCounter}, by reading
+ * /proc directly (which avoids the costly initialization of OSHI), along with (optionally) the cpu
+ * throttling and the memory limit of the cgroup (v1 or v2) that the process runs in (e.g. its
+ * container).
+ */
+public final class LinuxPerformanceCounter implements PerformanceCounter {
+
+  private static final Logger logger = LoggerFactory.getLogger(LinuxPerformanceCounter.class);
+
+  private static final String CGROUP_ROOT = "/sys/fs/cgroup";
+
+  // "cpu  user nice system idle iowait irq softirq steal guest guest_nice" (in clock ticks)
+  private static final byte[] CPU = ProcFile.key("cpu ");
+  private static final int USER = 0;
+  private static final int SYSTEM = 2;
+  // guest time is already included in user time
+  private static final int CPU_TICK_TYPES = 8;
+
+  private static final byte[] READ_BYTES = ProcFile.key("read_bytes:");
+  private static final byte[] WRITE_BYTES = ProcFile.key("write_bytes:");
+
+  private static final byte[] NR_THROTTLED = ProcFile.key("nr_throttled ");
+  private static final byte[] THROTTLED_USEC = ProcFile.key("throttled_usec ");
+  private static final byte[] THROTTLED_TIME = ProcFile.key("throttled_time ");
+
+  // cgroup v1 reports "no limit" as a page-aligned Long.MAX_VALUE
+  private static final long UNLIMITED = Long.MAX_VALUE / 2;
+
+  private final ProcFile procStat;
+  @Nullable private final ProcFile procSelfIo;
+  @Nullable private final ProcFile cpuStat;
+  @Nullable private final ProcFile memoryLimit;
+  private final boolean cgroupV2;
+
+  private final long[] cpuTicks = new long[CPU_TICK_TYPES];
+
+  private long prevCollectionTimeNanos;
+  private long prevProcessBytes = -1;
+  private long prevBusyTicks;
+  private long prevTotalTicks = -1;
+  private long prevThrottledPeriods = -1;
+  private long prevThrottledMicros = -1;
+
+  /**
+   * Returns a {@link LinuxPerformanceCounter}, or null when not running on Linux, or when /proc
+   * can't be read, in which case {@link OshiPerformanceCounter} should be used instead.
+   *
+   * @param cgroupMetrics whether the cpu throttling and the memory limit of the cgroup are reported
+   */
+  @Nullable
+  public static LinuxPerformanceCounter create(boolean cgroupMetrics) {
+    if (!System.getProperty("os.name", "").toLowerCase(Locale.ROOT).startsWith("linux")) {
+      return null;
+    }
+    ProcFile procStat = ProcFile.open("/proc/stat");
+    if (procStat == null || !procStat.read() || procStat.getLongs(CPU, new long[4]) != 4) {
+      return null;
+    }
+    // e.g. /proc/self/io is not readable under some hardened kernels
+    ProcFile procSelfIo = ProcFile.open("/proc/self/io");
+
+    if (!cgroupMetrics) {
+      return new LinuxPerformanceCounter(procStat, procSelfIo, null, null, false);
+    }
+    // cgroup.controllers only exists at the root of the unified (v2) hierarchy
+    boolean cgroupV2 = new File(CGROUP_ROOT, "cgroup.controllers").exists();
+    List<String> cgroups = readCgroups("/proc/self/cgroup");
+    ProcFile cpuStat;
+    ProcFile memoryLimit;
+    if (cgroupV2) {
+      String path = getCgroupPath(cgroups, "");
+      cpuStat = openCgroupFile(CGROUP_ROOT, path, "cpu.stat");
+      memoryLimit = openCgroupFile(CGROUP_ROOT, path, "memory.max");
+    } else {
+      cpuStat = openCgroupFile(CGROUP_ROOT + "/cpu", getCgroupPath(cgroups, "cpu"), "cpu.stat");
+      memoryLimit =
+          openCgroupFile(
+              CGROUP_ROOT + "/memory",
+              getCgroupPath(cgroups, "memory"),
+              "memory.limit_in_bytes");
+    }
+    return new LinuxPerformanceCounter(procStat, procSelfIo, cpuStat, memoryLimit, cgroupV2);
+  }
+
+  private LinuxPerformanceCounter(
+      ProcFile procStat,
+      @Nullable ProcFile procSelfIo,
+      @Nullable ProcFile cpuStat,
+      @Nullable ProcFile memoryLimit,
+      boolean cgroupV2) {
+    this.procStat = procStat;
+    this.procSelfIo = procSelfIo;
+    this.cpuStat = cpuStat;
+    this.memoryLimit = memoryLimit;
+    this.cgroupV2 = cgroupV2;
+  }
+
+  @Override
+  public void report(TelemetryClient telemetryClient) {
+    long currCollectionTimeNanos = System.nanoTime();
+    long currProcessBytes = getProcessBytes();
+
+    long currBusyTicks = -1;
+    long currTotalTicks = -1;
+    if (procStat.read()) {
+      int count = procStat.getLongs(CPU, cpuTicks);
+      currBusyTicks = cpuTicks[USER] + cpuTicks[SYSTEM];
+      currTotalTicks = 0;
+      for (int i = 0; i < count; i++) {
+        currTotalTicks += cpuTicks[i];
+      }
+    }
+
+    // the first collection only establishes the baseline
+    if (currProcessBytes != -1 && prevProcessBytes != -1) {
+      double elapsedSeconds = (currCollectionTimeNanos - prevCollectionTimeNanos) / 1e9;
+      double processBytes = (currProcessBytes - prevProcessBytes) / elapsedSeconds;
+      send(telemetryClient, processBytes, MetricNames.PROCESS_IO);
+      logger.trace("Sent performance counter for '{}': '{}'", MetricNames.PROCESS_IO, processBytes);
+    }
+
+    // ticks across all cpus, so this is already normalized by the number of cpus
+    long totalTicks = currTotalTicks - prevTotalTicks;
+    if (currTotalTicks != -1 && prevTotalTicks != -1 && totalTicks > 0) {
+      double processorPercentage = 100.0 * (currBusyTicks - prevBusyTicks) / totalTicks;
+      send(telemetryClient, processorPercentage, MetricNames.TOTAL_CPU_PERCENTAGE);
+      logger.trace(
+          "Sent performance counter for '{}': '{}'",
+          MetricNames.TOTAL_CPU_PERCENTAGE,
+          processorPercentage);
+    }
+
+    prevCollectionTimeNanos = currCollectionTimeNanos;
+    prevProcessBytes = currProcessBytes;
+    prevBusyTicks = currBusyTicks;
+    prevTotalTicks = currTotalTicks;
+
+    reportCpuThrottling(telemetryClient);
+    reportMemoryLimit(telemetryClient);
+  }
+
+  // same as what OshiPerformanceCounter reads on Linux
+  private long getProcessBytes() {
+    if (procSelfIo == null || !procSelfIo.read()) {
+      return -1;
+    }
+    return procSelfIo.getLong(READ_BYTES, 0) + procSelfIo.getLong(WRITE_BYTES, 0);
+  }
+
+  private void reportCpuThrottling(TelemetryClient telemetryClient) {
+    if (cpuStat == null || !cpuStat.read()) {
+      return;
+    }
+    long throttledPeriods = cpuStat.getLong(NR_THROTTLED, -1);
+    long throttledMicros;
+    if (cgroupV2) {
+      throttledMicros = cpuStat.getLong(THROTTLED_USEC, -1);
+    } else {
+      long throttledNanos = cpuStat.getLong(THROTTLED_TIME, -1);
+      throttledMicros = throttledNanos == -1 ? -1 : throttledNanos / 1000;
+    }
+    if (throttledPeriods != -1 && prevThrottledPeriods != -1) {
+      send(
+          telemetryClient,
+          throttledPeriods - prevThrottledPeriods,
+          MetricNames.CGROUP_CPU_THROTTLED_PERIODS);
+    }
+    if (throttledMicros != -1 && prevThrottledMicros != -1) {
+      send(
+          telemetryClient,
+          (throttledMicros - prevThrottledMicros) / 1000.0,
+          MetricNames.CGROUP_CPU_THROTTLED_TIME);
+    }
+    prevThrottledPeriods = throttledPeriods;
+    prevThrottledMicros = throttledMicros;
+  }
+
+  private void reportMemoryLimit(TelemetryClient telemetryClient) {
+    if (memoryLimit == null || !memoryLimit.read()) {
+      return;
+    }
+    // cgroup v2 reports "max" when there is no limit
+    long limit = memoryLimit.getLong(-1);
+    if (limit != -1 && limit < UNLIMITED) {
+      send(telemetryClient, limit, MetricNames.CGROUP_MEMORY_LIMIT);
+    }
+  }
+
+  // visible for testing
+  static List<String> readCgroups(String path) {
+    try {
+      return Files.readAllLines(Paths.get(path), StandardCharsets.UTF_8);
+    } catch (IOException | RuntimeException e) {
+      logger.debug("Could not read {}: {}", path, e.toString());
+      return Collections.emptyList();
+    }
+  }
+
+  // lines are "hierarchy-id:controller-list:path", and the controller list is empty for cgroup v2
+  // visible for testing
+  static String getCgroupPath(List<String> cgroups, String controller) {
+    for (String cgroup : cgroups) {
+      String[] parts = cgroup.split(":", 3);
+      if (parts.length != 3) {
+        continue;
+      }
+      if (controller.isEmpty()
+          ? parts[1].isEmpty()
+          : Arrays.asList(parts[1].split(",")).contains(controller)) {
+        return parts[2];
+      }
+    }
+    return "/";
+  }
+
+  // inside of a container, the cgroup of the container is typically mounted at the root, while
+  // /proc/self/cgroup still shows its path in the host hierarchy
+  // visible for testing
+  @Nullable
+  static ProcFile openCgroupFile(String mount, String path, String fileName) {
+    File file = new File(mount + path, fileName);
+    if (!file.exists()) {
+      file = new File(mount, fileName);
+    }
+    return file.exists() ? ProcFile.open(file.getPath()) : null;
+  }
+
+  private static void send(TelemetryClient telemetryClient, double value, String metricName) {
+    telemetryClient.trackAsync(telemetryClient.newMetricTelemetry(metricName, value));
+  }
+}
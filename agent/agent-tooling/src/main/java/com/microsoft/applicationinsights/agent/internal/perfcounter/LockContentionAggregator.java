@@ -0,0 +1,123 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import javax.annotation.Nullable;
+
+/**
+ * Aggregates the lock contention per interval, per lock class and stack, from which the most
+ * contended locks are reported.
+ *
+ * <p>The number of distinct locks per interval is bounded, contention on additional locks is
+ * aggregated under {@link #OTHER_LOCK_CLASS}.
+ */
+final class LockContentionAggregator {
+
+  static final String OTHER_LOCK_CLASS = "(other)";
+
+  private static final Comparator<Contention> BY_TOTAL_TIME_DESCENDING =
+      Comparator.comparingLong((Contention contention) -> contention.totalNanos).reversed();
+
+  private final int maxLocks;
+
+  private Map<Key, Contention> contentions = new HashMap<>();
+
+  LockContentionAggregator(int maxLocks) {
+    this.maxLocks = maxLocks;
+  }
+
+  /**
+   * Records a contended lock acquisition.
+   *
+   * @param lockClass the class of the monitor or lock
+   * @param stack the (top frames of the) stack where the lock was acquired, one frame per line
+   */
+  synchronized void record(String lockClass, String stack, long nanos) {
+    Key key = new Key(lockClass, stack);
+    Contention contention = contentions.get(key);
+    if (contention == null) {
+      if (contentions.size() >= maxLocks) {
+        key = new Key(OTHER_LOCK_CLASS, "");
+        contention = contentions.get(key);
+      }
+      if (contention == null) {
+        contention = new Contention(key.lockClass, key.stack);
+        contentions.put(key, contention);
+      }
+    }
+    contention.count++;
+    contention.totalNanos += nanos;
+    contention.maxNanos = Math.max(contention.maxNanos, nanos);
+  }
+
+  /** Returns the most contended locks (by total time) since the previous call, and resets. */
+  List<Contention> drain(int topN) {
+    Map<Key, Contention> drained;
+    synchronized (this) {
+      if (contentions.isEmpty()) {
+        return Collections.emptyList();
+      }
+      drained = contentions;
+      contentions = new HashMap<>();
+    }
+    List<Contention> list = new ArrayList<>(drained.values());
+    list.sort(BY_TOTAL_TIME_DESCENDING);
+    return list.size() > topN ? list.subList(0, topN) : list;
+  }
+
+  static final class Contention {
+
+    final String lockClass;
+    final String stack;
+    long count;
+    long totalNanos;
+    long maxNanos;
+
+    private Contention(String lockClass, String stack) {
+      this.lockClass = lockClass;
+      this.stack = stack;
+    }
+
+    // the top frame, which identifies where the lock is acquired
+    String getLocation() {
+      int index = stack.indexOf('\n');
+      return index == -1 ? stack : stack.substring(0, index);
+    }
+  }
+
+  private static final class Key {
+
+    private final String lockClass;
+    private final String stack;
+
+    private Key(String lockClass, String stack) {
+      this.lockClass = lockClass;
+      this.stack = stack;
+    }
+
+    @Override
+    public boolean equals(@Nullable Object obj) {
+      if (this == obj) {
+        return true;
+      }
+      if (!(obj instanceof Key)) {
+        return false;
+      }
+      Key other = (Key) obj;
+      return lockClass.equals(other.lockClass) && stack.equals(other.stack);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(lockClass, stack);
+    }
+  }
+}
@@ -0,0 +1,238 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static java.util.Arrays.asList;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.MessageTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.MetricTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.FormattedTime;
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import java.lang.management.LockInfo;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reports the most contended locks per interval (by lock class and stack), as metrics and as a
+ * compact trace telemetry.
+ *
+ * <p>On Java 14 and later, the contention is recorded from the JFR monitor enter and lock park
+ * events that last at least the threshold. Otherwise, the blocked time of each thread is sampled
+ * using the thread contention monitoring of the ThreadMXBean, and is attributed to the monitor
+ * that the thread is blocked on when sampled (this only covers synchronized blocks and methods, and
+ * the blocked time of threads which are not blocked when sampled is reported under {@link
+ * LockContentionAggregator#OTHER_LOCK_CLASS}).
+ */
+public final class LockContentionPerformanceCounter implements PerformanceCounter {
+
+  private static final Logger logger =
+      LoggerFactory.getLogger(LockContentionPerformanceCounter.class);
+
+  private static final String METRIC_NAME = "Contended Lock Time";
+  private static final String LOCK_CLASS_PROPERTY = "LockClass";
+  private static final String LOCATION_PROPERTY = "Location";
+
+  // bounds the memory used per interval
+  private static final int MAX_LOCKS = 100;
+  private static final int MAX_FRAMES = 5;
+
+  // the frames of the lock implementation itself are not interesting
+  private static final List<String> SKIPPED_CLASS_PREFIXES =
+      asList("java.util.concurrent.locks.", "jdk.internal.misc.Unsafe", "sun.misc.Unsafe");
+
+  // shared with the JFR thread, which records into it
+  private final LockContentionAggregator aggregator = new LockContentionAggregator(MAX_LOCKS);
+  private final int topN;
+  // (JFR only) shorter events are delivered when another recording in the JVM uses a lower
+  // threshold, since JFR merges the settings of all recordings
+  private final long thresholdNanos;
+
+  // only when sampling the ThreadMXBean
+  @Nullable private final ThreadMXBean threadBean;
+  private final ThreadDeltas blockedTimeDeltas = new ThreadDeltas();
+  private long[] blockedTimes = new long[0];
+  private long[] blockedTimeDiffs = new long[0];
+
+  private long prevCollectionTimeNanos = System.nanoTime();
+
+  /**
+   * Returns the performance counter, or null if neither JFR streaming nor thread contention
+   * monitoring are available.
+   *
+   * @param threshold (JFR only) contention shorter than this is not recorded
+   * @param topN the number of most contended locks that are reported per interval
+   */
+  @Nullable
+  public static LockContentionPerformanceCounter create(Duration threshold, int topN) {
+    if (JfrRecordingStream.isAvailable()) {
+      JfrRecordingStream recordingStream = null;
+      try {
+        recordingStream = JfrRecordingStream.create();
+        LockContentionPerformanceCounter performanceCounter =
+            new LockContentionPerformanceCounter(topN, threshold, null);
+        performanceCounter.subscribe(recordingStream, threshold);
+        recordingStream.startAsync();
+        return performanceCounter;
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        logger.debug(
+            "Could not start JFR recording stream, falling back to thread contention monitoring",
+            e);
+        if (recordingStream != null) {
+          recordingStream.close();
+        }
+      }
+    }
+    ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+    if (!threadBean.isThreadContentionMonitoringSupported()) {
+      logger.warn(
+          "Lock contention can't be reported, since thread contention monitoring is not"
+              + " supported");
+      return null;
+    }
+    threadBean.setThreadContentionMonitoringEnabled(true);
+    return new LockContentionPerformanceCounter(topN, threshold, threadBean);
+  }
+
+  private LockContentionPerformanceCounter(
+      int topN, Duration threshold, @Nullable ThreadMXBean threadBean) {
+    this.topN = topN;
+    thresholdNanos = threshold.toNanos();
+    this.threadBean = threadBean;
+  }
+
+  private void subscribe(JfrRecordingStream recordingStream, Duration threshold) {
+    recordingStream.enable(JfrPerformanceCounter.JAVA_MONITOR_ENTER, threshold, null, true);
+    recordingStream.onEvent(
+        JfrPerformanceCounter.JAVA_MONITOR_ENTER,
+        event -> record(recordingStream, event, "monitorClass"));
+    recordingStream.enable(JfrPerformanceCounter.THREAD_PARK, threshold, null, true);
+    recordingStream.onEvent(
+        JfrPerformanceCounter.THREAD_PARK, event -> record(recordingStream, event, "parkedClass"));
+  }
+
+  private void record(JfrRecordingStream recordingStream, Object event, String lockClassField) {
+    long durationNanos = recordingStream.getDurationNanos(event);
+    if (durationNanos < thresholdNanos) {
+      return;
+    }
+    String lockClass = recordingStream.getClassName(event, lockClassField);
+    if (lockClass == null) {
+      return;
+    }
+    if (lockClassField.equals("parkedClass")
+        && !lockClass.startsWith(JfrPerformanceCounter.LOCK_CLASS_PREFIX)) {
+      // e.g. waiting for work on the condition of an idle thread pool
+      return;
+    }
+    StringBuilder stack = new StringBuilder();
+    recordingStream.appendStackTrace(event, MAX_FRAMES, SKIPPED_CLASS_PREFIXES, stack);
+    aggregator.record(lockClass, stack.toString(), durationNanos);
+  }
+
+  @Override
+  public void report(TelemetryClient telemetryClient) {
+    if (threadBean != null) {
+      sampleBlockedThreads(threadBean);
+    }
+
+    long currCollectionTimeNanos = System.nanoTime();
+    long intervalSeconds = (currCollectionTimeNanos - prevCollectionTimeNanos) / 1000000000;
+    prevCollectionTimeNanos = currCollectionTimeNanos;
+
+    List<LockContentionAggregator.Contention> contentions = aggregator.drain(topN);
+    if (contentions.isEmpty()) {
+      return;
+    }
+
+    StringBuilder sb =
+        new StringBuilder("Most contended locks over the last ")
+            .append(intervalSeconds)
+            .append(" seconds:");
+    for (LockContentionAggregator.Contention contention : contentions) {
+      double totalMillis = contention.totalNanos / 1e6;
+
+      MetricTelemetryBuilder metricBuilder =
+          telemetryClient.newMetricTelemetryBuilder(METRIC_NAME, totalMillis);
+      metricBuilder.addProperty(LOCK_CLASS_PROPERTY, contention.lockClass);
+      if (!contention.stack.isEmpty()) {
+        metricBuilder.addProperty(LOCATION_PROPERTY, contention.getLocation());
+      }
+      telemetryClient.trackAsync(metricBuilder.build());
+
+      sb.append("\n  ")
+          .append(contention.lockClass)
+          .append(": ")
+          .append(contention.count)
+          .append(" times, ")
+          .append(String.format(Locale.ROOT, "%.1f", totalMillis))
+          .append(" ms total, ")
+          .append(String.format(Locale.ROOT, "%.1f", contention.maxNanos / 1e6))
+          .append(" ms max");
+      if (!contention.stack.isEmpty()) {
+        sb.append("\n    at ").append(contention.stack.replace("\n", "\n    at "));
+      }
+    }
+
+    MessageTelemetryBuilder messageBuilder = telemetryClient.newMessageTelemetryBuilder();
+    messageBuilder.setMessage(sb.toString());
+    messageBuilder.setTime(FormattedTime.offSetDateTimeFromNow());
+    telemetryClient.trackAsync(messageBuilder.build());
+  }
+
+  // the blocked time is cumulative per thread, so the blocked time since the previous sample is
+  // attributed to the monitor that the thread is blocked on now (if any)
+  private void sampleBlockedThreads(ThreadMXBean threadBean) {
+    long[] threadIds = threadBean.getAllThreadIds();
+    Arrays.sort(threadIds);
+    ThreadInfo[] threadInfos = threadBean.getThreadInfo(threadIds, MAX_FRAMES);
+
+    int count = threadIds.length;
+    if (blockedTimes.length < count) {
+      blockedTimes = new long[count];
+      blockedTimeDiffs = new long[count];
+    }
+    for (int i = 0; i < count; i++) {
+      ThreadInfo threadInfo = threadInfos[i];
+      // -1 when the thread has ended
+      blockedTimes[i] = threadInfo == null ? -1 : threadInfo.getBlockedTime();
+    }
+    blockedTimeDeltas.update(threadIds, blockedTimes, count, blockedTimeDiffs);
+
+    for (int i = 0; i < count; i++) {
+      long blockedMillis = blockedTimeDiffs[i];
+      if (blockedMillis <= 0) {
+        continue;
+      }
+      ThreadInfo threadInfo = threadInfos[i];
+      LockInfo lockInfo = threadInfo.getLockInfo();
+      if (threadInfo.getThreadState() == Thread.State.BLOCKED && lockInfo != null) {
+        aggregator.record(lockInfo.getClassName(), getStack(threadInfo), blockedMillis * 1000000);
+      } else {
+        aggregator.record(LockContentionAggregator.OTHER_LOCK_CLASS, "", blockedMillis * 1000000);
+      }
+    }
+  }
+
+  private static String getStack(ThreadInfo threadInfo) {
+    StringBuilder sb = new StringBuilder();
+    for (StackTraceElement element : threadInfo.getStackTrace()) {
+      if (sb.length() > 0) {
+        sb.append('\n');
+      }
+      sb.append(element.getClassName()).append('.').append(element.getMethodName());
+      if (element.getLineNumber() > 0) {
+        sb.append(':').append(element.getLineNumber());
+      }
+    }
+    return sb.toString();
+  }
+}
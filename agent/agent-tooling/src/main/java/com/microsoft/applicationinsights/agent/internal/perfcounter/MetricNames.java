@@ -28,5 +28,14 @@ public final class MetricNames {
 
   public static final String PROCESS_IO = "\\Process(??APP_WIN32_PROC??)\\IO Data Bytes/sec";
 
+  // the cgroup (e.g. container) cpu throttling per interval, and the cgroup memory limit, in
+  // milliseconds and bytes
+  public static final String CGROUP_CPU_THROTTLED_PERIODS = "Cgroup CPU Throttled Periods";
+  public static final String CGROUP_CPU_THROTTLED_TIME = "Cgroup CPU Throttled Time";
+  public static final String CGROUP_MEMORY_LIMIT = "Cgroup Memory Limit";
+
+  // the cpu usage of the thread which used the most cpu time, as a percentage of one core
+  public static final String HOTTEST_THREAD_CPU_PERCENTAGE = "Hottest Thread CPU Percentage";
+
   private MetricNames() {}
 }
@@ -0,0 +1,118 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.Nullable;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.MalformedObjectNameException;
+import javax.management.Notification;
+import javax.management.ObjectName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Caches the object names that match the configured JMX object names (which can be patterns).
+ *
+ * <p>Each object name is only queried once, after that the matching object names are kept up to
+ * date from the MBean server's registration and unregistration notifications, instead of querying
+ * the MBean server on every collection.
+ */
+final class ObjectNameCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(ObjectNameCache.class);
+
+  private final MBeanServer server;
+  // false if the notification listener couldn't be added, in which case nothing is cached
+  private final boolean listening;
+
+  private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+
+  static ObjectNameCache create(MBeanServer server) {
+    ObjectNameCache cache = new ObjectNameCache(server, true);
+    try {
+      server.addNotificationListener(
+          MBeanServerDelegate.DELEGATE_NAME, cache::handleNotification, null, null);
+      return cache;
+    } catch (InstanceNotFoundException e) {
+      logger.debug("Unable to listen for MBean registrations, JMX queries will not be cached", e);
+      return new ObjectNameCache(server, false);
+    }
+  }
+
+  private ObjectNameCache(MBeanServer server, boolean listening) {
+    this.server = server;
+    this.listening = listening;
+  }
+
+  /** Returns the registered object names that match the given object name. */
+  Set<ObjectName> getObjectNames(String objectName) throws MalformedObjectNameException {
+    if (!listening) {
+      return server.queryNames(new ObjectName(objectName), null);
+    }
+    Entry entry = entries.get(objectName);
+    if (entry == null) {
+      Entry newEntry = new Entry(new ObjectName(objectName));
+      Entry existingEntry = entries.putIfAbsent(objectName, newEntry);
+      entry = existingEntry == null ? newEntry : existingEntry;
+    }
+    entry.initialize(server);
+    return entry.names;
+  }
+
+  /** Removes an object name that turned out to be unregistered already. */
+  void remove(String objectName, ObjectName name) {
+    Entry entry = entries.get(objectName);
+    if (entry != null) {
+      entry.names.remove(name);
+    }
+  }
+
+  private void handleNotification(Notification notification, @Nullable Object handback) {
+    if (!(notification instanceof MBeanServerNotification)) {
+      return;
+    }
+    ObjectName name = ((MBeanServerNotification) notification).getMBeanName();
+    String type = notification.getType();
+    for (Entry entry : entries.values()) {
+      if (!entry.pattern.apply(name)) {
+        continue;
+      }
+      if (MBeanServerNotification.REGISTRATION_NOTIFICATION.equals(type)) {
+        entry.names.add(name);
+      } else if (MBeanServerNotification.UNREGISTRATION_NOTIFICATION.equals(type)) {
+        entry.names.remove(name);
+      }
+    }
+  }
+
+  private static class Entry {
+
+    private final ObjectName pattern;
+    private final Set<ObjectName> names = ConcurrentHashMap.newKeySet();
+    private volatile boolean initialized;
+
+    private Entry(ObjectName pattern) {
+      this.pattern = pattern;
+    }
+
+    // the entry is added before querying, so that registrations during the query are not missed
+    private void initialize(MBeanServer server) {
+      if (initialized) {
+        return;
+      }
+      synchronized (this) {
+        if (!initialized) {
+          names.addAll(server.queryNames(pattern, null));
+          initialized = true;
+        }
+      }
+    }
+  }
+}
@@ -3,11 +3,16 @@
 
 package com.microsoft.applicationinsights.agent.internal.perfcounter;
 
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.MetricTelemetryBuilder;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.ThreadPoolUtils;
 import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
-import java.util.List;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
@@ -23,12 +28,13 @@ import org.slf4j.LoggerFactory;
  * Counter. That means that setting the timeouts is only relevant if done before the first
  * registration of a Performance Counter.
  *
- * <p>The container will go through all the registered Performance Counters and will trigger their
- * 'report' method. By default the container will start reporting after 5 minutes and will continue
- * doing so every 1 minute.
+ * <p>The container will trigger the 'report' method of each registered Performance Counter on its
+ * own schedule, in parallel on a small pool of threads. By default each counter is reported every 1
+ * minute, starting 1 minute after its registration. The interval can be overridden per counter
+ * class, see {@link #setCollectionFrequencyInSec(String, long)}.
  *
- * <p>The user of this class can add (register), remove (unregister) a performance counter while the
- * container is working.
+ * <p>The user of this class can add (register) a performance counter while the container is
+ * working.
  *
  * <p>The container will be stopped automatically when the application exists.
  */
@@ -42,7 +48,13 @@ public enum PerformanceCounterContainer {
   public static final long DEFAULT_COLLECTION_FREQUENCY_IN_SEC = 60;
   private static final long MIN_COLLECTION_FREQUENCY_IN_SEC = 1;
 
-  private final List<PerformanceCounter> performanceCounters = new CopyOnWriteArrayList<>();
+  public static final long DEFAULT_COLLECTION_TIMEOUT_IN_SEC = 30;
+  public static final int DEFAULT_COLLECTION_THREADS = 2;
+
+  private static final String COLLECTION_TIME_METRIC_NAME = "Performance Counter Collection Time";
+  private static final String SKIPPED_COLLECTIONS_METRIC_NAME =
+      "Performance Counter Skipped Collections";
+  private static final String PERFORMANCE_COUNTER_PROPERTY = "PerformanceCounter";
 
   @Nullable private volatile AvailableJmxMetricLogger availableJmxMetricLogger;
 
@@ -50,7 +62,16 @@ public enum PerformanceCounterContainer {
 
   private long collectionFrequencyInMillis = DEFAULT_COLLECTION_FREQUENCY_IN_SEC * 1000;
 
-  private ScheduledThreadPoolExecutor threads;
+  // keyed by the simple class name of the performance counter
+  private final Map<String, Long> collectionFrequencyOverridesInMillis = new ConcurrentHashMap<>();
+
+  private long collectionTimeoutInMillis = DEFAULT_COLLECTION_TIMEOUT_IN_SEC * 1000;
+
+  private int collectionThreads = DEFAULT_COLLECTION_THREADS;
+
+  private volatile boolean reportCollectionMetrics;
+
+  private PerformanceCounterScheduler scheduler;
 
   /**
    * Adds a {@link PerformanceCounter} that can collect data.
@@ -59,7 +80,12 @@ public enum PerformanceCounterContainer {
    */
   public void register(PerformanceCounter performanceCounter) {
     initialize();
-    performanceCounters.add(performanceCounter);
+    Long overrideInMillis =
+        collectionFrequencyOverridesInMillis.get(
+            PerformanceCounterScheduler.getName(performanceCounter));
+    scheduler.schedule(
+        performanceCounter,
+        overrideInMillis != null ? overrideInMillis : collectionFrequencyInMillis);
   }
 
   /**
@@ -73,6 +99,27 @@ public enum PerformanceCounterContainer {
    * @param collectionFrequencyInSec The timeout to wait between collection of Performance Counters.
    */
   public void setCollectionFrequencyInSec(long collectionFrequencyInSec) {
+    this.collectionFrequencyInMillis = validateCollectionFrequency(collectionFrequencyInSec) * 1000;
+  }
+
+  /**
+   * Sets the timeout to wait between collection of the Performance Counters of the given class,
+   * overriding {@link #setCollectionFrequencyInSec(long)}.
+   *
+   * <p>Note that the method will only be effective for Performance Counters registered after it is
+   * called.
+   *
+   * @param performanceCounterName The simple class name of the Performance Counters.
+   * @param collectionFrequencyInSec The timeout to wait between collection of these Performance
+   *     Counters.
+   */
+  public void setCollectionFrequencyInSec(
+      String performanceCounterName, long collectionFrequencyInSec) {
+    collectionFrequencyOverridesInMillis.put(
+        performanceCounterName, validateCollectionFrequency(collectionFrequencyInSec) * 1000);
+  }
+
+  private static long validateCollectionFrequency(long collectionFrequencyInSec) {
     if (collectionFrequencyInSec < MIN_COLLECTION_FREQUENCY_IN_SEC) {
       String errorMessage =
           String.format(
@@ -81,10 +128,38 @@ public enum PerformanceCounterContainer {
               collectionFrequencyInSec, MIN_COLLECTION_FREQUENCY_IN_SEC);
       logger.error(errorMessage);
 
-      collectionFrequencyInSec = MIN_COLLECTION_FREQUENCY_IN_SEC;
+      return MIN_COLLECTION_FREQUENCY_IN_SEC;
     }
+    return collectionFrequencyInSec;
+  }
+
+  /**
+   * Sets the time after which a collection of a Performance Counter is interrupted. The Performance
+   * Counter is skipped until that collection returns.
+   *
+   * <p>Note that the method will be effective if called before the first call to the 'register'
+   * method.
+   */
+  public void setCollectionTimeoutInSec(long collectionTimeoutInSec) {
+    this.collectionTimeoutInMillis = Math.max(collectionTimeoutInSec, 1) * 1000;
+  }
 
-    this.collectionFrequencyInMillis = collectionFrequencyInSec * 1000;
+  /**
+   * Sets the number of threads that Performance Counters are collected on in parallel.
+   *
+   * <p>Note that the method will be effective if called before the first call to the 'register'
+   * method.
+   */
+  public void setCollectionThreads(int collectionThreads) {
+    this.collectionThreads = Math.max(collectionThreads, 1);
+  }
+
+  /**
+   * When enabled, the time taken by each collection of each Performance Counter, and each skipped
+   * collection, are sent as metrics, with the Performance Counter class name as a dimension.
+   */
+  public void setReportCollectionMetrics(boolean reportCollectionMetrics) {
+    this.reportCollectionMetrics = reportCollectionMetrics;
   }
 
   public void setLogAvailableJmxMetrics() {
@@ -93,17 +168,15 @@ public enum PerformanceCounterContainer {
 
   /**
    * A private method that is called only when the container needs to start collecting performance
-   * counters data. The method will schedule a callback to be called, it will initialize a {@link
-   * TelemetryClient} that the Performance Counters will use to report their data
+   * counters data. The method will create the threads that the Performance Counters are collected
+   * on.
    */
   @SuppressWarnings("AlreadyChecked")
   private void initialize() {
     if (!initialized) {
       synchronized (INSTANCE) {
         if (!initialized) {
-          createThreadToCollect();
-
-          scheduleWork();
+          createThreadsToCollect();
 
           initialized = true;
         }
@@ -111,29 +184,36 @@ public enum PerformanceCounterContainer {
     }
   }
 
-  private void scheduleWork() {
-    threads.scheduleAtFixedRate(
-        new Runnable() {
-          @Override
-          public void run() {
-            if (availableJmxMetricLogger != null) {
-              availableJmxMetricLogger.logAvailableJmxMetrics();
-            }
-
-            TelemetryClient telemetryClient = TelemetryClient.getActive();
-
-            for (PerformanceCounter performanceCounter : performanceCounters) {
-              try {
-                performanceCounter.report(telemetryClient);
-              } catch (ThreadDeath td) {
-                throw td;
-              } catch (Throwable t) {
-                logger.error(
-                    "Exception while reporting performance counter: '{}'",
-                    performanceCounter.getClass().getName(),
-                    t);
-              }
-            }
+  private void createThreadsToCollect() {
+    ScheduledThreadPoolExecutor schedulerThread = new ScheduledThreadPoolExecutor(1);
+    schedulerThread.setThreadFactory(
+        ThreadPoolUtils.createDaemonThreadFactory(PerformanceCounterContainer.class));
+    // a timeout is scheduled for every collection, and is cancelled once the collection completes
+    schedulerThread.setRemoveOnCancelPolicy(true);
+
+    ThreadPoolExecutor collectorThreads =
+        new ThreadPoolExecutor(
+            collectionThreads,
+            collectionThreads,
+            0,
+            TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(),
+            ThreadPoolUtils.createDaemonThreadFactory(
+                PerformanceCounterContainer.class, "Collector"));
+
+    scheduler =
+        new PerformanceCounterScheduler(
+            schedulerThread,
+            collectorThreads,
+            collectionTimeoutInMillis,
+            TelemetryClient::getActive,
+            new CollectionMetrics());
+
+    schedulerThread.scheduleAtFixedRate(
+        () -> {
+          AvailableJmxMetricLogger jmxMetricLogger = availableJmxMetricLogger;
+          if (jmxMetricLogger != null) {
+            collectorThreads.execute(jmxMetricLogger::logAvailableJmxMetrics);
           }
         },
         collectionFrequencyInMillis,
@@ -141,9 +221,33 @@ public enum PerformanceCounterContainer {
         TimeUnit.MILLISECONDS);
   }
 
-  private void createThreadToCollect() {
-    threads = new ScheduledThreadPoolExecutor(1);
-    threads.setThreadFactory(
-        ThreadPoolUtils.createDaemonThreadFactory(PerformanceCounterContainer.class));
+  private static class CollectionMetrics
+      implements PerformanceCounterScheduler.CollectionListener {
+
+    @Override
+    public void onCollected(PerformanceCounter performanceCounter, long elapsedNanos) {
+      if (INSTANCE.reportCollectionMetrics) {
+        send(
+            COLLECTION_TIME_METRIC_NAME,
+            NANOSECONDS.toMicros(elapsedNanos) / 1000.0,
+            performanceCounter);
+      }
+    }
+
+    @Override
+    public void onSkipped(PerformanceCounter performanceCounter) {
+      if (INSTANCE.reportCollectionMetrics) {
+        send(SKIPPED_COLLECTIONS_METRIC_NAME, 1, performanceCounter);
+      }
+    }
+
+    private static void send(String metricName, double value, PerformanceCounter counter) {
+      TelemetryClient telemetryClient = TelemetryClient.getActive();
+      MetricTelemetryBuilder telemetryBuilder =
+          telemetryClient.newMetricTelemetryBuilder(metricName, value);
+      telemetryBuilder.addProperty(
+          PERFORMANCE_COUNTER_PROPERTY, PerformanceCounterScheduler.getName(counter));
+      telemetryClient.trackAsync(telemetryBuilder.build());
+    }
   }
 }
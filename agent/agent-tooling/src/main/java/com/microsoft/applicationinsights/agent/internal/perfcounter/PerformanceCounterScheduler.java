@@ -0,0 +1,191 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Collects each {@link PerformanceCounter} on its own schedule, on a small pool of collector
+ * threads, so that a slow counter (e.g. a slow JMX bean, or the deadlock detection which needs a
+ * safepoint) doesn't delay the other counters.
+ *
+ * <p>Each counter has at most one collection in flight. A collection which takes longer than the
+ * timeout is interrupted, and the counter is skipped (and the skip is reported) on each tick until
+ * that collection has returned.
+ */
+final class PerformanceCounterScheduler {
+
+  private static final Logger logger = LoggerFactory.getLogger(PerformanceCounterScheduler.class);
+
+  private static final int QUEUED = 0;
+  private static final int RUNNING = 1;
+  private static final int DONE = 2;
+
+  // only dispatches collections and enforces the timeouts, the collections run on the collectors
+  private final ScheduledExecutorService scheduler;
+  private final ExecutorService collectors;
+  private final long timeoutMillis;
+  private final Supplier<TelemetryClient> telemetryClientSupplier;
+  private final CollectionListener listener;
+
+  PerformanceCounterScheduler(
+      ScheduledExecutorService scheduler,
+      ExecutorService collectors,
+      long timeoutMillis,
+      Supplier<TelemetryClient> telemetryClientSupplier,
+      CollectionListener listener) {
+    this.scheduler = scheduler;
+    this.collectors = collectors;
+    this.timeoutMillis = timeoutMillis;
+    this.telemetryClientSupplier = telemetryClientSupplier;
+    this.listener = listener;
+  }
+
+  void schedule(PerformanceCounter performanceCounter, long intervalMillis) {
+    ScheduledCounter scheduledCounter = new ScheduledCounter(performanceCounter);
+    scheduler.scheduleAtFixedRate(
+        scheduledCounter::tick, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+  }
+
+  static String getName(PerformanceCounter performanceCounter) {
+    return performanceCounter.getClass().getSimpleName();
+  }
+
+  interface CollectionListener {
+
+    void onCollected(PerformanceCounter performanceCounter, long elapsedNanos);
+
+    void onSkipped(PerformanceCounter performanceCounter);
+  }
+
+  private final class ScheduledCounter {
+
+    private final PerformanceCounter performanceCounter;
+    // the collection in flight, if any
+    private final AtomicReference<CollectionTask> current = new AtomicReference<>();
+    private final AtomicBoolean alreadyLoggedSkip = new AtomicBoolean();
+
+    private ScheduledCounter(PerformanceCounter performanceCounter) {
+      this.performanceCounter = performanceCounter;
+    }
+
+    // scheduleAtFixedRate never runs this concurrently for the same counter, and it must never
+    // throw, since that would cancel the schedule
+    private void tick() {
+      if (current.get() != null) {
+        skip();
+        return;
+      }
+      CollectionTask collection = new CollectionTask(this);
+      current.set(collection);
+      try {
+        collection.future = collectors.submit(collection);
+        collection.timeoutFuture =
+            scheduler.schedule(collection::timeout, timeoutMillis, TimeUnit.MILLISECONDS);
+        if (collection.state.get() == DONE) {
+          // the collection completed before its timeout was assigned
+          collection.cancelTimeout();
+        }
+      } catch (RejectedExecutionException e) {
+        // the executors have been shut down
+        current.compareAndSet(collection, null);
+        logger.debug(e.getMessage(), e);
+      }
+    }
+
+    private void skip() {
+      if (!alreadyLoggedSkip.getAndSet(true)) {
+        logger.warn(
+            "Skipping performance counter '{}', because its previous collection has not completed"
+                + " (this message will only be logged once per performance counter)",
+            performanceCounter.getClass().getName());
+      }
+      try {
+        listener.onSkipped(performanceCounter);
+      } catch (RuntimeException e) {
+        logger.debug(e.getMessage(), e);
+      }
+    }
+  }
+
+  private final class CollectionTask implements Runnable {
+
+    private final ScheduledCounter scheduledCounter;
+    private final AtomicInteger state = new AtomicInteger(QUEUED);
+    private volatile Future<?> future;
+    @Nullable private volatile Future<?> timeoutFuture;
+
+    private CollectionTask(ScheduledCounter scheduledCounter) {
+      this.scheduledCounter = scheduledCounter;
+    }
+
+    @Override
+    public void run() {
+      if (!state.compareAndSet(QUEUED, RUNNING)) {
+        // timed out before it even started
+        return;
+      }
+      PerformanceCounter performanceCounter = scheduledCounter.performanceCounter;
+      long startNanos = System.nanoTime();
+      try {
+        performanceCounter.report(telemetryClientSupplier.get());
+      } catch (ThreadDeath td) {
+        throw td;
+      } catch (Throwable t) {
+        logger.error(
+            "Exception while reporting performance counter: '{}'",
+            performanceCounter.getClass().getName(),
+            t);
+      } finally {
+        long elapsedNanos = System.nanoTime() - startNanos;
+        state.set(DONE);
+        cancelTimeout();
+        scheduledCounter.current.compareAndSet(this, null);
+        try {
+          listener.onCollected(performanceCounter, elapsedNanos);
+        } catch (RuntimeException e) {
+          logger.debug(e.getMessage(), e);
+        }
+      }
+    }
+
+    private void cancelTimeout() {
+      Future<?> timeoutFuture = this.timeoutFuture;
+      if (timeoutFuture != null) {
+        timeoutFuture.cancel(false);
+      }
+    }
+
+    private void timeout() {
+      if (state.compareAndSet(QUEUED, DONE)) {
+        // all collector threads were busy for the whole timeout
+        future.cancel(false);
+        scheduledCounter.current.compareAndSet(this, null);
+        logger.warn(
+            "Performance counter '{}' was not collected within {} milliseconds",
+            scheduledCounter.performanceCounter.getClass().getName(),
+            timeoutMillis);
+      } else if (state.get() == RUNNING) {
+        // the counter will keep being skipped until the collection returns
+        future.cancel(true);
+        logger.warn(
+            "Performance counter '{}' did not complete within {} milliseconds, interrupting it",
+            scheduledCounter.performanceCounter.getClass().getName(),
+            timeoutMillis);
+      }
+    }
+  }
+}
@@ -0,0 +1,173 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A small file under /proc or /sys (e.g. /proc/stat or cpu.stat) which is kept open, and is re-read
+ * into a reused buffer and parsed in place, so that polling it doesn't allocate.
+ *
+ * <p>Not thread safe.
+ */
+final class ProcFile {
+
+  private static final Logger logger = LoggerFactory.getLogger(ProcFile.class);
+
+  private final String path;
+  private final RandomAccessFile file;
+  private byte[] buffer = new byte[4096];
+  private int length;
+
+  @Nullable
+  static ProcFile open(String path) {
+    try {
+      return new ProcFile(path, new RandomAccessFile(path, "r"));
+    } catch (IOException | SecurityException e) {
+      logger.debug("Could not open {}: {}", path, e.toString());
+      return null;
+    }
+  }
+
+  // the keys are compared as bytes, so that parsing doesn't need to decode the file
+  static byte[] key(String key) {
+    return key.getBytes(US_ASCII);
+  }
+
+  private ProcFile(String path, RandomAccessFile file) {
+    this.path = path;
+    this.file = file;
+  }
+
+  /**
+   * Reads the current content of the file.
+   *
+   * @return false if the file could not be read, in which case there is nothing to parse
+   */
+  boolean read() {
+    length = 0;
+    try {
+      // the kernel regenerates the content when reading from the start again
+      file.seek(0);
+      int read;
+      while ((read = file.read(buffer, length, buffer.length - length)) > 0) {
+        length += read;
+        if (length == buffer.length) {
+          buffer = Arrays.copyOf(buffer, 2 * buffer.length);
+        }
+      }
+      return true;
+    } catch (IOException e) {
+      logger.debug("Could not read {}: {}", path, e.toString());
+      length = 0;
+      return false;
+    }
+  }
+
+  /**
+   * Parses the number at the start of the file (e.g. memory.limit_in_bytes).
+   *
+   * @return the number, or the default value if the file doesn't start with a number (e.g. "max")
+   */
+  long getLong(long defaultValue) {
+    return parseLong(skipSeparators(0), defaultValue);
+  }
+
+  /**
+   * Parses the number following the key (and any spaces or colon) on the line which starts with
+   * the key (e.g. "nr_throttled 3" or "read_bytes: 4096").
+   *
+   * @return the number, or the default value if there is no such line or number
+   */
+  long getLong(byte[] key, long defaultValue) {
+    int index = indexOfLine(key);
+    if (index == -1) {
+      return defaultValue;
+    }
+    return parseLong(skipSeparators(index + key.length), defaultValue);
+  }
+
+  /**
+   * Parses the numbers following the key on the line which starts with the key (e.g. the "cpu "
+   * line of /proc/stat) into the given array.
+   *
+   * @return the number of values parsed
+   */
+  int getLongs(byte[] key, long[] values) {
+    int index = indexOfLine(key);
+    if (index == -1) {
+      return 0;
+    }
+    index += key.length;
+    int count = 0;
+    while (count < values.length) {
+      index = skipSeparators(index);
+      if (index == length || !isDigit(buffer[index])) {
+        break;
+      }
+      long value = 0;
+      while (index < length && isDigit(buffer[index])) {
+        value = 10 * value + (buffer[index++] - '0');
+      }
+      values[count++] = value;
+    }
+    return count;
+  }
+
+  private int indexOfLine(byte[] key) {
+    int lineStart = 0;
+    while (lineStart < length) {
+      if (startsWith(lineStart, key)) {
+        return lineStart;
+      }
+      while (lineStart < length && buffer[lineStart] != '\n') {
+        lineStart++;
+      }
+      lineStart++;
+    }
+    return -1;
+  }
+
+  private boolean startsWith(int index, byte[] key) {
+    if (length - index < key.length) {
+      return false;
+    }
+    for (int i = 0; i < key.length; i++) {
+      if (buffer[index + i] != key[i]) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private int skipSeparators(int index) {
+    while (index < length
+        && (buffer[index] == ' ' || buffer[index] == '\t' || buffer[index] == ':')) {
+      index++;
+    }
+    return index;
+  }
+
+  private long parseLong(int index, long defaultValue) {
+    if (index == length || !isDigit(buffer[index])) {
+      return defaultValue;
+    }
+    long value = 0;
+    while (index < length && isDigit(buffer[index])) {
+      value = 10 * value + (buffer[index++] - '0');
+    }
+    return value;
+  }
+
+  private static boolean isDigit(byte b) {
+    return b >= '0' && b <= '9';
+  }
+}
@@ -0,0 +1,65 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+/**
+ * Computes the per-thread deltas of a cumulative per-thread value (e.g. blocked time or cpu time)
+ * between two samples, in primitive arrays keyed by thread id, so that sampling all of the threads
+ * doesn't box or allocate per thread.
+ *
+ * <p>Not thread safe.
+ */
+final class ThreadDeltas {
+
+  private long[] prevThreadIds = new long[0];
+  private long[] prevValues = new long[0];
+  private int prevCount;
+  private boolean hasPrevious;
+
+  /**
+   * Records the values of this sample, and computes the deltas since the previous sample.
+   *
+   * <p>Threads which were not in the previous sample started since then, so their delta is their
+   * whole value. On the first sample, all of the deltas are {@code -1}.
+   *
+   * @param threadIds the thread ids, which must be sorted in ascending order
+   * @param values the values, negative when not available (e.g. the thread has ended)
+   * @param count the number of threads in this sample
+   * @param deltas receives the delta per thread, or {@code -1} when not available
+   */
+  void update(long[] threadIds, long[] values, int count, long[] deltas) {
+    int prevIndex = 0;
+    for (int i = 0; i < count; i++) {
+      long value = values[i];
+      if (value < 0 || !hasPrevious) {
+        deltas[i] = -1;
+        continue;
+      }
+      long threadId = threadIds[i];
+      while (prevIndex < prevCount && prevThreadIds[prevIndex] < threadId) {
+        prevIndex++;
+      }
+      if (prevIndex < prevCount && prevThreadIds[prevIndex] == threadId) {
+        // values can't go backwards, but a negative delta is never reported
+        deltas[i] = Math.max(value - prevValues[prevIndex], 0);
+      } else {
+        deltas[i] = value;
+      }
+    }
+
+    if (prevThreadIds.length < count) {
+      prevThreadIds = new long[count];
+      prevValues = new long[count];
+    }
+    prevCount = 0;
+    for (int i = 0; i < count; i++) {
+      if (values[i] >= 0) {
+        prevThreadIds[prevCount] = threadIds[i];
+        prevValues[prevCount] = values[i];
+        prevCount++;
+      }
+    }
+    hasPrevious = true;
+  }
+}
@@ -3,6 +3,8 @@
 
 package com.microsoft.applicationinsights.agent.internal.processors;
 
+import com.microsoft.applicationinsights.agent.internal.common.CachingPattern;
+import com.microsoft.applicationinsights.agent.internal.common.MultiPattern;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.MatchType;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorAttribute;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorIncludeExclude;
@@ -13,7 +15,6 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.regex.Pattern;
 import javax.annotation.Nullable;
 
 public abstract class AgentProcessor {
@@ -105,12 +106,12 @@ public abstract class AgentProcessor {
 
   public static class RegexpIncludeExclude extends IncludeExclude {
 
-    // pattern to match against span names or log bodies
-    private final List<Pattern> patterns;
-    private final Map<AttributeKey<?>, Pattern> attributeValuePatterns;
+    // patterns to match against span names or log bodies
+    private final MultiPattern patterns;
+    private final Map<AttributeKey<?>, CachingPattern> attributeValuePatterns;
 
     private RegexpIncludeExclude(
-        List<Pattern> patterns, Map<AttributeKey<?>, Pattern> attributeValuePatterns) {
+        MultiPattern patterns, Map<AttributeKey<?>, CachingPattern> attributeValuePatterns) {
       this.patterns = patterns;
       this.attributeValuePatterns = attributeValuePatterns;
     }
@@ -118,54 +119,34 @@ public abstract class AgentProcessor {
     public static RegexpIncludeExclude create(
         ProcessorIncludeExclude includeExclude, boolean isLog) {
       List<ProcessorAttribute> attributes = includeExclude.attributes;
-      Map<AttributeKey<?>, Pattern> attributeKeyValuePatterns = new HashMap<>();
+      Map<AttributeKey<?>, CachingPattern> attributeKeyValuePatterns = new HashMap<>();
       if (attributes != null) {
         for (ProcessorAttribute attribute : attributes) {
           if (attribute.value != null) {
             attributeKeyValuePatterns.put(
-                AttributeKey.stringKey(attribute.key), Pattern.compile(attribute.value));
+                AttributeKey.stringKey(attribute.key), CachingPattern.forFind(attribute.value));
           }
         }
       }
 
-      List<Pattern> patterns = new ArrayList<>();
-      if (isLog) {
-        if (includeExclude.logBodies != null) {
-          for (String regex : includeExclude.logBodies) {
-            patterns.add(Pattern.compile(regex));
-          }
-        }
-      } else {
-        if (includeExclude.spanNames != null) {
-          for (String regex : includeExclude.spanNames) {
-            patterns.add(Pattern.compile(regex));
-          }
-        }
+      List<String> regexes = isLog ? includeExclude.logBodies : includeExclude.spanNames;
+      if (regexes == null) {
+        regexes = new ArrayList<>();
       }
 
-      return new RegexpIncludeExclude(patterns, attributeKeyValuePatterns);
+      return new RegexpIncludeExclude(MultiPattern.forFind(regexes), attributeKeyValuePatterns);
     }
 
     // Function to compare span attribute value with user provided value
-    private static boolean isAttributeValueMatch(String attributeValue, Pattern valuePattern) {
-      return valuePattern.matcher(attributeValue).find();
-    }
-
-    private static boolean isPatternFound(String name, List<Pattern> patterns) {
-      for (Pattern pattern : patterns) {
-        if (pattern.matcher(name).find()) {
-          // pattern matches the span!!!
-          return true;
-        }
-      }
-      // no pattern matched
-      return false;
+    private static boolean isAttributeValueMatch(
+        String attributeValue, CachingPattern valuePattern) {
+      return valuePattern.test(attributeValue);
     }
 
     // Function to compare span/log with user provided span patterns/log patterns
     @Override
     public boolean isMatch(Attributes attributes, String name) {
-      if (!patterns.isEmpty() && !isPatternFound(name, patterns)) {
+      if (!patterns.isEmpty() && !patterns.findAny(name)) {
         return false;
       }
 
@@ -174,7 +155,8 @@ public abstract class AgentProcessor {
 
     // Function to compare span with user provided attributes list
     private boolean checkAttributes(Attributes attributes) {
-      for (Entry<AttributeKey<?>, Pattern> attributeEntry : attributeValuePatterns.entrySet()) {
+      for (Entry<AttributeKey<?>, CachingPattern> attributeEntry :
+          attributeValuePatterns.entrySet()) {
         // All of these attributes must match exactly for a match to occur.
         Object existingAttributeValue = attributes.get(attributeEntry.getKey());
         if (!(existingAttributeValue instanceof String)) {
@@ -0,0 +1,123 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.processors;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.CacheStats;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import javax.crypto.Mac;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
+
+/**
+ * Computes the hex digest for the attribute processor "hash" action.
+ *
+ * <p>The hashed values (e.g. user ids, tenant ids) are typically highly repetitive, so results are
+ * kept in a bounded cache, and digests are pooled instead of being created per value.
+ *
+ * <p>Note that the cache keys are the values before hashing, so (up to the cache size of) the raw
+ * values are kept in the heap, e.g. they would be visible in a heap dump.
+ */
+public final class AttributeHasher {
+
+  private static volatile AttributeHasher instance = new AttributeHasher(1000, null);
+
+  private final int maxCacheSize;
+  @Nullable private final Map<String, String> cache;
+
+  @Nullable private final byte[] hmacKey;
+
+  // MessageDigest and Mac are not thread-safe, so instances are pooled (the pools only grow to the
+  // number of threads hashing concurrently)
+  private final Queue<MessageDigest> digestPool = new ConcurrentLinkedQueue<>();
+  private final Queue<Mac> macPool = new ConcurrentLinkedQueue<>();
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Configures the hasher used by attribute processors that are created after this call.
+   *
+   * @param maxCacheSize the maximum number of cached digests (0 disables caching).
+   * @param hmacKey if not null, HMAC-SHA256 with this key is used instead of plain SHA-256.
+   */
+  public static void configure(int maxCacheSize, @Nullable String hmacKey) {
+    instance = new AttributeHasher(maxCacheSize, hmacKey);
+  }
+
+  /**
+   * Returns the hits and misses of the current hasher, which are reported as statsbeat (the counts
+   * start over when the hasher is configured).
+   */
+  public static CacheStats getStats() {
+    return CacheStats.of(() -> instance.hits.sum(), () -> instance.misses.sum());
+  }
+
+  static AttributeHasher getInstance() {
+    return instance;
+  }
+
+  AttributeHasher(int maxCacheSize, @Nullable String hmacKey) {
+    this.maxCacheSize = maxCacheSize;
+    cache = maxCacheSize > 0 ? new ConcurrentHashMap<>() : null;
+    this.hmacKey = hmacKey == null ? null : hmacKey.getBytes(StandardCharsets.UTF_8);
+  }
+
+  String hash(String value) {
+    Map<String, String> cache = this.cache;
+    if (cache == null) {
+      return compute(value);
+    }
+    String cached = cache.get(value);
+    if (cached != null) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    String result = compute(value);
+    if (cache.size() >= maxCacheSize) {
+      // simplest eviction that keeps reads lock-free
+      cache.clear();
+    }
+    cache.put(value, result);
+    return result;
+  }
+
+  // visible for testing
+  double getHitRate() {
+    long hitCount = hits.sum();
+    long lookups = hitCount + misses.sum();
+    return lookups == 0 ? 0 : hitCount / (double) lookups;
+  }
+
+  private String compute(String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (hmacKey != null) {
+      Mac mac = macPool.poll();
+      if (mac == null) {
+        mac = HmacUtils.getInitializedMac(HmacAlgorithms.HMAC_SHA_256, hmacKey);
+      }
+      // doFinal() resets the mac
+      String result = Hex.encodeHexString(mac.doFinal(bytes));
+      macPool.offer(mac);
+      return result;
+    }
+    MessageDigest digest = digestPool.poll();
+    if (digest == null) {
+      digest = DigestUtils.getSha256Digest();
+    }
+    // digest() resets the digest
+    String result = Hex.encodeHexString(digest.digest(bytes));
+    digestPool.offer(digest);
+    return result;
+  }
+}
@@ -5,28 +5,25 @@ package com.microsoft.applicationinsights.agent.internal.processors;
 
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorAction;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorConfig;
-import io.opentelemetry.api.common.AttributeKey;
-import io.opentelemetry.api.common.Attributes;
-import io.opentelemetry.api.common.AttributesBuilder;
-import io.opentelemetry.sdk.logs.data.LogRecordData;
-import io.opentelemetry.sdk.trace.data.SpanData;
 import java.util.List;
 import java.util.regex.Matcher;
 import javax.annotation.Nullable;
-import org.apache.commons.codec.digest.DigestUtils;
 
 // structure which only allows valid data
 // normalization has to occur before construction
 public class AttributeProcessor extends AgentProcessor {
 
   private final List<ProcessorAction> actions;
+  private final AttributeHasher hasher;
 
   private AttributeProcessor(
       List<ProcessorAction> actions,
       @Nullable IncludeExclude include,
-      @Nullable IncludeExclude exclude) {
+      @Nullable IncludeExclude exclude,
+      AttributeHasher hasher) {
     super(include, exclude);
     this.actions = actions;
+    this.hasher = hasher;
   }
 
   // Creates a Span Processor object
@@ -35,191 +32,127 @@ public class AttributeProcessor extends AgentProcessor {
         config.include != null ? getNormalizedIncludeExclude(config.include, isLog) : null;
     IncludeExclude normalizedExclude =
         config.exclude != null ? getNormalizedIncludeExclude(config.exclude, isLog) : null;
-    return new AttributeProcessor(config.actions, normalizedInclude, normalizedExclude);
+    return new AttributeProcessor(
+        config.actions, normalizedInclude, normalizedExclude, AttributeHasher.getInstance());
   }
 
-  // Process actions on SpanData
-  public SpanData processActions(SpanData span) {
-    SpanData result = span;
+  // each action sees the result of the previous actions, without rebuilding the attributes
+  void processActions(ProcessedAttributes attributes) {
     for (ProcessorAction actionObj : actions) {
-      result = new MySpanData(result, processAction(result.getAttributes(), actionObj));
+      processAction(attributes, actionObj, hasher);
     }
-
-    return result;
-  }
-
-  // Process actions on LogRecordData
-  public LogRecordData processActions(LogRecordData log) {
-    LogRecordData result = log;
-    for (ProcessorAction actionObj : actions) {
-      result = new MyLogData(result, processAction(result.getAttributes(), actionObj));
-    }
-
-    return result;
   }
 
-  private static Attributes processAction(Attributes attributes, ProcessorAction actionObj) {
+  private static void processAction(
+      ProcessedAttributes attributes, ProcessorAction actionObj, AttributeHasher hasher) {
     switch (actionObj.action) {
       case INSERT:
-        return processInsertAction(attributes, actionObj);
+        processInsertAction(attributes, actionObj);
+        return;
       case UPDATE:
-        return processUpdateAction(attributes, actionObj);
+        processUpdateAction(attributes, actionObj);
+        return;
       case DELETE:
-        return processDeleteAction(attributes, actionObj);
+        processDeleteAction(attributes, actionObj);
+        return;
       case HASH:
-        return processHashAction(attributes, actionObj);
+        processHashAction(attributes, actionObj, hasher);
+        return;
       case EXTRACT:
-        return processExtractAction(attributes, actionObj);
+        processExtractAction(attributes, actionObj);
+        return;
       case MASK:
-        return processMaskAction(attributes, actionObj);
+        processMaskAction(attributes, actionObj);
+        return;
     }
-    return attributes;
   }
 
-  private static Attributes processInsertAction(Attributes attributes, ProcessorAction actionObj) {
-    Attributes existingAttributes = attributes;
-
-    // Update from existing attribute
-    if (actionObj.value != null) {
-      // update to new value
-      AttributesBuilder builder = Attributes.builder();
-      builder.put(actionObj.key, actionObj.value);
-      builder.putAll(existingAttributes);
-      return builder.build();
+  private static void processInsertAction(
+      ProcessedAttributes attributes, ProcessorAction actionObj) {
+    // insert never overwrites an existing attribute, whatever its type
+    if (attributes.containsKey(actionObj.key.getKey())) {
+      return;
     }
 
-    String fromAttributeValue = existingAttributes.get(actionObj.fromAttribute);
-    if (fromAttributeValue != null) {
-      AttributesBuilder builder = Attributes.builder();
-      builder.put(actionObj.key, fromAttributeValue);
-      builder.putAll(existingAttributes);
-      return builder.build();
+    if (actionObj.value != null) {
+      attributes.put(actionObj.key, actionObj.value);
+      return;
     }
 
-    return attributes;
+    // Update from existing attribute
+    attributes.put(actionObj.key, attributes.get(actionObj.fromAttribute));
   }
 
-  private static Attributes processUpdateAction(Attributes attributes, ProcessorAction actionObj) {
-    Attributes existingAttributes = attributes;
-
+  private static void processUpdateAction(
+      ProcessedAttributes attributes, ProcessorAction actionObj) {
     // Currently we only support String
-    String existingValue = existingAttributes.get(actionObj.key);
+    String existingValue = attributes.get(actionObj.key);
     if (existingValue == null) {
-      return existingAttributes;
+      return;
     }
 
-    // Update from existing attribute
     if (actionObj.value != null) {
       // update to new value
-      AttributesBuilder builder = existingAttributes.toBuilder();
-      builder.put(actionObj.key, actionObj.value);
-      return builder.build();
-    }
-
-    String fromAttributeValue = existingAttributes.get(actionObj.fromAttribute);
-    if (fromAttributeValue != null) {
-      AttributesBuilder builder = existingAttributes.toBuilder();
-      builder.put(actionObj.key, fromAttributeValue);
-      return builder.build();
+      attributes.put(actionObj.key, actionObj.value);
+      return;
     }
 
-    return attributes;
+    // Update from existing attribute
+    attributes.put(actionObj.key, attributes.get(actionObj.fromAttribute));
   }
 
-  private static Attributes processDeleteAction(Attributes attributes, ProcessorAction actionObj) {
-    Attributes existingAttributes = attributes;
-
+  private static void processDeleteAction(
+      ProcessedAttributes attributes, ProcessorAction actionObj) {
     // Currently we only support String
-    String existingValue = existingAttributes.get(actionObj.key);
+    String existingValue = attributes.get(actionObj.key);
     if (existingValue == null) {
-      return existingAttributes;
+      return;
     }
 
-    AttributesBuilder builder = Attributes.builder();
-    existingAttributes.forEach(
-        (key, value) -> {
-          if (!key.equals(actionObj.key)) {
-            putIntoBuilder(builder, key, value);
-          }
-        });
-    return builder.build();
+    attributes.remove(actionObj.key);
   }
 
-  private static Attributes processHashAction(Attributes attributes, ProcessorAction actionObj) {
-    Attributes existingAttributes = attributes;
-
+  private static void processHashAction(
+      ProcessedAttributes attributes, ProcessorAction actionObj, AttributeHasher hasher) {
     // Currently we only support String
-    String existingValue = existingAttributes.get(actionObj.key);
+    String existingValue = attributes.get(actionObj.key);
     if (existingValue == null) {
-      return existingAttributes;
+      return;
     }
 
-    AttributesBuilder builderCopy = existingAttributes.toBuilder();
-    builderCopy.put(actionObj.key, DigestUtils.sha256Hex(existingValue));
-    return builderCopy.build();
+    attributes.put(actionObj.key, hasher.hash(existingValue));
   }
 
-  private static Attributes processExtractAction(Attributes attributes, ProcessorAction actionObj) {
-    Attributes existingAttributes = attributes;
-
+  private static void processExtractAction(
+      ProcessedAttributes attributes, ProcessorAction actionObj) {
     // Currently we only support String
-    String existingValue = existingAttributes.get(actionObj.key);
+    String existingValue = attributes.get(actionObj.key);
     if (existingValue == null) {
-      return existingAttributes;
+      return;
     }
     Matcher matcher = actionObj.extractAttribute.pattern.matcher(existingValue);
     if (!matcher.matches()) {
-      return existingAttributes;
+      return;
     }
 
-    AttributesBuilder builder = existingAttributes.toBuilder();
     for (String groupName : actionObj.extractAttribute.groupNames) {
-      builder.put(groupName, matcher.group(groupName));
+      attributes.put(groupName, matcher.group(groupName));
     }
-    return builder.build();
   }
 
-  private static Attributes processMaskAction(Attributes attributes, ProcessorAction actionObj) {
-    Attributes existingAttributes = attributes;
-
+  private static void processMaskAction(ProcessedAttributes attributes, ProcessorAction actionObj) {
     // Currently we only support String
-    String existingValue = existingAttributes.get(actionObj.key);
+    String existingValue = attributes.get(actionObj.key);
     if (existingValue == null) {
-      return existingAttributes;
+      return;
     }
 
     Matcher matcher = actionObj.maskAttribute.pattern.matcher(existingValue);
     String newValue = matcher.replaceAll(actionObj.maskAttribute.replace);
     if (newValue.equals(existingValue)) {
-      return existingAttributes;
+      return;
     }
 
-    AttributesBuilder builder = existingAttributes.toBuilder();
-    builder.put(actionObj.key, newValue);
-    return builder.build();
-  }
-
-  @SuppressWarnings("unchecked")
-  private static void putIntoBuilder(AttributesBuilder builder, AttributeKey<?> key, Object value) {
-    switch (key.getType()) {
-      case STRING:
-        builder.put((AttributeKey<String>) key, (String) value);
-        break;
-      case LONG:
-        builder.put((AttributeKey<Long>) key, (Long) value);
-        break;
-      case BOOLEAN:
-        builder.put((AttributeKey<Boolean>) key, (Boolean) value);
-        break;
-      case DOUBLE:
-        builder.put((AttributeKey<Double>) key, (Double) value);
-        break;
-      case STRING_ARRAY:
-      case LONG_ARRAY:
-      case BOOLEAN_ARRAY:
-      case DOUBLE_ARRAY:
-        builder.put((AttributeKey<List<?>>) key, (List<?>) value);
-        break;
-    }
+    attributes.put(actionObj.key, newValue);
   }
 }
@@ -0,0 +1,88 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.processors;
+
+import static com.microsoft.applicationinsights.agent.internal.processors.SpanExporterWithProcessors.isApplicable;
+
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorConfig;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.logs.data.Body;
+import io.opentelemetry.sdk.logs.data.LogRecordData;
+import io.opentelemetry.sdk.logs.export.LogRecordExporter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Applies all of the attribute and log processors in a single pass over each log record.
+ *
+ * <p>See {@link SpanExporterWithProcessors}.
+ */
+public class LogExporterWithProcessors implements LogRecordExporter {
+
+  private final LogRecordExporter delegate;
+  private final List<AgentProcessor> processors;
+
+  // processors are applied in the given order
+  // caller should check config.isValid before creating
+  public LogExporterWithProcessors(List<ProcessorConfig> configs, LogRecordExporter delegate) {
+    processors = new ArrayList<>(configs.size());
+    for (ProcessorConfig config : configs) {
+      config.validate();
+      switch (config.type) {
+        case ATTRIBUTE:
+          processors.add(AttributeProcessor.create(config, true));
+          break;
+        case LOG:
+          processors.add(LogProcessor.create(config));
+          break;
+        default:
+          throw new IllegalStateException("Not an expected ProcessorType: " + config.type);
+      }
+    }
+    this.delegate = delegate;
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<LogRecordData> logs) {
+    // we need to filter attributes before passing on to delegate
+    List<LogRecordData> copy = new ArrayList<>(logs.size());
+    for (LogRecordData log : logs) {
+      copy.add(process(log));
+    }
+    return delegate.export(copy);
+  }
+
+  private LogRecordData process(LogRecordData log) {
+    ProcessedAttributes attributes = new ProcessedAttributes(log.getAttributes());
+    String originalBody = log.getBody().asString();
+    String body = originalBody;
+    for (AgentProcessor processor : processors) {
+      if (!isApplicable(processor, attributes, body)) {
+        continue;
+      }
+      if (processor instanceof AttributeProcessor) {
+        ((AttributeProcessor) processor).processActions(attributes);
+      } else {
+        LogProcessor logProcessor = (LogProcessor) processor;
+        body = logProcessor.processFromAttributes(attributes, body);
+        body = logProcessor.processToAttributes(attributes, body);
+      }
+    }
+    if (body.equals(originalBody)) {
+      return attributes.isChanged() ? new MyLogData(log, attributes.build()) : log;
+    }
+    return new MyLogData(log, attributes.build(), Body.string(body));
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+}
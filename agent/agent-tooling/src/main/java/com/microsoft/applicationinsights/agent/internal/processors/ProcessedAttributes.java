@@ -0,0 +1,142 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.processors;
+
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.common.AttributesBuilder;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import javax.annotation.Nullable;
+
+/**
+ * Mutable view over a span's (or log's) attributes, which is passed through all of the processors
+ * so that the attributes are only rebuilt once (and only if they were actually changed).
+ *
+ * <p>Changes are recorded in an overlay on top of the original attributes, and reads see the
+ * changes, so that later actions (and later include/exclude criteria) behave the same as if the
+ * attributes had been rebuilt after each action.
+ */
+final class ProcessedAttributes implements Attributes {
+
+  private static final Object REMOVED = new Object();
+
+  private final Attributes original;
+  @Nullable private Map<AttributeKey<?>, Object> changes;
+  @Nullable private Attributes built;
+
+  ProcessedAttributes(Attributes original) {
+    this.original = original;
+  }
+
+  boolean isChanged() {
+    return changes != null;
+  }
+
+  /** Returns the resulting attributes (which are the original attributes if nothing changed). */
+  Attributes build() {
+    if (changes == null) {
+      return original;
+    }
+    if (built == null) {
+      Map<AttributeKey<?>, Object> changes = this.changes;
+      AttributesBuilder builder = Attributes.builder();
+      original.forEach(
+          (key, value) -> {
+            if (!changes.containsKey(key)) {
+              ProcessorUtil.putIntoBuilder(builder, key, value);
+            }
+          });
+      changes.forEach(
+          (key, value) -> {
+            if (value != REMOVED) {
+              ProcessorUtil.putIntoBuilder(builder, key, value);
+            }
+          });
+      built = builder.build();
+    }
+    return built;
+  }
+
+  // null values are ignored, same as AttributesBuilder
+  void put(String key, @Nullable String value) {
+    put(AttributeKey.stringKey(key), value);
+  }
+
+  <T> void put(AttributeKey<T> key, @Nullable T value) {
+    if (value == null) {
+      return;
+    }
+    getChanges().put(key, value);
+  }
+
+  void remove(AttributeKey<?> key) {
+    getChanges().put(key, REMOVED);
+  }
+
+  private Map<AttributeKey<?>, Object> getChanges() {
+    if (changes == null) {
+      changes = new HashMap<>();
+    }
+    built = null;
+    return changes;
+  }
+
+  @Override
+  @Nullable
+  @SuppressWarnings("unchecked")
+  public <T> T get(AttributeKey<T> key) {
+    if (changes != null && changes.containsKey(key)) {
+      Object value = changes.get(key);
+      return value == REMOVED ? null : (T) value;
+    }
+    return original.get(key);
+  }
+
+  /** Returns whether there is an attribute with the given name, regardless of its type. */
+  boolean containsKey(String name) {
+    if (changes != null) {
+      for (Map.Entry<AttributeKey<?>, Object> entry : changes.entrySet()) {
+        if (entry.getValue() != REMOVED && entry.getKey().getKey().equals(name)) {
+          return true;
+        }
+      }
+    }
+    Map<AttributeKey<?>, Object> changes = this.changes;
+    boolean[] found = new boolean[1];
+    original.forEach(
+        (key, value) -> {
+          if (key.getKey().equals(name) && (changes == null || !changes.containsKey(key))) {
+            found[0] = true;
+          }
+        });
+    return found[0];
+  }
+
+  @Override
+  public void forEach(BiConsumer<? super AttributeKey<?>, ? super Object> consumer) {
+    build().forEach(consumer);
+  }
+
+  @Override
+  public int size() {
+    return build().size();
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return build().isEmpty();
+  }
+
+  @Override
+  public Map<AttributeKey<?>, Object> asMap() {
+    return build().asMap();
+  }
+
+  @Override
+  public AttributesBuilder toBuilder() {
+    return build().toBuilder();
+  }
+}
@@ -3,20 +3,40 @@
 
 package com.microsoft.applicationinsights.agent.internal.processors;
 
+import com.microsoft.applicationinsights.agent.internal.common.MultiPattern;
 import com.microsoft.applicationinsights.agent.internal.configuration.Patterns;
 import io.opentelemetry.api.common.AttributeKey;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.common.AttributesBuilder;
-import io.opentelemetry.sdk.trace.data.SpanData;
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 public class ProcessorUtil {
 
+  // applies the rules in order, each rule to the result of the previous rules
+  static String applyRules(
+      List<List<String>> groupNamesList,
+      MultiPattern rules,
+      String name,
+      ProcessedAttributes attributes) {
+    // rules that can't match (based on a single scan of the name) are skipped
+    BitSet candidates = rules.getCandidates(name);
+    for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+      String updatedName = applyRule(groupNamesList.get(i), rules.getPattern(i), name, attributes);
+      if (!updatedName.equals(name)) {
+        name = updatedName;
+        // the remaining rules need to be checked against the updated name
+        candidates = rules.getCandidates(name);
+      }
+    }
+    return name;
+  }
+
   public static String applyRule(
-      List<String> groupNamesList, Pattern pattern, String name, AttributesBuilder builder) {
+      List<String> groupNamesList, Pattern pattern, String name, ProcessedAttributes attributes) {
     if (groupNamesList.isEmpty()) {
       return name;
     }
@@ -32,7 +52,7 @@ public class ProcessorUtil {
         sb.append("{");
         sb.append(groupNamesList.get(i - 1));
         // add attribute key=groupNames.get(i-1), value=matcher.group(i)
-        builder.put(groupNamesList.get(i - 1), matcher.group(i));
+        attributes.put(groupNamesList.get(i - 1), matcher.group(i));
         sb.append("}");
         innerLastEnd = matcher.end(i);
       }
@@ -52,19 +72,42 @@ public class ProcessorUtil {
     return groupNamesList;
   }
 
-  public static boolean spanHasAllFromAttributeKeys(
-      SpanData span, List<AttributeKey<?>> fromAttributes) {
+  public static boolean hasAllFromAttributeKeys(
+      Attributes attributes, List<AttributeKey<?>> fromAttributes) {
     if (fromAttributes.isEmpty()) {
       return false;
     }
-    Attributes existingSpanAttributes = span.getAttributes();
     for (AttributeKey<?> attributeKey : fromAttributes) {
-      if (existingSpanAttributes.get(attributeKey) == null) {
+      if (attributes.get(attributeKey) == null) {
         return false;
       }
     }
     return true;
   }
 
+  @SuppressWarnings("unchecked")
+  static void putIntoBuilder(AttributesBuilder builder, AttributeKey<?> key, Object value) {
+    switch (key.getType()) {
+      case STRING:
+        builder.put((AttributeKey<String>) key, (String) value);
+        break;
+      case LONG:
+        builder.put((AttributeKey<Long>) key, (Long) value);
+        break;
+      case BOOLEAN:
+        builder.put((AttributeKey<Boolean>) key, (Boolean) value);
+        break;
+      case DOUBLE:
+        builder.put((AttributeKey<Double>) key, (Double) value);
+        break;
+      case STRING_ARRAY:
+      case LONG_ARRAY:
+      case BOOLEAN_ARRAY:
+      case DOUBLE_ARRAY:
+        builder.put((AttributeKey<List<?>>) key, (List<?>) value);
+        break;
+    }
+  }
+
   private ProcessorUtil() {}
 }
@@ -0,0 +1,98 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.processors;
+
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorConfig;
+import com.microsoft.applicationinsights.agent.internal.processors.AgentProcessor.IncludeExclude;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Applies all of the attribute and span processors in a single pass over each span.
+ *
+ * <p>Each processor sees the result of the previous processors, but the attributes are only
+ * rebuilt once per span, and the span is only wrapped if something actually changed.
+ */
+public class SpanExporterWithProcessors implements SpanExporter {
+
+  private final SpanExporter delegate;
+  private final List<AgentProcessor> processors;
+
+  // processors are applied in the given order
+  // caller should check config.isValid before creating
+  public SpanExporterWithProcessors(List<ProcessorConfig> configs, SpanExporter delegate) {
+    processors = new ArrayList<>(configs.size());
+    for (ProcessorConfig config : configs) {
+      config.validate();
+      switch (config.type) {
+        case ATTRIBUTE:
+          processors.add(AttributeProcessor.create(config, false));
+          break;
+        case SPAN:
+          processors.add(SpanProcessor.create(config));
+          break;
+        default:
+          throw new IllegalStateException("Not an expected ProcessorType: " + config.type);
+      }
+    }
+    this.delegate = delegate;
+  }
+
+  @Override
+  public CompletableResultCode export(Collection<SpanData> spans) {
+    // we need to filter attributes before passing on to delegate
+    List<SpanData> copy = new ArrayList<>(spans.size());
+    for (SpanData span : spans) {
+      copy.add(process(span));
+    }
+    return delegate.export(copy);
+  }
+
+  private SpanData process(SpanData span) {
+    ProcessedAttributes attributes = new ProcessedAttributes(span.getAttributes());
+    String spanName = span.getName();
+    for (AgentProcessor processor : processors) {
+      if (!isApplicable(processor, attributes, spanName)) {
+        continue;
+      }
+      if (processor instanceof AttributeProcessor) {
+        ((AttributeProcessor) processor).processActions(attributes);
+      } else {
+        SpanProcessor spanProcessor = (SpanProcessor) processor;
+        spanName = spanProcessor.processFromAttributes(attributes, spanName);
+        spanName = spanProcessor.processToAttributes(attributes, spanName);
+      }
+    }
+    if (!attributes.isChanged() && spanName.equals(span.getName())) {
+      return span;
+    }
+    return new MySpanData(span, attributes.build(), spanName);
+  }
+
+  static boolean isApplicable(
+      AgentProcessor processor, ProcessedAttributes attributes, String name) {
+    IncludeExclude include = processor.getInclude();
+    if (include != null && !include.isMatch(attributes, name)) {
+      // If not included we can skip further processing
+      return false;
+    }
+    IncludeExclude exclude = processor.getExclude();
+    // If excluded we can skip further processing
+    return exclude == null || !exclude.isMatch(attributes, name);
+  }
+
+  @Override
+  public CompletableResultCode flush() {
+    return delegate.flush();
+  }
+
+  @Override
+  public CompletableResultCode shutdown() {
+    return delegate.shutdown();
+  }
+}
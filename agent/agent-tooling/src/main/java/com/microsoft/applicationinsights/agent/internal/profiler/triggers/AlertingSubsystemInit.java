@@ -3,6 +3,7 @@
 
 package com.microsoft.applicationinsights.agent.internal.profiler.triggers;
 
+import static com.microsoft.applicationinsights.agent.internal.perfcounter.MetricNames.HOTTEST_THREAD_CPU_PERCENTAGE;
 import static com.microsoft.applicationinsights.agent.internal.perfcounter.MetricNames.TOTAL_CPU_PERCENTAGE;
 
 import com.azure.monitor.opentelemetry.exporter.implementation.builders.EventTelemetryBuilder;
@@ -62,6 +63,15 @@ public class AlertingSubsystemInit {
           AlertMetricType.REQUEST, new AlertPipelineMultiplexer(spanPipelines));
     }
 
+    Configuration.HotThreadProfileTrigger hotThreadProfileTrigger =
+        configuration.preview.hotThreads.profileTrigger;
+    if (configuration.preview.hotThreads.enabled && hotThreadProfileTrigger.enabled) {
+      alertingSubsystem.setPipeline(
+          AlertMetricType.THREAD_CPU,
+          HotThreadAlertPipelineBuilder.build(
+              hotThreadProfileTrigger, alertAction, TimeSource.DEFAULT));
+    }
+
     addObserver(alertingSubsystem, telemetryObservers);
 
     GcEventInit.init(
@@ -76,7 +86,8 @@ public class AlertingSubsystemInit {
   private static GcEventInit.GcEventMonitorConfiguration fromGcEventMonitorConfiguration(
       Configuration.PreviewConfiguration configuration) {
     if (configuration.gcEvents.reportingLevel != null) {
-      return new GcEventInit.GcEventMonitorConfiguration(configuration.gcEvents.reportingLevel);
+      return new GcEventInit.GcEventMonitorConfiguration(
+          configuration.gcEvents.reportingLevel, configuration.gcEvents.pauseThresholdMillis);
     }
 
     return new GcEventInit.GcEventMonitorConfiguration(GcReportingLevel.NONE);
@@ -94,6 +105,8 @@ public class AlertingSubsystemInit {
           AlertMetricType alertMetricType = null;
           if (point.getName().equals(TOTAL_CPU_PERCENTAGE)) {
             alertMetricType = AlertMetricType.CPU;
+          } else if (point.getName().equals(HOTTEST_THREAD_CPU_PERCENTAGE)) {
+            alertMetricType = AlertMetricType.THREAD_CPU;
           }
 
           if (alertMetricType != null) {
@@ -6,6 +6,7 @@ package com.microsoft.applicationinsights.agent.internal.profiler.triggers;
 import com.azure.monitor.opentelemetry.exporter.implementation.builders.EventTelemetryBuilder;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.FormattedTime;
 import com.microsoft.applicationinsights.agent.internal.configuration.GcReportingLevel;
+import com.microsoft.applicationinsights.agent.internal.perfcounter.PerformanceCounterContainer;
 import com.microsoft.applicationinsights.agent.internal.profiler.util.ServiceLoaderUtil;
 import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
 import com.microsoft.applicationinsights.alerting.AlertingSubsystem;
@@ -19,6 +20,7 @@ import java.lang.management.MemoryUsage;
 import java.util.Optional;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,6 +28,10 @@ import org.slf4j.LoggerFactory;
  * Monitors GC events. Forwards relevant metrics to the alerting subsystem.
  *
  * <p>If reportAllGcEvents configuration setting is set, reports GC event to Application Insights
+ *
+ * <p>With the summary reporting level, the GC events are instead aggregated per interval and per
+ * collector (see {@link GcSummaryPerformanceCounter}), and only the collections with long pauses
+ * are reported as GC events.
  */
 class GcEventInit {
 
@@ -40,9 +46,16 @@ class GcEventInit {
   static class GcEventMonitorConfiguration {
 
     final GcReportingLevel reportingLevel;
+    // only used with the summary reporting level
+    final long pauseThresholdMillis;
 
     GcEventMonitorConfiguration(GcReportingLevel reportingLevel) {
+      this(reportingLevel, 0);
+    }
+
+    GcEventMonitorConfiguration(GcReportingLevel reportingLevel, long pauseThresholdMillis) {
       this.reportingLevel = reportingLevel;
+      this.pauseThresholdMillis = pauseThresholdMillis;
     }
   }
 
@@ -71,12 +84,21 @@ class GcEventInit {
       ExecutorService executorService,
       GcEventMonitorConfiguration gcEventMonitorConfiguration,
       GcMonitorFactory gcMonitorFactory) {
+    GcSummaryPerformanceCounter gcSummary = null;
+    if (gcEventMonitorConfiguration.reportingLevel == GcReportingLevel.SUMMARY) {
+      gcSummary = new GcSummaryPerformanceCounter(JVM_INSTANCE_UID);
+    }
     try {
       gcMonitorFactory.monitorSelf(
           executorService,
-          process(alertingSubsystem, telemetryClient, gcEventMonitorConfiguration));
+          process(alertingSubsystem, telemetryClient, gcEventMonitorConfiguration, gcSummary));
     } catch (UnableToMonitorMemoryException e) {
       logger.error("Failed to monitor gc mxbeans");
+      return;
+    }
+    if (gcSummary != null) {
+      // reported every metric interval
+      PerformanceCounterContainer.INSTANCE.register(gcSummary);
     }
   }
 
@@ -84,9 +106,13 @@ class GcEventInit {
   private static GcEventConsumer process(
       AlertingSubsystem alertingSubsystem,
       TelemetryClient telemetryClient,
-      GcEventMonitorConfiguration gcEventMonitorConfiguration) {
+      GcEventMonitorConfiguration gcEventMonitorConfiguration,
+      @Nullable GcSummaryPerformanceCounter gcSummary) {
     return event -> {
       sendTenuredFillPercentageToAlerting(alertingSubsystem, event);
+      if (gcSummary != null) {
+        gcSummary.record(event);
+      }
       emitGcEvent(telemetryClient, gcEventMonitorConfiguration, event);
     };
   }
@@ -117,6 +143,10 @@ class GcEventInit {
     reportEvent |=
         gcEventMonitorConfiguration.reportingLevel == GcReportingLevel.TENURED_ONLY
             && event.getCollector().isTenuredCollector();
+    reportEvent |=
+        gcEventMonitorConfiguration.reportingLevel == GcReportingLevel.SUMMARY
+            && !GcSummaryPerformanceCounter.isConcurrentCycle(event.getCollector().getName())
+            && event.getDuration() >= gcEventMonitorConfiguration.pauseThresholdMillis;
 
     if (!reportEvent) {
       return;
@@ -0,0 +1,202 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.profiler.triggers;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.EventTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.FormattedTime;
+import com.microsoft.applicationinsights.agent.internal.perfcounter.PerformanceCounter;
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import com.microsoft.gcmonitor.GcCollectionEvent;
+import com.microsoft.gcmonitor.memorypools.MemoryPool;
+import java.lang.management.MemoryUsage;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nullable;
+
+/**
+ * Aggregates the GC events per interval and per collector, and reports them as one "GcSummary"
+ * event per collector, instead of one event per collection, along with one "GcAllocationSummary"
+ * event with the allocation rate across all collectors.
+ *
+ * <p>The allocated bytes are the growth of the young pools between the end of a collection and the
+ * start of the next one, and the promoted bytes are the growth of the tenured pool during a young
+ * collection, so both are approximate (e.g. objects allocated directly in the tenured pool are not
+ * counted).
+ *
+ * <p>The duration of the concurrent cycles of some collectors (e.g. "ZGC Cycles") is wall time,
+ * most of which the application threads are running, so they are not counted as pauses.
+ */
+final class GcSummaryPerformanceCounter implements PerformanceCounter {
+
+  // upper bounds of the buckets of the pause histogram, the last bucket is unbounded
+  private static final long[] PAUSE_BUCKET_BOUNDS_MILLIS = {
+    1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000, 10000
+  };
+
+  private final String jvmInstanceId;
+
+  // keyed by collector name, which bounds the size
+  private Map<String, Summary> summaries = new HashMap<>();
+
+  // -1 until the first collection
+  private long youngUsedAfterPreviousGc = -1;
+  private long allocatedBytes;
+
+  private long prevCollectionTimeNanos = System.nanoTime();
+
+  GcSummaryPerformanceCounter(String jvmInstanceId) {
+    this.jvmInstanceId = jvmInstanceId;
+  }
+
+  synchronized void record(GcCollectionEvent event) {
+    String collectorName = event.getCollector().getName();
+    Summary summary = summaries.get(collectorName);
+    if (summary == null) {
+      summary = new Summary();
+      summaries.put(collectorName, summary);
+    }
+    summary.count++;
+    if (!isConcurrentCycle(collectorName)) {
+      summary.recordPause(event.getDuration());
+    }
+
+    MemoryUsage youngBefore = event.getMemoryUsageBeforeGc(event.getYoungPools());
+    MemoryUsage youngAfter = event.getMemoryUsageAfterGc(event.getYoungPools());
+    long before = youngBefore.getUsed();
+    long after = youngAfter.getUsed();
+
+    if (youngUsedAfterPreviousGc != -1) {
+      allocatedBytes += Math.max(before - youngUsedAfterPreviousGc, 0);
+    }
+    youngUsedAfterPreviousGc = after;
+
+    Optional<MemoryPool> tenuredPool = event.getTenuredPool();
+    if (tenuredPool.isPresent()) {
+      long tenuredBefore = event.getMemoryUsageBeforeGc(tenuredPool.get()).getUsed();
+      long tenuredAfter = event.getMemoryUsageAfterGc(tenuredPool.get()).getUsed();
+      if (!event.getCollector().isTenuredCollector()) {
+        summary.promotedBytes += Math.max(tenuredAfter - tenuredBefore, 0);
+      }
+      before += tenuredBefore;
+      after += tenuredAfter;
+    }
+    summary.reclaimedBytes += Math.max(before - after, 0);
+  }
+
+  @Override
+  public void report(TelemetryClient telemetryClient) {
+    Map<String, Summary> reported;
+    long allocated;
+    synchronized (this) {
+      reported = summaries;
+      summaries = new HashMap<>();
+      allocated = allocatedBytes;
+      allocatedBytes = 0;
+    }
+
+    long currCollectionTimeNanos = System.nanoTime();
+    double elapsedSeconds = (currCollectionTimeNanos - prevCollectionTimeNanos) / 1e9;
+    prevCollectionTimeNanos = currCollectionTimeNanos;
+
+    for (Map.Entry<String, Summary> entry : reported.entrySet()) {
+      Summary summary = entry.getValue();
+
+      EventTelemetryBuilder telemetryBuilder = telemetryClient.newEventTelemetryBuilder();
+
+      telemetryBuilder.setName("GcSummary");
+
+      telemetryBuilder.addProperty("collector", entry.getKey());
+      telemetryBuilder.addProperty("jvm_instance_id", jvmInstanceId);
+
+      telemetryBuilder.addMeasurement("interval_sec", elapsedSeconds);
+      telemetryBuilder.addMeasurement("count", (double) summary.count);
+      if (summary.pauseCount > 0) {
+        telemetryBuilder.addMeasurement("total_pause_ms", (double) summary.totalPauseMillis);
+        telemetryBuilder.addMeasurement("max_pause_ms", (double) summary.maxPauseMillis);
+        telemetryBuilder.addMeasurement("p99_pause_ms", (double) summary.getPausePercentile(0.99));
+      }
+      telemetryBuilder.addMeasurement("reclaimed_bytes", (double) summary.reclaimedBytes);
+      telemetryBuilder.addMeasurement(
+          "promotion_rate_bytes_per_sec", summary.promotedBytes / elapsedSeconds);
+
+      telemetryBuilder.setTime(FormattedTime.offSetDateTimeFromNow());
+
+      telemetryClient.trackAsync(telemetryBuilder.build());
+    }
+
+    // the allocations are only measured at collections
+    if (!reported.isEmpty()) {
+      EventTelemetryBuilder telemetryBuilder = telemetryClient.newEventTelemetryBuilder();
+
+      telemetryBuilder.setName("GcAllocationSummary");
+
+      telemetryBuilder.addProperty("jvm_instance_id", jvmInstanceId);
+
+      telemetryBuilder.addMeasurement("interval_sec", elapsedSeconds);
+      telemetryBuilder.addMeasurement("allocation_rate_bytes_per_sec", allocated / elapsedSeconds);
+
+      telemetryBuilder.setTime(FormattedTime.offSetDateTimeFromNow());
+
+      telemetryClient.trackAsync(telemetryBuilder.build());
+    }
+  }
+
+  /**
+   * Returns whether the collector is the concurrent cycle of a collector (e.g. "ZGC Cycles",
+   * "Shenandoah Cycles" or "G1 Concurrent GC"), whose duration is not a pause.
+   */
+  static boolean isConcurrentCycle(String collectorName) {
+    return collectorName.endsWith("Cycles") || collectorName.contains("Concurrent");
+  }
+
+  // used by tests only
+  @Nullable
+  synchronized Summary getSummary(String collectorName) {
+    return summaries.get(collectorName);
+  }
+
+  // used by tests only
+  synchronized long getAllocatedBytes() {
+    return allocatedBytes;
+  }
+
+  // visible for testing
+  static final class Summary {
+
+    long count;
+    // concurrent cycles are counted, but are not pauses
+    long pauseCount;
+    long totalPauseMillis;
+    long maxPauseMillis;
+    final long[] pauseBuckets = new long[PAUSE_BUCKET_BOUNDS_MILLIS.length + 1];
+    long reclaimedBytes;
+    long promotedBytes;
+
+    void recordPause(long pauseMillis) {
+      pauseCount++;
+      totalPauseMillis += pauseMillis;
+      maxPauseMillis = Math.max(maxPauseMillis, pauseMillis);
+      int bucket = 0;
+      while (bucket < PAUSE_BUCKET_BOUNDS_MILLIS.length
+          && pauseMillis > PAUSE_BUCKET_BOUNDS_MILLIS[bucket]) {
+        bucket++;
+      }
+      pauseBuckets[bucket]++;
+    }
+
+    // the upper bound of the bucket which contains the percentile, capped at the max pause
+    long getPausePercentile(double percentile) {
+      long rank = (long) Math.ceil(percentile * pauseCount);
+      long cumulative = 0;
+      for (int i = 0; i < PAUSE_BUCKET_BOUNDS_MILLIS.length; i++) {
+        cumulative += pauseBuckets[i];
+        if (cumulative >= rank) {
+          return Math.min(PAUSE_BUCKET_BOUNDS_MILLIS[i], maxPauseMillis);
+        }
+      }
+      return maxPauseMillis;
+    }
+  }
+}
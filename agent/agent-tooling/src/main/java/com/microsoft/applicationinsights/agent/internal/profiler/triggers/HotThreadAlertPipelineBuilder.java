@@ -0,0 +1,54 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.profiler.triggers;
+
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration;
+import com.microsoft.applicationinsights.alerting.alert.AlertBreach;
+import com.microsoft.applicationinsights.alerting.analysis.TimeSource;
+import com.microsoft.applicationinsights.alerting.analysis.aggregations.ThresholdBreachRatioAggregation;
+import com.microsoft.applicationinsights.alerting.analysis.filter.AlertRequestFilter;
+import com.microsoft.applicationinsights.alerting.analysis.pipelines.AlertPipeline;
+import com.microsoft.applicationinsights.alerting.analysis.pipelines.SingleAlertPipeline;
+import com.microsoft.applicationinsights.alerting.config.AlertConfiguration;
+import com.microsoft.applicationinsights.alerting.config.AlertMetricType;
+import java.util.function.Consumer;
+
+/**
+ * Constructs an AlertPipeline for processing the CPU usage of the hottest thread, which triggers a
+ * profile when a single thread stays hot.
+ */
+class HotThreadAlertPipelineBuilder {
+
+  // the ratio of the collections in the window in which the hottest thread was above the threshold
+  // must be greater than this, i.e. the hottest thread was above the threshold in every collection
+  private static final float BREACH_RATIO_THRESHOLD = 0.99f;
+
+  private HotThreadAlertPipelineBuilder() {}
+
+  static AlertPipeline build(
+      Configuration.HotThreadProfileTrigger configuration,
+      Consumer<AlertBreach> alertAction,
+      TimeSource timeSource) {
+
+    ThresholdBreachRatioAggregation aggregation =
+        new ThresholdBreachRatioAggregation(
+            configuration.thresholdPercent,
+            configuration.minimumSamples,
+            configuration.windowSeconds,
+            timeSource,
+            true);
+
+    AlertConfiguration config =
+        AlertConfiguration.builder()
+            .setType(AlertMetricType.THREAD_CPU)
+            .setEnabled(true)
+            .setThreshold(BREACH_RATIO_THRESHOLD)
+            .setProfileDurationSeconds(configuration.profileDurationSeconds)
+            .setCooldownSeconds(configuration.cooldownSeconds)
+            .build();
+
+    return SingleAlertPipeline.create(
+        new AlertRequestFilter.AcceptAll(), aggregation, config, alertAction);
+  }
+}
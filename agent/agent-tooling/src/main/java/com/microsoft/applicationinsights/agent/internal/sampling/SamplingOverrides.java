@@ -4,6 +4,7 @@
 package com.microsoft.applicationinsights.agent.internal.sampling;
 
 import com.azure.monitor.opentelemetry.exporter.implementation.SpanDataMapper;
+import com.microsoft.applicationinsights.agent.internal.common.CachingPattern;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.MatchType;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.SamplingOverride;
 import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.SamplingOverrideAttribute;
@@ -12,44 +13,174 @@ import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.sdk.trace.samplers.Sampler;
 import io.opentelemetry.semconv.trace.attributes.SemanticAttributes;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.regex.Pattern;
+import java.util.Map;
 import javax.annotation.Nullable;
 
 // TODO find a better name for this class (and MatcherGroup too)
 public class SamplingOverrides {
 
+  private static final int NO_MATCH = Integer.MAX_VALUE;
+
   private final List<MatcherGroup> matcherGroups;
 
+  // matcher groups are indexed by the key and value of their first strict attribute, so that only
+  // the matcher groups whose strict attribute value matches need to be evaluated
+  private final List<StrictIndex> strictIndexes;
+  // indexes (into matcherGroups) of the matcher groups that don't have a strict attribute
+  private final int[] unindexedMatcherGroups;
+
+  private final boolean usesHttpUrl;
+
   public SamplingOverrides(List<SamplingOverride> overrides) {
     matcherGroups = new ArrayList<>();
+    Map<String, Map<String, List<Integer>>> indexedMatcherGroups = new LinkedHashMap<>();
+    List<Integer> unindexedMatcherGroups = new ArrayList<>();
+    boolean usesHttpUrl = false;
     for (SamplingOverride override : overrides) {
+      int index = matcherGroups.size();
       matcherGroups.add(new MatcherGroup(override));
+      SamplingOverrideAttribute strictAttribute = getFirstStrictAttribute(override);
+      if (strictAttribute == null) {
+        unindexedMatcherGroups.add(index);
+      } else {
+        indexedMatcherGroups
+            .computeIfAbsent(strictAttribute.key, k -> new HashMap<>())
+            .computeIfAbsent(strictAttribute.value, v -> new ArrayList<>())
+            .add(index);
+      }
+      for (SamplingOverrideAttribute attribute : override.attributes) {
+        usesHttpUrl |= attribute.key.equals(SemanticAttributes.HTTP_URL.getKey());
+      }
     }
+    strictIndexes = new ArrayList<>();
+    for (Map.Entry<String, Map<String, List<Integer>>> entry : indexedMatcherGroups.entrySet()) {
+      strictIndexes.add(new StrictIndex(entry.getKey(), entry.getValue()));
+    }
+    this.unindexedMatcherGroups = toArray(unindexedMatcherGroups);
+    this.usesHttpUrl = usesHttpUrl;
   }
 
   @Nullable
   public Sampler getOverride(Attributes attributes) {
-    LazyHttpUrl lazyHttpUrl = new LazyHttpUrl(attributes);
-    for (MatcherGroup matcherGroups : matcherGroups) {
-      if (matcherGroups.matches(attributes, lazyHttpUrl)) {
-        return matcherGroups.getSampler();
-      }
-    }
-    return null;
+    // only allocate the LazyHttpUrl if it could possibly be used
+    LazyHttpUrl lazyHttpUrl = usesHttpUrl ? new LazyHttpUrl(attributes) : null;
+    int index = getFirstMatch(attributes, lazyHttpUrl);
+    return index == NO_MATCH ? null : matcherGroups.get(index).getSampler();
   }
 
   // used to do sampling inside the log exporter
   @Nullable
   public Double getOverridePercentage(Attributes attributes) {
-    for (MatcherGroup matcherGroups : matcherGroups) {
-      if (matcherGroups.matches(attributes, null)) {
-        return matcherGroups.getPercentage();
+    int index = getFirstMatch(attributes, null);
+    return index == NO_MATCH ? null : matcherGroups.get(index).getPercentage();
+  }
+
+  // returns the index of the first matching matcher group (same as evaluating all of the matcher
+  // groups in order), or NO_MATCH
+  private int getFirstMatch(Attributes attributes, @Nullable LazyHttpUrl lazyHttpUrl) {
+    int firstMatch = getFirstMatch(unindexedMatcherGroups, NO_MATCH, attributes, lazyHttpUrl);
+    for (StrictIndex strictIndex : strictIndexes) {
+      int[] candidates = strictIndex.getCandidates(attributes, lazyHttpUrl);
+      if (candidates != null) {
+        firstMatch = getFirstMatch(candidates, firstMatch, attributes, lazyHttpUrl);
+      }
+    }
+    return firstMatch;
+  }
+
+  // candidates are in ascending order, and only candidates that come before the first match found
+  // so far need to be evaluated
+  private int getFirstMatch(
+      int[] candidates,
+      int firstMatchSoFar,
+      Attributes attributes,
+      @Nullable LazyHttpUrl lazyHttpUrl) {
+    for (int candidate : candidates) {
+      if (candidate >= firstMatchSoFar) {
+        break;
+      }
+      if (matcherGroups.get(candidate).matches(attributes, lazyHttpUrl)) {
+        return candidate;
+      }
+    }
+    return firstMatchSoFar;
+  }
+
+  @Nullable
+  private static SamplingOverrideAttribute getFirstStrictAttribute(SamplingOverride override) {
+    for (SamplingOverrideAttribute attribute : override.attributes) {
+      if (attribute.matchType == MatchType.STRICT
+          && attribute.value != null
+          && !MatcherGroup.isHttpHeaderAttribute(attribute)) {
+        return attribute;
       }
     }
     return null;
   }
 
+  private static int[] toArray(List<Integer> list) {
+    int[] array = new int[list.size()];
+    for (int i = 0; i < array.length; i++) {
+      array[i] = list.get(i);
+    }
+    return array;
+  }
+
+  // returns the string that the regex matches, or null if the regex is not just a literal string
+  @Nullable
+  static String getLiteral(String regex) {
+    StringBuilder literal = new StringBuilder(regex.length());
+    for (int i = 0; i < regex.length(); i++) {
+      char c = regex.charAt(i);
+      if (c == '\\') {
+        i++;
+        // a backslash before a letter or digit is a character class, back reference, etc
+        if (i == regex.length() || Character.isLetterOrDigit(regex.charAt(i))) {
+          return null;
+        }
+        literal.append(regex.charAt(i));
+      } else if ("^$.|?*+()[]{}".indexOf(c) != -1) {
+        return null;
+      } else {
+        literal.append(c);
+      }
+    }
+    return literal.toString();
+  }
+
+  // returns the prefix if the regex is just a literal string followed by ".*", otherwise null
+  @Nullable
+  static String getLiteralPrefix(String regex) {
+    if (!regex.endsWith(".*")) {
+      return null;
+    }
+    // if the "." is escaped, then the remaining string ends with a (dangling) backslash, and so it
+    // is not a literal
+    return getLiteral(regex.substring(0, regex.length() - 2));
+  }
+
+  private static class StrictIndex {
+    private final AttributeKey<String> key;
+    private final Map<String, int[]> candidatesByValue;
+
+    private StrictIndex(String key, Map<String, List<Integer>> matcherGroupsByValue) {
+      this.key = AttributeKey.stringKey(key);
+      candidatesByValue = new HashMap<>();
+      for (Map.Entry<String, List<Integer>> entry : matcherGroupsByValue.entrySet()) {
+        candidatesByValue.put(entry.getKey(), toArray(entry.getValue()));
+      }
+    }
+
+    @Nullable
+    private int[] getCandidates(Attributes attributes, @Nullable LazyHttpUrl lazyHttpUrl) {
+      String val = getValue(attributes, key, lazyHttpUrl);
+      return val == null ? null : candidatesByValue.get(val);
+    }
+  }
+
   private static class MatcherGroup {
     private final List<TempPredicate> predicates;
     private final Sampler sampler;
@@ -93,9 +224,18 @@ public class SamplingOverrides {
       } else if (attribute.matchType == MatchType.REGEXP) {
         if (isHttpHeaderAttribute(attribute)) {
           return new RegexpArrayContainsMatcher(attribute.key, attribute.value);
-        } else {
-          return new RegexpMatcher(attribute.key, attribute.value);
         }
+        // regular expressions are commonly just a literal (e.g. "/health") or a literal prefix
+        // (e.g. "/static/.*"), and these don't need the regex engine
+        String literal = getLiteral(attribute.value);
+        if (literal != null) {
+          return new StrictMatcher(attribute.key, literal);
+        }
+        String literalPrefix = getLiteralPrefix(attribute.value);
+        if (literalPrefix != null) {
+          return new PrefixMatcher(attribute.key, literalPrefix);
+        }
+        return new RegexpMatcher(attribute.key, attribute.value);
       } else if (attribute.matchType == null) {
         return new KeyOnlyMatcher(attribute.key);
       } else {
@@ -103,7 +243,7 @@ public class SamplingOverrides {
       }
     }
 
-    private static boolean isHttpHeaderAttribute(SamplingOverrideAttribute attribute) {
+    static boolean isHttpHeaderAttribute(SamplingOverrideAttribute attribute) {
       // note that response headers are not typically available for sampling
       return attribute.key.startsWith("http.request.header.")
           || attribute.key.startsWith("http.response.header.");
@@ -120,12 +260,36 @@ public class SamplingOverrides {
     }
 
     @Override
-    public boolean test(Attributes attributes, LazyHttpUrl lazyHttpUrl) {
-      String val = attributes.get(key);
-      if (val == null && key.getKey().equals(SemanticAttributes.HTTP_URL.getKey())) {
-        val = lazyHttpUrl.get();
+    public boolean test(Attributes attributes, @Nullable LazyHttpUrl lazyHttpUrl) {
+      return value.equals(getValue(attributes, key, lazyHttpUrl));
+    }
+  }
+
+  // equivalent to RegexpMatcher with a regex of the form "<literal prefix>.*"
+  private static class PrefixMatcher implements TempPredicate {
+    private final AttributeKey<String> key;
+    private final String prefix;
+
+    private PrefixMatcher(String key, String prefix) {
+      this.key = AttributeKey.stringKey(key);
+      this.prefix = prefix;
+    }
+
+    @Override
+    public boolean test(Attributes attributes, @Nullable LazyHttpUrl lazyHttpUrl) {
+      String val = getValue(attributes, key, lazyHttpUrl);
+      return val != null && val.startsWith(prefix) && !hasLineTerminator(val, prefix.length());
+    }
+
+    // "." doesn't match line terminators
+    private static boolean hasLineTerminator(String val, int startIndex) {
+      for (int i = startIndex; i < val.length(); i++) {
+        char c = val.charAt(i);
+        if (c == '\n' || c == '\r' || c == '\u0085' || c == '\u2028' || c == '\u2029') {
+          return true;
+        }
       }
-      return value.equals(val);
+      return false;
     }
   }
 
@@ -147,32 +311,27 @@ public class SamplingOverrides {
 
   private static class RegexpMatcher implements TempPredicate {
     private final AttributeKey<String> key;
-    private final Pattern value;
+    private final CachingPattern value;
 
     private RegexpMatcher(String key, String value) {
       this.key = AttributeKey.stringKey(key);
-      this.value = Pattern.compile(value);
+      this.value = CachingPattern.forMatches(value);
     }
 
     @Override
     public boolean test(Attributes attributes, @Nullable LazyHttpUrl lazyHttpUrl) {
-      String val = attributes.get(key);
-      if (val == null
-          && key.getKey().equals(SemanticAttributes.HTTP_URL.getKey())
-          && lazyHttpUrl != null) {
-        val = lazyHttpUrl.get();
-      }
-      return val != null && value.matcher(val).matches();
+      String val = getValue(attributes, key, lazyHttpUrl);
+      return val != null && value.test(val);
     }
   }
 
   private static class RegexpArrayContainsMatcher implements TempPredicate {
     private final AttributeKey<List<String>> key;
-    private final Pattern value;
+    private final CachingPattern value;
 
     private RegexpArrayContainsMatcher(String key, String value) {
       this.key = AttributeKey.stringArrayKey(key);
-      this.value = Pattern.compile(value);
+      this.value = CachingPattern.forMatches(value);
     }
 
     @Override
@@ -182,7 +341,7 @@ public class SamplingOverrides {
         return false;
       }
       for (String v : val) {
-        if (value.matcher(v).matches()) {
+        if (value.test(v)) {
           return true;
         }
       }
@@ -199,14 +358,20 @@ public class SamplingOverrides {
 
     @Override
     public boolean test(Attributes attributes, @Nullable LazyHttpUrl lazyHttpUrl) {
-      String val = attributes.get(key);
-      if (val == null
-          && key.getKey().equals(SemanticAttributes.HTTP_URL.getKey())
-          && lazyHttpUrl != null) {
-        val = lazyHttpUrl.get();
-      }
-      return val != null;
+      return getValue(attributes, key, lazyHttpUrl) != null;
+    }
+  }
+
+  @Nullable
+  private static String getValue(
+      Attributes attributes, AttributeKey<String> key, @Nullable LazyHttpUrl lazyHttpUrl) {
+    String val = attributes.get(key);
+    if (val == null
+        && lazyHttpUrl != null
+        && key.getKey().equals(SemanticAttributes.HTTP_URL.getKey())) {
+      val = lazyHttpUrl.get();
     }
+    return val;
   }
 
   // this is temporary until semantic attributes stabilize and we make breaking change
@@ -219,6 +384,7 @@ public class SamplingOverrides {
       this.attributes = attributes;
     }
 
+    @Nullable
     private String get() {
       if (!initialized) {
         value = SpanDataMapper.getHttpUrlFromServerSpan(attributes);
@@ -3,12 +3,20 @@
 
 package com.microsoft.applicationinsights.agent.internal.statsbeat;
 
+import com.azure.monitor.opentelemetry.exporter.implementation.MetricCardinalityStats;
 import com.azure.monitor.opentelemetry.exporter.implementation.builders.StatsbeatTelemetryBuilder;
 import com.azure.monitor.opentelemetry.exporter.implementation.localstorage.LocalStorageStats;
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.QuickPulseStats;
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.CacheStats;
 import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
-public class NonessentialStatsbeat extends BaseStatsbeat implements LocalStorageStats {
+public class NonessentialStatsbeat extends BaseStatsbeat
+    implements LocalStorageStats, MetricCardinalityStats, QuickPulseStats {
 
   // TODO when there are more non-essential statsbeat(s) in the future, try to separate different
   // kinds of non-essential statsbeat into different classes.
@@ -19,6 +27,19 @@ public class NonessentialStatsbeat extends BaseStatsbeat implements LocalStorage
   private final AtomicLong readFailureCount = new AtomicLong();
   private final AtomicLong writeFailureCount = new AtomicLong();
 
+  // Track metric points folded into overflow series because of the metric series limit
+  private static final String METRIC_SERIES_OVERFLOW_COUNT = "Metric Series Overflow Count";
+  private final AtomicLong metricSeriesOverflowCount = new AtomicLong();
+
+  // Track the hit rate of the caches, per interval
+  private static final String CACHE_HIT_RATE = "Cache Hit Rate";
+  private static final String CACHE_PROPERTY = "cache";
+  private final Map<String, CacheCounts> caches = new ConcurrentHashMap<>();
+
+  // Track the size of the largest live metrics post, per interval
+  private static final String LIVE_METRICS_PEAK_POST_SIZE = "Live Metrics Peak Post Size";
+  private final AtomicInteger liveMetricsPeakPostSize = new AtomicInteger();
+
   // only used by tests
   public NonessentialStatsbeat() {
     super(new CustomDimensions());
@@ -45,6 +66,55 @@ public class NonessentialStatsbeat extends BaseStatsbeat implements LocalStorage
               telemetryClient, WRITE_FAILURE_COUNT, (double) writeFailureCount.get());
       telemetryClient.trackStatsbeatAsync(telemetryItem.build());
     }
+
+    long metricSeriesOverflows = metricSeriesOverflowCount.getAndSet(0);
+    if (metricSeriesOverflows != 0) {
+      StatsbeatTelemetryBuilder telemetryItem =
+          createStatsbeatTelemetry(
+              telemetryClient, METRIC_SERIES_OVERFLOW_COUNT, (double) metricSeriesOverflows);
+      telemetryClient.trackStatsbeatAsync(telemetryItem.build());
+    }
+
+    for (Map.Entry<String, Double> entry : getCacheHitRates().entrySet()) {
+      StatsbeatTelemetryBuilder telemetryItem =
+          createStatsbeatTelemetry(telemetryClient, CACHE_HIT_RATE, entry.getValue());
+      telemetryItem.addProperty(CACHE_PROPERTY, entry.getKey());
+      telemetryClient.trackStatsbeatAsync(telemetryItem.build());
+    }
+
+    int liveMetricsPeakPostSize = this.liveMetricsPeakPostSize.getAndSet(0);
+    if (liveMetricsPeakPostSize != 0) {
+      StatsbeatTelemetryBuilder telemetryItem =
+          createStatsbeatTelemetry(
+              telemetryClient, LIVE_METRICS_PEAK_POST_SIZE, (double) liveMetricsPeakPostSize);
+      telemetryClient.trackStatsbeatAsync(telemetryItem.build());
+    }
+  }
+
+  /** Registers a cache whose hit rate (as a percentage) is sent per interval. */
+  public void registerCache(String name, CacheStats stats) {
+    caches.put(name, new CacheCounts(stats));
+  }
+
+  // visible for testing
+  // returns the hit rate of each cache since the previous call, skipping the caches without lookups
+  Map<String, Double> getCacheHitRates() {
+    Map<String, Double> hitRates = new LinkedHashMap<>();
+    for (Map.Entry<String, CacheCounts> entry : caches.entrySet()) {
+      CacheCounts counts = entry.getValue();
+      long hits = counts.stats.getHitCount();
+      long misses = counts.stats.getMissCount();
+      // the counts only go down when the cache has been replaced, in which case they are new
+      long hitDelta = hits >= counts.lastHits ? hits - counts.lastHits : hits;
+      long missDelta = misses >= counts.lastMisses ? misses - counts.lastMisses : misses;
+      counts.lastHits = hits;
+      counts.lastMisses = misses;
+      long lookups = hitDelta + missDelta;
+      if (lookups > 0) {
+        hitRates.put(entry.getKey(), 100.0 * hitDelta / lookups);
+      }
+    }
+    return hitRates;
   }
 
   @Override
@@ -66,4 +136,36 @@ public class NonessentialStatsbeat extends BaseStatsbeat implements LocalStorage
   public long getWriteFailureCount() {
     return writeFailureCount.get();
   }
+
+  @Override
+  public void incrementOverflowCount() {
+    metricSeriesOverflowCount.incrementAndGet();
+  }
+
+  // used by tests only
+  long getMetricSeriesOverflowCount() {
+    return metricSeriesOverflowCount.get();
+  }
+
+  @Override
+  public void recordPostSize(int bytes) {
+    liveMetricsPeakPostSize.accumulateAndGet(bytes, Math::max);
+  }
+
+  // used by tests only
+  int getLiveMetricsPeakPostSize() {
+    return liveMetricsPeakPostSize.get();
+  }
+
+  private static class CacheCounts {
+
+    private final CacheStats stats;
+    // only accessed from the statsbeat thread
+    private long lastHits;
+    private long lastMisses;
+
+    private CacheCounts(CacheStats stats) {
+      this.stats = stats;
+    }
+  }
 }
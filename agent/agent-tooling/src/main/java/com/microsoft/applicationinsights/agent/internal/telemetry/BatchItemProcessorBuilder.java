@@ -12,9 +12,9 @@ import java.util.concurrent.TimeUnit;
 // copied from io.opentelemetry.sdk.trace.export.BatchSpanProcessorBuilder
 final class BatchItemProcessorBuilder {
 
-  private static final long DEFAULT_SCHEDULE_DELAY_MILLIS =
+  static final long DEFAULT_SCHEDULE_DELAY_MILLIS =
       Long.getLong("applicationinsights.testing.batch-schedule-delay-millis", 5000);
-  private static final int DEFAULT_EXPORT_TIMEOUT_MILLIS = 30_000;
+  static final int DEFAULT_EXPORT_TIMEOUT_MILLIS = 30_000;
 
   private static final int DEFAULT_MAX_QUEUE_SIZE = 2048;
   private static final int DEFAULT_MAX_EXPORT_BATCH_SIZE = 512;
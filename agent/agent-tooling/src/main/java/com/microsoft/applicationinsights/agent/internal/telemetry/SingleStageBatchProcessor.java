@@ -0,0 +1,355 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.telemetry;
+
+import static com.azure.monitor.opentelemetry.exporter.implementation.utils.AzureMonitorMsgId.BATCH_ITEM_PROCESSOR_ERROR;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.logging.OperationLogger;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import com.azure.monitor.opentelemetry.exporter.implementation.pipeline.TelemetryItemExporter;
+import io.opentelemetry.internal.shaded.jctools.queues.MpscArrayQueue;
+import io.opentelemetry.sdk.common.CompletableResultCode;
+import io.opentelemetry.sdk.internal.DaemonThreadFactory;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Alternative to chaining {@code BatchSpanProcessor} (or {@code BatchLogRecordProcessor}) in front
+ * of {@link BatchItemProcessor}.
+ *
+ * <p>Raw items (e.g. ended spans) are queued once, and a single worker thread maps them to {@link
+ * TelemetryItem}s, accumulates the mapped items into export batches and passes those batches to the
+ * {@link TelemetryItemExporter} (which encodes and sends them). This way each item only crosses one
+ * queue and one thread hand-off.
+ *
+ * <p>Mapping still happens on a short schedule (so that live metrics gets the data promptly), while
+ * sending happens on the same (longer) schedule as {@link BatchItemProcessor}.
+ */
+// worker loop is based on io.opentelemetry.sdk.trace.export.BatchSpanProcessor
+public final class SingleStageBatchProcessor<T> {
+
+  private static final String WORKER_THREAD_NAME =
+      SingleStageBatchProcessor.class.getSimpleName() + "_WorkerThread";
+
+  private static final long EXPORTER_TIMEOUT_NANOS =
+      TimeUnit.MILLISECONDS.toNanos(BatchItemProcessorBuilder.DEFAULT_EXPORT_TIMEOUT_MILLIS);
+
+  private final Worker<T> worker;
+  private final AtomicBoolean isShutdown = new AtomicBoolean(false);
+
+  /**
+   * Creates a new {@link SingleStageBatchProcessor} and starts its worker thread.
+   *
+   * @param mapperFactory is passed the consumer that mapped telemetry items must be sent to, and
+   *     returns the mapper that is invoked (on the worker thread) with each batch of raw items.
+   * @param maxBatchSize the maximum number of raw items that are mapped at once, and also the
+   *     maximum number of telemetry items that are sent at once.
+   */
+  SingleStageBatchProcessor(
+      TelemetryItemExporter exporter,
+      Function<Consumer<TelemetryItem>, Consumer<List<T>>> mapperFactory,
+      long mapDelayNanos,
+      long exportDelayNanos,
+      int maxQueueSize,
+      int maxBatchSize,
+      int maxPendingExports,
+      String queueName) {
+    this.worker =
+        new Worker<>(
+            exporter,
+            mapperFactory,
+            mapDelayNanos,
+            exportDelayNanos,
+            maxBatchSize,
+            maxPendingExports,
+            new MpscArrayQueue<>(maxQueueSize),
+            queueName);
+    Thread workerThread = new DaemonThreadFactory(WORKER_THREAD_NAME).newThread(worker);
+    workerThread.start();
+  }
+
+  public void trackAsync(T item) {
+    worker.addItem(item);
+  }
+
+  public CompletableResultCode shutdown() {
+    if (isShutdown.getAndSet(true)) {
+      return CompletableResultCode.ofSuccess();
+    }
+    return worker.shutdown();
+  }
+
+  public CompletableResultCode forceFlush() {
+    return worker.forceFlush();
+  }
+
+  private static final class Worker<T> implements Runnable {
+
+    private static final OperationLogger queuingItemLogger =
+        new OperationLogger(SingleStageBatchProcessor.class, "Queuing telemetry item");
+
+    private static final OperationLogger mappingLogger =
+        new OperationLogger(SingleStageBatchProcessor.class, "Mapping telemetry items");
+
+    private static final OperationLogger addAsyncExport =
+        new OperationLogger(SingleStageBatchProcessor.class, "Add async export");
+
+    private final TelemetryItemExporter exporter;
+    private final Consumer<List<T>> mapper;
+    private final long mapDelayNanos;
+    private final long exportDelayNanos;
+    private final int maxBatchSize;
+    private final int maxPendingExports;
+
+    private long nextMapTime;
+    private long nextExportTime;
+
+    private final Queue<T> queue;
+    private final int queueCapacity;
+    private final String queueName;
+    // see the equivalent field in BatchItemProcessor
+    private final AtomicInteger itemsNeeded = new AtomicInteger(Integer.MAX_VALUE);
+    private final BlockingQueue<Boolean> signal;
+    private final AtomicReference<CompletableResultCode> flushRequested = new AtomicReference<>();
+    private volatile boolean continueWork = true;
+
+    // raw items waiting to be mapped
+    private final ArrayList<T> pending;
+    // mapped items waiting to be exported
+    private final ArrayList<TelemetryItem> batch;
+
+    private final Set<CompletableResultCode> pendingExports =
+        Collections.newSetFromMap(new ConcurrentHashMap<>());
+
+    private Worker(
+        TelemetryItemExporter exporter,
+        Function<Consumer<TelemetryItem>, Consumer<List<T>>> mapperFactory,
+        long mapDelayNanos,
+        long exportDelayNanos,
+        int maxBatchSize,
+        int maxPendingExports,
+        MpscArrayQueue<T> queue,
+        String queueName) {
+      this.exporter = exporter;
+      this.mapDelayNanos = mapDelayNanos;
+      this.exportDelayNanos = exportDelayNanos;
+      this.maxBatchSize = maxBatchSize;
+      this.maxPendingExports = maxPendingExports;
+      this.queue = queue;
+      this.queueCapacity = queue.capacity();
+      this.queueName = queueName;
+      this.signal = new ArrayBlockingQueue<>(1);
+      this.pending = new ArrayList<>(maxBatchSize);
+      this.batch = new ArrayList<>(maxBatchSize);
+      // the mapper is only ever invoked from the worker thread, so it's safe for it to append
+      // directly to the (non-thread-safe) export batch
+      this.mapper = mapperFactory.apply(this::addToBatch);
+    }
+
+    private void addItem(T item) {
+      if (!queue.offer(item)) {
+        queuingItemLogger.recordFailure(
+            "Max "
+                + queueName
+                + " export queue capacity of "
+                + queueCapacity
+                + " has been hit, dropping a telemetry record (max "
+                + queueName
+                + " export queue capacity can be increased in the applicationinsights.json"
+                + " configuration file, e.g. { \"preview\": { \""
+                + queueName
+                + "ExportQueueCapacity\": "
+                + (queueCapacity * 2)
+                + " } }",
+            BATCH_ITEM_PROCESSOR_ERROR);
+      } else {
+        queuingItemLogger.recordSuccess();
+        if (queue.size() >= itemsNeeded.get()) {
+          signal.offer(true);
+        }
+      }
+    }
+
+    @Override
+    public void run() {
+      updateNextMapTime();
+      updateNextExportTime();
+
+      while (continueWork) {
+        if (flushRequested.get() != null) {
+          flush();
+        }
+        while (!queue.isEmpty() && pending.size() < maxBatchSize) {
+          pending.add(queue.poll());
+        }
+        if (pending.size() >= maxBatchSize || System.nanoTime() >= nextMapTime) {
+          mapPending();
+          updateNextMapTime();
+        }
+        if (System.nanoTime() >= nextExportTime) {
+          exportCurrentBatch();
+          updateNextExportTime();
+        }
+        if (queue.isEmpty()) {
+          try {
+            long pollWaitTime = Math.min(nextMapTime, nextExportTime) - System.nanoTime();
+            if (pollWaitTime > 0) {
+              itemsNeeded.set(maxBatchSize - pending.size());
+              signal.poll(pollWaitTime, TimeUnit.NANOSECONDS);
+              itemsNeeded.set(Integer.MAX_VALUE);
+            }
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+          }
+        }
+      }
+    }
+
+    private void flush() {
+      int itemsToFlush = queue.size();
+      while (itemsToFlush > 0) {
+        T item = queue.poll();
+        assert item != null;
+        pending.add(item);
+        itemsToFlush--;
+        if (pending.size() >= maxBatchSize) {
+          mapPending();
+        }
+      }
+      mapPending();
+      exportCurrentBatch();
+      updateNextExportTime();
+      CompletableResultCode.ofAll(pendingExports)
+          .join(EXPORTER_TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+      CompletableResultCode flushResult = flushRequested.get();
+      if (flushResult != null) {
+        flushResult.succeed();
+        flushRequested.set(null);
+      }
+    }
+
+    private void updateNextMapTime() {
+      nextMapTime = System.nanoTime() + mapDelayNanos;
+    }
+
+    private void updateNextExportTime() {
+      nextExportTime = System.nanoTime() + exportDelayNanos;
+    }
+
+    private void mapPending() {
+      if (pending.isEmpty()) {
+        return;
+      }
+      try {
+        mapper.accept(Collections.unmodifiableList(pending));
+        mappingLogger.recordSuccess();
+      } catch (RuntimeException e) {
+        mappingLogger.recordFailure(e.getMessage(), e);
+      } finally {
+        pending.clear();
+      }
+    }
+
+    private void addToBatch(TelemetryItem telemetryItem) {
+      batch.add(telemetryItem);
+      if (batch.size() >= maxBatchSize) {
+        exportCurrentBatch();
+        updateNextExportTime();
+      }
+    }
+
+    private CompletableResultCode shutdown() {
+      CompletableResultCode result = new CompletableResultCode();
+
+      CompletableResultCode flushResult = forceFlush();
+      flushResult.whenComplete(
+          () -> {
+            continueWork = false;
+            if (!flushResult.isSuccess()) {
+              result.fail();
+            } else {
+              result.succeed();
+            }
+          });
+
+      return result;
+    }
+
+    private CompletableResultCode forceFlush() {
+      CompletableResultCode overallResult = new CompletableResultCode();
+      CompletableResultCode workerResult = forceFlushWorker();
+      workerResult.whenComplete(
+          () -> {
+            if (!workerResult.isSuccess()) {
+              overallResult.fail();
+              return;
+            }
+            CompletableResultCode exporterResult = exporter.flush();
+            exporterResult.whenComplete(
+                () -> {
+                  if (exporterResult.isSuccess()) {
+                    overallResult.succeed();
+                  } else {
+                    overallResult.fail();
+                  }
+                });
+          });
+      return overallResult;
+    }
+
+    private CompletableResultCode forceFlushWorker() {
+      CompletableResultCode flushResult = new CompletableResultCode();
+      // we set the atomic here to trigger the worker loop to do a flush of the entire queue.
+      if (flushRequested.compareAndSet(null, flushResult)) {
+        signal.offer(true);
+      }
+      CompletableResultCode possibleResult = flushRequested.get();
+      // there's a race here where the flush happening in the worker loop could complete before we
+      // get what's in the atomic. In that case, just return success, since we know it succeeded in
+      // the interim.
+      return possibleResult == null ? CompletableResultCode.ofSuccess() : possibleResult;
+    }
+
+    private void exportCurrentBatch() {
+      if (batch.isEmpty()) {
+        return;
+      }
+
+      try {
+        // retry, logging, and writing to disk on failure occur downstream
+        CompletableResultCode result = exporter.send(Collections.unmodifiableList(batch));
+        if (pendingExports.size() < maxPendingExports - 1) {
+          addAsyncExport.recordSuccess();
+          pendingExports.add(result);
+          result.whenComplete(
+              () -> {
+                pendingExports.remove(result);
+              });
+        } else {
+          addAsyncExport.recordFailure(
+              "Max number of concurrent exports "
+                  + maxPendingExports
+                  + " has been hit, may see some export throttling due to this",
+              BATCH_ITEM_PROCESSOR_ERROR);
+          result.join(EXPORTER_TIMEOUT_NANOS, TimeUnit.NANOSECONDS);
+        }
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+}
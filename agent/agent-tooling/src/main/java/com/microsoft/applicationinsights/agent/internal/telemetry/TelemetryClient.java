@@ -13,6 +13,7 @@ import com.azure.monitor.opentelemetry.exporter.implementation.builders.MetricTe
 import com.azure.monitor.opentelemetry.exporter.implementation.builders.PageViewTelemetryBuilder;
 import com.azure.monitor.opentelemetry.exporter.implementation.builders.RemoteDependencyTelemetryBuilder;
 import com.azure.monitor.opentelemetry.exporter.implementation.builders.RequestTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.TelemetryTemplate;
 import com.azure.monitor.opentelemetry.exporter.implementation.configuration.ConnectionString;
 import com.azure.monitor.opentelemetry.exporter.implementation.configuration.StatsbeatConnectionString;
 import com.azure.monitor.opentelemetry.exporter.implementation.localstorage.LocalStorageStats;
@@ -38,10 +39,14 @@ import com.microsoft.applicationinsights.agent.internal.statsbeat.StatsbeatTelem
 import io.opentelemetry.sdk.common.CompletableResultCode;
 import io.opentelemetry.sdk.resources.Resource;
 import java.io.File;
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import org.apache.commons.text.StringSubstitutor;
@@ -69,6 +74,10 @@ public class TelemetryClient {
   // contains customDimensions from json configuration
   private final Map<String, String> globalProperties;
 
+  // connection string, globalTags and globalProperties, shared by reference across all telemetry
+  // items, and rebuilt whenever any of them change
+  private volatile TelemetryTemplate template;
+
   private final List<MetricFilter> metricFilters;
 
   @Nullable private volatile QuickPulse quickPulse;
@@ -85,6 +94,9 @@ public class TelemetryClient {
   @Nullable private volatile BatchItemProcessor generalBatchItemProcessor;
   @Nullable private volatile BatchItemProcessor metricsBatchItemProcessor;
   @Nullable private volatile BatchItemProcessor statsbeatBatchItemProcessor;
+  // shared by the general batch item processor and the single stage batch processors, so that
+  // they share one local storage listener (and so the disk persistence cap) and one sender
+  @Nullable private volatile TelemetryItemExporter generalTelemetryItemExporter;
 
   public static TelemetryClient.Builder builder() {
     return new TelemetryClient.Builder();
@@ -114,6 +126,7 @@ public class TelemetryClient {
     this.roleName = builder.roleName;
     this.roleInstance = builder.roleInstance;
     this.diskPersistenceMaxSizeMb = builder.diskPersistenceMaxSizeMb;
+    this.template = TelemetryTemplate.create(connectionString, globalTags, globalProperties);
 
     appIdSupplier = new AppIdSupplier();
     if (this.connectionString != null) {
@@ -145,6 +158,9 @@ public class TelemetryClient {
 
     if (data instanceof MetricsData) {
       MetricsData metricsData = (MetricsData) data;
+      // each metric telemetry item carries a single point, since ingestion only keeps the first
+      // point of a MetricsData (the envelope fields that repeat across items are mostly removed
+      // by the gzip compression of the batch anyways)
       if (metricsData.getMetrics().isEmpty()) {
         throw new AssertionError("MetricsData has no metric point");
       }
@@ -208,7 +224,8 @@ public class TelemetryClient {
       synchronized (batchItemProcessorInitLock) {
         if (generalBatchItemProcessor == null) {
           generalBatchItemProcessor =
-              initBatchItemProcessor(generalExportQueueCapacity, 512, "general");
+              initBatchItemProcessor(
+                  getGeneralTelemetryItemExporter(), generalExportQueueCapacity, 512, "general");
         }
       }
     }
@@ -222,16 +239,63 @@ public class TelemetryClient {
       synchronized (batchItemProcessorInitLock) {
         if (metricsBatchItemProcessor == null) {
           metricsBatchItemProcessor =
-              initBatchItemProcessor(metricsExportQueueCapacity, 2048, "metrics");
+              initBatchItemProcessor(
+                  createTelemetryItemExporter(), metricsExportQueueCapacity, 2048, "metrics");
         }
       }
     }
     return metricsBatchItemProcessor;
   }
 
-  private BatchItemProcessor initBatchItemProcessor(
-      int exportQueueCapacity, int maxExportBatchSize, String queueName) {
+  /**
+   * Creates a processor that maps, batches and sends telemetry on a single worker thread, as an
+   * alternative to queueing raw items in front of {@link #getGeneralBatchItemProcessor()}. The
+   * processor sends through the same exporter (and local storage) as the general processor.
+   *
+   * @param mapDelay how long raw items can wait before being mapped to telemetry items.
+   * @param mapperFactory see {@link SingleStageBatchProcessor}.
+   */
+  public <T> SingleStageBatchProcessor<T> newSingleStageBatchProcessor(
+      Duration mapDelay, Function<Consumer<TelemetryItem>, Consumer<List<T>>> mapperFactory) {
+    return new SingleStageBatchProcessor<>(
+        getGeneralTelemetryItemExporter(),
+        mapperFactory,
+        mapDelay.toNanos(),
+        TimeUnit.MILLISECONDS.toNanos(BatchItemProcessorBuilder.DEFAULT_SCHEDULE_DELAY_MILLIS),
+        generalExportQueueCapacity,
+        512,
+        // see comment in initBatchItemProcessor() below
+        100,
+        "general");
+  }
+
+  private static BatchItemProcessor initBatchItemProcessor(
+      TelemetryItemExporter exporter,
+      int exportQueueCapacity,
+      int maxExportBatchSize,
+      String queueName) {
+
+    return BatchItemProcessor.builder(exporter)
+        .setMaxQueueSize(exportQueueCapacity)
+        .setMaxExportBatchSize(maxExportBatchSize)
+        // the number 100 was calculated as the max number of concurrent exports that the single
+        // worker thread can drive, so anything higher than this should not increase throughput
+        .setMaxPendingExports(100)
+        .build(queueName);
+  }
 
+  private TelemetryItemExporter getGeneralTelemetryItemExporter() {
+    if (generalTelemetryItemExporter == null) {
+      synchronized (batchItemProcessorInitLock) {
+        if (generalTelemetryItemExporter == null) {
+          generalTelemetryItemExporter = createTelemetryItemExporter();
+        }
+      }
+    }
+    return generalTelemetryItemExporter;
+  }
+
+  private TelemetryItemExporter createTelemetryItemExporter() {
     HttpPipeline httpPipeline =
         LazyHttpClient.newHttpPipeLine(
             aadAuthentication,
@@ -259,14 +323,7 @@ public class TelemetryClient {
                   false));
     }
 
-    return BatchItemProcessor.builder(
-            new TelemetryItemExporter(telemetryPipeline, telemetryPipelineListener))
-        .setMaxQueueSize(exportQueueCapacity)
-        .setMaxExportBatchSize(maxExportBatchSize)
-        // the number 100 was calculated as the max number of concurrent exports that the single
-        // worker thread can drive, so anything higher than this should not increase throughput
-        .setMaxPendingExports(100)
-        .build(queueName);
+    return new TelemetryItemExporter(telemetryPipeline, telemetryPipelineListener);
   }
 
   public BatchItemProcessor getStatsbeatBatchItemProcessor() {
@@ -375,16 +432,12 @@ public class TelemetryClient {
   }
 
   private void populateDefaults(AbstractTelemetryBuilder telemetryBuilder) {
-    if (connectionString != null) {
-      // not sure if connectionString can be null in Azure Functions
-      telemetryBuilder.setConnectionString(connectionString);
-    }
-    for (Map.Entry<String, String> entry : globalTags.entrySet()) {
-      telemetryBuilder.addTag(entry.getKey(), entry.getValue());
-    }
-    for (Map.Entry<String, String> entry : globalProperties.entrySet()) {
-      telemetryBuilder.addProperty(entry.getKey(), entry.getValue());
-    }
+    // not sure if connectionString can be null in Azure Functions (the template skips it if so)
+    telemetryBuilder.applyTemplate(template);
+  }
+
+  private void updateTemplate() {
+    template = TelemetryTemplate.create(connectionString, globalTags, globalProperties);
   }
 
   @Nullable
@@ -413,11 +466,13 @@ public class TelemetryClient {
       this.connectionString = null;
       appIdSupplier.updateAppId(null);
       this.statsbeatConnectionString = null;
+      updateTemplate();
       return;
     }
 
     this.connectionString = ConnectionString.parse(connectionString);
     appIdSupplier.updateAppId(this.connectionString);
+    updateTemplate();
 
     this.statsbeatConnectionString =
         StatsbeatConnectionString.create(
@@ -430,11 +485,13 @@ public class TelemetryClient {
   public void updateRoleName(String roleName) {
     this.roleName = roleName;
     globalTags.put(ContextTagKeys.AI_CLOUD_ROLE.toString(), roleName);
+    updateTemplate();
   }
 
   public void updateRoleInstance(String roleInstance) {
     this.roleInstance = roleInstance;
     globalTags.put(ContextTagKeys.AI_CLOUD_ROLE_INSTANCE.toString(), roleInstance);
+    updateTemplate();
   }
 
   public String getAppId() {
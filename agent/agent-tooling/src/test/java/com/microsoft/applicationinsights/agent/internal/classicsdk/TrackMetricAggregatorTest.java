@@ -0,0 +1,181 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.classicsdk;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.MetricTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.MetricDataPoint;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.MetricsData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TrackMetricAggregatorTest {
+
+  private final List<TelemetryItem> telemetryItems = new ArrayList<>();
+
+  @Test
+  void shouldAggregatePerSeries() {
+    TrackMetricAggregator aggregator = createAggregator(10);
+
+    aggregator.record(createKey("latency", "a"), 1, null, null, null, null);
+    aggregator.record(createKey("latency", "a"), 3, null, null, null, null);
+    aggregator.record(createKey("latency", "a"), 8, 2, 2.0, 6.0, 2.0);
+    aggregator.record(createKey("latency", "b"), 5, null, null, null, null);
+    aggregator.flush();
+
+    assertThat(telemetryItems).hasSize(2);
+    MetricsData data = getMetricsData("a");
+    MetricDataPoint point = data.getMetrics().get(0);
+    assertThat(point.getName()).isEqualTo("latency");
+    assertThat(point.getValue()).isEqualTo(12);
+    assertThat(point.getCount()).isEqualTo(4);
+    assertThat(point.getMin()).isEqualTo(1);
+    assertThat(point.getMax()).isEqualTo(6);
+    // values 1, 3 and two values with mean 4 and standard deviation 2 (e.g. 2 and 6)
+    assertThat(point.getStdDev()).isCloseTo(Math.sqrt(3.5), within(1e-9));
+
+    point = getMetricsData("b").getMetrics().get(0);
+    assertThat(point.getValue()).isEqualTo(5);
+    assertThat(point.getCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotSeparateSeriesByOperationTags() {
+    TrackMetricAggregator aggregator = createAggregator(10);
+
+    for (int i = 0; i < 3; i++) {
+      Map<String, String> tags = new HashMap<>();
+      tags.put("ai.operation.id", "operation-" + i);
+      tags.put("ai.cloud.role", "orders");
+      aggregator.record(
+          new TrackMetricAggregator.SeriesKey("requests", null, Collections.emptyMap(), tags, null),
+          1,
+          null,
+          null,
+          null,
+          null);
+    }
+    aggregator.flush();
+
+    assertThat(telemetryItems).hasSize(1);
+    TelemetryItem telemetryItem = telemetryItems.get(0);
+    assertThat(telemetryItem.getTags()).containsEntry("ai.cloud.role", "orders");
+    assertThat(telemetryItem.getTags()).doesNotContainKey("ai.operation.id");
+    MetricsData data = (MetricsData) telemetryItem.getData().getBaseData();
+    assertThat(data.getMetrics().get(0).getCount()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldOnlySeparateSeriesByStableTags() {
+    TrackMetricAggregator aggregator = createAggregator(10);
+
+    for (int i = 0; i < 3; i++) {
+      Map<String, String> tags = new HashMap<>();
+      tags.put("ai.cloud.role", "orders");
+      tags.put("ai.cloud.roleInstance", "instance-1");
+      tags.put("ai.application.ver", "1.0");
+      tags.put("ai.device.type", "PC");
+      tags.put("ai.user.id", "user-" + i);
+      tags.put("ai.user.authUserId", "auth-user-" + i);
+      tags.put("ai.session.id", "session-" + i);
+      tags.put("ai.location.ip", "10.0.0." + i);
+      aggregator.record(
+          new TrackMetricAggregator.SeriesKey("requests", null, Collections.emptyMap(), tags, null),
+          1,
+          null,
+          null,
+          null,
+          null);
+    }
+    aggregator.flush();
+
+    assertThat(telemetryItems).hasSize(1);
+    TelemetryItem telemetryItem = telemetryItems.get(0);
+    assertThat(telemetryItem.getTags())
+        .containsEntry("ai.cloud.role", "orders")
+        .containsEntry("ai.cloud.roleInstance", "instance-1")
+        .containsEntry("ai.application.ver", "1.0")
+        .containsEntry("ai.device.type", "PC")
+        .doesNotContainKeys("ai.user.id", "ai.user.authUserId", "ai.session.id", "ai.location.ip");
+    MetricsData data = (MetricsData) telemetryItem.getData().getBaseData();
+    assertThat(data.getMetrics().get(0).getCount()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldFoldNewSeriesIntoOverflowSeries() {
+    TrackMetricAggregator aggregator = createAggregator(2);
+
+    aggregator.record(createKey("latency", "a"), 1, null, null, null, null);
+    aggregator.record(createKey("latency", "b"), 1, null, null, null, null);
+    aggregator.record(createKey("latency", "c"), 1, null, null, null, null);
+    aggregator.record(createKey("latency", "d"), 1, null, null, null, null);
+    // existing series are still recorded separately
+    aggregator.record(createKey("latency", "a"), 1, null, null, null, null);
+    aggregator.flush();
+
+    assertThat(telemetryItems).hasSize(3);
+    assertThat(getMetricsData("a").getMetrics().get(0).getCount()).isEqualTo(2);
+    assertThat(getMetricsData("b").getMetrics().get(0).getCount()).isEqualTo(1);
+    MetricsData overflow = getOverflowMetricsData();
+    assertThat(overflow.getProperties())
+        .containsOnlyKeys(TrackMetricAggregator.OVERFLOW_PROPERTY)
+        .containsEntry(TrackMetricAggregator.OVERFLOW_PROPERTY, "true");
+    assertThat(overflow.getMetrics().get(0).getCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldRemoveIdleSeries() {
+    TrackMetricAggregator aggregator = createAggregator(1);
+
+    aggregator.record(createKey("latency", "a"), 1, null, null, null, null);
+    aggregator.flush();
+    // nothing recorded, so series "a" is removed and makes room for series "b"
+    aggregator.flush();
+    aggregator.record(createKey("latency", "b"), 1, null, null, null, null);
+    aggregator.flush();
+
+    assertThat(telemetryItems).hasSize(2);
+    assertThat(getMetricsData("b").getMetrics().get(0).getCount()).isEqualTo(1);
+  }
+
+  private TrackMetricAggregator createAggregator(int maxSeries) {
+    return new TrackMetricAggregator(
+        maxSeries, MetricTelemetryBuilder::create, telemetryItems::add);
+  }
+
+  private static TrackMetricAggregator.SeriesKey createKey(String name, String tenant) {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("tenant", tenant);
+    return new TrackMetricAggregator.SeriesKey(
+        name, null, properties, Collections.emptyMap(), null);
+  }
+
+  private MetricsData getMetricsData(String tenant) {
+    for (TelemetryItem telemetryItem : telemetryItems) {
+      MetricsData data = (MetricsData) telemetryItem.getData().getBaseData();
+      if (data.getProperties() != null && tenant.equals(data.getProperties().get("tenant"))) {
+        return data;
+      }
+    }
+    throw new AssertionError("no metric found for tenant " + tenant);
+  }
+
+  private MetricsData getOverflowMetricsData() {
+    for (TelemetryItem telemetryItem : telemetryItems) {
+      MetricsData data = (MetricsData) telemetryItem.getData().getBaseData();
+      if (data.getProperties() != null
+          && data.getProperties().containsKey(TrackMetricAggregator.OVERFLOW_PROPERTY)) {
+        return data;
+      }
+    }
+    throw new AssertionError("no overflow metric found");
+  }
+}
@@ -0,0 +1,51 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.common;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class CachingPatternTest {
+
+  @Test
+  void shouldMatchAndFind() {
+    CachingPattern matches = CachingPattern.forMatches("/api/.*");
+    CachingPattern find = CachingPattern.forFind("api");
+
+    assertThat(matches.test("/api/items")).isTrue();
+    assertThat(matches.test("/v1/api/items")).isFalse();
+    assertThat(find.test("/v1/api/items")).isTrue();
+    assertThat(find.test("/v1/items")).isFalse();
+  }
+
+  @Test
+  void shouldCacheRepeatedInputs() {
+    CachingPattern pattern = CachingPattern.forMatches("/api/.*");
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(pattern.test("/api/items")).isTrue();
+      assertThat(pattern.test("/health")).isFalse();
+    }
+
+    assertThat(pattern.getHitRate()).isEqualTo(0.9);
+  }
+
+  @Test
+  void shouldStopCachingHighCardinalityInputs() {
+    CachingPattern pattern = CachingPattern.forMatches("/api/.*");
+
+    for (int i = 0; i < 2000; i++) {
+      assertThat(pattern.test("/api/items/" + i)).isTrue();
+    }
+    double hitRate = pattern.getHitRate();
+    for (int i = 0; i < 100; i++) {
+      assertThat(pattern.test("/api/items/0")).isTrue();
+    }
+
+    // lookups no longer go through the cache
+    assertThat(hitRate).isZero();
+    assertThat(pattern.getHitRate()).isZero();
+  }
+}
@@ -0,0 +1,90 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.common;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.BitSet;
+import java.util.List;
+import java.util.regex.Pattern;
+import org.junit.jupiter.api.Test;
+
+class MultiPatternTest {
+
+  @Test
+  void shouldExtractRequiredLiteral() {
+    assertThat(MultiPattern.getRequiredLiteral("^/api/v1/document/(?<documentId>.*)/update$"))
+        .isEqualTo("/api/v1/document/");
+    assertThat(MultiPattern.getRequiredLiteral("colou?r")).isEqualTo("colo");
+    assertThat(MultiPattern.getRequiredLiteral("\\d+items")).isEqualTo("items");
+    assertThat(MultiPattern.getRequiredLiteral("[a-z]+/orders\\.json")).isEqualTo("/orders.json");
+    assertThat(MultiPattern.getRequiredLiteral("ab{0,2}cd")).isEqualTo("cd");
+  }
+
+  @Test
+  void shouldNotExtractLiteralWhenNotRequired() {
+    assertThat(MultiPattern.getRequiredLiteral("users|orders")).isNull();
+    assertThat(MultiPattern.getRequiredLiteral("(?i)users")).isNull();
+    assertThat(MultiPattern.getRequiredLiteral("\\x41pi")).isNull();
+    assertThat(MultiPattern.getRequiredLiteral("\\Qa.b\\E")).isNull();
+    assertThat(MultiPattern.getRequiredLiteral("(users)?")).isNull();
+    assertThat(MultiPattern.getRequiredLiteral(".*")).isNull();
+  }
+
+  @Test
+  void shouldOnlyReturnPossibleCandidates() {
+    MultiPattern multiPattern =
+        MultiPattern.forFind(asList("^/api/users/.*", "/orders/\\d+", "health", "[0-9]+"));
+
+    assertThat(multiPattern.getCandidates("/api/users/1")).isEqualTo(bits(0, 3));
+    assertThat(multiPattern.getCandidates("/v1/health")).isEqualTo(bits(2, 3));
+    assertThat(multiPattern.getCandidates("/items")).isEqualTo(bits(3));
+  }
+
+  @Test
+  void shouldFindSameAsRegexes() {
+    List<String> regexes =
+        asList(
+            "^/api/users/.*",
+            "/orders/\\d+$",
+            "ab(c|d)?ef",
+            "colou?r",
+            "she",
+            "hers",
+            "[0-9]{3}-x");
+    List<String> inputs =
+        asList(
+            "/api/users/1",
+            "/api/user",
+            "/v1/orders/123",
+            "/v1/orders/123/items",
+            "abef",
+            "abdef",
+            "color",
+            "colour",
+            "usher",
+            "hers",
+            "123-x",
+            "12-x",
+            "");
+    MultiPattern multiPattern = MultiPattern.forFind(regexes);
+
+    for (String input : inputs) {
+      boolean expected = false;
+      for (String regex : regexes) {
+        expected |= Pattern.compile(regex).matcher(input).find();
+      }
+      assertThat(multiPattern.findAny(input)).as(input).isEqualTo(expected);
+    }
+  }
+
+  private static BitSet bits(int... indexes) {
+    BitSet bitSet = new BitSet();
+    for (int index : indexes) {
+      bitSet.set(index);
+    }
+    return bitSet;
+  }
+}
@@ -0,0 +1,34 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class HotThreadsPerformanceCounterTest {
+
+  @Test
+  void shouldSelectLargestValuesInDescendingOrder() {
+    long[] values = {5, -1, 30, 0, 10, 40, 20, 99};
+    int[] topIndexes = new int[3];
+
+    // the last value is beyond the count
+    int topCount = HotThreadsPerformanceCounter.selectTop(values, 7, topIndexes);
+
+    assertThat(topCount).isEqualTo(3);
+    assertThat(topIndexes).containsExactly(5, 2, 6);
+  }
+
+  @Test
+  void shouldOnlySelectPositiveValues() {
+    long[] values = {0, 7, -1, 3};
+    int[] topIndexes = new int[3];
+
+    int topCount = HotThreadsPerformanceCounter.selectTop(values, 4, topIndexes);
+
+    assertThat(topCount).isEqualTo(2);
+    assertThat(topIndexes).startsWith(1, 3);
+  }
+}
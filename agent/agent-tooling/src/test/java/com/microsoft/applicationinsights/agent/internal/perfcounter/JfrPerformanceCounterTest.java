@@ -0,0 +1,81 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import org.junit.jupiter.api.Test;
+
+class JfrPerformanceCounterTest {
+
+  private static final Instant START = Instant.ofEpochSecond(1000);
+
+  private final JfrPerformanceCounter performanceCounter = new JfrPerformanceCounter(Duration.ZERO);
+
+  @Test
+  void shouldPairSafepointsById() {
+    performanceCounter.recordSafepointBegin(1, START);
+    performanceCounter.recordSafepointEnd(1, START.plusMillis(5));
+
+    assertThat(performanceCounter.getSafepointNanos()).isEqualTo(5000000);
+  }
+
+  @Test
+  void shouldIgnoreSafepointEndWithOtherId() {
+    // e.g. the begin event of safepoint 2 was not recorded
+    performanceCounter.recordSafepointBegin(1, START);
+    performanceCounter.recordSafepointEnd(2, START.plusMillis(5));
+
+    assertThat(performanceCounter.getSafepointNanos()).isZero();
+  }
+
+  @Test
+  void shouldIgnoreSafepointEndWithoutBegin() {
+    performanceCounter.recordSafepointBegin(1, START);
+    performanceCounter.recordSafepointEnd(1, START.plusMillis(5));
+    // the end of safepoint 1 is only counted once
+    performanceCounter.recordSafepointEnd(1, START.plusMillis(10));
+
+    assertThat(performanceCounter.getSafepointNanos()).isEqualTo(5000000);
+  }
+
+  @Test
+  void shouldOnlyCountParksOnLocks() {
+    performanceCounter.recordThreadPark("java.util.concurrent.locks.ReentrantLock$NonfairSync", 1);
+    performanceCounter.recordThreadPark(
+        "java.util.concurrent.locks.ReentrantReadWriteLock$NonfairSync", 2);
+    // waiting for work, not contention
+    performanceCounter.recordThreadPark(
+        "java.util.concurrent.locks.AbstractQueuedSynchronizer$ConditionObject", 4);
+    performanceCounter.recordThreadPark(null, 8);
+
+    assertThat(performanceCounter.getLockContentionNanos()).isEqualTo(3);
+  }
+
+  @Test
+  void shouldIgnoreContentionBelowThreshold() {
+    // e.g. the application's own recording has a lower threshold
+    JfrPerformanceCounter counter = new JfrPerformanceCounter(Duration.ofMillis(10));
+    counter.recordMonitorEnter(5000000);
+    counter.recordMonitorEnter(10000000);
+    counter.recordThreadPark("java.util.concurrent.locks.ReentrantLock$NonfairSync", 5000000);
+    counter.recordThreadPark("java.util.concurrent.locks.ReentrantLock$NonfairSync", 20000000);
+
+    assertThat(counter.getLockContentionNanos()).isEqualTo(30000000);
+  }
+
+  @Test
+  void shouldOnlyRecordHeapUsedAfterGc() {
+    assertThat(performanceCounter.getHeapUsedAfterGc()).isEqualTo(-1);
+
+    performanceCounter.recordGcHeapSummary("Before GC", 100);
+    assertThat(performanceCounter.getHeapUsedAfterGc()).isEqualTo(-1);
+
+    performanceCounter.recordGcHeapSummary("After GC", 40);
+    performanceCounter.recordGcHeapSummary(null, 200);
+    assertThat(performanceCounter.getHeapUsedAfterGc()).isEqualTo(40);
+  }
+}
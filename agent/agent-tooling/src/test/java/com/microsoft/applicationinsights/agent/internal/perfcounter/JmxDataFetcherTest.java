@@ -54,6 +54,63 @@ class JmxDataFetcherTest {
     }
   }
 
+  @SuppressWarnings({"unused", "checkstyle:AbbreviationAsWordInName"})
+  public interface NestedStubMXBean {
+    Outer getOuter();
+  }
+
+  public static class NestedStub implements NestedStubMXBean {
+    @Override
+    public Outer getOuter() {
+      return new Outer();
+    }
+  }
+
+  public static class Outer {
+    public Inner getInner() {
+      return new Inner();
+    }
+  }
+
+  public static class Inner {
+    public long getValue() {
+      return 42;
+    }
+  }
+
+  @Test
+  void testNestedCompositeData() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    server.registerMBean(new NestedStub(), new ObjectName("JSDKTests:type=NestedStub"));
+    List<JmxAttributeData> attributes = new ArrayList<>();
+    attributes.add(new JmxAttributeData("Nested", "Outer.inner.value"));
+
+    Map<String, Collection<Object>> result =
+        JmxDataFetcher.fetch("JSDKTests:type=NestedStub", attributes);
+
+    verify(result, "Nested", 42);
+  }
+
+  @Test
+  void testPatternFollowsRegistrations() throws Exception {
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName first = new ObjectName("JSDKTests:type=PatternStub,name=first");
+    ObjectName second = new ObjectName("JSDKTests:type=PatternStub,name=second");
+    server.registerMBean(new TestStub(1, 2.0, 3L), first);
+    List<JmxAttributeData> attributes = new ArrayList<>();
+    attributes.add(new JmxAttributeData("Int", "IntSample"));
+
+    verify(JmxDataFetcher.fetch("JSDKTests:type=PatternStub,*", attributes), "Int", 1);
+
+    server.registerMBean(new TestStub(10, 2.0, 3L), second);
+    Map<String, Collection<Object>> result =
+        JmxDataFetcher.fetch("JSDKTests:type=PatternStub,*", attributes);
+    assertThat(result.get("Int")).containsExactlyInAnyOrder(1, 10);
+
+    server.unregisterMBean(first);
+    verify(JmxDataFetcher.fetch("JSDKTests:type=PatternStub,*", attributes), "Int", 10);
+  }
+
   @Test
   void testBadAttributeName() throws Exception {
     MBeanServer server = ManagementFactory.getPlatformMBeanServer();
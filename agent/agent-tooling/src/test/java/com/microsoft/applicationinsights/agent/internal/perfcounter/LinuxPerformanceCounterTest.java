@@ -0,0 +1,95 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class LinuxPerformanceCounterTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void shouldResolveCgroupV1Paths() throws IOException {
+    List<String> cgroups =
+        readCgroups(
+            "12:memory:/kubepods/pod1/abc\n"
+                + "4:cpu,cpuacct:/kubepods/pod1/abc\n"
+                + "1:name=systemd:/kubepods/pod1/abc\n");
+
+    assertThat(LinuxPerformanceCounter.getCgroupPath(cgroups, "cpu"))
+        .isEqualTo("/kubepods/pod1/abc");
+    assertThat(LinuxPerformanceCounter.getCgroupPath(cgroups, "cpuacct"))
+        .isEqualTo("/kubepods/pod1/abc");
+    assertThat(LinuxPerformanceCounter.getCgroupPath(cgroups, "memory"))
+        .isEqualTo("/kubepods/pod1/abc");
+    // there is no cgroup v2 line
+    assertThat(LinuxPerformanceCounter.getCgroupPath(cgroups, "")).isEqualTo("/");
+  }
+
+  @Test
+  void shouldResolveCgroupV2Path() throws IOException {
+    List<String> cgroups = readCgroups("0::/system.slice/app.service\n");
+
+    assertThat(LinuxPerformanceCounter.getCgroupPath(cgroups, ""))
+        .isEqualTo("/system.slice/app.service");
+    assertThat(LinuxPerformanceCounter.getCgroupPath(cgroups, "cpu")).isEqualTo("/");
+  }
+
+  @Test
+  void shouldReturnNoCgroupsWhenFileIsMissing() {
+    assertThat(LinuxPerformanceCounter.readCgroups(tempDir.resolve("missing").toString()))
+        .isEmpty();
+  }
+
+  @Test
+  void shouldOpenCgroupFileUnderPath() throws IOException {
+    // host layout, where the cgroup of the process is nested under the mount
+    Path mount = Files.createDirectories(tempDir.resolve("memory"));
+    Files.createDirectories(mount.resolve("kubepods/pod1"));
+    Files.write(mount.resolve("memory.limit_in_bytes"), "9223372036854771712\n".getBytes(US_ASCII));
+    Files.write(
+        mount.resolve("kubepods/pod1/memory.limit_in_bytes"), "536870912\n".getBytes(US_ASCII));
+
+    ProcFile file =
+        LinuxPerformanceCounter.openCgroupFile(
+            mount.toString(), "/kubepods/pod1", "memory.limit_in_bytes");
+
+    assertThat(file).isNotNull();
+    assertThat(file.read()).isTrue();
+    assertThat(file.getLong(-1)).isEqualTo(536870912);
+  }
+
+  @Test
+  void shouldFallBackToCgroupFileAtMount() throws IOException {
+    // container layout, where the cgroup of the container is mounted at the root
+    Files.write(tempDir.resolve("cpu.stat"), "nr_periods 10\nnr_throttled 3\n".getBytes(US_ASCII));
+
+    ProcFile file =
+        LinuxPerformanceCounter.openCgroupFile(tempDir.toString(), "/kubepods/pod1", "cpu.stat");
+
+    assertThat(file).isNotNull();
+    assertThat(file.read()).isTrue();
+    assertThat(file.getLong(ProcFile.key("nr_throttled "), -1)).isEqualTo(3);
+  }
+
+  @Test
+  void shouldNotOpenMissingCgroupFile() {
+    assertThat(LinuxPerformanceCounter.openCgroupFile(tempDir.toString(), "/", "memory.max"))
+        .isNull();
+  }
+
+  private List<String> readCgroups(String content) throws IOException {
+    Path path = tempDir.resolve("cgroup");
+    Files.write(path, content.getBytes(US_ASCII));
+    return LinuxPerformanceCounter.readCgroups(path.toString());
+  }
+}
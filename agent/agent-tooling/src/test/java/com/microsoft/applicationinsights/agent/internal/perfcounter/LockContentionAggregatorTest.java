@@ -0,0 +1,63 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class LockContentionAggregatorTest {
+
+  @Test
+  void shouldReturnMostContendedLocks() {
+    LockContentionAggregator aggregator = new LockContentionAggregator(100);
+    aggregator.record("com.example.Cache", "com.example.Cache.get:10\ncom.example.App.run:5", 3);
+    aggregator.record("com.example.Cache", "com.example.Cache.get:10\ncom.example.App.run:5", 5);
+    aggregator.record("com.example.Cache", "com.example.Cache.put:20", 4);
+    aggregator.record("com.example.Pool", "com.example.Pool.take:30", 1);
+
+    List<LockContentionAggregator.Contention> contentions = aggregator.drain(2);
+
+    assertThat(contentions).hasSize(2);
+    LockContentionAggregator.Contention first = contentions.get(0);
+    assertThat(first.lockClass).isEqualTo("com.example.Cache");
+    assertThat(first.getLocation()).isEqualTo("com.example.Cache.get:10");
+    assertThat(first.count).isEqualTo(2);
+    assertThat(first.totalNanos).isEqualTo(8);
+    assertThat(first.maxNanos).isEqualTo(5);
+    LockContentionAggregator.Contention second = contentions.get(1);
+    assertThat(second.getLocation()).isEqualTo("com.example.Cache.put:20");
+    assertThat(second.totalNanos).isEqualTo(4);
+  }
+
+  @Test
+  void shouldResetWhenDrained() {
+    LockContentionAggregator aggregator = new LockContentionAggregator(100);
+    aggregator.record("com.example.Cache", "", 3);
+
+    assertThat(aggregator.drain(5)).hasSize(1);
+    assertThat(aggregator.drain(5)).isEmpty();
+  }
+
+  @Test
+  void shouldBoundDistinctLocks() {
+    LockContentionAggregator aggregator = new LockContentionAggregator(2);
+    aggregator.record("A", "", 1);
+    aggregator.record("B", "", 2);
+    aggregator.record("C", "", 10);
+    aggregator.record("D", "", 20);
+    // already tracked
+    aggregator.record("A", "", 5);
+
+    List<LockContentionAggregator.Contention> contentions = aggregator.drain(5);
+
+    assertThat(contentions).hasSize(3);
+    assertThat(contentions.get(0).lockClass).isEqualTo(LockContentionAggregator.OTHER_LOCK_CLASS);
+    assertThat(contentions.get(0).count).isEqualTo(2);
+    assertThat(contentions.get(0).totalNanos).isEqualTo(30);
+    assertThat(contentions.get(1).lockClass).isEqualTo("A");
+    assertThat(contentions.get(1).totalNanos).isEqualTo(6);
+  }
+}
@@ -0,0 +1,171 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+import com.microsoft.applicationinsights.agent.internal.telemetry.TelemetryClient;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class PerformanceCounterSchedulerTest {
+
+  private ScheduledThreadPoolExecutor schedulerThread;
+  private ExecutorService collectorThreads;
+  private RecordingListener listener;
+  private final TelemetryClient telemetryClient = TelemetryClient.createForTest();
+
+  @BeforeEach
+  void setUp() {
+    schedulerThread = new ScheduledThreadPoolExecutor(1);
+    // same as PerformanceCounterContainer
+    schedulerThread.setRemoveOnCancelPolicy(true);
+    collectorThreads = Executors.newFixedThreadPool(2);
+    listener = new RecordingListener();
+  }
+
+  @AfterEach
+  void tearDown() {
+    schedulerThread.shutdownNow();
+    collectorThreads.shutdownNow();
+  }
+
+  @Test
+  void shouldNotDelayOtherCountersWhileOneIsSlow() {
+    PerformanceCounterScheduler scheduler = createScheduler(60000);
+    SlowCounter slowCounter = new SlowCounter();
+    FastCounter fastCounter = new FastCounter();
+
+    scheduler.schedule(slowCounter, 10);
+    scheduler.schedule(fastCounter, 10);
+
+    await()
+        .until(() -> fastCounter.collections.get() >= 5 && listener.skipped("SlowCounter") >= 2);
+    assertThat(slowCounter.collections.get()).isEqualTo(1);
+    assertThat(listener.collected("SlowCounter")).isZero();
+    assertThat(listener.collected("FastCounter")).isGreaterThanOrEqualTo(5);
+
+    slowCounter.release.countDown();
+
+    await().until(() -> listener.collected("SlowCounter") >= 2);
+  }
+
+  @Test
+  void shouldInterruptCollectionAfterTimeout() {
+    PerformanceCounterScheduler scheduler = createScheduler(50);
+    SleepingCounter sleepingCounter = new SleepingCounter();
+
+    scheduler.schedule(sleepingCounter, 10);
+
+    await().until(() -> sleepingCounter.interruptions.get() >= 2);
+    assertThat(listener.collected("SleepingCounter")).isGreaterThanOrEqualTo(2);
+    // skipped while each collection was sleeping
+    assertThat(listener.skipped("SleepingCounter")).isPositive();
+  }
+
+  @Test
+  void shouldCancelTimeoutAfterCollection() {
+    PerformanceCounterScheduler scheduler = createScheduler(60000);
+    FastCounter fastCounter = new FastCounter();
+
+    scheduler.schedule(fastCounter, 10);
+
+    await().until(() -> listener.collected("FastCounter") >= 5);
+    // the periodic tick, and at most the timeout of the collection in flight
+    assertThat(schedulerThread.getQueue()).hasSizeLessThanOrEqualTo(2);
+  }
+
+  private PerformanceCounterScheduler createScheduler(long timeoutMillis) {
+    return new PerformanceCounterScheduler(
+        schedulerThread, collectorThreads, timeoutMillis, () -> telemetryClient, listener);
+  }
+
+  private static class SlowCounter implements PerformanceCounter {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final AtomicInteger collections = new AtomicInteger();
+
+    @Override
+    public void report(TelemetryClient telemetryClient) {
+      collections.incrementAndGet();
+      while (true) {
+        try {
+          release.await();
+          return;
+        } catch (InterruptedException e) {
+          // same as e.g. a native call that doesn't respond to interrupts
+        }
+      }
+    }
+  }
+
+  private static class FastCounter implements PerformanceCounter {
+
+    private final AtomicInteger collections = new AtomicInteger();
+
+    @Override
+    public void report(TelemetryClient telemetryClient) {
+      collections.incrementAndGet();
+    }
+  }
+
+  private static class SleepingCounter implements PerformanceCounter {
+
+    private final AtomicInteger interruptions = new AtomicInteger();
+
+    @Override
+    public void report(TelemetryClient telemetryClient) {
+      try {
+        Thread.sleep(60000);
+      } catch (InterruptedException e) {
+        interruptions.incrementAndGet();
+      }
+    }
+  }
+
+  private static class RecordingListener
+      implements PerformanceCounterScheduler.CollectionListener {
+
+    private final Map<String, AtomicInteger> collected = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> skipped = new ConcurrentHashMap<>();
+
+    @Override
+    public void onCollected(PerformanceCounter performanceCounter, long elapsedNanos) {
+      increment(collected, performanceCounter);
+    }
+
+    @Override
+    public void onSkipped(PerformanceCounter performanceCounter) {
+      increment(skipped, performanceCounter);
+    }
+
+    private int collected(String name) {
+      return get(collected, name);
+    }
+
+    private int skipped(String name) {
+      return get(skipped, name);
+    }
+
+    private static void increment(Map<String, AtomicInteger> counts, PerformanceCounter counter) {
+      counts
+          .computeIfAbsent(PerformanceCounterScheduler.getName(counter), k -> new AtomicInteger())
+          .incrementAndGet();
+    }
+
+    private static int get(Map<String, AtomicInteger> counts, String name) {
+      AtomicInteger count = counts.get(name);
+      return count == null ? 0 : count.get();
+    }
+  }
+}
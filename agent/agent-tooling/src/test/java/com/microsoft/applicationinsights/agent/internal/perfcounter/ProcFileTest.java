@@ -0,0 +1,101 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProcFileTest {
+
+  @TempDir Path tempDir;
+
+  @Test
+  void shouldParseKeyValueLines() throws IOException {
+    ProcFile file =
+        open(
+            "rchar: 3980\n"
+                + "wchar: 12\n"
+                + "read_bytes: 4096\n"
+                + "write_bytes: 8192\n"
+                + "cancelled_write_bytes: 0\n");
+
+    assertThat(file.read()).isTrue();
+    assertThat(file.getLong(ProcFile.key("read_bytes:"), -1)).isEqualTo(4096);
+    assertThat(file.getLong(ProcFile.key("write_bytes:"), -1)).isEqualTo(8192);
+    assertThat(file.getLong(ProcFile.key("syscr:"), -1)).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldMatchWholeKey() throws IOException {
+    ProcFile file = open("nr_periods 10\nnr_throttled 3\nthrottled_usec 1500\nnr_bursts 0");
+
+    assertThat(file.read()).isTrue();
+    assertThat(file.getLong(ProcFile.key("nr_throttled "), -1)).isEqualTo(3);
+    assertThat(file.getLong(ProcFile.key("throttled_usec "), -1)).isEqualTo(1500);
+    assertThat(file.getLong(ProcFile.key("nr_bursts "), -1)).isEqualTo(0);
+    assertThat(file.getLong(ProcFile.key("throttled_time "), -1)).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldParseLineOfNumbers() throws IOException {
+    ProcFile file =
+        open(
+            "cpu  7270 0 1466 260784 157 0 4 1787 0 0\n"
+                + "cpu0 3635 0 733 130392 78 0 2 893 0 0\n");
+    long[] values = new long[8];
+
+    assertThat(file.read()).isTrue();
+    assertThat(file.getLongs(ProcFile.key("cpu "), values)).isEqualTo(8);
+    assertThat(values).containsExactly(7270, 0, 1466, 260784, 157, 0, 4, 1787);
+  }
+
+  @Test
+  void shouldParseSingleValue() throws IOException {
+    assertThat(readSingleValue("9223372036854771712\n")).isEqualTo(9223372036854771712L);
+    assertThat(readSingleValue("536870912\n")).isEqualTo(536870912);
+    assertThat(readSingleValue("max\n")).isEqualTo(-1);
+  }
+
+  @Test
+  void shouldReadLatestContent() throws IOException {
+    Path path = tempDir.resolve("cpu.stat");
+    Files.write(path, "nr_throttled 1\n".getBytes(US_ASCII));
+    ProcFile file = ProcFile.open(path.toString());
+    assertThat(file).isNotNull();
+    assertThat(file.read()).isTrue();
+    assertThat(file.getLong(ProcFile.key("nr_throttled "), -1)).isEqualTo(1);
+
+    // larger than the initial buffer
+    StringBuilder sb = new StringBuilder();
+    for (int i = 0; i < 1000; i++) {
+      sb.append("key").append(i).append(' ').append(i).append('\n');
+    }
+    sb.append("nr_throttled 2\n");
+    Files.write(path, sb.toString().getBytes(US_ASCII));
+
+    assertThat(file.read()).isTrue();
+    assertThat(file.getLong(ProcFile.key("key999 "), -1)).isEqualTo(999);
+    assertThat(file.getLong(ProcFile.key("nr_throttled "), -1)).isEqualTo(2);
+  }
+
+  private long readSingleValue(String content) throws IOException {
+    ProcFile file = open(content);
+    assertThat(file.read()).isTrue();
+    return file.getLong(-1);
+  }
+
+  private ProcFile open(String content) throws IOException {
+    Path path = Files.createTempFile(tempDir, "proc", null);
+    Files.write(path, content.getBytes(US_ASCII));
+    ProcFile file = ProcFile.open(path.toString());
+    assertThat(file).isNotNull();
+    return file;
+  }
+}
@@ -0,0 +1,28 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.perfcounter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class ThreadDeltasTest {
+
+  @Test
+  void shouldComputeDeltasPerThread() {
+    ThreadDeltas threadDeltas = new ThreadDeltas();
+    long[] deltas = new long[4];
+
+    threadDeltas.update(new long[] {1, 2, 5}, new long[] {10, 20, 50}, 3, deltas);
+    assertThat(deltas).startsWith(-1, -1, -1);
+
+    // thread 2 ended, thread 3 started, thread 5 can't be read
+    threadDeltas.update(new long[] {1, 3, 5, 7}, new long[] {15, 30, -1, 70}, 4, deltas);
+    assertThat(deltas).containsExactly(5, 30, -1, 70);
+
+    // thread 5 is new again, since it was not read in the previous sample
+    threadDeltas.update(new long[] {1, 5, 7}, new long[] {15, 60, 65}, 3, deltas);
+    assertThat(deltas).startsWith(0, 60, 0);
+  }
+}
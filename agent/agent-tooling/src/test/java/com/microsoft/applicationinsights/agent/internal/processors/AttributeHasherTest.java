@@ -0,0 +1,54 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.processors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
+import org.junit.jupiter.api.Test;
+
+class AttributeHasherTest {
+
+  @Test
+  void shouldHashWithSha256() {
+    AttributeHasher hasher = new AttributeHasher(10, null);
+
+    assertThat(hasher.hash("user1")).isEqualTo(DigestUtils.sha256Hex("user1"));
+    assertThat(hasher.hash("user1")).isEqualTo(DigestUtils.sha256Hex("user1"));
+    assertThat(hasher.hash("user2")).isEqualTo(DigestUtils.sha256Hex("user2"));
+    assertThat(hasher.getHitRate()).isEqualTo(1 / 3.0);
+  }
+
+  @Test
+  void shouldHashWithHmac() {
+    AttributeHasher hasher = new AttributeHasher(10, "secret");
+
+    assertThat(hasher.hash("user1"))
+        .isEqualTo(new HmacUtils(HmacAlgorithms.HMAC_SHA_256, "secret").hmacHex("user1"))
+        .isNotEqualTo(DigestUtils.sha256Hex("user1"));
+  }
+
+  @Test
+  void shouldHashWithoutCache() {
+    AttributeHasher hasher = new AttributeHasher(0, null);
+
+    for (int i = 0; i < 3; i++) {
+      assertThat(hasher.hash("user1")).isEqualTo(DigestUtils.sha256Hex("user1"));
+    }
+    assertThat(hasher.getHitRate()).isEqualTo(0);
+  }
+
+  @Test
+  void shouldEvictWhenFull() {
+    AttributeHasher hasher = new AttributeHasher(2, null);
+
+    for (int i = 0; i < 10; i++) {
+      assertThat(hasher.hash("user" + i)).isEqualTo(DigestUtils.sha256Hex("user" + i));
+    }
+    assertThat(hasher.hash("user9")).isEqualTo(DigestUtils.sha256Hex("user9"));
+    assertThat(hasher.getHitRate()).isEqualTo(1 / 11.0);
+  }
+}
@@ -4,6 +4,7 @@
 package com.microsoft.applicationinsights.agent.internal.processors;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -26,12 +27,11 @@ import io.opentelemetry.sdk.trace.ReadableSpan;
 import io.opentelemetry.sdk.trace.data.SpanData;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
-class LogExporterWithAttributeProcessorTest {
+class AttributeProcessorLogTest {
 
   private MockLoggerExporter mockLoggerExporter;
   private ProcessorConfig config;
@@ -47,7 +47,8 @@ class LogExporterWithAttributeProcessorTest {
   void noActionTest() {
     config.id = "noAction";
 
-    assertThatThrownBy(() -> new LogExporterWithAttributeProcessor(config, mockLoggerExporter))
+    assertThatThrownBy(
+            () -> new LogExporterWithProcessors(singletonList(config), mockLoggerExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -63,7 +64,8 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
 
-    assertThatThrownBy(() -> new LogExporterWithAttributeProcessor(config, mockLoggerExporter))
+    assertThatThrownBy(
+            () -> new LogExporterWithProcessors(singletonList(config), mockLoggerExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -79,7 +81,8 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
 
-    assertThatThrownBy(() -> new LogExporterWithAttributeProcessor(config, mockLoggerExporter))
+    assertThatThrownBy(
+            () -> new LogExporterWithProcessors(singletonList(config), mockLoggerExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -92,7 +95,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributes =
         Attributes.builder()
@@ -130,7 +133,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributes =
         Attributes.builder()
@@ -169,7 +172,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(updateAction);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributes =
         Attributes.builder()
@@ -210,7 +213,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(updateAction);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributes =
         Attributes.builder()
@@ -244,7 +247,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributes =
         Attributes.builder()
@@ -279,7 +282,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributes =
         Attributes.builder()
@@ -315,7 +318,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter logExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     // set up log
     Attributes attributes =
@@ -347,7 +350,8 @@ class LogExporterWithAttributeProcessorTest {
 
     // export span
     MockSpanExporter mockSpanExporter = new MockSpanExporter();
-    SpanExporter spanExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter spanExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
     List<SpanData> spans = new ArrayList<>();
     spans.add(((ReadableSpan) span).toSpanData());
     spanExporter.export(spans);
@@ -376,7 +380,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributes =
         Attributes.builder()
@@ -411,7 +415,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(deleteAction);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributes =
         Attributes.builder()
@@ -447,7 +451,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributesA =
         Attributes.builder()
@@ -524,7 +528,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributesA =
         Attributes.builder()
@@ -601,7 +605,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributesA =
         Attributes.builder()
@@ -671,14 +675,15 @@ class LogExporterWithAttributeProcessorTest {
     config.id = "invalidRegex";
     config.include = new ProcessorIncludeExclude();
     config.include.matchType = MatchType.REGEXP;
-    config.include.logBodies = Collections.singletonList("***");
+    config.include.logBodies = singletonList("***");
     ProcessorAction action =
         new ProcessorAction("testKey", ProcessorActionType.UPDATE, "redacted", null, null, null);
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
 
-    assertThatThrownBy(() -> new LogExporterWithAttributeProcessor(config, mockLoggerExporter))
+    assertThatThrownBy(
+            () -> new LogExporterWithProcessors(singletonList(config), mockLoggerExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -699,7 +704,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributesA =
         Attributes.builder()
@@ -789,7 +794,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributesA =
         Attributes.builder()
@@ -866,7 +871,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributesA =
         Attributes.builder()
@@ -951,7 +956,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributesA =
         Attributes.builder()
@@ -1035,7 +1040,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributesA =
         Attributes.builder()
@@ -1116,7 +1121,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributesA =
         Attributes.builder()
@@ -1220,7 +1225,7 @@ class LogExporterWithAttributeProcessorTest {
     actions.add(action5);
     config.actions = actions;
     LogRecordExporter exampleExporter =
-        new LogExporterWithAttributeProcessor(config, mockLoggerExporter);
+        new LogExporterWithProcessors(singletonList(config), mockLoggerExporter);
 
     Attributes attributes =
         Attributes.builder()
@@ -4,6 +4,7 @@
 package com.microsoft.applicationinsights.agent.internal.processors;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -23,11 +24,10 @@ import io.opentelemetry.sdk.trace.ReadableSpan;
 import io.opentelemetry.sdk.trace.data.SpanData;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import org.junit.jupiter.api.Test;
 
-class SpanExporterWithAttributeProcessorTest {
+class AttributeProcessorSpanTest {
 
   private final Tracer tracer = OpenTelemetrySdk.builder().build().getTracer("test");
 
@@ -38,7 +38,8 @@ class SpanExporterWithAttributeProcessorTest {
     config.type = ProcessorType.ATTRIBUTE;
     config.id = "noAction";
 
-    assertThatThrownBy(() -> new SpanExporterWithAttributeProcessor(config, mockSpanExporter))
+    assertThatThrownBy(
+            () -> new SpanExporterWithProcessors(singletonList(config), mockSpanExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -57,7 +58,8 @@ class SpanExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
 
-    assertThatThrownBy(() -> new SpanExporterWithAttributeProcessor(config, mockSpanExporter))
+    assertThatThrownBy(
+            () -> new SpanExporterWithProcessors(singletonList(config), mockSpanExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -76,7 +78,8 @@ class SpanExporterWithAttributeProcessorTest {
     actions.add(action);
     config.actions = actions;
 
-    assertThatThrownBy(() -> new SpanExporterWithAttributeProcessor(config, mockSpanExporter))
+    assertThatThrownBy(
+            () -> new SpanExporterWithProcessors(singletonList(config), mockSpanExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -91,7 +94,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -129,7 +133,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -171,7 +176,8 @@ class SpanExporterWithAttributeProcessorTest {
     actions.add(action);
     actions.add(updateAction);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -215,7 +221,8 @@ class SpanExporterWithAttributeProcessorTest {
     actions.add(action);
     actions.add(updateAction);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -253,7 +260,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -281,6 +289,50 @@ class SpanExporterWithAttributeProcessorTest {
     assertThat(resultSpan.getAttributes().get(AttributeKey.stringKey("one"))).isEqualTo("1");
   }
 
+  @Test
+  void actionInsertWithDuplicateOfOtherTypeTest() {
+    MockSpanExporter mockSpanExporter = new MockSpanExporter();
+    ProcessorConfig config = new ProcessorConfig();
+    config.type = ProcessorType.ATTRIBUTE;
+    config.id = "actionInsertWithDuplicateOfOtherType";
+    ProcessorAction longAction =
+        new ProcessorAction(
+            "testLong", ProcessorActionType.INSERT, "testNewValue", null, null, null);
+    ProcessorAction booleanAction =
+        new ProcessorAction(
+            "testBoolean", ProcessorActionType.INSERT, "testNewValue", null, null, null);
+    List<ProcessorAction> actions = new ArrayList<>();
+    actions.add(longAction);
+    actions.add(booleanAction);
+    config.actions = actions;
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
+
+    Span span =
+        tracer
+            .spanBuilder("my span")
+            .setAttribute("one", "1")
+            .setAttribute("testLong", 2L)
+            .setAttribute("testBoolean", true)
+            .startSpan();
+
+    SpanData spanData = ((ReadableSpan) span).toSpanData();
+
+    List<SpanData> spans = new ArrayList<>();
+    spans.add(spanData);
+    exampleExporter.export(spans);
+
+    // verify that the existing attributes are not overwritten, even though they are not strings
+    List<SpanData> result = mockSpanExporter.getSpans();
+    SpanData resultSpan = result.get(0);
+
+    assertThat(resultSpan.getAttributes().get(AttributeKey.longKey("testLong"))).isEqualTo(2L);
+    assertThat(resultSpan.getAttributes().get(AttributeKey.stringKey("testLong"))).isNull();
+    assertThat(resultSpan.getAttributes().get(AttributeKey.booleanKey("testBoolean"))).isTrue();
+    assertThat(resultSpan.getAttributes().get(AttributeKey.stringKey("testBoolean"))).isNull();
+    assertThat(resultSpan.getAttributes().size()).isEqualTo(3);
+  }
+
   @Test
   void actionInsertFromAttributeTest() {
     MockSpanExporter mockSpanExporter = new MockSpanExporter();
@@ -292,7 +344,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -332,7 +385,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -383,7 +437,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -422,7 +477,8 @@ class SpanExporterWithAttributeProcessorTest {
     actions.add(updateAction);
     actions.add(deleteAction);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -462,7 +518,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -534,7 +591,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -617,7 +675,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -683,14 +742,15 @@ class SpanExporterWithAttributeProcessorTest {
     config.id = "invalidRegex";
     config.include = new ProcessorIncludeExclude();
     config.include.matchType = MatchType.REGEXP;
-    config.include.spanNames = Collections.singletonList("***");
+    config.include.spanNames = singletonList("***");
     ProcessorAction action =
         new ProcessorAction("testKey", ProcessorActionType.UPDATE, "redacted", null, null, null);
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
 
-    assertThatThrownBy(() -> new SpanExporterWithAttributeProcessor(config, mockSpanExporter))
+    assertThatThrownBy(
+            () -> new SpanExporterWithProcessors(singletonList(config), mockSpanExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -713,7 +773,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -800,7 +861,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -883,7 +945,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -955,7 +1018,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -1021,13 +1085,14 @@ class SpanExporterWithAttributeProcessorTest {
     config.id = "simpleExcludeRegex";
     config.exclude = new ProcessorIncludeExclude();
     config.exclude.matchType = MatchType.REGEXP;
-    config.exclude.spanNames = Collections.singletonList("svc.*");
+    config.exclude.spanNames = singletonList("svc.*");
     ProcessorAction action =
         new ProcessorAction("testKey", ProcessorActionType.UPDATE, "redacted", null, null, null);
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -1107,7 +1172,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -1186,7 +1252,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -1262,7 +1329,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -1332,7 +1400,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -1379,7 +1448,8 @@ class SpanExporterWithAttributeProcessorTest {
     List<ProcessorAction> actions = new ArrayList<>();
     actions.add(action);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -1457,7 +1527,8 @@ class SpanExporterWithAttributeProcessorTest {
     actions.add(action4);
     actions.add(action5);
     config.actions = actions;
-    SpanExporter exampleExporter = new SpanExporterWithAttributeProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
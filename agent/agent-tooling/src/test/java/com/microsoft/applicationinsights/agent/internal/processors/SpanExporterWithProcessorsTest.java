@@ -0,0 +1,133 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.processors;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.MatchType;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.NameConfig;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorAction;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorActionType;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorConfig;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorIncludeExclude;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ProcessorType;
+import com.microsoft.applicationinsights.agent.internal.configuration.Configuration.ToAttributeConfig;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.trace.Span;
+import io.opentelemetry.api.trace.Tracer;
+import io.opentelemetry.sdk.OpenTelemetrySdk;
+import io.opentelemetry.sdk.trace.ReadableSpan;
+import io.opentelemetry.sdk.trace.data.SpanData;
+import io.opentelemetry.sdk.trace.export.SpanExporter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class SpanExporterWithProcessorsTest {
+
+  private final Tracer tracer = OpenTelemetrySdk.builder().build().getTracer("test");
+
+  @Test
+  void shouldMatchChainedProcessors() {
+    List<ProcessorConfig> configs = new ArrayList<>();
+    configs.add(createAttributeConfig(null, action("one", ProcessorActionType.DELETE, null)));
+    configs.add(createToAttributesConfig("^/api/v1/document/(?<documentId>.*)/update$"));
+    // only matches the span name produced by the previous processor
+    configs.add(
+        createAttributeConfig(
+            asList("/api/v1/document/{documentId}/update"),
+            action("documentId", ProcessorActionType.HASH, null),
+            action("operation", ProcessorActionType.UPDATE, "put"),
+            action("new", ProcessorActionType.INSERT, "value")));
+
+    SpanData spanData = createSpanData("/api/v1/document/12345678/update");
+
+    MockSpanExporter fusedExporter = new MockSpanExporter();
+    new SpanExporterWithProcessors(configs, fusedExporter)
+        .export(Collections.singletonList(spanData));
+
+    MockSpanExporter chainedExporter = new MockSpanExporter();
+    createChainedExporter(configs, chainedExporter).export(Collections.singletonList(spanData));
+
+    SpanData fused = fusedExporter.getSpans().get(0);
+    SpanData chained = chainedExporter.getSpans().get(0);
+    assertThat(fused.getName()).isEqualTo("/api/v1/document/{documentId}/update");
+    assertThat(fused.getName()).isEqualTo(chained.getName());
+    assertThat(fused.getAttributes().asMap()).isEqualTo(chained.getAttributes().asMap());
+    assertThat(fused.getAttributes().get(AttributeKey.stringKey("one"))).isNull();
+    assertThat(fused.getAttributes().get(AttributeKey.stringKey("operation"))).isEqualTo("put");
+    assertThat(fused.getAttributes().get(AttributeKey.stringKey("new"))).isEqualTo("value");
+    assertThat(fused.getAttributes().get(AttributeKey.longKey("two"))).isEqualTo(2L);
+  }
+
+  @Test
+  void shouldNotWrapUnchangedSpan() {
+    List<ProcessorConfig> configs = new ArrayList<>();
+    configs.add(
+        createAttributeConfig(
+            asList("svcB"), action("operation", ProcessorActionType.UPDATE, "put")));
+    // attribute doesn't exist
+    configs.add(createAttributeConfig(null, action("missing", ProcessorActionType.DELETE, null)));
+
+    SpanData spanData = createSpanData("svcA");
+
+    MockSpanExporter mockSpanExporter = new MockSpanExporter();
+    new SpanExporterWithProcessors(configs, mockSpanExporter)
+        .export(Collections.singletonList(spanData));
+
+    assertThat(mockSpanExporter.getSpans().get(0)).isSameAs(spanData);
+  }
+
+  private SpanData createSpanData(String name) {
+    Span span =
+        tracer
+            .spanBuilder(name)
+            .setAttribute("one", "1")
+            .setAttribute("two", 2L)
+            .setAttribute("operation", "get")
+            .startSpan();
+    return ((ReadableSpan) span).toSpanData();
+  }
+
+  private static SpanExporter createChainedExporter(
+      List<ProcessorConfig> configs, SpanExporter delegate) {
+    SpanExporter exporter = delegate;
+    for (int i = configs.size() - 1; i >= 0; i--) {
+      exporter =
+          new SpanExporterWithProcessors(Collections.singletonList(configs.get(i)), exporter);
+    }
+    return exporter;
+  }
+
+  private static ProcessorConfig createAttributeConfig(
+      List<String> includeSpanNames, ProcessorAction... actions) {
+    ProcessorConfig config = new ProcessorConfig();
+    config.type = ProcessorType.ATTRIBUTE;
+    config.id = "attributes";
+    if (includeSpanNames != null) {
+      config.include = new ProcessorIncludeExclude();
+      config.include.matchType = MatchType.STRICT;
+      config.include.spanNames = includeSpanNames;
+    }
+    config.actions = asList(actions);
+    return config;
+  }
+
+  private static ProcessorConfig createToAttributesConfig(String rule) {
+    ProcessorConfig config = new ProcessorConfig();
+    config.type = ProcessorType.SPAN;
+    config.id = "toAttributes";
+    config.name = new NameConfig();
+    config.name.toAttributes = new ToAttributeConfig();
+    config.name.toAttributes.rules = new ArrayList<>();
+    config.name.toAttributes.rules.add(rule);
+    return config;
+  }
+
+  private static ProcessorAction action(String key, ProcessorActionType type, String value) {
+    return new ProcessorAction(key, type, value, null, null, null);
+  }
+}
@@ -3,6 +3,7 @@
 
 package com.microsoft.applicationinsights.agent.internal.processors;
 
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
@@ -26,7 +27,7 @@ import java.util.List;
 import java.util.Objects;
 import org.junit.jupiter.api.Test;
 
-class ExporterWithSpanProcessorTest {
+class SpanProcessorTest {
 
   private final Tracer tracer = OpenTelemetrySdk.builder().build().getTracer("test");
 
@@ -37,7 +38,8 @@ class ExporterWithSpanProcessorTest {
     config.type = ProcessorType.SPAN;
     config.id = "noNameObjectTest";
 
-    assertThatThrownBy(() -> new ExporterWithSpanProcessor(config, mockSpanExporter))
+    assertThatThrownBy(
+            () -> new SpanExporterWithProcessors(singletonList(config), mockSpanExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -49,7 +51,8 @@ class ExporterWithSpanProcessorTest {
     config.id = "inValidConfigTestWithToAttributesNoRules";
     config.name = new NameConfig();
 
-    assertThatThrownBy(() -> new ExporterWithSpanProcessor(config, mockSpanExporter))
+    assertThatThrownBy(
+            () -> new SpanExporterWithProcessors(singletonList(config), mockSpanExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -62,7 +65,8 @@ class ExporterWithSpanProcessorTest {
     config.name = new NameConfig();
     config.name.toAttributes = new ToAttributeConfig();
 
-    assertThatThrownBy(() -> new ExporterWithSpanProcessor(config, mockSpanExporter))
+    assertThatThrownBy(
+            () -> new SpanExporterWithProcessors(singletonList(config), mockSpanExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -74,7 +78,8 @@ class ExporterWithSpanProcessorTest {
     config.id = "SimpleRenameSpan";
     config.name = new NameConfig();
     config.name.fromAttributes = Arrays.asList("db.svc", "operation", "id");
-    SpanExporter exampleExporter = new ExporterWithSpanProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -107,7 +112,8 @@ class ExporterWithSpanProcessorTest {
     config.name = new NameConfig();
     config.name.fromAttributes = Arrays.asList("db.svc", "operation", "id");
     config.name.separator = "::";
-    SpanExporter exampleExporter = new ExporterWithSpanProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -140,7 +146,8 @@ class ExporterWithSpanProcessorTest {
     config.name = new NameConfig();
     config.name.fromAttributes = Arrays.asList("db.svc", "operation", "id");
     config.name.separator = "::";
-    SpanExporter exampleExporter = new ExporterWithSpanProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -174,7 +181,8 @@ class ExporterWithSpanProcessorTest {
     config.include = new ProcessorIncludeExclude();
     config.include.matchType = MatchType.STRICT;
     config.include.spanNames = Arrays.asList("svcA", "svcB");
-    SpanExporter exampleExporter = new ExporterWithSpanProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -247,7 +255,8 @@ class ExporterWithSpanProcessorTest {
     toAttributeConfig.rules.add("***");
     config.name.toAttributes = toAttributeConfig;
 
-    assertThatThrownBy(() -> new ExporterWithSpanProcessor(config, mockSpanExporter))
+    assertThatThrownBy(
+            () -> new SpanExporterWithProcessors(singletonList(config), mockSpanExporter))
         .isInstanceOf(FriendlyException.class);
   }
 
@@ -262,7 +271,8 @@ class ExporterWithSpanProcessorTest {
     toAttributeConfig.rules = new ArrayList<>();
     toAttributeConfig.rules.add("^/api/v1/document/(?<documentId>.*)/update$");
     config.name.toAttributes = toAttributeConfig;
-    SpanExporter exampleExporter = new ExporterWithSpanProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span span =
         tracer
@@ -306,7 +316,8 @@ class ExporterWithSpanProcessorTest {
     toAttributeConfig.rules.add("Password=(?<password1>[^ ]+)");
     toAttributeConfig.rules.add("Pass=(?<password2>[^ ]+)");
     config.name.toAttributes = toAttributeConfig;
-    SpanExporter exampleExporter = new ExporterWithSpanProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
@@ -384,7 +395,8 @@ class ExporterWithSpanProcessorTest {
     config.exclude.spanNames = Arrays.asList("donot/change");
     config.name.toAttributes = new ToAttributeConfig();
     config.name.toAttributes.rules = Arrays.asList("(?<operationwebsite>.*?)$");
-    SpanExporter exampleExporter = new ExporterWithSpanProcessor(config, mockSpanExporter);
+    SpanExporter exampleExporter =
+        new SpanExporterWithProcessors(singletonList(config), mockSpanExporter);
 
     Span spanA =
         tracer
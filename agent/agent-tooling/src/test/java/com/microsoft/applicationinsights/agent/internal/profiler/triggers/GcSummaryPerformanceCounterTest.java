@@ -0,0 +1,153 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.microsoft.applicationinsights.agent.internal.profiler.triggers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.microsoft.gcmonitor.GcCollectionEvent;
+import com.microsoft.gcmonitor.garbagecollectors.GarbageCollector;
+import com.microsoft.gcmonitor.memorypools.MemoryPool;
+import java.lang.management.MemoryUsage;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+
+class GcSummaryPerformanceCounterTest {
+
+  @Test
+  void shouldAggregatePauses() {
+    GcSummaryPerformanceCounter.Summary summary = new GcSummaryPerformanceCounter.Summary();
+    for (int i = 0; i < 99; i++) {
+      summary.recordPause(3);
+    }
+    summary.recordPause(150);
+
+    assertThat(summary.pauseCount).isEqualTo(100);
+    assertThat(summary.totalPauseMillis).isEqualTo(99 * 3 + 150);
+    assertThat(summary.maxPauseMillis).isEqualTo(150);
+    // the upper bound of the bucket of 3 ms
+    assertThat(summary.getPausePercentile(0.99)).isEqualTo(5);
+    assertThat(summary.getPausePercentile(1)).isEqualTo(150);
+  }
+
+  @Test
+  void shouldCapPercentileAtMaxPause() {
+    GcSummaryPerformanceCounter.Summary summary = new GcSummaryPerformanceCounter.Summary();
+    summary.recordPause(12);
+    summary.recordPause(15);
+
+    assertThat(summary.getPausePercentile(0.99)).isEqualTo(15);
+  }
+
+  @Test
+  void shouldReportMaxPauseForUnboundedBucket() {
+    GcSummaryPerformanceCounter.Summary summary = new GcSummaryPerformanceCounter.Summary();
+    summary.recordPause(20000);
+
+    assertThat(summary.getPausePercentile(0.99)).isEqualTo(20000);
+  }
+
+  @Test
+  void shouldRecordAllocationsAcrossCollectors() {
+    GcSummaryPerformanceCounter gcSummary = new GcSummaryPerformanceCounter("test");
+    MemoryPool youngPool = Mockito.mock(MemoryPool.class);
+    MemoryPool tenuredPool = Mockito.mock(MemoryPool.class);
+    GarbageCollector young = mockCollector("G1 Young Generation", false);
+    GarbageCollector old = mockCollector("G1 Old Generation", true);
+
+    // the first collection only establishes the baseline of the allocations
+    gcSummary.record(mockGcEvent(young, 5, youngPool, 100, 10, tenuredPool, 1000, 1010));
+    gcSummary.record(mockGcEvent(young, 7, youngPool, 70, 20, tenuredPool, 1010, 1030));
+    gcSummary.record(mockGcEvent(old, 50, youngPool, 50, 0, tenuredPool, 1030, 500));
+
+    assertThat(gcSummary.getAllocatedBytes()).isEqualTo((70 - 10) + (50 - 20));
+
+    GcSummaryPerformanceCounter.Summary youngSummary = gcSummary.getSummary("G1 Young Generation");
+    assertThat(youngSummary).isNotNull();
+    assertThat(youngSummary.count).isEqualTo(2);
+    assertThat(youngSummary.pauseCount).isEqualTo(2);
+    assertThat(youngSummary.totalPauseMillis).isEqualTo(12);
+    assertThat(youngSummary.promotedBytes).isEqualTo(10 + 20);
+    assertThat(youngSummary.reclaimedBytes).isEqualTo((1100 - 1020) + (1080 - 1050));
+
+    GcSummaryPerformanceCounter.Summary oldSummary = gcSummary.getSummary("G1 Old Generation");
+    assertThat(oldSummary).isNotNull();
+    assertThat(oldSummary.count).isEqualTo(1);
+    assertThat(oldSummary.maxPauseMillis).isEqualTo(50);
+    // the tenured pool doesn't grow through promotion during an old collection
+    assertThat(oldSummary.promotedBytes).isZero();
+    assertThat(oldSummary.reclaimedBytes).isEqualTo(1080 - 500);
+  }
+
+  @Test
+  void shouldNotCountConcurrentCyclesAsPauses() {
+    GcSummaryPerformanceCounter gcSummary = new GcSummaryPerformanceCounter("test");
+    GarbageCollector cycles = mockCollector("ZGC Cycles", true);
+    GarbageCollector pauses = mockCollector("ZGC Pauses", true);
+
+    gcSummary.record(mockGcEvent(cycles, 500));
+    gcSummary.record(mockGcEvent(pauses, 1));
+
+    GcSummaryPerformanceCounter.Summary cyclesSummary = gcSummary.getSummary("ZGC Cycles");
+    assertThat(cyclesSummary).isNotNull();
+    assertThat(cyclesSummary.count).isEqualTo(1);
+    assertThat(cyclesSummary.pauseCount).isZero();
+    assertThat(cyclesSummary.maxPauseMillis).isZero();
+
+    GcSummaryPerformanceCounter.Summary pausesSummary = gcSummary.getSummary("ZGC Pauses");
+    assertThat(pausesSummary).isNotNull();
+    assertThat(pausesSummary.pauseCount).isEqualTo(1);
+    assertThat(pausesSummary.maxPauseMillis).isEqualTo(1);
+
+    assertThat(GcSummaryPerformanceCounter.isConcurrentCycle("Shenandoah Cycles")).isTrue();
+    assertThat(GcSummaryPerformanceCounter.isConcurrentCycle("G1 Concurrent GC")).isTrue();
+    assertThat(GcSummaryPerformanceCounter.isConcurrentCycle("G1 Young Generation")).isFalse();
+  }
+
+  private static GarbageCollector mockCollector(String name, boolean tenuredCollector) {
+    GarbageCollector collector = Mockito.mock(GarbageCollector.class);
+    Mockito.when(collector.getName()).thenReturn(name);
+    Mockito.when(collector.isTenuredCollector()).thenReturn(tenuredCollector);
+    return collector;
+  }
+
+  private static GcCollectionEvent mockGcEvent(
+      GarbageCollector collector,
+      long duration,
+      MemoryPool youngPool,
+      long youngBefore,
+      long youngAfter,
+      MemoryPool tenuredPool,
+      long tenuredBefore,
+      long tenuredAfter) {
+    GcCollectionEvent event = mockGcEvent(collector, duration);
+    List<MemoryPool> youngPools = Collections.singletonList(youngPool);
+    Mockito.when(event.getYoungPools()).thenReturn(youngPools);
+    Mockito.when(event.getMemoryUsageBeforeGc(youngPools)).thenReturn(usage(youngBefore));
+    Mockito.when(event.getMemoryUsageAfterGc(youngPools)).thenReturn(usage(youngAfter));
+    Mockito.when(event.getTenuredPool()).thenReturn(Optional.of(tenuredPool));
+    Mockito.when(event.getMemoryUsageBeforeGc(tenuredPool)).thenReturn(usage(tenuredBefore));
+    Mockito.when(event.getMemoryUsageAfterGc(tenuredPool)).thenReturn(usage(tenuredAfter));
+    return event;
+  }
+
+  // a collector with a single pool (e.g. ZGC) has no young pools
+  private static GcCollectionEvent mockGcEvent(GarbageCollector collector, long duration) {
+    GcCollectionEvent event = Mockito.mock(GcCollectionEvent.class);
+    List<MemoryPool> youngPools = Collections.emptyList();
+    Mockito.when(event.getCollector()).thenReturn(collector);
+    Mockito.when(event.getDuration()).thenReturn(duration);
+    Mockito.when(event.getYoungPools()).thenReturn(youngPools);
+    Mockito.when(event.getMemoryUsageBeforeGc(youngPools)).thenReturn(usage(0));
+    Mockito.when(event.getMemoryUsageAfterGc(youngPools)).thenReturn(usage(0));
+    Mockito.when(event.getTenuredPool()).thenReturn(Optional.empty());
+    return event;
+  }
+
+  private static MemoryUsage usage(long used) {
+    return new MemoryUsage(0, used, Math.max(used, 1), -1);
+  }
+}
@@ -261,6 +261,58 @@ class SamplingOverridesTest {
     assertThat(sampler).isNull();
   }
 
+  @Test
+  void shouldPreserveOrderAcrossIndexedAndUnindexedOverrides() {
+    // given
+    List<SamplingOverride> overrides =
+        Arrays.asList(
+            newOverride(10, newStrictAttribute("one", "1"), newStrictAttribute("two", "3")),
+            newOverride(20, newRegexpAttribute("two", "2.*")),
+            newOverride(30, newStrictAttribute("two", "22")),
+            newOverride(40, newStrictAttribute("one", "1")));
+    SamplingOverrides samplingOverrides = new SamplingOverrides(overrides);
+    Attributes attributes =
+        Attributes.of(AttributeKey.stringKey("one"), "1", AttributeKey.stringKey("two"), "22");
+
+    // when
+    Sampler sampler = samplingOverrides.getOverride(attributes);
+
+    // expect
+    assertThat(sampler).isNotNull();
+    assertThat(SamplingTestUtil.getCurrentSamplingPercentage(sampler)).isEqualTo(20);
+  }
+
+  @Test
+  void shouldFilterRegexpPrefixMatch() {
+    // given
+    List<SamplingOverride> overrides =
+        singletonList(newOverride(25, newRegexpAttribute("path", "/static\\.v1/.*")));
+    SamplingOverrides samplingOverrides = new SamplingOverrides(overrides);
+
+    // expect
+    assertThat(samplingOverrides.getOverride(path("/static.v1/app.js"))).isNotNull();
+    assertThat(samplingOverrides.getOverride(path("/static.v1/"))).isNotNull();
+    assertThat(samplingOverrides.getOverride(path("/staticxv1/app.js"))).isNull();
+    assertThat(samplingOverrides.getOverride(path("/static.v1/a\nb"))).isNull();
+  }
+
+  @Test
+  void shouldParseLiteralRegexp() {
+    assertThat(SamplingOverrides.getLiteral("/health")).isEqualTo("/health");
+    assertThat(SamplingOverrides.getLiteral("/health\\.html")).isEqualTo("/health.html");
+    assertThat(SamplingOverrides.getLiteral("/health.html")).isNull();
+    assertThat(SamplingOverrides.getLiteral("/health\\d")).isNull();
+    assertThat(SamplingOverrides.getLiteral("/health\\")).isNull();
+
+    assertThat(SamplingOverrides.getLiteralPrefix("/static/.*")).isEqualTo("/static/");
+    assertThat(SamplingOverrides.getLiteralPrefix("/static/\\.*")).isNull();
+    assertThat(SamplingOverrides.getLiteralPrefix("/static/.+")).isNull();
+  }
+
+  private static Attributes path(String path) {
+    return Attributes.of(AttributeKey.stringKey("path"), path);
+  }
+
   private static SamplingOverride newOverride(
       double percentage, SamplingOverrideAttribute... attribute) {
     SamplingOverride override = new SamplingOverride();
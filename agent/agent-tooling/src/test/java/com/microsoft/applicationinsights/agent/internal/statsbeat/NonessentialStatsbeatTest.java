@@ -5,6 +5,8 @@ package com.microsoft.applicationinsights.agent.internal.statsbeat;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.CacheStats;
+import java.util.concurrent.atomic.AtomicLong;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
@@ -34,4 +36,37 @@ public class NonessentialStatsbeatTest {
     }
     assertThat(nonessentialStatsbeat.getWriteFailureCount()).isEqualTo(100);
   }
+
+  @Test
+  public void testCacheHitRates() {
+    AtomicLong hits = new AtomicLong();
+    AtomicLong misses = new AtomicLong();
+    nonessentialStatsbeat.registerCache("test", CacheStats.of(hits::get, misses::get));
+
+    // no lookups
+    assertThat(nonessentialStatsbeat.getCacheHitRates()).isEmpty();
+
+    hits.set(3);
+    misses.set(1);
+    assertThat(nonessentialStatsbeat.getCacheHitRates()).containsEntry("test", 75.0);
+
+    // only the lookups since the previous call
+    misses.set(2);
+    assertThat(nonessentialStatsbeat.getCacheHitRates()).containsEntry("test", 0.0);
+    assertThat(nonessentialStatsbeat.getCacheHitRates()).isEmpty();
+
+    // the cache has been replaced
+    hits.set(1);
+    misses.set(1);
+    assertThat(nonessentialStatsbeat.getCacheHitRates()).containsEntry("test", 50.0);
+  }
+
+  @Test
+  public void testRecordPostSize() {
+    assertThat(nonessentialStatsbeat.getLiveMetricsPeakPostSize()).isEqualTo(0);
+    nonessentialStatsbeat.recordPostSize(1000);
+    nonessentialStatsbeat.recordPostSize(5000);
+    nonessentialStatsbeat.recordPostSize(2000);
+    assertThat(nonessentialStatsbeat.getLiveMetricsPeakPostSize()).isEqualTo(5000);
+  }
 }
@@ -25,6 +25,8 @@ import com.azure.monitor.opentelemetry.exporter.implementation.LogDataMapper;
 import com.azure.monitor.opentelemetry.exporter.implementation.MetricDataMapper;
 import com.azure.monitor.opentelemetry.exporter.implementation.SpanDataMapper;
 import com.azure.monitor.opentelemetry.exporter.implementation.builders.AbstractTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.MetricTelemetryBuilder;
+import com.azure.monitor.opentelemetry.exporter.implementation.builders.TelemetryTemplate;
 import com.azure.monitor.opentelemetry.exporter.implementation.configuration.ConnectionString;
 import com.azure.monitor.opentelemetry.exporter.implementation.heartbeat.HeartbeatExporter;
 import com.azure.monitor.opentelemetry.exporter.implementation.localstorage.LocalStorageStats;
@@ -41,9 +43,11 @@ import io.opentelemetry.sdk.resources.Resource;
 import io.opentelemetry.sdk.trace.export.SpanExporter;
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class provides a fluent builder API to instantiate {@link AzureMonitorTraceExporter} that
@@ -58,6 +62,8 @@ public final class AzureMonitorExporterBuilder {
   private static final String APPLICATIONINSIGHTS_AUTHENTICATION_SCOPE =
       "https://monitor.azure.com//.default";
 
+  private static final int MAX_CACHED_TEMPLATES = 100;
+
   private static final Map<String, String> PROPERTIES =
       CoreUtils.getProperties("azure-monitor-opentelemetry-exporter.properties");
 
@@ -77,6 +83,10 @@ public final class AzureMonitorExporterBuilder {
   private Configuration configuration = Configuration.getGlobalConfiguration();
   private ClientOptions clientOptions;
 
+  // the default tags only depend on the resource (and the connection string), and there is
+  // typically only a single resource, so there's no need for an eviction policy beyond a size cap
+  private final Map<Resource, TelemetryTemplate> templates = new ConcurrentHashMap<>();
+
   /** Creates an instance of {@link AzureMonitorExporterBuilder}. */
   public AzureMonitorExporterBuilder() {}
 
@@ -329,9 +339,23 @@ public final class AzureMonitorExporterBuilder {
   }
 
   void populateDefaults(AbstractTelemetryBuilder builder, Resource resource) {
-    builder.setConnectionString(connectionString);
+    TelemetryTemplate template = templates.get(resource);
+    if (template == null || template.getConnectionString() != connectionString) {
+      template = createTemplate(resource);
+      if (templates.size() < MAX_CACHED_TEMPLATES) {
+        templates.put(resource, template);
+      }
+    }
+    builder.applyTemplate(template);
+  }
+
+  private TelemetryTemplate createTemplate(Resource resource) {
+    // ResourceParser works against a telemetry builder, so use a throwaway one to collect the tags
+    MetricTelemetryBuilder builder = MetricTelemetryBuilder.create();
     builder.addTag(
         ContextTagKeys.AI_INTERNAL_SDK_VERSION.toString(), VersionGenerator.getSdkVersion());
     ResourceParser.updateRoleNameAndInstance(builder, resource, configuration);
+    return TelemetryTemplate.create(
+        connectionString, builder.build().getTags(), Collections.emptyMap());
   }
 }
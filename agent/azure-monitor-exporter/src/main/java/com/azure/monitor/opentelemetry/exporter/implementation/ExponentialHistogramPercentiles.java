@@ -0,0 +1,72 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation;
+
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramBuckets;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
+import java.util.List;
+
+/**
+ * Estimates percentiles from the buckets of a base-2 exponential histogram.
+ *
+ * <p>The value of a percentile is estimated as the midpoint of the bucket it falls into, clamped to
+ * the recorded min and max, so the relative error is at most half of the bucket growth factor
+ * minus one (e.g. about 0.5% at scale 6, where each power of two is split into 64 buckets).
+ */
+final class ExponentialHistogramPercentiles {
+
+  static double getValueAtPercentile(ExponentialHistogramPointData point, double percentile) {
+    long count = point.getCount();
+    if (count == 0) {
+      return 0;
+    }
+    // 1-based rank of the value at the percentile
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    double base = Math.pow(2, Math.pow(2, -point.getScale()));
+
+    // negative values are in descending order of bucket index
+    ExponentialHistogramBuckets negativeBuckets = point.getNegativeBuckets();
+    List<Long> negativeCounts = negativeBuckets.getBucketCounts();
+    for (int i = negativeCounts.size() - 1; i >= 0; i--) {
+      rank -= negativeCounts.get(i);
+      if (rank <= 0) {
+        return clamp(point, -getBucketMidpoint(base, negativeBuckets.getOffset() + i));
+      }
+    }
+
+    rank -= point.getZeroCount();
+    if (rank <= 0) {
+      return clamp(point, 0);
+    }
+
+    ExponentialHistogramBuckets positiveBuckets = point.getPositiveBuckets();
+    List<Long> positiveCounts = positiveBuckets.getBucketCounts();
+    for (int i = 0; i < positiveCounts.size(); i++) {
+      rank -= positiveCounts.get(i);
+      if (rank <= 0) {
+        return clamp(point, getBucketMidpoint(base, positiveBuckets.getOffset() + i));
+      }
+    }
+
+    // only reached if the bucket counts don't add up to the total count
+    return point.hasMax() ? point.getMax() : 0;
+  }
+
+  // bucket index i contains the values in (base^i, base^(i+1)]
+  private static double getBucketMidpoint(double base, int index) {
+    return Math.pow(base, index) * (1 + base) / 2;
+  }
+
+  private static double clamp(ExponentialHistogramPointData point, double value) {
+    if (point.hasMin() && value < point.getMin()) {
+      return point.getMin();
+    }
+    if (point.hasMax() && value > point.getMax()) {
+      return point.getMax();
+    }
+    return value;
+  }
+
+  private ExponentialHistogramPercentiles() {}
+}
@@ -8,6 +8,7 @@ import io.opentelemetry.context.Context;
 import io.opentelemetry.sdk.trace.ReadWriteSpan;
 import io.opentelemetry.sdk.trace.ReadableSpan;
 import io.opentelemetry.sdk.trace.SpanProcessor;
+import io.opentelemetry.sdk.trace.data.SpanData;
 
 public class LiveMetricsSpanProcessor implements SpanProcessor {
 
@@ -31,7 +32,8 @@ public class LiveMetricsSpanProcessor implements SpanProcessor {
   public void onEnd(ReadableSpan readableSpan) {
     if (quickPulse.isEnabled()) {
       // TODO (trask) can we do anything better here in terms of double conversion?
-      quickPulse.add(mapper.map(readableSpan.toSpanData()));
+      SpanData span = readableSpan.toSpanData();
+      quickPulse.add(mapper.map(span), span.getEndEpochNanos() - span.getStartEpochNanos());
     }
   }
 
@@ -0,0 +1,235 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation;
+
+import com.azure.core.util.logging.ClientLogger;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.MetricDataPoint;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.MetricsData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import com.azure.monitor.opentelemetry.exporter.implementation.preaggregatedmetrics.ExtractorHelper;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Caps the number of distinct series (properties, tags and connection string) that are exported
+ * per metric.
+ *
+ * <p>The series are tracked after mapping, since that's where the dimensions of the pre-aggregated
+ * standard metrics (e.g. dependency target and result code) are derived. Points of new series
+ * beyond the cap are folded into a single overflow series per metric, whose properties only keep
+ * the metric identity (e.g. {@code _MS.MetricId}) and add {@code _OTHER_}.
+ *
+ * <p>Series that are not exported for a whole export interval are forgotten, which frees up their
+ * slot (metrics are exported with delta temporality where possible).
+ */
+public final class MetricCardinalityLimiter {
+
+  private static final ClientLogger logger = new ClientLogger(MetricCardinalityLimiter.class);
+
+  // visible for testing
+  public static final String OVERFLOW_PROPERTY = "_OTHER_";
+
+  private static final MetricCardinalityLimiter UNLIMITED =
+      new MetricCardinalityLimiter(Integer.MAX_VALUE, MetricCardinalityStats.noop());
+
+  private final int maxSeriesPerMetric;
+  private final MetricCardinalityStats stats;
+
+  // keyed by instrumentation scope name and metric name, since the same metric name can be
+  // reported by multiple instrumentation scopes
+  private final Map<List<String>, MetricSeries> metrics = new ConcurrentHashMap<>();
+
+  public MetricCardinalityLimiter(int maxSeriesPerMetric, MetricCardinalityStats stats) {
+    this.maxSeriesPerMetric = maxSeriesPerMetric;
+    this.stats = stats;
+  }
+
+  public static MetricCardinalityLimiter unlimited() {
+    return UNLIMITED;
+  }
+
+  /** Starts the mapping of the points of the given metric for a single export. */
+  Round startRound(MetricData metricData) {
+    if (maxSeriesPerMetric == Integer.MAX_VALUE) {
+      return new Round(null, 0, false);
+    }
+    MetricSeries series =
+        metrics.computeIfAbsent(
+            Arrays.asList(metricData.getInstrumentationScopeInfo().getName(), metricData.getName()),
+            k -> new MetricSeries(metricData.getName()));
+    MetricDataType type = metricData.getType();
+    boolean sum = type == MetricDataType.LONG_SUM || type == MetricDataType.DOUBLE_SUM;
+    return new Round(series, series.nextGeneration(), sum);
+  }
+
+  final class Round {
+
+    // null when there is no limit
+    @Nullable private final MetricSeries series;
+    private final long generation;
+    private final boolean sum;
+
+    // keyed by connection string and tags
+    private final Map<List<Object>, TelemetryItem> overflowItems = new LinkedHashMap<>();
+
+    private Round(@Nullable MetricSeries series, long generation, boolean sum) {
+      this.series = series;
+      this.generation = generation;
+      this.sum = sum;
+    }
+
+    /**
+     * Returns whether the telemetry item can be exported as is, otherwise its point is folded into
+     * the overflow series, which is returned by {@link #end()}.
+     */
+    boolean admit(TelemetryItem telemetryItem) {
+      if (series == null) {
+        return true;
+      }
+      List<Object> key =
+          Arrays.asList(
+              telemetryItem.getConnectionString(),
+              telemetryItem.getTags(),
+              getMetricsData(telemetryItem).getProperties());
+      if (series.admit(key, generation, maxSeriesPerMetric)) {
+        return true;
+      }
+      stats.incrementOverflowCount();
+      fold(telemetryItem);
+      return false;
+    }
+
+    /** Returns the overflow telemetry items, which need to be exported in addition. */
+    List<TelemetryItem> end() {
+      if (series == null) {
+        return Collections.emptyList();
+      }
+      series.removeStale(generation);
+      return new ArrayList<>(overflowItems.values());
+    }
+
+    private void fold(TelemetryItem telemetryItem) {
+      List<Object> key =
+          Arrays.asList(telemetryItem.getConnectionString(), telemetryItem.getTags());
+      MetricsData data = getMetricsData(telemetryItem);
+      TelemetryItem overflowItem = overflowItems.get(key);
+      if (overflowItem == null) {
+        // the telemetry item was just built by the mapper, so it's ok to reuse it
+        data.setProperties(getOverflowProperties(data.getProperties()));
+        overflowItems.put(key, telemetryItem);
+      } else {
+        merge(getMetricsData(overflowItem).getMetrics().get(0), data.getMetrics().get(0), sum);
+      }
+    }
+  }
+
+  private static MetricsData getMetricsData(TelemetryItem telemetryItem) {
+    return (MetricsData) telemetryItem.getData().getBaseData();
+  }
+
+  // only the properties that identify the metric itself are kept, e.g. so that the overflow series
+  // of a pre-aggregated standard metric is still recognized as that standard metric
+  private static Map<String, String> getOverflowProperties(
+      @Nullable Map<String, String> properties) {
+    Map<String, String> overflowProperties = new HashMap<>();
+    if (properties != null) {
+      for (Map.Entry<String, String> entry : properties.entrySet()) {
+        String key = entry.getKey();
+        if (key.startsWith("_MS.")
+            || key.equals(ExtractorHelper.CLOUD_ROLE_NAME)
+            || key.equals(ExtractorHelper.CLOUD_ROLE_INSTANCE)) {
+          overflowProperties.put(key, entry.getValue());
+        }
+      }
+    }
+    overflowProperties.put(OVERFLOW_PROPERTY, "true");
+    return overflowProperties;
+  }
+
+  // sums stay a plain value, everything else (gauges and histograms) becomes an aggregation with
+  // count, min and max, same as the histograms are already reported
+  // visible for testing
+  static void merge(MetricDataPoint target, MetricDataPoint source, boolean sum) {
+    if (sum) {
+      target.setValue(target.getValue() + source.getValue());
+      return;
+    }
+    long count = (long) getCount(target) + getCount(source);
+    double min = Math.min(getMin(target), getMin(source));
+    double max = Math.max(getMax(target), getMax(source));
+    target.setValue(target.getValue() + source.getValue());
+    target.setCount((int) Math.min(count, Integer.MAX_VALUE));
+    target.setMin(min);
+    target.setMax(max);
+    target.setStdDev(null);
+  }
+
+  private static int getCount(MetricDataPoint point) {
+    Integer count = point.getCount();
+    return count == null ? 1 : count;
+  }
+
+  private static double getMin(MetricDataPoint point) {
+    Double min = point.getMin();
+    return min == null ? point.getValue() : min;
+  }
+
+  private static double getMax(MetricDataPoint point) {
+    Double max = point.getMax();
+    return max == null ? point.getValue() : max;
+  }
+
+  private static class MetricSeries {
+
+    private final String metricName;
+    // the value is the last round that included the series
+    private final Map<List<Object>, Long> series = new HashMap<>();
+    private long generation;
+    private boolean alreadyLoggedOverflow;
+
+    private MetricSeries(String metricName) {
+      this.metricName = metricName;
+    }
+
+    private synchronized long nextGeneration() {
+      return ++generation;
+    }
+
+    private synchronized boolean admit(List<Object> key, long generation, int maxSeries) {
+      if (series.containsKey(key) || series.size() < maxSeries) {
+        series.put(key, generation);
+        return true;
+      }
+      if (!alreadyLoggedOverflow) {
+        alreadyLoggedOverflow = true;
+        logger.warning(
+            "Number of series of metric {} exceeded the limit of {}, additional series will be"
+                + " reported under the {} property",
+            metricName,
+            maxSeries,
+            OVERFLOW_PROPERTY);
+      }
+      return false;
+    }
+
+    private synchronized void removeStale(long generation) {
+      Iterator<Long> i = series.values().iterator();
+      while (i.hasNext()) {
+        if (i.next() != generation) {
+          i.remove();
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,14 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation;
+
+// this interface exists just to break the cycle between the metric mapping and statsbeat
+public interface MetricCardinalityStats {
+
+  void incrementOverflowCount();
+
+  static MetricCardinalityStats noop() {
+    return () -> {};
+  }
+}
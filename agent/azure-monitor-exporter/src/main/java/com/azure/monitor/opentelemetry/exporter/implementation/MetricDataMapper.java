@@ -7,6 +7,7 @@ import static com.azure.monitor.opentelemetry.exporter.implementation.AiSemantic
 import static io.opentelemetry.api.internal.Utils.checkArgument;
 import static io.opentelemetry.sdk.metrics.data.MetricDataType.DOUBLE_GAUGE;
 import static io.opentelemetry.sdk.metrics.data.MetricDataType.DOUBLE_SUM;
+import static io.opentelemetry.sdk.metrics.data.MetricDataType.EXPONENTIAL_HISTOGRAM;
 import static io.opentelemetry.sdk.metrics.data.MetricDataType.HISTOGRAM;
 import static io.opentelemetry.sdk.metrics.data.MetricDataType.LONG_GAUGE;
 import static io.opentelemetry.sdk.metrics.data.MetricDataType.LONG_SUM;
@@ -23,6 +24,7 @@ import com.azure.monitor.opentelemetry.exporter.implementation.preaggregatedmetr
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.FormattedTime;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.sdk.metrics.data.DoublePointData;
+import io.opentelemetry.sdk.metrics.data.ExponentialHistogramPointData;
 import io.opentelemetry.sdk.metrics.data.HistogramPointData;
 import io.opentelemetry.sdk.metrics.data.LongPointData;
 import io.opentelemetry.sdk.metrics.data.MetricData;
@@ -30,6 +32,7 @@ import io.opentelemetry.sdk.metrics.data.MetricDataType;
 import io.opentelemetry.sdk.metrics.data.PointData;
 import io.opentelemetry.sdk.resources.Resource;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -48,6 +51,8 @@ public class MetricDataMapper {
 
   private final BiConsumer<AbstractTelemetryBuilder, Resource> telemetryInitializer;
   private final boolean captureHttpServer4xxAsError;
+  private final MetricCardinalityLimiter cardinalityLimiter;
+  private final List<Double> exponentialHistogramPercentiles;
 
   static {
     EXCLUDED_METRIC_NAMES.add("http.server.active_requests"); // Servlet
@@ -63,8 +68,29 @@ public class MetricDataMapper {
   public MetricDataMapper(
       BiConsumer<AbstractTelemetryBuilder, Resource> telemetryInitializer,
       boolean captureHttpServer4xxAsError) {
+    this(
+        telemetryInitializer,
+        captureHttpServer4xxAsError,
+        MetricCardinalityLimiter.unlimited(),
+        Collections.emptyList());
+  }
+
+  /**
+   * Creates a mapper.
+   *
+   * @param exponentialHistogramPercentiles percentiles (e.g. 95 or 99.9) that are estimated from
+   *     each exponential histogram point and sent as separate metrics named {@code
+   *     <name>_p<percentile>} (this is not done for the pre-aggregated standard metrics)
+   */
+  public MetricDataMapper(
+      BiConsumer<AbstractTelemetryBuilder, Resource> telemetryInitializer,
+      boolean captureHttpServer4xxAsError,
+      MetricCardinalityLimiter cardinalityLimiter,
+      List<Double> exponentialHistogramPercentiles) {
     this.telemetryInitializer = telemetryInitializer;
     this.captureHttpServer4xxAsError = captureHttpServer4xxAsError;
+    this.cardinalityLimiter = cardinalityLimiter;
+    this.exponentialHistogramPercentiles = new ArrayList<>(exponentialHistogramPercentiles);
   }
 
   public void map(MetricData metricData, Consumer<TelemetryItem> consumer) {
@@ -77,7 +103,8 @@ public class MetricDataMapper {
         || type == DOUBLE_GAUGE
         || type == LONG_SUM
         || type == LONG_GAUGE
-        || type == HISTOGRAM) {
+        || type == HISTOGRAM
+        || type == EXPONENTIAL_HISTOGRAM) {
       boolean isPreAggregatedStandardMetric =
           OTEL_PRE_AGGREGATED_STANDARD_METRIC_NAMES.contains(metricData.getName());
       List<TelemetryItem> telemetryItemList =
@@ -93,6 +120,7 @@ public class MetricDataMapper {
   private List<TelemetryItem> convertOtelMetricToAzureMonitorMetric(
       MetricData metricData, boolean isPreAggregatedStandardMetric) {
     List<TelemetryItem> telemetryItems = new ArrayList<>();
+    MetricCardinalityLimiter.Round round = cardinalityLimiter.startRound(metricData);
 
     for (PointData pointData : metricData.getData().getPoints()) {
       MetricTelemetryBuilder builder = MetricTelemetryBuilder.create();
@@ -106,11 +134,47 @@ public class MetricDataMapper {
           captureHttpServer4xxAsError,
           isPreAggregatedStandardMetric);
 
-      telemetryItems.add(builder.build());
+      TelemetryItem telemetryItem = builder.build();
+      if (round.admit(telemetryItem)) {
+        telemetryItems.add(telemetryItem);
+        if (metricData.getType() == EXPONENTIAL_HISTOGRAM && !isPreAggregatedStandardMetric) {
+          for (double percentile : exponentialHistogramPercentiles) {
+            telemetryItems.add(
+                createPercentileTelemetryItem(
+                    metricData, (ExponentialHistogramPointData) pointData, percentile));
+          }
+        }
+      }
     }
+    telemetryItems.addAll(round.end());
     return telemetryItems;
   }
 
+  private TelemetryItem createPercentileTelemetryItem(
+      MetricData metricData, ExponentialHistogramPointData pointData, double percentile) {
+    MetricTelemetryBuilder builder = MetricTelemetryBuilder.create();
+    telemetryInitializer.accept(builder, metricData.getResource());
+    builder.setTime(FormattedTime.offSetDateTimeFromEpochNanos(pointData.getEpochNanos()));
+
+    MetricPointBuilder pointBuilder = new MetricPointBuilder();
+    pointBuilder.setName(getPercentileMetricName(metricData.getName(), percentile));
+    pointBuilder.setValue(
+        ExponentialHistogramPercentiles.getValueAtPercentile(pointData, percentile));
+    builder.setMetricPoint(pointBuilder);
+
+    MAPPINGS.map(pointData.getAttributes(), builder);
+    return builder.build();
+  }
+
+  // e.g. "latency_p95" or "latency_p99.9"
+  // visible for testing
+  static String getPercentileMetricName(String metricName, double percentile) {
+    if (percentile == Math.rint(percentile)) {
+      return metricName + "_p" + (long) percentile;
+    }
+    return metricName + "_p" + percentile;
+  }
+
   // visible for testing
   public static void updateMetricPointBuilder(
       MetricTelemetryBuilder metricTelemetryBuilder,
@@ -142,8 +206,23 @@ public class MetricDataMapper {
         pointBuilder.setMin(histogramPointData.getMin());
         pointBuilder.setMax(histogramPointData.getMax());
         break;
+      case EXPONENTIAL_HISTOGRAM:
+        // the buckets are not sent, same as for explicit bucket histograms
+        ExponentialHistogramPointData exponentialHistogramPointData =
+            (ExponentialHistogramPointData) pointData;
+        long exponentialHistogramCount = exponentialHistogramPointData.getCount();
+        if (exponentialHistogramCount <= Integer.MAX_VALUE) {
+          pointBuilder.setCount((int) exponentialHistogramCount);
+        }
+        pointDataValue = exponentialHistogramPointData.getSum();
+        if (exponentialHistogramPointData.hasMin()) {
+          pointBuilder.setMin(exponentialHistogramPointData.getMin());
+        }
+        if (exponentialHistogramPointData.hasMax()) {
+          pointBuilder.setMax(exponentialHistogramPointData.getMax());
+        }
+        break;
       case SUMMARY: // not supported yet in OpenTelemetry SDK
-      case EXPONENTIAL_HISTOGRAM: // not supported yet in OpenTelemetry SDK
       default:
         throw new IllegalArgumentException("metric data type '" + type + "' is not supported yet");
     }
@@ -17,8 +17,10 @@ import com.azure.monitor.opentelemetry.exporter.implementation.configuration.Con
 import com.azure.monitor.opentelemetry.exporter.implementation.logging.WarningLogger;
 import com.azure.monitor.opentelemetry.exporter.implementation.models.ContextTagKeys;
 import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.CacheStats;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.FormattedDuration;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.FormattedTime;
+import com.azure.monitor.opentelemetry.exporter.implementation.utils.HostAndPortCache;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.UrlParser;
 import io.opentelemetry.api.common.Attributes;
 import io.opentelemetry.api.trace.SpanContext;
@@ -64,6 +66,9 @@ public final class SpanDataMapper {
   // TODO (trask) add to generated ContextTagKeys class
   private static final ContextTagKeys AI_DEVICE_OS = ContextTagKeys.fromString("ai.device.os");
 
+  // dependency spans typically go to a small set of endpoints
+  private static final HostAndPortCache hostAndPortCache = new HostAndPortCache(1024);
+
   static {
     MappingsBuilder mappingsBuilder =
         new MappingsBuilder()
@@ -338,6 +343,10 @@ public final class SpanDataMapper {
     return Integer.MAX_VALUE;
   }
 
+  public static CacheStats getHostAndPortCacheStats() {
+    return hostAndPortCache;
+  }
+
   public static String getTargetOrDefault(
       Attributes attributes, int defaultPort, String defaultTarget) {
     String target = getTargetOrNull(attributes, defaultPort);
@@ -374,7 +383,7 @@ public final class SpanDataMapper {
 
   private static String getTarget(String host, @Nullable Long port, int defaultPort) {
     if (port != null && port != defaultPort) {
-      return host + ":" + port;
+      return hostAndPortCache.get(host, port);
     } else {
       return host;
     }
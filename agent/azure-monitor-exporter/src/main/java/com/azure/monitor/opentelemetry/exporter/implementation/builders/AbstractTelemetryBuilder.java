@@ -16,7 +16,7 @@ import reactor.util.annotation.Nullable;
 public abstract class AbstractTelemetryBuilder {
 
   private static final int MAX_PROPERTY_KEY_LENGTH = 150;
-  private static final int MAX_PROPERTY_VALUE_LENGTH = 8192;
+  static final int MAX_PROPERTY_VALUE_LENGTH = 8192;
 
   protected static final int MAX_MEASUREMENT_KEY_LENGTH = 150;
 
@@ -25,6 +25,9 @@ public abstract class AbstractTelemetryBuilder {
 
   private final TelemetryItem telemetryItem;
 
+  // template properties that haven't been attached yet, see newProperties()
+  @Nullable private TemplatedMap.Shared templateProperties;
+
   protected AbstractTelemetryBuilder(MonitorDomain data, String telemetryName, String baseType) {
 
     telemetryItem = new TelemetryItem();
@@ -69,7 +72,7 @@ public abstract class AbstractTelemetryBuilder {
   }
 
   public void addProperty(@Nullable String key, @Nullable String value) {
-    if (key == null || key.isEmpty() || key.length() > MAX_PROPERTY_KEY_LENGTH || value == null) {
+    if (!isValidPropertyKey(key) || value == null) {
       // TODO (trask) log
       return;
     }
@@ -77,9 +80,57 @@ public abstract class AbstractTelemetryBuilder {
         .put(key, TelemetryTruncation.truncatePropertyValue(value, MAX_PROPERTY_VALUE_LENGTH, key));
   }
 
+  /**
+   * Applies the template's connection string, tags and properties to this telemetry item.
+   *
+   * <p>The template's tags and properties are referenced rather than copied, so this is cheaper
+   * than calling {@link #addTag(String, String)} and {@link #addProperty(String, String)} for each
+   * entry. Tags and properties that are added afterwards take precedence over the template's.
+   */
+  public void applyTemplate(TelemetryTemplate template) {
+    ConnectionString connectionString = template.getConnectionString();
+    if (connectionString != null) {
+      telemetryItem.setConnectionString(connectionString);
+    }
+
+    TemplatedMap.Shared tags = template.getSharedTags();
+    if (!tags.isEmpty()) {
+      if (telemetryItem.getTags() == null) {
+        telemetryItem.setTags(new TemplatedMap(tags));
+      } else {
+        telemetryItem.getTags().putAll(tags.asMap());
+      }
+    }
+
+    TemplatedMap.Shared properties = template.getSharedProperties();
+    if (!properties.isEmpty()) {
+      templateProperties = properties;
+      // if the properties map doesn't exist yet, this creates it via newProperties()
+      Map<String, String> existing = getProperties();
+      if (templateProperties != null) {
+        existing.putAll(properties.asMap());
+        templateProperties = null;
+      }
+    }
+  }
+
   public TelemetryItem build() {
     return telemetryItem;
   }
 
   protected abstract Map<String, String> getProperties();
+
+  /** Creates the properties map, subclasses should call this from {@link #getProperties()}. */
+  protected Map<String, String> newProperties() {
+    TemplatedMap.Shared properties = templateProperties;
+    if (properties == null) {
+      return new HashMap<>();
+    }
+    templateProperties = null;
+    return new TemplatedMap(properties);
+  }
+
+  static boolean isValidPropertyKey(@Nullable String key) {
+    return key != null && !key.isEmpty() && key.length() <= MAX_PROPERTY_KEY_LENGTH;
+  }
 }
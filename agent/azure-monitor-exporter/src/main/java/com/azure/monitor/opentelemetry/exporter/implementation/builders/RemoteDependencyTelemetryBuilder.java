@@ -78,7 +78,7 @@ public final class RemoteDependencyTelemetryBuilder extends AbstractTelemetryBui
   protected Map<String, String> getProperties() {
     Map<String, String> properties = data.getProperties();
     if (properties == null) {
-      properties = new HashMap<>();
+      properties = newProperties();
       data.setProperties(properties);
     }
     return properties;
@@ -0,0 +1,74 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.builders;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.configuration.ConnectionString;
+import java.util.HashMap;
+import java.util.Map;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Immutable connection string, tags and properties that are applied to every telemetry item (e.g.
+ * the role name and the global custom dimensions).
+ *
+ * <p>{@link AbstractTelemetryBuilder#applyTemplate(TelemetryTemplate)} attaches the tags and
+ * properties by reference instead of copying them into each telemetry item, so a template should be
+ * created once and then re-used until any of its inputs change.
+ */
+public final class TelemetryTemplate {
+
+  @Nullable private final ConnectionString connectionString;
+  private final TemplatedMap.Shared tags;
+  private final TemplatedMap.Shared properties;
+
+  public static TelemetryTemplate create(
+      @Nullable ConnectionString connectionString,
+      Map<String, String> tags,
+      Map<String, String> properties) {
+    // properties are validated and truncated the same way as AbstractTelemetryBuilder.addProperty()
+    Map<String, String> validProperties = new HashMap<>();
+    for (Map.Entry<String, String> entry : properties.entrySet()) {
+      String key = entry.getKey();
+      String value = entry.getValue();
+      if (AbstractTelemetryBuilder.isValidPropertyKey(key) && value != null) {
+        validProperties.put(
+            key,
+            TelemetryTruncation.truncatePropertyValue(
+                value, AbstractTelemetryBuilder.MAX_PROPERTY_VALUE_LENGTH, key));
+      }
+    }
+    return new TelemetryTemplate(
+        connectionString, new TemplatedMap.Shared(tags), new TemplatedMap.Shared(validProperties));
+  }
+
+  private TelemetryTemplate(
+      @Nullable ConnectionString connectionString,
+      TemplatedMap.Shared tags,
+      TemplatedMap.Shared properties) {
+    this.connectionString = connectionString;
+    this.tags = tags;
+    this.properties = properties;
+  }
+
+  @Nullable
+  public ConnectionString getConnectionString() {
+    return connectionString;
+  }
+
+  public Map<String, String> getTags() {
+    return tags.asMap();
+  }
+
+  public Map<String, String> getProperties() {
+    return properties.asMap();
+  }
+
+  TemplatedMap.Shared getSharedTags() {
+    return tags;
+  }
+
+  TemplatedMap.Shared getSharedProperties() {
+    return properties;
+  }
+}
@@ -0,0 +1,241 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.builders;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import java.io.IOException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import reactor.util.annotation.Nullable;
+
+/**
+ * Map that reads through to a {@link Shared} set of entries (which is referenced, not copied), and
+ * only allocates its own storage once an entry is added or overridden.
+ */
+@JsonSerialize(using = TemplatedMap.Serializer.class)
+final class TemplatedMap extends AbstractMap<String, String> {
+
+  private Shared shared;
+  @Nullable private Map<String, String> own;
+
+  TemplatedMap(Shared shared) {
+    this.shared = shared;
+  }
+
+  @Override
+  @Nullable
+  public String get(Object key) {
+    if (own != null && own.containsKey(key)) {
+      return own.get(key);
+    }
+    return shared.map.get(key);
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return (own != null && own.containsKey(key)) || shared.map.containsKey(key);
+  }
+
+  @Override
+  @Nullable
+  public String put(String key, String value) {
+    String previous = get(key);
+    if (own == null) {
+      own = new HashMap<>();
+    }
+    own.put(key, value);
+    return previous;
+  }
+
+  @Override
+  @Nullable
+  public String remove(Object key) {
+    if (shared.map.containsKey(key)) {
+      // there's no way to hide a shared entry, so fall back to a plain copy
+      materialize();
+    }
+    return own == null ? null : own.remove(key);
+  }
+
+  @Override
+  public void clear() {
+    shared = Shared.EMPTY;
+    own = null;
+  }
+
+  @Override
+  public int size() {
+    if (own == null) {
+      return shared.map.size();
+    }
+    int size = own.size();
+    for (String key : shared.map.keySet()) {
+      if (!own.containsKey(key)) {
+        size++;
+      }
+    }
+    return size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public Set<Entry<String, String>> entrySet() {
+    return new EntrySet();
+  }
+
+  private void materialize() {
+    Map<String, String> merged = new HashMap<>(shared.map);
+    if (own != null) {
+      merged.putAll(own);
+    }
+    own = merged;
+    shared = Shared.EMPTY;
+  }
+
+  /**
+   * Immutable set of entries that can be shared across many {@link TemplatedMap}s, along with the
+   * pre-encoded json for each entry.
+   */
+  static final class Shared {
+
+    static final Shared EMPTY = new Shared(Collections.emptyMap());
+
+    private final Map<String, String> map;
+
+    // null values are not serialized, so only non-null entries are pre-encoded
+    private final String[] keys;
+    private final SerializedString[] encodedKeys;
+    private final SerializedString[] encodedValues;
+
+    Shared(Map<String, String> entries) {
+      map = Collections.unmodifiableMap(new HashMap<>(entries));
+      List<String> nonNullKeys = new ArrayList<>(entries.size());
+      for (Map.Entry<String, String> entry : entries.entrySet()) {
+        if (entry.getValue() != null) {
+          nonNullKeys.add(entry.getKey());
+        }
+      }
+      keys = nonNullKeys.toArray(new String[0]);
+      encodedKeys = new SerializedString[keys.length];
+      encodedValues = new SerializedString[keys.length];
+      for (int i = 0; i < keys.length; i++) {
+        encodedKeys[i] = new SerializedString(keys[i]);
+        encodedValues[i] = new SerializedString(map.get(keys[i]));
+      }
+    }
+
+    boolean isEmpty() {
+      return map.isEmpty();
+    }
+
+    Map<String, String> asMap() {
+      return map;
+    }
+  }
+
+  private final class EntrySet extends AbstractSet<Entry<String, String>> {
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+      Iterator<Entry<String, String>> ownIterator =
+          own == null
+              ? Collections.<Entry<String, String>>emptyIterator()
+              : own.entrySet().iterator();
+      Iterator<Entry<String, String>> sharedIterator = shared.map.entrySet().iterator();
+      return new Iterator<Entry<String, String>>() {
+
+        @Nullable private Entry<String, String> nextShared = advanceShared();
+
+        @Override
+        public boolean hasNext() {
+          return ownIterator.hasNext() || nextShared != null;
+        }
+
+        @Override
+        public Entry<String, String> next() {
+          if (ownIterator.hasNext()) {
+            return ownIterator.next();
+          }
+          Entry<String, String> next = nextShared;
+          if (next == null) {
+            throw new NoSuchElementException();
+          }
+          nextShared = advanceShared();
+          return next;
+        }
+
+        @Nullable
+        private Entry<String, String> advanceShared() {
+          while (sharedIterator.hasNext()) {
+            Entry<String, String> entry = sharedIterator.next();
+            if (own == null || !own.containsKey(entry.getKey())) {
+              return entry;
+            }
+          }
+          return null;
+        }
+      };
+    }
+
+    @Override
+    public int size() {
+      return TemplatedMap.this.size();
+    }
+  }
+
+  // writes the shared entries from their pre-encoded form, so that the (typically many) global
+  // tags and custom dimensions are not re-escaped for every telemetry item
+  static final class Serializer extends StdSerializer<TemplatedMap> {
+
+    private static final long serialVersionUID = 1L;
+
+    Serializer() {
+      super(TemplatedMap.class);
+    }
+
+    @Override
+    public boolean isEmpty(SerializerProvider provider, TemplatedMap value) {
+      return value.isEmpty();
+    }
+
+    @Override
+    public void serialize(TemplatedMap value, JsonGenerator gen, SerializerProvider provider)
+        throws IOException {
+      gen.writeStartObject();
+      Map<String, String> own = value.own;
+      if (own != null) {
+        for (Map.Entry<String, String> entry : own.entrySet()) {
+          if (entry.getValue() != null) {
+            gen.writeFieldName(entry.getKey());
+            gen.writeString(entry.getValue());
+          }
+        }
+      }
+      Shared shared = value.shared;
+      for (int i = 0; i < shared.keys.length; i++) {
+        if (own == null || !own.containsKey(shared.keys[i])) {
+          gen.writeFieldName(shared.encodedKeys[i]);
+          gen.writeString(shared.encodedValues[i]);
+        }
+      }
+      gen.writeEndObject();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.model.QuickPulseDocument;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded, lock-free buffer of the documents collected during a single Live Metrics interval.
+ *
+ * <p>A slot is reserved before a document is built, so that documents which won't be kept are
+ * never built. Once the buffer is full, reservoir sampling decides whether a new document replaces
+ * an earlier one, which gives documents from late in the interval the same chance of being shown as
+ * documents from early in the interval.
+ */
+final class DocumentBuffer {
+
+  private final AtomicReferenceArray<QuickPulseDocument> slots;
+  private final AtomicLong offered = new AtomicLong();
+
+  DocumentBuffer(int capacity) {
+    slots = new AtomicReferenceArray<>(capacity);
+  }
+
+  /** Returns the slot to store the document in, or -1 if the document should not be built. */
+  int reserve() {
+    long count = offered.getAndIncrement();
+    int capacity = slots.length();
+    if (count < capacity) {
+      return (int) count;
+    }
+    long index = ThreadLocalRandom.current().nextLong(count + 1);
+    return index < capacity ? (int) index : -1;
+  }
+
+  void set(int slot, QuickPulseDocument document) {
+    slots.set(slot, document);
+  }
+
+  // documents whose slot was reserved but which haven't been stored yet are not included
+  List<QuickPulseDocument> getDocuments() {
+    int size = (int) Math.min(offered.get(), slots.length());
+    List<QuickPulseDocument> documents = new ArrayList<>(size);
+    for (int i = 0; i < size; i++) {
+      QuickPulseDocument document = slots.get(i);
+      if (document != null) {
+        documents.add(document);
+      }
+    }
+    return documents;
+  }
+}
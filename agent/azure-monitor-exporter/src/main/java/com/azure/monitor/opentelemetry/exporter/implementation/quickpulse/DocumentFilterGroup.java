@@ -0,0 +1,64 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A conjunction of filters on the documents of a single telemetry type (same as a filter group in
+ * the Live Metrics document stream filter protocol).
+ *
+ * <p>When any filter groups are configured, a document is only built and sent if it matches all of
+ * the filters of at least one of the groups for its telemetry type.
+ *
+ * <p>Supported field names:
+ *
+ * <ul>
+ *   <li>requests: Name, Url, ResponseCode, Success, Duration (in milliseconds)
+ *   <li>dependencies: Name, Target, Type, Data, ResultCode, Success, Duration (in milliseconds)
+ *   <li>exceptions: Message, Type
+ *   <li>all: CustomDimensions.&lt;key&gt;
+ * </ul>
+ */
+public final class DocumentFilterGroup {
+
+  public enum TelemetryType {
+    REQUEST,
+    DEPENDENCY,
+    EXCEPTION
+  }
+
+  public enum Predicate {
+    EQUAL,
+    NOT_EQUAL,
+    LESS_THAN,
+    GREATER_THAN,
+    LESS_THAN_OR_EQUAL,
+    GREATER_THAN_OR_EQUAL,
+    CONTAINS,
+    DOES_NOT_CONTAIN
+  }
+
+  final TelemetryType telemetryType;
+  final List<Filter> filters;
+
+  public DocumentFilterGroup(TelemetryType telemetryType, List<Filter> filters) {
+    this.telemetryType = telemetryType;
+    this.filters = new ArrayList<>(filters);
+  }
+
+  public static final class Filter {
+
+    final String fieldName;
+    final Predicate predicate;
+    final String comparand;
+
+    public Filter(String fieldName, Predicate predicate, String comparand) {
+      this.fieldName = fieldName;
+      this.predicate = predicate;
+      this.comparand = comparand;
+    }
+  }
+}
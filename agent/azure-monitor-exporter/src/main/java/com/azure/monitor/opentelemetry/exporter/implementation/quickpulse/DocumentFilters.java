@@ -0,0 +1,316 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.models.RemoteDependencyData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.RequestData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryExceptionData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryExceptionDetails;
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.DocumentFilterGroup.Filter;
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.DocumentFilterGroup.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import reactor.util.annotation.Nullable;
+
+/**
+ * The compiled form of the Live Metrics document filter groups, which is evaluated against the
+ * telemetry before any document is built.
+ *
+ * <p>Field names, predicates and comparands are resolved once (when compiling), so evaluation
+ * doesn't do any lookups, parsing of comparands, or allocation.
+ */
+final class DocumentFilters {
+
+  private static final String CUSTOM_DIMENSIONS_PREFIX = "CustomDimensions.";
+
+  private static final DocumentFilters ALL = new DocumentFilters(null, null, null);
+
+  // null means that all documents of the telemetry type match (no filter groups are configured)
+  @Nullable private final List<List<FieldFilter<RequestData>>> requestGroups;
+  @Nullable private final List<List<FieldFilter<RemoteDependencyData>>> dependencyGroups;
+  @Nullable private final List<List<FieldFilter<TelemetryExceptionData>>> exceptionGroups;
+
+  /**
+   * Compiles the filter groups.
+   *
+   * @throws IllegalArgumentException if a filter refers to an unknown field, or if its predicate
+   *     or comparand is not valid for the field
+   */
+  static DocumentFilters compile(List<DocumentFilterGroup> groups) {
+    if (groups.isEmpty()) {
+      return ALL;
+    }
+    List<List<FieldFilter<RequestData>>> requestGroups = new ArrayList<>();
+    List<List<FieldFilter<RemoteDependencyData>>> dependencyGroups = new ArrayList<>();
+    List<List<FieldFilter<TelemetryExceptionData>>> exceptionGroups = new ArrayList<>();
+    for (DocumentFilterGroup group : groups) {
+      switch (group.telemetryType) {
+        case REQUEST:
+          requestGroups.add(compileGroup(group, DocumentFilters::compileRequestFilter));
+          break;
+        case DEPENDENCY:
+          dependencyGroups.add(compileGroup(group, DocumentFilters::compileDependencyFilter));
+          break;
+        case EXCEPTION:
+          exceptionGroups.add(compileGroup(group, DocumentFilters::compileExceptionFilter));
+          break;
+      }
+    }
+    return new DocumentFilters(requestGroups, dependencyGroups, exceptionGroups);
+  }
+
+  static DocumentFilters all() {
+    return ALL;
+  }
+
+  private DocumentFilters(
+      @Nullable List<List<FieldFilter<RequestData>>> requestGroups,
+      @Nullable List<List<FieldFilter<RemoteDependencyData>>> dependencyGroups,
+      @Nullable List<List<FieldFilter<TelemetryExceptionData>>> exceptionGroups) {
+    this.requestGroups = requestGroups;
+    this.dependencyGroups = dependencyGroups;
+    this.exceptionGroups = exceptionGroups;
+  }
+
+  boolean matches(RequestData request, long durationMillis) {
+    return matchesAny(requestGroups, request, durationMillis);
+  }
+
+  boolean matches(RemoteDependencyData dependency, long durationMillis) {
+    return matchesAny(dependencyGroups, dependency, durationMillis);
+  }
+
+  boolean matches(TelemetryExceptionData exception) {
+    return matchesAny(exceptionGroups, exception, 0);
+  }
+
+  private static <T> boolean matchesAny(
+      @Nullable List<List<FieldFilter<T>>> groups, T telemetry, long durationMillis) {
+    if (groups == null) {
+      return true;
+    }
+    for (List<FieldFilter<T>> group : groups) {
+      if (matchesAll(group, telemetry, durationMillis)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static <T> boolean matchesAll(
+      List<FieldFilter<T>> group, T telemetry, long durationMillis) {
+    for (FieldFilter<T> filter : group) {
+      if (!filter.test(telemetry, durationMillis)) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static <T> List<FieldFilter<T>> compileGroup(
+      DocumentFilterGroup group, Function<Filter, FieldFilter<T>> compiler) {
+    List<FieldFilter<T>> filters = new ArrayList<>(group.filters.size());
+    for (Filter filter : group.filters) {
+      filters.add(compiler.apply(filter));
+    }
+    return filters;
+  }
+
+  private static FieldFilter<RequestData> compileRequestFilter(Filter filter) {
+    switch (filter.fieldName) {
+      case "Duration":
+        return compileDurationFilter(filter);
+      case "Success":
+        return compileSuccessFilter(filter, RequestData::isSuccess);
+      case "Name":
+        return compileStringFilter(filter, RequestData::getName);
+      case "Url":
+        return compileStringFilter(filter, RequestData::getUrl);
+      case "ResponseCode":
+        return compileStringFilter(filter, RequestData::getResponseCode);
+      default:
+        return compileCustomDimensionFilter(filter, RequestData::getProperties);
+    }
+  }
+
+  private static FieldFilter<RemoteDependencyData> compileDependencyFilter(Filter filter) {
+    switch (filter.fieldName) {
+      case "Duration":
+        return compileDurationFilter(filter);
+      case "Success":
+        return compileSuccessFilter(filter, RemoteDependencyData::isSuccess);
+      case "Name":
+        return compileStringFilter(filter, RemoteDependencyData::getName);
+      case "Target":
+        return compileStringFilter(filter, RemoteDependencyData::getTarget);
+      case "Type":
+        return compileStringFilter(filter, RemoteDependencyData::getType);
+      case "Data":
+        return compileStringFilter(filter, RemoteDependencyData::getData);
+      case "ResultCode":
+        return compileStringFilter(filter, RemoteDependencyData::getResultCode);
+      default:
+        return compileCustomDimensionFilter(filter, RemoteDependencyData::getProperties);
+    }
+  }
+
+  private static FieldFilter<TelemetryExceptionData> compileExceptionFilter(Filter filter) {
+    switch (filter.fieldName) {
+      case "Message":
+        return compileStringFilter(
+            filter,
+            exception -> getFirstException(exception, TelemetryExceptionDetails::getMessage));
+      case "Type":
+        return compileStringFilter(
+            filter,
+            exception -> getFirstException(exception, TelemetryExceptionDetails::getTypeName));
+      default:
+        return compileCustomDimensionFilter(filter, TelemetryExceptionData::getProperties);
+    }
+  }
+
+  // same as the exception message and type shown in the exception document
+  @Nullable
+  private static String getFirstException(
+      TelemetryExceptionData exception, Function<TelemetryExceptionDetails, String> field) {
+    List<TelemetryExceptionDetails> exceptions = exception.getExceptions();
+    return exceptions == null || exceptions.isEmpty() ? null : field.apply(exceptions.get(0));
+  }
+
+  private static <T> FieldFilter<T> compileCustomDimensionFilter(
+      Filter filter, Function<T, Map<String, String>> properties) {
+    if (!filter.fieldName.startsWith(CUSTOM_DIMENSIONS_PREFIX)) {
+      throw new IllegalArgumentException(
+          "Unknown Live Metrics document filter field name: " + filter.fieldName);
+    }
+    String key = filter.fieldName.substring(CUSTOM_DIMENSIONS_PREFIX.length());
+    return compileStringFilter(
+        filter,
+        telemetry -> {
+          Map<String, String> map = properties.apply(telemetry);
+          return map == null ? null : map.get(key);
+        });
+  }
+
+  private static <T> FieldFilter<T> compileDurationFilter(Filter filter) {
+    Predicate predicate = filter.predicate;
+    if (predicate == Predicate.CONTAINS || predicate == Predicate.DOES_NOT_CONTAIN) {
+      throw new IllegalArgumentException(
+          "Live Metrics document filter predicate " + predicate + " is not valid for Duration");
+    }
+    double comparand = parseComparand(filter);
+    return (telemetry, durationMillis) -> compare(predicate, durationMillis, comparand);
+  }
+
+  private static <T> FieldFilter<T> compileSuccessFilter(
+      Filter filter, Function<T, Boolean> success) {
+    if (!filter.comparand.equalsIgnoreCase("true") && !filter.comparand.equalsIgnoreCase("false")) {
+      throw new IllegalArgumentException(
+          "Live Metrics document filter comparand for Success must be true or false: "
+              + filter.comparand);
+    }
+    Boolean comparand = Boolean.valueOf(filter.comparand);
+    switch (filter.predicate) {
+      case EQUAL:
+        return (telemetry, durationMillis) -> comparand.equals(success.apply(telemetry));
+      case NOT_EQUAL:
+        return (telemetry, durationMillis) -> !comparand.equals(success.apply(telemetry));
+      default:
+        throw new IllegalArgumentException(
+            "Live Metrics document filter predicate "
+                + filter.predicate
+                + " is not valid for Success");
+    }
+  }
+
+  // string comparisons are case-insensitive, same as in the Live Metrics UI
+  private static <T> FieldFilter<T> compileStringFilter(Filter filter, Function<T, String> field) {
+    String comparand = filter.comparand;
+    Predicate predicate = filter.predicate;
+    switch (predicate) {
+      case EQUAL:
+        return (telemetry, durationMillis) ->
+            comparand.equalsIgnoreCase(nullToEmpty(field.apply(telemetry)));
+      case NOT_EQUAL:
+        return (telemetry, durationMillis) ->
+            !comparand.equalsIgnoreCase(nullToEmpty(field.apply(telemetry)));
+      case CONTAINS:
+        return (telemetry, durationMillis) ->
+            containsIgnoreCase(nullToEmpty(field.apply(telemetry)), comparand);
+      case DOES_NOT_CONTAIN:
+        return (telemetry, durationMillis) ->
+            !containsIgnoreCase(nullToEmpty(field.apply(telemetry)), comparand);
+      default:
+        // the other predicates compare numerically (e.g. ResponseCode >= 500)
+        double numericComparand = parseComparand(filter);
+        return (telemetry, durationMillis) -> {
+          String value = field.apply(telemetry);
+          if (value == null) {
+            return false;
+          }
+          double numericValue;
+          try {
+            numericValue = Double.parseDouble(value);
+          } catch (NumberFormatException e) {
+            return false;
+          }
+          return compare(predicate, numericValue, numericComparand);
+        };
+    }
+  }
+
+  private static double parseComparand(Filter filter) {
+    try {
+      return Double.parseDouble(filter.comparand);
+    } catch (NumberFormatException e) {
+      throw new IllegalArgumentException(
+          "Live Metrics document filter comparand for "
+              + filter.fieldName
+              + " must be a number: "
+              + filter.comparand,
+          e);
+    }
+  }
+
+  private static boolean compare(Predicate predicate, double value, double comparand) {
+    int result = Double.compare(value, comparand);
+    switch (predicate) {
+      case EQUAL:
+        return result == 0;
+      case NOT_EQUAL:
+        return result != 0;
+      case LESS_THAN:
+        return result < 0;
+      case GREATER_THAN:
+        return result > 0;
+      case LESS_THAN_OR_EQUAL:
+        return result <= 0;
+      case GREATER_THAN_OR_EQUAL:
+        return result >= 0;
+      default:
+        throw new IllegalStateException("Unexpected predicate: " + predicate);
+    }
+  }
+
+  private static boolean containsIgnoreCase(String value, String part) {
+    int max = value.length() - part.length();
+    for (int i = 0; i <= max; i++) {
+      if (value.regionMatches(true, i, part, 0, part.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static String nullToEmpty(@Nullable String value) {
+    return value == null ? "" : value;
+  }
+
+  @FunctionalInterface
+  private interface FieldFilter<T> {
+    boolean test(T telemetry, long durationMillis);
+  }
+}
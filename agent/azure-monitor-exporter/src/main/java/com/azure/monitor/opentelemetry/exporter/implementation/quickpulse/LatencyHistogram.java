@@ -0,0 +1,115 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size, lock-free histogram of durations (in microseconds), used to report latency
+ * percentiles in Live Metrics.
+ *
+ * <p>Buckets are logarithmic with 16 linear sub-buckets per power of two (similar to
+ * HdrHistogram), so the reported percentiles are within ~3% of the actual value. Each thread
+ * records into one of several stripes, which avoids contention on the buckets of the most common
+ * durations, and the stripes are merged when a snapshot is taken.
+ */
+final class LatencyHistogram {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+  // durations of 2^36 micros (~19 hours) and above are recorded in the last bucket
+  private static final int MAX_EXPONENT = 35;
+  private static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+  private static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKET_COUNT;
+
+  private static final int STRIPE_COUNT = getStripeCount();
+
+  private final AtomicLongArray counts = new AtomicLongArray(STRIPE_COUNT * BUCKET_COUNT);
+
+  void record(long micros) {
+    int stripe = (int) (Thread.currentThread().getId() & (STRIPE_COUNT - 1));
+    counts.incrementAndGet(stripe * BUCKET_COUNT + getBucketIndex(micros));
+  }
+
+  void reset() {
+    for (int i = 0; i < counts.length(); i++) {
+      counts.set(i, 0);
+    }
+  }
+
+  Snapshot getSnapshot() {
+    long[] merged = new long[BUCKET_COUNT];
+    long totalCount = 0;
+    for (int stripe = 0; stripe < STRIPE_COUNT; stripe++) {
+      int offset = stripe * BUCKET_COUNT;
+      for (int i = 0; i < BUCKET_COUNT; i++) {
+        long count = counts.get(offset + i);
+        merged[i] += count;
+        totalCount += count;
+      }
+    }
+    return new Snapshot(merged, totalCount);
+  }
+
+  // visible for testing
+  static int getBucketIndex(long micros) {
+    long value = Math.min(Math.max(micros, 0), MAX_VALUE);
+    if (value < SUB_BUCKET_COUNT) {
+      return (int) value;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(value);
+    int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKET_COUNT - 1);
+    return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT + subBucket;
+  }
+
+  // returns the midpoint of the bucket (in microseconds)
+  // visible for testing
+  static double getBucketValue(int index) {
+    if (index < SUB_BUCKET_COUNT) {
+      return index;
+    }
+    int exponent = index / SUB_BUCKET_COUNT + SUB_BUCKET_BITS - 1;
+    int subBucket = index % SUB_BUCKET_COUNT;
+    long width = 1L << (exponent - SUB_BUCKET_BITS);
+    long lowerBound = (SUB_BUCKET_COUNT + subBucket) * width;
+    return lowerBound + (width - 1) / 2.0;
+  }
+
+  private static int getStripeCount() {
+    int processors = Math.min(Runtime.getRuntime().availableProcessors(), 8);
+    // round up to a power of two, so that the stripe can be selected with a mask
+    return Integer.highestOneBit(Math.max(processors * 2 - 1, 1));
+  }
+
+  static final class Snapshot {
+
+    private final long[] counts;
+    private final long totalCount;
+
+    private Snapshot(long[] counts, long totalCount) {
+      this.counts = counts;
+      this.totalCount = totalCount;
+    }
+
+    long getTotalCount() {
+      return totalCount;
+    }
+
+    /** Returns the duration (in milliseconds) at the given percentile (0-100). */
+    double getValueAtPercentile(double percentile) {
+      if (totalCount == 0) {
+        return 0;
+      }
+      long rank = Math.max((long) Math.ceil(percentile / 100 * totalCount), 1);
+      long cumulative = 0;
+      for (int i = 0; i < counts.length; i++) {
+        cumulative += counts[i];
+        if (cumulative >= rank) {
+          return getBucketValue(i) / 1000;
+        }
+      }
+      return getBucketValue(counts.length - 1) / 1000;
+    }
+  }
+}
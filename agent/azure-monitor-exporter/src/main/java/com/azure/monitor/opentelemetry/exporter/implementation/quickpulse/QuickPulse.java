@@ -10,6 +10,7 @@ import com.azure.monitor.opentelemetry.exporter.implementation.utils.HostName;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.Strings;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.ThreadPoolUtils;
 import java.net.URL;
+import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
@@ -30,7 +31,13 @@ public class QuickPulse {
       @Nullable String roleName,
       @Nullable String roleInstance,
       boolean useNormalizedValueForNonNormalizedCpuPercentage,
-      String sdkVersion) {
+      boolean documentsEnabled,
+      List<DocumentFilterGroup> documentFilterGroups,
+      String sdkVersion,
+      QuickPulseStats stats) {
+
+    // compiled up front so that invalid filters are reported during startup
+    DocumentFilters documentFilters = DocumentFilters.compile(documentFilterGroups);
 
     QuickPulse quickPulse = new QuickPulse();
 
@@ -53,7 +60,10 @@ public class QuickPulse {
               roleName,
               roleInstance,
               useNormalizedValueForNonNormalizedCpuPercentage,
-              sdkVersion);
+              documentsEnabled,
+              documentFilters,
+              sdkVersion,
+              stats);
         });
     // the condition below will always be false, but by referencing the executor it ensures the
     // executor can't become unreachable in the middle of the execute() method execution above
@@ -76,6 +86,16 @@ public class QuickPulse {
     }
   }
 
+  /**
+   * Same as {@link #add(TelemetryItem)}, but for requests and dependencies whose raw duration is
+   * known, which avoids parsing the formatted duration.
+   */
+  public void add(TelemetryItem telemetryItem, long durationNanos) {
+    if (collector != null) {
+      collector.add(telemetryItem, durationNanos);
+    }
+  }
+
   private void initialize(
       HttpPipeline httpPipeline,
       Supplier<URL> endpointUrl,
@@ -83,7 +103,10 @@ public class QuickPulse {
       @Nullable String roleName,
       @Nullable String roleInstance,
       boolean useNormalizedValueForNonNormalizedCpuPercentage,
-      String sdkVersion) {
+      boolean documentsEnabled,
+      DocumentFilters documentFilters,
+      String sdkVersion,
+      QuickPulseStats stats) {
 
     String quickPulseId = UUID.randomUUID().toString().replace("-", "");
     ArrayBlockingQueue<HttpRequest> sendQueue = new ArrayBlockingQueue<>(256, true);
@@ -102,6 +125,9 @@ public class QuickPulse {
 
     QuickPulseDataCollector collector =
         new QuickPulseDataCollector(useNormalizedValueForNonNormalizedCpuPercentage);
+    // documents are only needed when sample telemetry is shown
+    collector.setDocumentsEnabled(documentsEnabled);
+    collector.setDocumentFilters(documentFilters);
 
     QuickPulsePingSender quickPulsePingSender =
         new QuickPulsePingSender(
@@ -122,7 +148,8 @@ public class QuickPulse {
             roleName,
             instanceName,
             machineName,
-            quickPulseId);
+            quickPulseId,
+            stats);
 
     QuickPulseCoordinatorInitData coordinatorInitData =
         new QuickPulseCoordinatorInitDataBuilder()
@@ -3,6 +3,10 @@
 
 package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
 
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
 import com.azure.monitor.opentelemetry.exporter.implementation.models.ContextTagKeys;
 import com.azure.monitor.opentelemetry.exporter.implementation.models.MonitorDomain;
 import com.azure.monitor.opentelemetry.exporter.implementation.models.RemoteDependencyData;
@@ -21,7 +25,6 @@ import java.lang.management.MemoryMXBean;
 import java.lang.management.MemoryUsage;
 import java.lang.management.OperatingSystemMXBean;
 import java.time.Duration;
-import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -39,12 +42,20 @@ final class QuickPulseDataCollector {
       ManagementFactory.getOperatingSystemMXBean();
 
   private final AtomicReference<Counters> counters = new AtomicReference<>(null);
+  // the counters from the interval before the current one, whose histograms are reused for the
+  // next interval (so that the histograms are not allocated every interval)
+  @Nullable private Counters previousCounters;
   private final CpuPerformanceCounterCalculator cpuPerformanceCounterCalculator =
       getCpuPerformanceCounterCalculator();
   private final boolean useNormalizedValueForNonNormalizedCpuPercentage;
 
   private volatile QuickPulseStatus quickPulseStatus = QuickPulseStatus.QP_IS_OFF;
 
+  // when false, only the counters are updated (no documents are built)
+  private volatile boolean documentsEnabled = true;
+  // only the documents that match these filters are built
+  private volatile DocumentFilters documentFilters = DocumentFilters.all();
+
   private volatile Supplier<String> instrumentationKeySupplier;
 
   QuickPulseDataCollector(boolean useNormalizedValueForNonNormalizedCpuPercentage) {
@@ -58,6 +69,7 @@ final class QuickPulseDataCollector {
 
   synchronized void disable() {
     counters.set(null);
+    previousCounters = null;
     quickPulseStatus = QuickPulseStatus.QP_IS_OFF;
   }
 
@@ -70,6 +82,14 @@ final class QuickPulseDataCollector {
     this.quickPulseStatus = quickPulseStatus;
   }
 
+  void setDocumentsEnabled(boolean documentsEnabled) {
+    this.documentsEnabled = documentsEnabled;
+  }
+
+  void setDocumentFilters(DocumentFilters documentFilters) {
+    this.documentFilters = documentFilters;
+  }
+
   // Used only in tests
   synchronized QuickPulseStatus getQuickPulseStatus() {
     return this.quickPulseStatus;
@@ -77,7 +97,12 @@ final class QuickPulseDataCollector {
 
   @Nullable
   synchronized FinalCounters getAndRestart() {
-    Counters currentCounters = counters.getAndSet(new Counters());
+    // a late writer that still holds on to the previous counters would record into the new
+    // interval's histograms, which is harmless
+    Counters newCounters =
+        previousCounters == null ? new Counters() : new Counters(previousCounters);
+    Counters currentCounters = counters.getAndSet(newCounters);
+    previousCounters = currentCounters;
     if (currentCounters != null) {
       return new FinalCounters(currentCounters);
     }
@@ -96,6 +121,12 @@ final class QuickPulseDataCollector {
   }
 
   void add(TelemetryItem telemetryItem) {
+    add(telemetryItem, -1);
+  }
+
+  // durationNanos is the (raw) duration of the request or dependency, or -1 if not known, in which
+  // case it is parsed from the formatted duration
+  void add(TelemetryItem telemetryItem, long durationNanos) {
     if (!isEnabled()) {
       // quick pulse is not enabled or quick pulse data sender is not enabled
       return;
@@ -114,10 +145,9 @@ final class QuickPulseDataCollector {
 
     MonitorDomain data = telemetryItem.getData().getBaseData();
     if (data instanceof RequestData) {
-      RequestData requestTelemetry = (RequestData) data;
-      addRequest(requestTelemetry, itemCount, getOperationName(telemetryItem));
+      addRequest((RequestData) data, itemCount, durationNanos, telemetryItem);
     } else if (data instanceof RemoteDependencyData) {
-      addDependency((RemoteDependencyData) data, itemCount);
+      addDependency((RemoteDependencyData) data, itemCount, durationNanos);
     } else if (data instanceof TelemetryExceptionData) {
       addException((TelemetryExceptionData) data, itemCount);
     }
@@ -133,17 +163,26 @@ final class QuickPulseDataCollector {
     return tags == null ? null : tags.get(ContextTagKeys.AI_OPERATION_NAME.toString());
   }
 
-  private void addDependency(RemoteDependencyData telemetry, int itemCount) {
+  private void addDependency(RemoteDependencyData telemetry, int itemCount, long durationNanos) {
     Counters counters = this.counters.get();
     if (counters == null) {
       return;
     }
-    long durationMillis = parseDurationToMillis(telemetry.getDuration());
+    long durationMicros = getDurationMicros(durationNanos, telemetry.getDuration());
+    long durationMillis = MICROSECONDS.toMillis(durationMicros);
     counters.rddsAndDuations.addAndGet(Counters.encodeCountAndDuration(itemCount, durationMillis));
+    counters.rddDurations.record(durationMicros);
     Boolean success = telemetry.isSuccess();
     if (success != null && !success) { // success should not be null
       counters.unsuccessfulRdds.incrementAndGet();
     }
+    if (!documentsEnabled || !documentFilters.matches(telemetry, durationMillis)) {
+      return;
+    }
+    int slot = counters.documents.reserve();
+    if (slot == -1) {
+      return;
+    }
     QuickPulseDependencyDocument quickPulseDependencyDocument = new QuickPulseDependencyDocument();
     quickPulseDependencyDocument.setDocumentType("RemoteDependency");
     quickPulseDependencyDocument.setType("DependencyTelemetryDocument");
@@ -159,11 +198,7 @@ final class QuickPulseDataCollector {
     quickPulseDependencyDocument.setDependencyTypeName(telemetry.getType());
     quickPulseDependencyDocument.setProperties(
         aggregateProperties(telemetry.getProperties(), telemetry.getMeasurements()));
-    synchronized (counters.documentList) {
-      if (counters.documentList.size() < Counters.MAX_DOCUMENTS_SIZE) {
-        counters.documentList.add(quickPulseDependencyDocument);
-      }
-    }
+    counters.documents.set(slot, quickPulseDependencyDocument);
   }
 
   private void addException(TelemetryExceptionData exceptionData, int itemCount) {
@@ -173,6 +208,13 @@ final class QuickPulseDataCollector {
     }
 
     counters.exceptions.addAndGet(itemCount);
+    if (!documentsEnabled || !documentFilters.matches(exceptionData)) {
+      return;
+    }
+    int slot = counters.documents.reserve();
+    if (slot == -1) {
+      return;
+    }
     QuickPulseExceptionDocument quickPulseExceptionDocument = new QuickPulseExceptionDocument();
     quickPulseExceptionDocument.setDocumentType("Exception");
     quickPulseExceptionDocument.setType("ExceptionTelemetryDocument");
@@ -196,24 +238,33 @@ final class QuickPulseDataCollector {
       quickPulseExceptionDocument.setExceptionMessage(exceptionList.get(0).getMessage());
       quickPulseExceptionDocument.setExceptionType(exceptionList.get(0).getTypeName());
     }
-    synchronized (counters.documentList) {
-      if (counters.documentList.size() < Counters.MAX_DOCUMENTS_SIZE) {
-        counters.documentList.add(quickPulseExceptionDocument);
-      }
-    }
+    counters.documents.set(slot, quickPulseExceptionDocument);
   }
 
-  private void addRequest(RequestData requestTelemetry, int itemCount, String operationName) {
+  private void addRequest(
+      RequestData requestTelemetry,
+      int itemCount,
+      long durationNanos,
+      TelemetryItem telemetryItem) {
     Counters counters = this.counters.get();
     if (counters == null) {
       return;
     }
-    long durationMillis = parseDurationToMillis(requestTelemetry.getDuration());
+    long durationMicros = getDurationMicros(durationNanos, requestTelemetry.getDuration());
+    long durationMillis = MICROSECONDS.toMillis(durationMicros);
     counters.requestsAndDurations.addAndGet(
         Counters.encodeCountAndDuration(itemCount, durationMillis));
+    counters.requestDurations.record(durationMicros);
     if (!requestTelemetry.isSuccess()) {
       counters.unsuccessfulRequests.incrementAndGet();
     }
+    if (!documentsEnabled || !documentFilters.matches(requestTelemetry, durationMillis)) {
+      return;
+    }
+    int slot = counters.documents.reserve();
+    if (slot == -1) {
+      return;
+    }
     QuickPulseRequestDocument quickPulseRequestDocument = new QuickPulseRequestDocument();
     quickPulseRequestDocument.setDocumentType("Request");
     quickPulseRequestDocument.setType("RequestTelemetryDocument");
@@ -222,16 +273,12 @@ final class QuickPulseDataCollector {
     quickPulseRequestDocument.setSuccess(requestTelemetry.isSuccess());
     quickPulseRequestDocument.setDuration(Duration.ofMillis(durationMillis).toString());
     quickPulseRequestDocument.setResponseCode(requestTelemetry.getResponseCode());
-    quickPulseRequestDocument.setOperationName(operationName);
+    quickPulseRequestDocument.setOperationName(getOperationName(telemetryItem));
     quickPulseRequestDocument.setName(requestTelemetry.getName());
     quickPulseRequestDocument.setUrl(requestTelemetry.getUrl());
     quickPulseRequestDocument.setProperties(
         aggregateProperties(requestTelemetry.getProperties(), requestTelemetry.getMeasurements()));
-    synchronized (counters.documentList) {
-      if (counters.documentList.size() < Counters.MAX_DOCUMENTS_SIZE) {
-        counters.documentList.add(quickPulseRequestDocument);
-      }
-    }
+    counters.documents.set(slot, quickPulseRequestDocument);
   }
 
   private static Map<String, String> aggregateProperties(
@@ -246,8 +293,12 @@ final class QuickPulseDataCollector {
     return aggregatedProperties;
   }
 
-  // TODO (trask) optimization: move live metrics request capture to OpenTelemetry layer so don't
-  // have to parse String duration
+  private static long getDurationMicros(long durationNanos, String duration) {
+    return durationNanos >= 0
+        ? NANOSECONDS.toMicros(durationNanos)
+        : MILLISECONDS.toMicros(parseDurationToMillis(duration));
+  }
+
   // visible for testing
   static long parseDurationToMillis(String duration) {
     // format is DD.HH:MM:SS.MMMMMM
@@ -321,9 +372,11 @@ final class QuickPulseDataCollector {
     final long rdds;
     final double rddsDuration;
     final int unsuccessfulRdds;
+    final LatencyHistogram.Snapshot requestDurations;
+    final LatencyHistogram.Snapshot rddDurations;
     final long memoryCommitted;
     final double cpuUsage;
-    final List<QuickPulseDocument> documentList = new ArrayList<>();
+    final List<QuickPulseDocument> documentList;
 
     private FinalCounters(Counters currentCounters) {
 
@@ -341,9 +394,9 @@ final class QuickPulseDataCollector {
       this.rdds = countAndDuration.count;
       this.rddsDuration = countAndDuration.duration;
       this.unsuccessfulRdds = currentCounters.unsuccessfulRdds.get();
-      synchronized (currentCounters.documentList) {
-        this.documentList.addAll(currentCounters.documentList);
-      }
+      this.requestDurations = currentCounters.requestDurations.getSnapshot();
+      this.rddDurations = currentCounters.rddDurations.getSnapshot();
+      this.documentList = currentCounters.documents.getDocuments();
     }
 
     private long getMemoryCommitted(@Nullable MemoryMXBean memory) {
@@ -398,7 +451,23 @@ final class QuickPulseDataCollector {
 
     final AtomicLong rddsAndDuations = new AtomicLong(0);
     final AtomicInteger unsuccessfulRdds = new AtomicInteger(0);
-    final List<QuickPulseDocument> documentList = new ArrayList<>();
+    final DocumentBuffer documents = new DocumentBuffer(MAX_DOCUMENTS_SIZE);
+
+    final LatencyHistogram requestDurations;
+    final LatencyHistogram rddDurations;
+
+    Counters() {
+      requestDurations = new LatencyHistogram();
+      rddDurations = new LatencyHistogram();
+    }
+
+    // reuses the histograms from earlier counters that are no longer being read
+    Counters(Counters recycled) {
+      requestDurations = recycled.requestDurations;
+      rddDurations = recycled.rddDurations;
+      requestDurations.reset();
+      rddDurations.reset();
+    }
 
     static long encodeCountAndDuration(long count, long duration) {
       if (count > MAX_COUNT || duration > MAX_DURATION) {
@@ -11,9 +11,10 @@ import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.model.
 import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.model.QuickPulseMetrics;
 import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.util.CustomCharacterEscapes;
 import com.azure.monitor.opentelemetry.exporter.implementation.utils.Strings;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.SerializationFeature;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Date;
@@ -28,6 +29,12 @@ class QuickPulseDataFetcher {
 
   private static final ObjectMapper mapper;
 
+  private static final int INITIAL_POST_BUFFER_SIZE = 8192;
+  // a buffer that has grown (e.g. after a burst of exceptions with long stack traces) is replaced
+  // once the posts have been less than a quarter of its size for a minute
+  private static final int POST_BUFFER_SHRINK_FACTOR = 4;
+  private static final int POST_BUFFER_SHRINK_AFTER_POSTS = 60;
+
   static {
     mapper = new ObjectMapper();
     mapper.configure(SerializationFeature.FAIL_ON_EMPTY_BEANS, false);
@@ -48,6 +55,15 @@ class QuickPulseDataFetcher {
 
   private final String sdkVersion;
 
+  private final QuickPulseStats stats;
+
+  // the envelope is serialized directly into this buffer, which is reused across posts (this is
+  // only accessed from the coordinator thread)
+  private ByteArrayOutputStream postBuffer = new ByteArrayOutputStream(INITIAL_POST_BUFFER_SIZE);
+  // the size of the largest post since the buffer was created, which is roughly its capacity
+  private int postBufferPeakSize;
+  private int smallPostCount;
+
   public QuickPulseDataFetcher(
       QuickPulseDataCollector collector,
       ArrayBlockingQueue<HttpRequest> sendQueue,
@@ -56,7 +72,8 @@ class QuickPulseDataFetcher {
       String roleName,
       String instanceName,
       String machineName,
-      String quickPulseId) {
+      String quickPulseId,
+      QuickPulseStats stats) {
     this.collector = collector;
     this.sendQueue = sendQueue;
     this.endpointUrl = endpointUrl;
@@ -65,6 +82,7 @@ class QuickPulseDataFetcher {
     this.instanceName = instanceName;
     this.machineName = machineName;
     this.quickPulseId = quickPulseId;
+    this.stats = stats;
 
     sdkVersion = getCurrentSdkVersion();
   }
@@ -120,8 +138,8 @@ class QuickPulseDataFetcher {
     return endpointUrl.get().toString() + "QuickPulseService.svc";
   }
 
-  private String buildPostEntity(QuickPulseDataCollector.FinalCounters counters)
-      throws JsonProcessingException {
+  private byte[] buildPostEntity(QuickPulseDataCollector.FinalCounters counters)
+      throws IOException {
     List<QuickPulseEnvelope> envelopes = new ArrayList<>();
     QuickPulseEnvelope postEnvelope = new QuickPulseEnvelope();
     postEnvelope.setDocuments(counters.documentList);
@@ -138,7 +156,38 @@ class QuickPulseDataFetcher {
     postEnvelope.setTimeStamp("/Date(" + System.currentTimeMillis() + ")/");
     postEnvelope.setMetrics(addMetricsToQuickPulseEnvelope(counters));
     envelopes.add(postEnvelope);
-    return mapper.writeValueAsString(envelopes);
+    return serialize(envelopes);
+  }
+
+  // serializes without going through an intermediate String, and returns an exact-size copy so
+  // that the buffer can be reused while the request is still in the send queue
+  private byte[] serialize(List<QuickPulseEnvelope> envelopes) throws IOException {
+    postBuffer.reset();
+    mapper.writeValue(postBuffer, envelopes);
+    int size = postBuffer.size();
+    stats.recordPostSize(size);
+    byte[] body = postBuffer.toByteArray();
+    shrinkPostBufferIfOversized(size);
+    return body;
+  }
+
+  private void shrinkPostBufferIfOversized(int size) {
+    if (size > postBufferPeakSize) {
+      postBufferPeakSize = size;
+      smallPostCount = 0;
+    } else if (postBufferPeakSize <= INITIAL_POST_BUFFER_SIZE
+        || size * POST_BUFFER_SHRINK_FACTOR > postBufferPeakSize) {
+      smallPostCount = 0;
+    } else if (++smallPostCount >= POST_BUFFER_SHRINK_AFTER_POSTS) {
+      postBuffer = new ByteArrayOutputStream(INITIAL_POST_BUFFER_SIZE);
+      postBufferPeakSize = 0;
+      smallPostCount = 0;
+    }
+  }
+
+  // visible for testing
+  int getPostBufferPeakSize() {
+    return postBufferPeakSize;
   }
 
   private static List<QuickPulseMetrics> addMetricsToQuickPulseEnvelope(
@@ -152,6 +201,8 @@ class QuickPulseDataFetcher {
               "\\ApplicationInsights\\Request Duration",
               counters.requestsDuration / counters.requests,
               counters.requests));
+      addPercentiles(
+          metricsList, "\\ApplicationInsights\\Request Duration", counters.requestDurations);
     }
     metricsList.add(
         new QuickPulseMetrics(
@@ -169,6 +220,8 @@ class QuickPulseDataFetcher {
               "\\ApplicationInsights\\Dependency Call Duration",
               counters.rddsDuration / counters.rdds,
               (int) counters.rdds));
+      addPercentiles(
+          metricsList, "\\ApplicationInsights\\Dependency Call Duration", counters.rddDurations);
     }
     metricsList.add(
         new QuickPulseMetrics(
@@ -187,4 +240,14 @@ class QuickPulseDataFetcher {
 
     return metricsList;
   }
+
+  private static void addPercentiles(
+      List<QuickPulseMetrics> metricsList, String name, LatencyHistogram.Snapshot durations) {
+    if (durations.getTotalCount() == 0) {
+      return;
+    }
+    metricsList.add(new QuickPulseMetrics(name + " P50", durations.getValueAtPercentile(50), 1));
+    metricsList.add(new QuickPulseMetrics(name + " P95", durations.getValueAtPercentile(95), 1));
+    metricsList.add(new QuickPulseMetrics(name + " P99", durations.getValueAtPercentile(99), 1));
+  }
 }
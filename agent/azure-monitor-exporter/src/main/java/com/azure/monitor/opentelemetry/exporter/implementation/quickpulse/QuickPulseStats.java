@@ -0,0 +1,14 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
+
+// this interface exists just to break the cycle between live metrics and statsbeat
+public interface QuickPulseStats {
+
+  void recordPostSize(int bytes);
+
+  static QuickPulseStats noop() {
+    return bytes -> {};
+  }
+}
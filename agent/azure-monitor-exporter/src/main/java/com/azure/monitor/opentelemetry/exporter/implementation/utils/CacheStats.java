@@ -0,0 +1,29 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.utils;
+
+import java.util.function.LongSupplier;
+
+// this interface exists so that the hit rates of the caches can be reported as statsbeat, without
+// the caches depending on statsbeat
+public interface CacheStats {
+
+  long getHitCount();
+
+  long getMissCount();
+
+  static CacheStats of(LongSupplier hitCount, LongSupplier missCount) {
+    return new CacheStats() {
+      @Override
+      public long getHitCount() {
+        return hitCount.getAsLong();
+      }
+
+      @Override
+      public long getMissCount() {
+        return missCount.getAsLong();
+      }
+    };
+  }
+}
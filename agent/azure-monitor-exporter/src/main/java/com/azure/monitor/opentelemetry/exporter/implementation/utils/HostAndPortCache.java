@@ -0,0 +1,71 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of {@code host + ":" + port} strings, so that dependency targets aren't
+ * re-concatenated for every span.
+ *
+ * <p>Like {@link SubstringCache}, the cache is direct-mapped, and a hit doesn't allocate.
+ */
+public final class HostAndPortCache implements CacheStats {
+
+  // racy reads and writes are fine since entries are immutable (and safely published)
+  private final Entry[] table;
+  private final int mask;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Creates a new {@link HostAndPortCache}.
+   *
+   * @param maxSize the maximum number of cached strings, rounded up to a power of two.
+   */
+  public HostAndPortCache(int maxSize) {
+    int size = Integer.highestOneBit(Math.max(maxSize, 2) - 1) << 1;
+    table = new Entry[size];
+    mask = size - 1;
+  }
+
+  /** Returns {@code host + ":" + port}, from the cache if possible. */
+  public String get(String host, long port) {
+    int hash = 31 * host.hashCode() + Long.hashCode(port);
+    int index = (hash ^ (hash >>> 16)) & mask;
+    Entry entry = table[index];
+    if (entry != null && entry.port == port && entry.host.equals(host)) {
+      hits.increment();
+      return entry.hostAndPort;
+    }
+    misses.increment();
+    String hostAndPort = host + ":" + port;
+    table[index] = new Entry(host, port, hostAndPort);
+    return hostAndPort;
+  }
+
+  @Override
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  private static final class Entry {
+
+    private final String host;
+    private final long port;
+    private final String hostAndPort;
+
+    private Entry(String host, long port, String hostAndPort) {
+      this.host = host;
+      this.port = port;
+      this.hostAndPort = hostAndPort;
+    }
+  }
+}
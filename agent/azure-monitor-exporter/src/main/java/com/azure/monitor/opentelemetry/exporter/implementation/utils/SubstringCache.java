@@ -0,0 +1,73 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.utils;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded cache of substrings, e.g. the target ("host:port") of an http url.
+ *
+ * <p>Lookups are done directly against the region of the source string, so a hit doesn't allocate
+ * (not even the substring itself). The cache is direct-mapped (each substring can only live in one
+ * slot, and a colliding substring replaces it), which keeps it lock-free and its size fixed.
+ */
+public final class SubstringCache implements CacheStats {
+
+  // racy reads and writes are fine since strings are immutable (and safely published)
+  private final String[] table;
+  private final int mask;
+
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  /**
+   * Creates a new {@link SubstringCache}.
+   *
+   * @param maxSize the maximum number of cached substrings, rounded up to a power of two.
+   */
+  public SubstringCache(int maxSize) {
+    int size = Integer.highestOneBit(Math.max(maxSize, 2) - 1) << 1;
+    table = new String[size];
+    mask = size - 1;
+  }
+
+  /** Returns {@code source.substring(start, end)}, from the cache if possible. */
+  public String get(String source, int start, int end) {
+    int length = end - start;
+    if (length == 0) {
+      return "";
+    }
+    int index = hash(source, start, end) & mask;
+    String cached = table[index];
+    if (cached != null
+        && cached.length() == length
+        && cached.regionMatches(0, source, start, length)) {
+      hits.increment();
+      return cached;
+    }
+    misses.increment();
+    String value = source.substring(start, end);
+    table[index] = value;
+    return value;
+  }
+
+  @Override
+  public long getHitCount() {
+    return hits.sum();
+  }
+
+  @Override
+  public long getMissCount() {
+    return misses.sum();
+  }
+
+  // same as String.hashCode(), but over a region of the string
+  private static int hash(String source, int start, int end) {
+    int hash = 0;
+    for (int i = start; i < end; i++) {
+      hash = 31 * hash + source.charAt(i);
+    }
+    return hash ^ (hash >>> 16);
+  }
+}
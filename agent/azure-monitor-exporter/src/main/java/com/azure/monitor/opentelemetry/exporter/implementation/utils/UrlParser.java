@@ -13,6 +13,19 @@ import reactor.util.annotation.Nullable;
 
 public class UrlParser {
 
+  // a service typically only calls a small set of endpoints, so cache the targets and paths in
+  // order to avoid allocating new strings for every span
+  private static final SubstringCache targetCache = new SubstringCache(1024);
+  private static final SubstringCache pathCache = new SubstringCache(1024);
+
+  public static CacheStats getTargetCacheStats() {
+    return targetCache;
+  }
+
+  public static CacheStats getPathCacheStats() {
+    return pathCache;
+  }
+
   @Nullable
   public static String getTarget(String url) {
 
@@ -30,7 +43,7 @@ public class UrlParser {
 
     if (hostEndIndexExclusive < url.length() && url.charAt(hostEndIndexExclusive) != ':') {
       // no port
-      return url.substring(schemeEndIndexExclusive, hostEndIndexExclusive);
+      return targetCache.get(url, schemeEndIndexExclusive, hostEndIndexExclusive);
     }
 
     int portStartIndex = hostEndIndexExclusive + 1;
@@ -38,17 +51,26 @@ public class UrlParser {
     int portEndIndexExclusive = getPortEndIndexExclusive(url, portStartIndex);
     if (portEndIndexExclusive == portStartIndex) {
       // no port
-      return url.substring(schemeEndIndexExclusive, hostEndIndexExclusive);
+      return targetCache.get(url, schemeEndIndexExclusive, hostEndIndexExclusive);
     }
 
-    String port = url.substring(portStartIndex, portEndIndexExclusive);
-
-    if ((port.equals("80") && url.startsWith("http://"))
-        || (port.equals("443") && url.startsWith("https://"))) {
-      return url.substring(schemeEndIndexExclusive, hostEndIndexExclusive);
+    if (isDefaultPort(url, portStartIndex, portEndIndexExclusive)) {
+      return targetCache.get(url, schemeEndIndexExclusive, hostEndIndexExclusive);
     }
 
-    return url.substring(schemeEndIndexExclusive, portEndIndexExclusive);
+    return targetCache.get(url, schemeEndIndexExclusive, portEndIndexExclusive);
+  }
+
+  // compares in place to avoid allocating a substring for the port
+  private static boolean isDefaultPort(String url, int portStartIndex, int portEndIndexExclusive) {
+    int portLength = portEndIndexExclusive - portStartIndex;
+    if (portLength == 2 && url.startsWith("80", portStartIndex)) {
+      return url.startsWith("http://");
+    }
+    if (portLength == 3 && url.startsWith("443", portStartIndex)) {
+      return url.startsWith("https://");
+    }
+    return false;
   }
 
   @Nullable
@@ -64,7 +86,7 @@ public class UrlParser {
     int portEndIndexExclusive = getPortEndIndexExclusive(url, hostEndIndexExclusive);
     int pathEndIndexExclusive = getPathEndIndexExclusive(url, portEndIndexExclusive);
 
-    return url.substring(portEndIndexExclusive, pathEndIndexExclusive);
+    return pathCache.get(url, portEndIndexExclusive, pathEndIndexExclusive);
   }
 
   @Nullable
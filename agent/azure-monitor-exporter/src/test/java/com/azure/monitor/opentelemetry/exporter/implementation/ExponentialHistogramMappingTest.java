@@ -0,0 +1,93 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.models.MetricDataPoint;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.MetricsData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.DoubleHistogram;
+import io.opentelemetry.sdk.metrics.Aggregation;
+import io.opentelemetry.sdk.metrics.InstrumentSelector;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.View;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.metrics.data.MetricDataType;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class ExponentialHistogramMappingTest {
+
+  @Test
+  void shouldMapExponentialHistogram() {
+    InMemoryMetricReader metricReader = InMemoryMetricReader.createDelta();
+    View view =
+        View.builder().setAggregation(Aggregation.base2ExponentialBucketHistogram()).build();
+    SdkMeterProvider meterProvider =
+        SdkMeterProvider.builder()
+            .registerMetricReader(metricReader)
+            .registerView(InstrumentSelector.builder().setName("latency").build(), view)
+            .build();
+    DoubleHistogram histogram = meterProvider.get("test").histogramBuilder("latency").build();
+
+    Attributes attributes = Attributes.of(AttributeKey.stringKey("operation"), "checkout");
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i, attributes);
+    }
+
+    MetricDataMapper mapper =
+        new MetricDataMapper(
+            (builder, resource) -> {},
+            true,
+            MetricCardinalityLimiter.unlimited(),
+            asList(50.0, 99.9));
+    List<TelemetryItem> telemetryItems = new ArrayList<>();
+    for (MetricData metricData : metricReader.collectAllMetrics()) {
+      assertThat(metricData.getType()).isEqualTo(MetricDataType.EXPONENTIAL_HISTOGRAM);
+      mapper.map(metricData, telemetryItems::add);
+    }
+
+    assertThat(telemetryItems).hasSize(3);
+    // with the default max of 160 buckets, values 1 to 1000 are recorded at scale 3 (8 buckets per
+    // power of two), which bounds the relative error of the percentiles to about 4.5%
+
+    MetricsData data = getMetricsData(telemetryItems.get(0));
+    MetricDataPoint point = data.getMetrics().get(0);
+    assertThat(point.getName()).isEqualTo("latency");
+    assertThat(point.getCount()).isEqualTo(1000);
+    assertThat(point.getValue()).isEqualTo(500500);
+    assertThat(point.getMin()).isEqualTo(1);
+    assertThat(point.getMax()).isEqualTo(1000);
+    assertThat(data.getProperties()).containsEntry("operation", "checkout");
+
+    data = getMetricsData(telemetryItems.get(1));
+    point = data.getMetrics().get(0);
+    assertThat(point.getName()).isEqualTo("latency_p50");
+    assertThat(point.getValue()).isCloseTo(500, withinPercentage(5));
+    assertThat(point.getCount()).isNull();
+    assertThat(data.getProperties()).containsEntry("operation", "checkout");
+
+    point = getMetricsData(telemetryItems.get(2)).getMetrics().get(0);
+    assertThat(point.getName()).isEqualTo("latency_p99.9");
+    assertThat(point.getValue()).isCloseTo(999, withinPercentage(5));
+  }
+
+  @Test
+  void shouldFormatPercentileMetricName() {
+    assertThat(MetricDataMapper.getPercentileMetricName("latency", 95)).isEqualTo("latency_p95");
+    assertThat(MetricDataMapper.getPercentileMetricName("latency", 99.9))
+        .isEqualTo("latency_p99.9");
+  }
+
+  private static MetricsData getMetricsData(TelemetryItem telemetryItem) {
+    return (MetricsData) telemetryItem.getData().getBaseData();
+  }
+}
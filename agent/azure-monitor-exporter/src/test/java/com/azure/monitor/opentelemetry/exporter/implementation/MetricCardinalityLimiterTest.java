@@ -0,0 +1,124 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.models.MetricDataPoint;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.MetricsData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import io.opentelemetry.api.common.AttributeKey;
+import io.opentelemetry.api.common.Attributes;
+import io.opentelemetry.api.metrics.LongCounter;
+import io.opentelemetry.sdk.metrics.SdkMeterProvider;
+import io.opentelemetry.sdk.metrics.data.MetricData;
+import io.opentelemetry.sdk.testing.exporter.InMemoryMetricReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class MetricCardinalityLimiterTest {
+
+  private static final AttributeKey<String> ID = AttributeKey.stringKey("id");
+
+  private final AtomicLong overflowCount = new AtomicLong();
+
+  private InMemoryMetricReader metricReader;
+  private LongCounter counter;
+  private MetricDataMapper mapper;
+
+  @BeforeEach
+  void setup() {
+    metricReader = InMemoryMetricReader.createDelta();
+    SdkMeterProvider meterProvider =
+        SdkMeterProvider.builder().registerMetricReader(metricReader).build();
+    counter = meterProvider.get("test").counterBuilder("test-counter").build();
+    mapper =
+        new MetricDataMapper(
+            (builder, resource) -> {},
+            true,
+            new MetricCardinalityLimiter(2, overflowCount::incrementAndGet),
+            Collections.emptyList());
+  }
+
+  @Test
+  void shouldFoldNewSeriesIntoOverflowSeries() {
+    counter.add(1, Attributes.of(ID, "a"));
+    counter.add(2, Attributes.of(ID, "b"));
+    counter.add(3, Attributes.of(ID, "c"));
+    counter.add(4, Attributes.of(ID, "d"));
+
+    List<TelemetryItem> telemetryItems = collect();
+
+    assertThat(telemetryItems).hasSize(3);
+    MetricsData overflow = getMetricsData(telemetryItems.get(2));
+    assertThat(overflow.getProperties())
+        .containsOnlyKeys(MetricCardinalityLimiter.OVERFLOW_PROPERTY)
+        .containsEntry(MetricCardinalityLimiter.OVERFLOW_PROPERTY, "true");
+    MetricDataPoint overflowPoint = overflow.getMetrics().get(0);
+    assertThat(overflowPoint.getName()).isEqualTo("test-counter");
+    assertThat(overflowPoint.getCount()).isNull();
+    // the sum of the two series that didn't fit, whichever ones they were
+    double admittedSum = 0;
+    for (TelemetryItem telemetryItem : telemetryItems.subList(0, 2)) {
+      MetricsData data = getMetricsData(telemetryItem);
+      assertThat(data.getProperties()).containsOnlyKeys("id");
+      admittedSum += data.getMetrics().get(0).getValue();
+    }
+    assertThat(overflowPoint.getValue()).isEqualTo(10 - admittedSum);
+    assertThat(overflowCount.get()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldForgetSeriesThatAreNoLongerExported() {
+    counter.add(1, Attributes.of(ID, "a"));
+    counter.add(1, Attributes.of(ID, "b"));
+    assertThat(collect()).hasSize(2);
+
+    // series "a" and "b" still count towards the limit in this export, but are forgotten after it
+    counter.add(1, Attributes.of(ID, "c"));
+    assertThat(collect()).hasSize(1);
+    assertThat(overflowCount.get()).isEqualTo(1);
+
+    counter.add(1, Attributes.of(ID, "c"));
+    counter.add(1, Attributes.of(ID, "d"));
+    List<TelemetryItem> telemetryItems = collect();
+    assertThat(telemetryItems).hasSize(2);
+    for (TelemetryItem telemetryItem : telemetryItems) {
+      assertThat(getMetricsData(telemetryItem).getProperties())
+          .doesNotContainKey(MetricCardinalityLimiter.OVERFLOW_PROPERTY);
+    }
+    assertThat(overflowCount.get()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldMergeGaugesIntoAggregation() {
+    MetricDataPoint target = new MetricDataPoint().setValue(3);
+    MetricDataPoint source = new MetricDataPoint().setValue(5);
+
+    MetricCardinalityLimiter.merge(target, source, false);
+    MetricCardinalityLimiter.merge(
+        target, new MetricDataPoint().setValue(10).setCount(4).setMin(1.0).setMax(4.0), false);
+
+    assertThat(target.getValue()).isEqualTo(18);
+    assertThat(target.getCount()).isEqualTo(6);
+    assertThat(target.getMin()).isEqualTo(1);
+    assertThat(target.getMax()).isEqualTo(5);
+  }
+
+  private List<TelemetryItem> collect() {
+    List<TelemetryItem> telemetryItems = new ArrayList<>();
+    for (MetricData metricData : metricReader.collectAllMetrics()) {
+      mapper.map(metricData, telemetryItems::add);
+    }
+    return telemetryItems;
+  }
+
+  private static MetricsData getMetricsData(TelemetryItem telemetryItem) {
+    return (MetricsData) telemetryItem.getData().getBaseData();
+  }
+}
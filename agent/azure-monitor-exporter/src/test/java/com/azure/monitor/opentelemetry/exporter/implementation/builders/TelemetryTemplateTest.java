@@ -0,0 +1,119 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.builders;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.data.MapEntry.entry;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryEventData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class TelemetryTemplateTest {
+
+  @Test
+  void shouldApplyTemplate() {
+    EventTelemetryBuilder builder = EventTelemetryBuilder.create();
+    builder.applyTemplate(createTemplate());
+
+    TelemetryItem telemetryItem = builder.build();
+    assertThat(telemetryItem.getTags())
+        .containsOnly(entry("ai.cloud.role", "role"), entry("ai.cloud.roleInstance", "instance"));
+    assertThat(getProperties(telemetryItem)).containsOnly(entry("tier", "gold"));
+  }
+
+  @Test
+  void shouldOverrideTemplate() {
+    TelemetryTemplate template = createTemplate();
+
+    EventTelemetryBuilder builder = EventTelemetryBuilder.create();
+    builder.applyTemplate(template);
+    builder.addTag("ai.cloud.role", "other");
+    builder.addTag("ai.operation.id", "1234");
+    builder.addProperty("tier", "silver");
+
+    TelemetryItem telemetryItem = builder.build();
+    assertThat(telemetryItem.getTags())
+        .containsOnly(
+            entry("ai.cloud.role", "other"),
+            entry("ai.cloud.roleInstance", "instance"),
+            entry("ai.operation.id", "1234"));
+    assertThat(getProperties(telemetryItem)).containsOnly(entry("tier", "silver"));
+
+    // the template itself is not modified
+    assertThat(template.getTags()).containsEntry("ai.cloud.role", "role");
+    assertThat(template.getProperties()).containsEntry("tier", "gold");
+  }
+
+  @Test
+  void shouldRemoveTemplateEntry() {
+    EventTelemetryBuilder builder = EventTelemetryBuilder.create();
+    builder.applyTemplate(createTemplate());
+
+    Map<String, String> tags = builder.build().getTags();
+    tags.remove("ai.cloud.role");
+
+    assertThat(tags).containsOnly(entry("ai.cloud.roleInstance", "instance"));
+  }
+
+  @Test
+  void shouldMergeIntoExistingProperties() {
+    EventTelemetryBuilder builder = EventTelemetryBuilder.create();
+    builder.addProperty("one", "1");
+    builder.applyTemplate(createTemplate());
+
+    assertThat(getProperties(builder.build()))
+        .containsOnly(entry("one", "1"), entry("tier", "gold"));
+  }
+
+  @Test
+  void shouldSkipInvalidProperties() {
+    Map<String, String> properties = new HashMap<>();
+    properties.put("", "empty");
+    properties.put("null", null);
+    properties.put("valid", "value");
+
+    TelemetryTemplate template = TelemetryTemplate.create(null, new HashMap<>(), properties);
+
+    assertThat(template.getProperties()).containsOnly(entry("valid", "value"));
+  }
+
+  @Test
+  void shouldSerialize() throws Exception {
+    ObjectMapper mapper = new ObjectMapper();
+    mapper.setSerializationInclusion(JsonInclude.Include.NON_NULL);
+
+    Map<String, String> tags = new HashMap<>();
+    tags.put("ai.cloud.role", "quote\"role");
+    tags.put("ai.cloud.roleInstance", null);
+
+    EventTelemetryBuilder builder = EventTelemetryBuilder.create();
+    builder.applyTemplate(TelemetryTemplate.create(null, tags, new HashMap<>()));
+    builder.addTag("ai.operation.id", "1234");
+
+    JsonNode json = mapper.readTree(mapper.writeValueAsString(builder.build().getTags()));
+
+    assertThat(json.size()).isEqualTo(2);
+    assertThat(json.get("ai.cloud.role").asText()).isEqualTo("quote\"role");
+    assertThat(json.get("ai.operation.id").asText()).isEqualTo("1234");
+  }
+
+  private static TelemetryTemplate createTemplate() {
+    Map<String, String> tags = new HashMap<>();
+    tags.put("ai.cloud.role", "role");
+    tags.put("ai.cloud.roleInstance", "instance");
+    Map<String, String> properties = new HashMap<>();
+    properties.put("tier", "gold");
+    return TelemetryTemplate.create(null, tags, properties);
+  }
+
+  private static Map<String, String> getProperties(TelemetryItem telemetryItem) {
+    return ((TelemetryEventData) telemetryItem.getData().getBaseData()).getProperties();
+  }
+}
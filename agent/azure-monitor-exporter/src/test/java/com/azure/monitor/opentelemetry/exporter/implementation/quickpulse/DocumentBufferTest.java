@@ -0,0 +1,65 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.model.QuickPulseDocument;
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.model.QuickPulseRequestDocument;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DocumentBufferTest {
+
+  @Test
+  void shouldKeepAllDocumentsUntilFull() {
+    DocumentBuffer buffer = new DocumentBuffer(10);
+
+    for (int i = 0; i < 5; i++) {
+      assertThat(buffer.reserve()).isEqualTo(i);
+      buffer.set(i, createDocument(i));
+    }
+
+    assertThat(buffer.getDocuments())
+        .extracting(QuickPulseDocument::getOperationId)
+        .containsExactly("0", "1", "2", "3", "4");
+  }
+
+  @Test
+  void shouldSampleLateDocumentsOnceFull() {
+    DocumentBuffer buffer = new DocumentBuffer(10);
+
+    int built = 0;
+    for (int i = 0; i < 10000; i++) {
+      int slot = buffer.reserve();
+      if (slot != -1) {
+        buffer.set(slot, createDocument(i));
+        built++;
+      }
+    }
+
+    List<QuickPulseDocument> documents = buffer.getDocuments();
+    assertThat(documents).hasSize(10);
+    // only a small fraction of the documents are built once the buffer is full
+    assertThat(built).isLessThan(1000);
+    assertThat(documents).anyMatch(document -> Integer.parseInt(document.getOperationId()) >= 10);
+  }
+
+  @Test
+  void shouldSkipReservedButUnsetSlots() {
+    DocumentBuffer buffer = new DocumentBuffer(10);
+
+    buffer.reserve();
+    int slot = buffer.reserve();
+    buffer.set(slot, createDocument(1));
+
+    assertThat(buffer.getDocuments()).hasSize(1);
+  }
+
+  private static QuickPulseDocument createDocument(int i) {
+    QuickPulseRequestDocument document = new QuickPulseRequestDocument();
+    document.setOperationId(String.valueOf(i));
+    return document;
+  }
+}
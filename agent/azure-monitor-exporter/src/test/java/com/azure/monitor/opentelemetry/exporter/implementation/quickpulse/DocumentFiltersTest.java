@@ -0,0 +1,129 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.azure.monitor.opentelemetry.exporter.implementation.models.RemoteDependencyData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.RequestData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryExceptionData;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryExceptionDetails;
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.DocumentFilterGroup.Filter;
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.DocumentFilterGroup.Predicate;
+import com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.DocumentFilterGroup.TelemetryType;
+import java.util.Collections;
+import org.junit.jupiter.api.Test;
+
+class DocumentFiltersTest {
+
+  @Test
+  void shouldMatchEverythingWithoutFilterGroups() {
+    DocumentFilters filters = DocumentFilters.compile(emptyList());
+
+    assertThat(filters.matches(createRequest("/orders", "200", true), 10)).isTrue();
+    assertThat(filters.matches(new RemoteDependencyData(), 10)).isTrue();
+    assertThat(filters.matches(createException("boom"))).isTrue();
+  }
+
+  @Test
+  void shouldMatchConjunction() {
+    DocumentFilters filters =
+        DocumentFilters.compile(
+            singletonList(
+                new DocumentFilterGroup(
+                    TelemetryType.REQUEST,
+                    asList(
+                        new Filter("Success", Predicate.EQUAL, "false"),
+                        new Filter("Url", Predicate.CONTAINS, "/ORDERS"),
+                        new Filter("Duration", Predicate.GREATER_THAN, "100")))));
+
+    assertThat(filters.matches(createRequest("/api/orders/1", "500", false), 200)).isTrue();
+    assertThat(filters.matches(createRequest("/api/orders/1", "500", false), 50)).isFalse();
+    assertThat(filters.matches(createRequest("/api/orders/1", "200", true), 200)).isFalse();
+    assertThat(filters.matches(createRequest("/api/users/1", "500", false), 200)).isFalse();
+    // there are no groups for dependencies, so no dependency documents are needed
+    assertThat(filters.matches(new RemoteDependencyData(), 200)).isFalse();
+  }
+
+  @Test
+  void shouldMatchAnyGroup() {
+    DocumentFilters filters =
+        DocumentFilters.compile(
+            asList(
+                new DocumentFilterGroup(
+                    TelemetryType.REQUEST,
+                    singletonList(
+                        new Filter("ResponseCode", Predicate.GREATER_THAN_OR_EQUAL, "500"))),
+                new DocumentFilterGroup(
+                    TelemetryType.REQUEST,
+                    singletonList(new Filter("Url", Predicate.EQUAL, "/health"))),
+                new DocumentFilterGroup(TelemetryType.EXCEPTION, emptyList())));
+
+    assertThat(filters.matches(createRequest("/orders", "503", false), 0)).isTrue();
+    assertThat(filters.matches(createRequest("/HEALTH", "200", true), 0)).isTrue();
+    assertThat(filters.matches(createRequest("/orders", "200", true), 0)).isFalse();
+    assertThat(filters.matches(createRequest("/orders", "n/a", true), 0)).isFalse();
+    // empty group matches all exceptions
+    assertThat(filters.matches(createException("boom"))).isTrue();
+  }
+
+  @Test
+  void shouldMatchExceptionsAndCustomDimensions() {
+    DocumentFilters filters =
+        DocumentFilters.compile(
+            singletonList(
+                new DocumentFilterGroup(
+                    TelemetryType.EXCEPTION,
+                    asList(
+                        new Filter("Message", Predicate.DOES_NOT_CONTAIN, "timeout"),
+                        new Filter("CustomDimensions.tenant", Predicate.EQUAL, "contoso")))));
+
+    TelemetryExceptionData exception = createException("Connection refused");
+    exception.setProperties(Collections.singletonMap("tenant", "Contoso"));
+    assertThat(filters.matches(exception)).isTrue();
+
+    exception = createException("Read timeout");
+    exception.setProperties(Collections.singletonMap("tenant", "contoso"));
+    assertThat(filters.matches(exception)).isFalse();
+
+    assertThat(filters.matches(createException("Connection refused"))).isFalse();
+  }
+
+  @Test
+  void shouldRejectInvalidFilters() {
+    assertThatThrownBy(() -> compileRequestFilter(new Filter("Foo", Predicate.EQUAL, "x")))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(
+            () -> compileRequestFilter(new Filter("Duration", Predicate.LESS_THAN, "fast")))
+        .isInstanceOf(IllegalArgumentException.class);
+    assertThatThrownBy(
+            () -> compileRequestFilter(new Filter("Success", Predicate.GREATER_THAN, "true")))
+        .isInstanceOf(IllegalArgumentException.class);
+  }
+
+  private static DocumentFilters compileRequestFilter(Filter filter) {
+    return DocumentFilters.compile(
+        singletonList(new DocumentFilterGroup(TelemetryType.REQUEST, singletonList(filter))));
+  }
+
+  private static RequestData createRequest(String url, String responseCode, boolean success) {
+    RequestData request = new RequestData();
+    request.setUrl(url);
+    request.setResponseCode(responseCode);
+    request.setSuccess(success);
+    return request;
+  }
+
+  private static TelemetryExceptionData createException(String message) {
+    TelemetryExceptionDetails details = new TelemetryExceptionDetails();
+    details.setMessage(message);
+    TelemetryExceptionData exception = new TelemetryExceptionData();
+    exception.setExceptions(singletonList(details));
+    return exception;
+  }
+}
@@ -0,0 +1,66 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.assertj.core.api.Assertions.withinPercentage;
+
+import org.junit.jupiter.api.Test;
+
+class LatencyHistogramTest {
+
+  @Test
+  void shouldReportPercentiles() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000L);
+    }
+
+    LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+    assertThat(snapshot.getTotalCount()).isEqualTo(1000);
+    assertThat(snapshot.getValueAtPercentile(50)).isCloseTo(500, withinPercentage(4));
+    assertThat(snapshot.getValueAtPercentile(95)).isCloseTo(950, withinPercentage(4));
+    assertThat(snapshot.getValueAtPercentile(99)).isCloseTo(990, withinPercentage(4));
+  }
+
+  @Test
+  void shouldBeExactForSmallValues() {
+    for (int i = 0; i < 16; i++) {
+      assertThat(LatencyHistogram.getBucketValue(LatencyHistogram.getBucketIndex(i)))
+          .isEqualTo(i);
+    }
+  }
+
+  @Test
+  void shouldStayWithinRelativeError() {
+    for (long value = 1; value < 1L << 36; value = value * 3 + 1) {
+      double bucketValue = LatencyHistogram.getBucketValue(LatencyHistogram.getBucketIndex(value));
+      assertThat(bucketValue).isCloseTo(value, within(value / 16.0));
+    }
+  }
+
+  @Test
+  void shouldClampOutOfRangeValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    histogram.record(-1);
+    histogram.record(Long.MAX_VALUE);
+
+    assertThat(histogram.getSnapshot().getTotalCount()).isEqualTo(2);
+  }
+
+  @Test
+  void shouldReset() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(1000);
+
+    histogram.reset();
+
+    LatencyHistogram.Snapshot snapshot = histogram.getSnapshot();
+    assertThat(snapshot.getTotalCount()).isEqualTo(0);
+    assertThat(snapshot.getValueAtPercentile(99)).isEqualTo(0);
+  }
+}
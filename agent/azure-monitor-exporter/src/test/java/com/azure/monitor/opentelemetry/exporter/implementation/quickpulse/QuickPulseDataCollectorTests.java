@@ -5,6 +5,7 @@ package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
 
 import static com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.QuickPulseTestBase.createRemoteDependencyTelemetry;
 import static com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.QuickPulseTestBase.createRequestTelemetry;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.azure.monitor.opentelemetry.exporter.implementation.builders.ExceptionTelemetryBuilder;
@@ -251,4 +252,23 @@ class QuickPulseDataCollectorTests {
     // no telemetry items are added when QP_IS_OFF
     assertThat(collector.getAndRestart().documentList.size()).isEqualTo(0);
   }
+
+  @Test
+  void countersOnlyWhenDocumentsDisabled() {
+    QuickPulseDataCollector collector = new QuickPulseDataCollector(true);
+
+    collector.setQuickPulseStatus(QuickPulseStatus.QP_IS_ON);
+    collector.enable(FAKE_CONNECTION_STRING::getInstrumentationKey);
+    collector.setDocumentsEnabled(false);
+
+    TelemetryItem telemetry =
+        createRequestTelemetry("request-test", new Date(), 112233L, "200", true);
+    telemetry.setConnectionString(FAKE_CONNECTION_STRING);
+    collector.add(telemetry, MILLISECONDS.toNanos(500));
+    QuickPulseDataCollector.FinalCounters counters = collector.getAndRestart();
+    assertThat(counters.requests).isEqualTo(1);
+    // the raw duration takes precedence over the formatted duration
+    assertThat(counters.requestsDuration).isEqualTo(500.0);
+    assertThat(counters.documentList).isEmpty();
+  }
 }
@@ -3,17 +3,26 @@
 
 package com.azure.monitor.opentelemetry.exporter.implementation.quickpulse;
 
+import static com.azure.monitor.opentelemetry.exporter.implementation.quickpulse.QuickPulseTestBase.createRequestTelemetry;
 import static org.assertj.core.api.Assertions.assertThat;
 
 import com.azure.core.http.HttpHeaders;
 import com.azure.core.http.HttpPipeline;
 import com.azure.core.http.HttpPipelineBuilder;
+import com.azure.core.http.HttpRequest;
+import com.azure.core.util.FluxUtil;
 import com.azure.monitor.opentelemetry.exporter.implementation.MockHttpResponse;
 import com.azure.monitor.opentelemetry.exporter.implementation.configuration.ConnectionString;
+import com.azure.monitor.opentelemetry.exporter.implementation.models.TelemetryItem;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
 import org.junit.jupiter.api.Test;
 import reactor.core.publisher.Mono;
 
@@ -31,7 +40,8 @@ class QuickPulseDataFetcherTests {
             null,
             null,
             null,
-            null);
+            null,
+            QuickPulseStats.noop());
     String sdkVersion = dataFetcher.getCurrentSdkVersion();
     assertThat(sdkVersion).isNotNull();
     assertThat(sdkVersion).isNotEqualTo("java:unknown");
@@ -49,7 +59,8 @@ class QuickPulseDataFetcherTests {
             null,
             null,
             null,
-            null);
+            null,
+            QuickPulseStats.noop());
     String quickPulseEndpoint = quickPulseDataFetcher.getQuickPulseEndpoint();
     String endpointUrl = quickPulseDataFetcher.getEndpointUrl(quickPulseEndpoint);
     URI uri = new URI(endpointUrl);
@@ -71,7 +82,8 @@ class QuickPulseDataFetcherTests {
             null,
             null,
             null,
-            null);
+            null,
+            QuickPulseStats.noop());
     String quickPulseEndpoint = quickPulseDataFetcher.getQuickPulseEndpoint();
     String endpointUrl = quickPulseDataFetcher.getEndpointUrl(quickPulseEndpoint);
     URI uri = new URI(endpointUrl);
@@ -109,4 +121,86 @@ class QuickPulseDataFetcherTests {
     assertThat("https://new.endpoint.com")
         .isEqualTo(quickPulseHeaderInfo.getQpsServiceEndpointRedirect());
   }
+
+  @Test
+  void postBodiesAreNotOverwrittenByLaterPosts() {
+    ConnectionString connectionString = ConnectionString.parse("InstrumentationKey=testing-123");
+    QuickPulseDataCollector collector = new QuickPulseDataCollector(true);
+    ArrayBlockingQueue<HttpRequest> sendQueue = new ArrayBlockingQueue<>(256, true);
+    List<Integer> postSizes = new ArrayList<>();
+    QuickPulseDataFetcher dataFetcher =
+        createDataFetcher(connectionString, collector, sendQueue, postSizes::add);
+
+    collector.setQuickPulseStatus(QuickPulseStatus.QP_IS_ON);
+    collector.enable(connectionString::getInstrumentationKey);
+    TelemetryItem telemetry = createRequestTelemetry("request-test", new Date(), 1234, "200", true);
+    telemetry.setConnectionString(connectionString);
+    collector.add(telemetry);
+    dataFetcher.prepareQuickPulseDataForSend(null);
+    // second post doesn't contain any documents
+    dataFetcher.prepareQuickPulseDataForSend(null);
+
+    assertThat(sendQueue).hasSize(2);
+    HttpRequest firstRequest = sendQueue.remove();
+    String first = getBody(firstRequest);
+    String second = getBody(sendQueue.remove());
+    int firstSize = first.getBytes(StandardCharsets.UTF_8).length;
+    assertThat(firstRequest.getHeaders().getValue("Content-Length"))
+        .isEqualTo(Integer.toString(firstSize));
+    assertThat(first).contains("\"Name\":\"request-test\"");
+    assertThat(second).doesNotContain("request-test");
+    assertThat(postSizes)
+        .containsExactly(firstSize, second.getBytes(StandardCharsets.UTF_8).length);
+  }
+
+  @Test
+  void postBufferShrinksAfterBurst() {
+    ConnectionString connectionString = ConnectionString.parse("InstrumentationKey=testing-123");
+    QuickPulseDataCollector collector = new QuickPulseDataCollector(true);
+    ArrayBlockingQueue<HttpRequest> sendQueue = new ArrayBlockingQueue<>(256, true);
+    QuickPulseDataFetcher dataFetcher =
+        createDataFetcher(connectionString, collector, sendQueue, QuickPulseStats.noop());
+
+    collector.setQuickPulseStatus(QuickPulseStatus.QP_IS_ON);
+    collector.enable(connectionString::getInstrumentationKey);
+    // a burst of documents that is much larger than the following posts
+    for (int i = 0; i < 100; i++) {
+      TelemetryItem telemetry =
+          createRequestTelemetry("request-test-" + i, new Date(), 1234, "200", true);
+      telemetry.setConnectionString(connectionString);
+      collector.add(telemetry);
+    }
+    dataFetcher.prepareQuickPulseDataForSend(null);
+    assertThat(dataFetcher.getPostBufferPeakSize()).isGreaterThan(8192);
+
+    for (int i = 0; i < 59; i++) {
+      dataFetcher.prepareQuickPulseDataForSend(null);
+    }
+    assertThat(dataFetcher.getPostBufferPeakSize()).isGreaterThan(8192);
+
+    dataFetcher.prepareQuickPulseDataForSend(null);
+    assertThat(dataFetcher.getPostBufferPeakSize()).isZero();
+  }
+
+  private static QuickPulseDataFetcher createDataFetcher(
+      ConnectionString connectionString,
+      QuickPulseDataCollector collector,
+      ArrayBlockingQueue<HttpRequest> sendQueue,
+      QuickPulseStats stats) {
+    return new QuickPulseDataFetcher(
+        collector,
+        sendQueue,
+        connectionString::getLiveEndpoint,
+        connectionString::getInstrumentationKey,
+        null,
+        "instance1",
+        "machine1",
+        null,
+        stats);
+  }
+
+  private static String getBody(HttpRequest request) {
+    byte[] body = FluxUtil.collectBytesInByteBufferStream(request.getBody()).block();
+    return new String(body, StandardCharsets.UTF_8);
+  }
 }
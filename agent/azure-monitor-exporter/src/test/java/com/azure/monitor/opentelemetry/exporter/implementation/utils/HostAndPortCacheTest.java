@@ -0,0 +1,25 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class HostAndPortCacheTest {
+
+  @Test
+  void shouldReturnCachedHostAndPort() {
+    HostAndPortCache cache = new HostAndPortCache(16);
+
+    String first = cache.get("example.com", 8080);
+    String second = cache.get("example.com", 8080);
+
+    assertThat(first).isEqualTo("example.com:8080");
+    assertThat(second).isSameAs(first);
+    assertThat(cache.get("example.com", 8081)).isEqualTo("example.com:8081");
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(2);
+  }
+}
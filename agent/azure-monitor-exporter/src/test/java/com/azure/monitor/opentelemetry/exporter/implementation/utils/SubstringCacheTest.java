@@ -0,0 +1,41 @@
+// Copyright (c) Microsoft Corporation. All rights reserved.
+// Licensed under the MIT License.
+
+package com.azure.monitor.opentelemetry.exporter.implementation.utils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class SubstringCacheTest {
+
+  @Test
+  void shouldReturnCachedSubstring() {
+    SubstringCache cache = new SubstringCache(16);
+
+    String first = cache.get("https://example.com/one", 8, 19);
+    String second = cache.get("https://example.com/two?q=1", 8, 19);
+
+    assertThat(first).isEqualTo("example.com");
+    assertThat(second).isSameAs(first);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+  }
+
+  @Test
+  void shouldNotConfuseDifferentSubstrings() {
+    SubstringCache cache = new SubstringCache(2);
+
+    for (int i = 0; i < 100; i++) {
+      String host = "host" + i;
+      assertThat(cache.get("http://" + host + "/path", 7, 7 + host.length())).isEqualTo(host);
+    }
+  }
+
+  @Test
+  void shouldReturnEmptyString() {
+    SubstringCache cache = new SubstringCache(16);
+
+    assertThat(cache.get("abc", 1, 1)).isEmpty();
+  }
+}
@@ -19,15 +19,23 @@ import io.micrometer.core.instrument.TimeGauge;
 import io.micrometer.core.instrument.Timer;
 import io.micrometer.core.instrument.step.StepMeterRegistry;
 import io.micrometer.core.lang.Nullable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class AzureMonitorMeterRegistry extends StepMeterRegistry {
 
   public static final AzureMonitorMeterRegistry INSTANCE =
       new AzureMonitorMeterRegistry(Clock.SYSTEM);
 
+  // the converted name and the properties don't change for the lifetime of a meter, and computing
+  // them on every publish is the main cost of publishing when there are thousands of meters
+  private final Map<Meter.Id, MeterMetadata> metadataCache = new ConcurrentHashMap<>();
+  private final AtomicLong publishGeneration = new AtomicLong();
+
   // visible for testing
   public AzureMonitorMeterRegistry(Clock clock) {
     super(new AzureMonitorRegistryConfig(), clock);
@@ -42,43 +50,59 @@ public class AzureMonitorMeterRegistry extends StepMeterRegistry {
 
   @Override
   protected void publish() {
+    long generation = publishGeneration.incrementAndGet();
     for (Meter meter : getMeters()) {
+      MeterMetadata metadata = getMetadata(meter, generation);
       if (meter instanceof TimeGauge) {
-        trackTimeGauge((TimeGauge) meter);
+        trackTimeGauge((TimeGauge) meter, metadata);
       } else if (meter instanceof Gauge) {
-        trackGauge((Gauge) meter);
+        trackGauge((Gauge) meter, metadata);
       } else if (meter instanceof Counter) {
-        trackCounter((Counter) meter);
+        trackCounter((Counter) meter, metadata);
       } else if (meter instanceof Timer) {
-        trackTimer((Timer) meter);
+        trackTimer((Timer) meter, metadata);
       } else if (meter instanceof DistributionSummary) {
-        trackDistributionSummary((DistributionSummary) meter);
+        trackDistributionSummary((DistributionSummary) meter, metadata);
       } else if (meter instanceof LongTaskTimer) {
-        trackLongTaskTimer((LongTaskTimer) meter);
+        trackLongTaskTimer((LongTaskTimer) meter, metadata);
       } else if (meter instanceof FunctionCounter) {
-        trackFunctionCounter((FunctionCounter) meter);
+        trackFunctionCounter((FunctionCounter) meter, metadata);
       } else if (meter instanceof FunctionTimer) {
-        trackFunctionTimer((FunctionTimer) meter);
+        trackFunctionTimer((FunctionTimer) meter, metadata);
       } else {
-        trackMeter(meter);
+        trackMeter(meter, metadata);
       }
     }
+    // meters that were not published in this round have been removed from the registry
+    // (this doesn't rely on meter removal listeners, which are not available in micrometer 1.0)
+    metadataCache.values().removeIf(metadata -> metadata.generation != generation);
+  }
+
+  private MeterMetadata getMetadata(Meter meter, long generation) {
+    Meter.Id meterId = meter.getId();
+    MeterMetadata metadata = metadataCache.get(meterId);
+    if (metadata == null) {
+      metadata = new MeterMetadata(getName(meterId, null), getProperties(meterId));
+      metadataCache.put(meterId, metadata);
+    }
+    metadata.generation = generation;
+    return metadata;
   }
 
-  private void trackTimeGauge(TimeGauge gauge) {
+  private void trackTimeGauge(TimeGauge gauge, MeterMetadata metadata) {
     trackMetric(
-        getName(gauge), gauge.value(getBaseTimeUnit()), null, null, null, getProperties(gauge));
+        metadata.name, gauge.value(getBaseTimeUnit()), null, null, null, metadata.properties);
   }
 
-  private void trackGauge(Gauge gauge) {
-    trackMetric(getName(gauge), gauge.value(), null, null, null, getProperties(gauge));
+  private static void trackGauge(Gauge gauge, MeterMetadata metadata) {
+    trackMetric(metadata.name, gauge.value(), null, null, null, metadata.properties);
   }
 
-  private void trackCounter(Counter counter) {
-    trackMetric(getName(counter), counter.count(), null, null, null, getProperties(counter));
+  private static void trackCounter(Counter counter, MeterMetadata metadata) {
+    trackMetric(metadata.name, counter.count(), null, null, null, metadata.properties);
   }
 
-  private void trackTimer(Timer timer) {
+  private void trackTimer(Timer timer, MeterMetadata metadata) {
     long count = timer.count();
     if (count == 0) {
       // important not to send explicit count of 0 because breeze converts that to 1
@@ -86,15 +110,16 @@ public class AzureMonitorMeterRegistry extends StepMeterRegistry {
     }
     // min is not supported, see https://github.com/micrometer-metrics/micrometer/issues/457
     trackMetric(
-        getName(timer),
+        metadata.name,
         timer.totalTime(getBaseTimeUnit()),
         castCountToInt(count),
         null,
         timer.max(getBaseTimeUnit()),
-        getProperties(timer));
+        metadata.properties);
   }
 
-  private void trackDistributionSummary(DistributionSummary summary) {
+  private static void trackDistributionSummary(
+      DistributionSummary summary, MeterMetadata metadata) {
     long count = summary.count();
     if (count == 0) {
       // important not to send explicit count of 0 because breeze converts that to 1
@@ -102,64 +127,66 @@ public class AzureMonitorMeterRegistry extends StepMeterRegistry {
     }
     // min is not supported, see https://github.com/micrometer-metrics/micrometer/issues/457
     trackMetric(
-        getName(summary),
+        metadata.name,
         summary.totalAmount(),
         castCountToInt(count),
         null,
         summary.max(),
-        getProperties(summary));
+        metadata.properties);
   }
 
-  private void trackLongTaskTimer(LongTaskTimer timer) {
-    Map<String, String> properties = getProperties(timer);
-    trackMetric(getName(timer, "active"), timer.activeTasks(), null, null, null, properties);
+  private void trackLongTaskTimer(LongTaskTimer timer, MeterMetadata metadata) {
+    Meter.Id meterId = timer.getId();
     trackMetric(
-        getName(timer, "duration"),
+        metadata.getSuffixedName(this, meterId, "active"),
+        timer.activeTasks(),
+        null,
+        null,
+        null,
+        metadata.properties);
+    trackMetric(
+        metadata.getSuffixedName(this, meterId, "duration"),
         timer.duration(getBaseTimeUnit()),
         null,
         null,
         null,
-        properties);
+        metadata.properties);
   }
 
-  private void trackFunctionCounter(FunctionCounter counter) {
-    trackMetric(getName(counter), counter.count(), null, null, null, getProperties(counter));
+  private static void trackFunctionCounter(FunctionCounter counter, MeterMetadata metadata) {
+    trackMetric(metadata.name, counter.count(), null, null, null, metadata.properties);
   }
 
-  private void trackFunctionTimer(FunctionTimer timer) {
+  private void trackFunctionTimer(FunctionTimer timer, MeterMetadata metadata) {
     double count = timer.count();
     if (count == 0) {
       // important not to send explicit count of 0 because breeze converts that to 1
       return;
     }
     trackMetric(
-        getName(timer),
+        metadata.name,
         timer.totalTime(getBaseTimeUnit()),
         castCountToInt(count),
         null,
         null,
-        getProperties(timer));
+        metadata.properties);
   }
 
-  private void trackMeter(Meter meter) {
-    Map<String, String> properties = getProperties(meter);
+  private void trackMeter(Meter meter, MeterMetadata metadata) {
+    Meter.Id meterId = meter.getId();
     for (Measurement measurement : meter.measure()) {
       trackMetric(
-          getName(meter, measurement.getStatistic().toString().toLowerCase()),
+          metadata.getSuffixedName(
+              this, meterId, measurement.getStatistic().toString().toLowerCase()),
           measurement.getValue(),
           null,
           null,
           null,
-          properties);
+          metadata.properties);
     }
   }
 
-  private String getName(Meter meter) {
-    return getName(meter, null);
-  }
-
-  private String getName(Meter meter, @Nullable String suffix) {
-    Meter.Id meterId = meter.getId();
+  private String getName(Meter.Id meterId, @Nullable String suffix) {
     return config()
         .namingConvention()
         .name(
@@ -168,12 +195,13 @@ public class AzureMonitorMeterRegistry extends StepMeterRegistry {
             meterId.getBaseUnit());
   }
 
-  private Map<String, String> getProperties(Meter meter) {
+  private Map<String, String> getProperties(Meter.Id meterId) {
     Map<String, String> properties = new HashMap<>();
-    for (Tag tag : getConventionTags(meter.getId())) {
+    for (Tag tag : getConventionTags(meterId)) {
       properties.put(tag.getKey(), tag.getValue());
     }
-    return properties;
+    // shared across publishes, and only read by the delegate
+    return Collections.unmodifiableMap(properties);
   }
 
   private static int castCountToInt(long count) {
@@ -183,4 +211,30 @@ public class AzureMonitorMeterRegistry extends StepMeterRegistry {
   private static int castCountToInt(double count) {
     return count < Integer.MAX_VALUE ? (int) count : Integer.MAX_VALUE;
   }
+
+  private static class MeterMetadata {
+
+    private final String name;
+    private final Map<String, String> properties;
+    // only used by long task timers and custom meters, which publish one metric per statistic
+    private final Map<String, String> suffixedNames = new ConcurrentHashMap<>();
+
+    // the last publish that included the meter
+    private volatile long generation;
+
+    private MeterMetadata(String name, Map<String, String> properties) {
+      this.name = name;
+      this.properties = properties;
+    }
+
+    private String getSuffixedName(
+        AzureMonitorMeterRegistry registry, Meter.Id meterId, String suffix) {
+      String suffixedName = suffixedNames.get(suffix);
+      if (suffixedName == null) {
+        suffixedName = registry.getName(meterId, suffix);
+        suffixedNames.put(suffix, suffixedName);
+      }
+      return suffixedName;
+    }
+  }
 }
@@ -0,0 +1,31 @@
+plugins {
+  id("me.champeau.jmh")
+  id("io.morethan.jmhreport")
+}
+
+dependencies {
+  jmh("org.openjdk.jmh:jmh-core")
+  jmh("org.openjdk.jmh:jmh-generator-bytecode")
+}
+
+// invoke jmh on a single benchmark class like so:
+//   ./gradlew -PjmhIncludeSingleClass=SpanPipelineBenchmark :agent:agent-tooling:jmh
+jmh {
+  failOnError.set(true)
+  resultFormat.set("JSON")
+  val jmhIncludeSingleClass: String? by project
+  if (jmhIncludeSingleClass != null) {
+    includes.add(jmhIncludeSingleClass as String)
+  }
+}
+
+jmhReport {
+  jmhResultPath = file("$buildDir/results/jmh/results.json").absolutePath
+  jmhReportOutput = file("$buildDir/results/jmh").absolutePath
+}
+
+tasks {
+  named("jmh") {
+    finalizedBy(named("jmhReport"))
+  }
+}